@@ -0,0 +1,201 @@
+package org.wordpress.android.database;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.datasets.ColumnIndexMap;
+import org.wordpress.android.datasets.ReaderDatabase;
+import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.models.ReaderTag;
+import org.wordpress.android.models.ReaderTagType;
+import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
+import org.wordpress.android.ui.reader.models.ReaderPostDiff;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.SqlUtils;
+
+public class ReaderPostTableTest extends InstrumentationTestCase {
+    private static final int POST_COUNT = 200;
+    private static final int BENCHMARK_ITERATIONS = 20;
+    private static final long TEST_BLOG_ID = 9999001;
+    private static final int[] DIFF_BENCHMARK_SIZES = {20, 40, 200};
+
+    private final ReaderTag mTag = new ReaderTag("reader-post-table-test", ReaderTagType.FOLLOWED);
+
+    private static ReaderPost createPost(long postId) {
+        ReaderPost post = new ReaderPost();
+        post.blogId = TEST_BLOG_ID;
+        post.postId = postId;
+        post.timestamp = postId;
+        post.setTitle("Post " + postId);
+        post.setText("<p>Text of post " + postId + "</p>");
+        post.setExcerpt("Excerpt of post " + postId);
+        return post;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ReaderPostList posts = new ReaderPostList();
+        for (int i = 1; i <= POST_COUNT; i++) {
+            posts.add(createPost(i));
+        }
+        ReaderPostTable.addOrUpdatePosts(mTag, posts);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ReaderPostTable.deletePostsWithTag(mTag);
+        ReaderPostTable.deletePostsInBlog(TEST_BLOG_ID);
+        super.tearDown();
+    }
+
+    public void testColumnIndexMapMatchesCursor() {
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT * FROM tbl_posts LIMIT 1", null);
+        try {
+            ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
+            for (String name : c.getColumnNames()) {
+                assertEquals(c.getColumnIndex(name), columns.get(name));
+                assertEquals(c.getColumnIndex("tbl_posts." + name), columns.get("tbl_posts." + name));
+            }
+            assertEquals(-1, columns.get("no_such_column"));
+            // the same column set shares the same map
+            assertSame(columns, ColumnIndexMap.forCursor(c));
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    public void testColumnIndexMapDuplicateColumns() {
+        Cursor c = new MatrixCursor(new String[]{"post_id", "title", "post_id"});
+        try {
+            ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
+            assertEquals(c.getColumnIndex("post_id"), columns.get("post_id"));
+            assertEquals(0, columns.get("post_id"));
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    public void testGetPostsWithTag() {
+        ReaderPostList posts = ReaderPostTable.getPostsWithTag(mTag, 0, true);
+        assertEquals(POST_COUNT, posts.size());
+        // newest first
+        assertEquals(POST_COUNT, posts.get(0).postId);
+        assertEquals("Post " + POST_COUNT, posts.get(0).getTitle());
+        assertFalse(posts.get(0).hasText());
+    }
+
+    /*
+     * compares looking up every mapped column by name on each row, as the mappers used to do, with the
+     * ColumnIndexMap they now use, then times the whole getPostsWithTag() query
+     */
+    public void testGetPostsWithTagBenchmark() {
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT * FROM tbl_posts WHERE blog_id=?",
+                new String[]{Long.toString(TEST_BLOG_ID)});
+        try {
+            String[] names = c.getColumnNames();
+            int rows = c.getCount();
+            long sum = 0;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                for (c.moveToFirst(); !c.isAfterLast(); c.moveToNext()) {
+                    for (String name : names) {
+                        sum += c.getColumnIndex(name);
+                    }
+                }
+            }
+            long getColumnIndexNs = (System.nanoTime() - start) / (BENCHMARK_ITERATIONS * rows);
+
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
+                for (c.moveToFirst(); !c.isAfterLast(); c.moveToNext()) {
+                    for (String name : names) {
+                        sum -= columns.get(name);
+                    }
+                }
+            }
+            long columnIndexMapNs = (System.nanoTime() - start) / (BENCHMARK_ITERATIONS * rows);
+            assertEquals(0, sum);
+
+            AppLog.i(T.TESTS, "column lookups per row (" + names.length + " columns): getColumnIndex "
+                    + getColumnIndexNs + " ns, ColumnIndexMap " + columnIndexMapNs + " ns");
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            assertEquals(POST_COUNT, ReaderPostTable.getPostsWithTag(mTag, 0, true).size());
+        }
+        long perRowNs = (System.nanoTime() - start) / (BENCHMARK_ITERATIONS * POST_COUNT);
+        AppLog.i(T.TESTS, "getPostsWithTag: " + perRowNs + " ns per row");
+    }
+
+    public void testDiffPosts() {
+        ReaderPostList posts = new ReaderPostList();
+        posts.add(createPost(1));
+        ReaderPost changedPost = createPost(2);
+        changedPost.numLikes = 5;
+        posts.add(changedPost);
+        posts.add(createPost(POST_COUNT + 1));
+        // same post id in another blog is a new post
+        ReaderPost otherBlogPost = createPost(3);
+        otherBlogPost.blogId = TEST_BLOG_ID + 1;
+        posts.add(otherBlogPost);
+
+        ReaderPostDiff diff = ReaderPostTable.diffPosts(posts);
+        assertEquals(2, diff.getNewPosts().size());
+        assertEquals(1, diff.getChangedPosts().size());
+        assertEquals(2, diff.getChangedPosts().get(0).postId);
+        assertEquals(1, diff.getUnchangedPosts().size());
+        assertEquals(UpdateResult.HAS_NEW, diff.getUpdateResult());
+        assertTrue(diff.hasOverlap());
+
+        ReaderPostList newPosts = new ReaderPostList();
+        newPosts.add(createPost(POST_COUNT + 1));
+        assertFalse(ReaderPostTable.hasOverlap(newPosts));
+        assertEquals(UpdateResult.UNCHANGED, ReaderPostTable.comparePosts(new ReaderPostList()));
+    }
+
+    /*
+     * compares looking up each post on its own, as comparePosts() and hasOverlap() used to do, with diffPosts()
+     */
+    public void testDiffPostsBenchmark() {
+        for (int size : DIFF_BENCHMARK_SIZES) {
+            ReaderPostList posts = new ReaderPostList();
+            for (int i = 1; i <= size; i++) {
+                // the last half are new posts
+                posts.add(createPost(i <= size / 2 ? i : POST_COUNT + i));
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                for (ReaderPost post : posts) {
+                    ReaderPost existingPost = ReaderPostTable.getPost(post.blogId, post.postId, true);
+                    if (existingPost != null) {
+                        post.isSamePost(existingPost);
+                    }
+                }
+                for (ReaderPost post : posts) {
+                    ReaderPostTable.postExists(post.blogId, post.postId);
+                }
+            }
+            long perPostUs = (System.nanoTime() - start) / (1000 * BENCHMARK_ITERATIONS * size);
+
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                assertEquals(size / 2, ReaderPostTable.diffPosts(posts).getNewPosts().size());
+            }
+            long diffUs = (System.nanoTime() - start) / (1000 * BENCHMARK_ITERATIONS * size);
+
+            AppLog.i(T.TESTS, "compare " + size + " posts: per post lookups " + perPostUs
+                    + " us/post, diffPosts " + diffUs + " us/post");
+        }
+    }
+}
@@ -1,10 +1,30 @@
 package org.wordpress.android.database;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.test.InstrumentationTestCase;
 import android.test.RenamingDelegatingContext;
 
+import org.wordpress.android.TestUtils;
+import org.wordpress.android.WordPress;
+import org.wordpress.android.WordPressDB;
+import org.wordpress.android.models.MediaUploadState;
+import org.wordpress.android.models.Post;
+import org.wordpress.android.models.PostsListPostList;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.helpers.MediaFile;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class WordPressDBTest extends InstrumentationTestCase {
+    private static final int LOCAL_BLOG_ID = 1;
+    private static final int BENCHMARK_POST_COUNT = 1000;
+
     protected Context testContext;
     protected Context targetContext;
 
@@ -14,4 +34,169 @@ public class WordPressDBTest extends InstrumentationTestCase {
         targetContext = new RenamingDelegatingContext(getInstrumentation().getTargetContext(), "test_");
         testContext = getInstrumentation().getContext();
     }
+
+    private static Map<String, Object> createPostMap(int remotePostId, String title) {
+        Map<String, Object> post = new HashMap<>();
+        post.put("postid", String.valueOf(remotePostId));
+        post.put("title", title);
+        post.put("description", "<p>Content of post " + remotePostId + "</p>");
+        post.put("dateCreated", new Date());
+        post.put("date_created_gmt", new Date());
+        post.put("post_status", "publish");
+        post.put("categories", new Object[]{"Uncategorized"});
+        Map<String, Object> customField = new HashMap<>();
+        customField.put("key", "geo_latitude");
+        customField.put("value", "48.85");
+        post.put("custom_fields", new Object[]{customField});
+        return post;
+    }
+
+    private static List<Object> createPostMaps(int count, String title) {
+        List<Object> posts = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            posts.add(createPostMap(i, title + " " + i));
+        }
+        return posts;
+    }
+
+    public void testSavePostsKeepsLocalChanges() {
+        TestUtils.loadDBFromDump(targetContext, testContext, "empty_tables.sql");
+
+        WordPress.wpDB.savePosts(createPostMaps(2, "remote"), LOCAL_BLOG_ID, false, false);
+        PostsListPostList posts = WordPress.wpDB.getPostsListPosts(LOCAL_BLOG_ID, false);
+        assertEquals(2, posts.size());
+
+        Post editedPost = WordPress.wpDB.getPostForLocalTablePostId(posts.get(0).getPostId());
+        editedPost.setTitle("edited locally");
+        editedPost.setLocalChange(true);
+        WordPress.wpDB.updatePost(editedPost);
+
+        // sync again without overwriting, the edited post must be left alone and not duplicated
+        WordPress.wpDB.savePosts(createPostMaps(2, "synced"), LOCAL_BLOG_ID, false, false);
+        assertEquals(2, WordPress.wpDB.getPostsListPosts(LOCAL_BLOG_ID, false).size());
+        Post post = WordPress.wpDB.getPostForLocalTablePostId(editedPost.getLocalTablePostId());
+        assertEquals("edited locally", post.getTitle());
+        assertTrue(post.isLocalChange());
+
+        WordPress.wpDB.savePosts(createPostMaps(2, "overwritten"), LOCAL_BLOG_ID, false, true);
+        assertEquals(2, WordPress.wpDB.getPostsListPosts(LOCAL_BLOG_ID, false).size());
+        post = WordPress.wpDB.getPostForLocalTablePostId(editedPost.getLocalTablePostId());
+        assertTrue(post.getTitle().startsWith("overwritten"));
+        assertFalse(post.isLocalChange());
+    }
+
+    /*
+     * a local draft uploaded as a post a sync has already stored takes that post's place instead of failing the
+     * unique remote post index
+     */
+    public void testUpdatePostReplacesSyncedCopy() {
+        TestUtils.loadDBFromDump(targetContext, testContext, "empty_tables.sql");
+
+        Post draft = new Post(LOCAL_BLOG_ID, false);
+        draft.setTitle("local draft");
+        draft.setLocalDraft(true);
+        WordPress.wpDB.savePost(draft);
+
+        WordPress.wpDB.savePosts(createPostMaps(2, "synced"), LOCAL_BLOG_ID, false, false);
+        assertEquals(3, WordPress.wpDB.getPostsListPosts(LOCAL_BLOG_ID, false).size());
+
+        // the upload returns the id of a post the sync already inserted
+        draft.setRemotePostId("1");
+        draft.setLocalDraft(false);
+        assertEquals(1, WordPress.wpDB.updatePost(draft));
+
+        assertEquals(2, WordPress.wpDB.getPostsListPosts(LOCAL_BLOG_ID, false).size());
+        Post post = WordPress.wpDB.getPostForLocalTablePostId(draft.getLocalTablePostId());
+        assertEquals("local draft", post.getTitle());
+        assertEquals("1", post.getRemotePostId());
+    }
+
+    /*
+     * changes made to a synced copy of the post a local draft has just been uploaded as stay attached to that remote
+     * post, rather than being detached into another local draft which would be uploaded as a new post
+     */
+    public void testUpdatePostKeepsChangedCopyAttached() {
+        TestUtils.loadDBFromDump(targetContext, testContext, "empty_tables.sql");
+
+        Post draft = new Post(LOCAL_BLOG_ID, false);
+        draft.setTitle("local draft");
+        draft.setLocalDraft(true);
+        WordPress.wpDB.savePost(draft);
+
+        WordPress.wpDB.savePosts(createPostMaps(1, "synced"), LOCAL_BLOG_ID, false, false);
+        long syncedPostId = WordPress.wpDB.getPostsListPosts(LOCAL_BLOG_ID, false).get(0).getPostId();
+        if (syncedPostId == draft.getLocalTablePostId()) {
+            syncedPostId = WordPress.wpDB.getPostsListPosts(LOCAL_BLOG_ID, false).get(1).getPostId();
+        }
+        Post editedCopy = WordPress.wpDB.getPostForLocalTablePostId(syncedPostId);
+        editedCopy.setTitle("edited copy");
+        editedCopy.setLocalChange(true);
+        WordPress.wpDB.updatePost(editedCopy);
+
+        draft.setRemotePostId("1");
+        draft.setLocalDraft(false);
+        assertEquals(1, WordPress.wpDB.updatePost(draft));
+        assertTrue(draft.isLocalChange());
+
+        PostsListPostList posts = WordPress.wpDB.getPostsListPosts(LOCAL_BLOG_ID, false);
+        assertEquals(1, posts.size());
+        Post post = WordPress.wpDB.getPostForLocalTablePostId(draft.getLocalTablePostId());
+        assertEquals("edited copy", post.getTitle());
+        assertEquals("1", post.getRemotePostId());
+        assertFalse(post.isLocalDraft());
+        assertTrue(post.isLocalChange());
+    }
+
+    /*
+     * uploads interrupted by the app being killed are queued again, the files which reached the server aren't
+     */
+    public void testRequeueInterruptedMediaUploads() {
+        TestUtils.loadDBFromDump(targetContext, testContext, "empty_tables.sql");
+        String blogId = String.valueOf(LOCAL_BLOG_ID);
+        saveMediaFile(blogId, "1", MediaUploadState.UPLOADED);
+        saveMediaFile(blogId, "2", MediaUploadState.UPLOADING);
+        saveMediaFile(blogId, "3", MediaUploadState.QUEUED);
+
+        WordPress.wpDB.requeueInterruptedMediaUploads();
+
+        List<String> queuedIds = new ArrayList<>();
+        Cursor cursor = WordPress.wpDB.getMediaUploadQueue(blogId);
+        try {
+            while (cursor.moveToNext()) {
+                queuedIds.add(cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_MEDIA_ID)));
+            }
+        } finally {
+            cursor.close();
+        }
+        assertEquals(2, queuedIds.size());
+        assertTrue(queuedIds.contains("2"));
+        assertTrue(queuedIds.contains("3"));
+    }
+
+    private static void saveMediaFile(String blogId, String mediaId, MediaUploadState uploadState) {
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setBlogId(blogId);
+        mediaFile.setMediaId(mediaId);
+        mediaFile.setFilePath("/sdcard/image" + mediaId + ".jpg");
+        mediaFile.setUploadState(uploadState.toString());
+        WordPress.wpDB.saveMediaFile(mediaFile);
+    }
+
+    public void testSavePostsBenchmark() {
+        TestUtils.loadDBFromDump(targetContext, testContext, "empty_tables.sql");
+        List<Object> posts = createPostMaps(BENCHMARK_POST_COUNT, "post");
+
+        // first sync inserts every post, the second one updates them
+        long start = System.nanoTime();
+        WordPress.wpDB.savePosts(posts, LOCAL_BLOG_ID, false, false);
+        long insertUs = (System.nanoTime() - start) / 1000;
+
+        start = System.nanoTime();
+        WordPress.wpDB.savePosts(posts, LOCAL_BLOG_ID, false, false);
+        long updateUs = (System.nanoTime() - start) / 1000;
+
+        assertEquals(BENCHMARK_POST_COUNT, WordPress.wpDB.getPostsListPosts(LOCAL_BLOG_ID, false).size());
+        AppLog.i(T.TESTS, "savePosts " + BENCHMARK_POST_COUNT + " posts: insert " + insertUs / BENCHMARK_POST_COUNT
+                + " us/post, update " + updateUs / BENCHMARK_POST_COUNT + " us/post");
+    }
 }
@@ -7,10 +7,11 @@ import org.wordpress.android.TestUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.xmlrpc.android.LoggedInputStream;
+import org.xmlrpc.android.XMLRPCCallExecutor;
 import org.xmlrpc.android.XMLRPCCallback;
 import org.xmlrpc.android.XMLRPCException;
+import org.xmlrpc.android.XMLRPCStreamingCallback;
 
-import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 
@@ -69,15 +70,26 @@ public class XMLRPCClientCustomizableJSONMock extends XMLRPCClientCustomizableMo
         return null;
     }
 
-    public Object call(String method, Object[] params, File tempFile) throws XMLRPCException {
-        return null;
+    public int callStreaming(String method, Object[] params, XMLRPCStreamingCallback callback)
+            throws XMLRPCException {
+        Object retValue = call(method, params);
+        if (retValue instanceof Object[]) {
+            Object[] items = (Object[]) retValue;
+            for (int i = 0; i < items.length; i++) {
+                callback.onItem(i, items[i]);
+            }
+            return items.length;
+        }
+        callback.onItem(0, retValue);
+        return 1;
     }
 
     public long callAsync(XMLRPCCallback listener, String methodName, Object[] params) {
         return 0;
     }
 
-    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params, File tempFile) {
+    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params,
+                          XMLRPCCallExecutor.Priority priority) {
         return 0;
     }
 
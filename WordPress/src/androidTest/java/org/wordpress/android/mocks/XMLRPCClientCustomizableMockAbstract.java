@@ -2,7 +2,11 @@ package org.wordpress.android.mocks;
 
 import android.content.Context;
 
+import org.xmlpull.v1.XmlPullParserException;
 import org.xmlrpc.android.XMLRPCClientInterface;
+import org.xmlrpc.android.XMLRPCException;
+
+import java.io.IOException;
 
 public abstract class XMLRPCClientCustomizableMockAbstract implements XMLRPCClientInterface {
     protected Context mContext;
@@ -20,4 +24,17 @@ public abstract class XMLRPCClientCustomizableMockAbstract implements XMLRPCClie
     public void setContext(Context context) {
         mContext = context;
     }
+
+    public Object[] callBatch(String[] methods, Object[][] params)
+            throws XMLRPCException, IOException, XmlPullParserException {
+        Object[] results = new Object[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            try {
+                results[i] = call(methods[i], params[i]);
+            } catch (XMLRPCException | IOException | XmlPullParserException e) {
+                results[i] = e;
+            }
+        }
+        return results;
+    }
 }
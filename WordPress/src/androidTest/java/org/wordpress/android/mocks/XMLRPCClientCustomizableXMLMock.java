@@ -4,12 +4,13 @@ import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.xmlpull.v1.XmlPullParserException;
 import org.xmlrpc.android.LoggedInputStream;
+import org.xmlrpc.android.XMLRPCCallExecutor;
 import org.xmlrpc.android.XMLRPCCallback;
 import org.xmlrpc.android.XMLRPCClient;
 import org.xmlrpc.android.XMLRPCException;
 import org.xmlrpc.android.XMLRPCFault;
+import org.xmlrpc.android.XMLRPCStreamingCallback;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
@@ -30,11 +31,19 @@ public class XMLRPCClientCustomizableXMLMock extends XMLRPCClientCustomizableMoc
     }
 
     private Object readFile(String method, String prefix) throws IOException, XMLRPCException, XmlPullParserException {
+        return readFile(method, prefix, null);
+    }
+
+    private Object readFile(String method, String prefix, XMLRPCStreamingCallback callback)
+            throws IOException, XMLRPCException, XmlPullParserException {
         // method example: wp.getUsersBlogs
         // Filename: default-wp.getUsersBlogs.xml
         String filename = prefix + "-" + method + ".xml";
         try {
             mLoggedInputStream = new LoggedInputStream(mContext.getAssets().open(filename));
+            if (callback != null) {
+                return XMLRPCClient.parseXMLRPCResponseStreaming(mLoggedInputStream, null, callback);
+            }
             return XMLRPCClient.parseXMLRPCResponse(mLoggedInputStream, null);
         } catch (FileNotFoundException e) {
             AppLog.e(T.TESTS, "file not found: " + filename);
@@ -45,7 +54,7 @@ public class XMLRPCClientCustomizableXMLMock extends XMLRPCClientCustomizableMoc
     public Object call(String method, Object[] params) throws XMLRPCException, IOException, XmlPullParserException {
         mLoggedInputStream = null;
         try {
-            mXmlRpcClient.preparePostMethod(method, params, null);
+            mXmlRpcClient.preparePostMethod(method, params);
         } catch (IOException e) {
             // unexpected error, test must fail
             throw new XMLRPCException("preparePostMethod failed");
@@ -65,11 +74,31 @@ public class XMLRPCClientCustomizableXMLMock extends XMLRPCClientCustomizableMoc
         return retValue;
     }
 
-    public Object call(String method) throws XMLRPCException {
-        return null;
+    public int callStreaming(String method, Object[] params, XMLRPCStreamingCallback callback)
+            throws XMLRPCException, IOException, XmlPullParserException {
+        mLoggedInputStream = null;
+        try {
+            mXmlRpcClient.preparePostMethod(method, params);
+        } catch (IOException e) {
+            // unexpected error, test must fail
+            throw new XMLRPCException("preparePostMethod failed");
+        }
+        AppLog.v(T.TESTS, "XMLRPCClientCustomizableXMLMock callStreaming: " + method);
+        if ("login-failure".equals(mPrefix)) {
+            // Wrong login
+            throw new XMLRPCFault("code 403", 403);
+        }
+
+        Object retValue = readFile(method, mPrefix, callback);
+        if (retValue == null) {
+            // failback to default
+            AppLog.w(T.TESTS, "failback to default");
+            retValue = readFile(method, "default", callback);
+        }
+        return retValue == null ? 0 : (Integer) retValue;
     }
 
-    public Object call(String method, Object[] params, File tempFile) throws XMLRPCException {
+    public Object call(String method) throws XMLRPCException {
         return null;
     }
 
@@ -77,7 +106,8 @@ public class XMLRPCClientCustomizableXMLMock extends XMLRPCClientCustomizableMoc
         return 0;
     }
 
-    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params, File tempFile) {
+    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params,
+                          XMLRPCCallExecutor.Priority priority) {
         return 0;
     }
 
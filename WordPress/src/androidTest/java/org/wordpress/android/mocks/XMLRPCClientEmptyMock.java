@@ -1,10 +1,11 @@
 package org.wordpress.android.mocks;
 
+import org.xmlrpc.android.XMLRPCCallExecutor;
 import org.xmlrpc.android.XMLRPCCallback;
 import org.xmlrpc.android.XMLRPCClientInterface;
 import org.xmlrpc.android.XMLRPCException;
+import org.xmlrpc.android.XMLRPCStreamingCallback;
 
-import java.io.File;
 import java.net.URI;
 
 public class XMLRPCClientEmptyMock implements XMLRPCClientInterface {
@@ -25,15 +26,20 @@ public class XMLRPCClientEmptyMock implements XMLRPCClientInterface {
         return null;
     }
 
-    public Object call(String method, Object[] params, File tempFile) throws XMLRPCException {
-        return null;
+    public int callStreaming(String method, Object[] params, XMLRPCStreamingCallback callback) throws XMLRPCException {
+        return 0;
+    }
+
+    public Object[] callBatch(String[] methods, Object[][] params) throws XMLRPCException {
+        return new Object[methods.length];
     }
 
     public long callAsync(XMLRPCCallback listener, String methodName, Object[] params) {
         return 0;
     }
 
-    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params, File tempFile) {
+    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params,
+                          XMLRPCCallExecutor.Priority priority) {
         return 0;
     }
 
@@ -0,0 +1,122 @@
+package org.wordpress.android.models;
+
+import android.test.InstrumentationTestCase;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.JSONUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class NoteTest extends InstrumentationTestCase {
+    private static final int NOTE_COUNT = 300;
+    private static final int BENCHMARK_ITERATIONS = 10;
+
+    // the fields read for each row when binding the notes list
+    private static final String[] LIST_QUERIES = {"type", "title", "icon", "noticon", "read", "timestamp",
+            "meta.ids.site", "meta.ids.post", "meta.ids.comment", "meta.ids.reply_comment"};
+    private static final Object[] LIST_DEFAULTS = {"", "", "", "", 0, "", 0, 0, 0, 0};
+
+    private static JSONObject createNoteJSON(int index) throws JSONException {
+        return new JSONObject("{"
+                + "\"id\":" + index + ","
+                + "\"type\":\"" + (index % 2 == 0 ? "comment" : "like") + "\","
+                + "\"read\":" + (index % 3 == 0 ? 1 : 0) + ","
+                + "\"noticon\":\"\\uf300\","
+                + "\"timestamp\":\"2015-11-04T12:00:00+00:00\","
+                + "\"icon\":\"https://example.com/avatar/" + index + "\","
+                + "\"title\":\"Note " + index + "\","
+                + "\"url\":\"https://example.com/note/" + index + "\","
+                + "\"subject\":[{\"text\":\"Someone commented\",\"ranges\":[]},{\"text\":\"Nice post\"}],"
+                + "\"body\":[{\"type\":\"user\",\"text\":\"Someone\"},{\"type\":\"comment\",\"text\":\"Nice post\","
+                + "\"meta\":{\"ids\":{\"comment\":" + (1000 + index) + "}},\"actions\":{\"approve-comment\":true}}],"
+                + "\"meta\":{\"ids\":{\"site\":123,\"post\":" + index + ",\"comment\":" + (1000 + index) + "}}"
+                + "}");
+    }
+
+    private static Note createNote(int index) throws JSONException {
+        return new Note.Schema().build(Integer.toString(index), createNoteJSON(index));
+    }
+
+    public void testFields() throws JSONException {
+        Note note = createNote(2);
+        assertEquals(Note.NOTE_COMMENT_TYPE, note.getType());
+        assertTrue(note.isCommentType());
+        assertEquals("Note 2", note.getTitle());
+        assertEquals(123, note.getSiteId());
+        assertEquals(2, note.getPostId());
+        assertEquals(1002, note.getCommentId());
+        assertEquals(0, note.getCommentReplyId());
+        assertTrue(note.isUnread());
+        assertTrue(note.getTimestamp() > 0);
+        assertEquals(CommentStatus.APPROVED, note.getCommentStatus());
+
+        // the cached fields must follow changes to the JSON
+        JSONObject json = createNoteJSON(2);
+        json.put("type", Note.NOTE_FOLLOW_TYPE);
+        json.put("read", 1);
+        new Note.Schema().update(note, json);
+        assertTrue(note.isFollowType());
+        assertFalse(note.isCommentType());
+        assertFalse(note.isUnread());
+    }
+
+    /*
+     * compares reading a list's worth of fields from each note by parsing the query each time, as Note used
+     * to, with compiled queries and with the note's cached fields
+     */
+    public void testFieldAccessBenchmark() throws JSONException {
+        List<JSONObject> jsons = new ArrayList<>();
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < NOTE_COUNT; i++) {
+            jsons.add(createNoteJSON(i));
+            notes.add(createNote(i));
+        }
+        JSONUtils.CompiledQuery[] compiledQueries = new JSONUtils.CompiledQuery[LIST_QUERIES.length];
+        for (int i = 0; i < LIST_QUERIES.length; i++) {
+            compiledQueries[i] = JSONUtils.compileQuery(LIST_QUERIES[i]);
+        }
+
+        long start = System.nanoTime();
+        for (int iteration = 0; iteration < BENCHMARK_ITERATIONS; iteration++) {
+            for (JSONObject json : jsons) {
+                for (int i = 0; i < LIST_QUERIES.length; i++) {
+                    JSONUtils.queryJSON(json, LIST_QUERIES[i], LIST_DEFAULTS[i]);
+                }
+            }
+        }
+        long queryNs = (System.nanoTime() - start) / (BENCHMARK_ITERATIONS * NOTE_COUNT);
+
+        start = System.nanoTime();
+        for (int iteration = 0; iteration < BENCHMARK_ITERATIONS; iteration++) {
+            for (JSONObject json : jsons) {
+                for (int i = 0; i < compiledQueries.length; i++) {
+                    compiledQueries[i].query(json, LIST_DEFAULTS[i]);
+                }
+            }
+        }
+        long compiledNs = (System.nanoTime() - start) / (BENCHMARK_ITERATIONS * NOTE_COUNT);
+
+        start = System.nanoTime();
+        for (int iteration = 0; iteration < BENCHMARK_ITERATIONS; iteration++) {
+            for (Note note : notes) {
+                note.getType();
+                note.getTitle();
+                note.isUnread();
+                note.getTimestamp();
+                note.getSiteId();
+                note.getPostId();
+                note.getCommentId();
+                note.getCommentReplyId();
+                note.isCommentType();
+            }
+        }
+        long fieldsNs = (System.nanoTime() - start) / (BENCHMARK_ITERATIONS * NOTE_COUNT);
+
+        AppLog.i(T.TESTS, "note field access per note: queryJSON " + queryNs + " ns, compiled queries "
+                + compiledNs + " ns, cached fields " + fieldsNs + " ns");
+    }
+}
@@ -0,0 +1,160 @@
+package org.wordpress.android.models;
+
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+public class ReaderPostListTest extends InstrumentationTestCase {
+    private static final int BENCHMARK_ITERATIONS = 5;
+    private static final int[] BENCHMARK_POST_COUNTS = {20, 40};
+
+    /*
+     * builds a read/ endpoint response with the same structure as the real one, each post has a few
+     * KB of content along with the sections ReaderPost.fromJson() parses
+     */
+    private static byte[] makeResponse(int numPosts) throws JSONException, IOException {
+        JSONArray jsonPosts = new JSONArray();
+        for (int i = 1; i <= numPosts; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int p = 0; p < 20; p++) {
+                content.append("<p>Paragraph ").append(p).append(" of post ").append(i)
+                       .append(" with <a href=\"http://example.com/").append(p).append("\">a link</a>")
+                       .append(" and some text to make it a realistic length for a post.</p>");
+            }
+            content.append("<img src=\"https://example.files.wordpress.com/2015/10/photo").append(i)
+                   .append(".jpg?w=1024\" width=\"1024\" height=\"768\" />");
+
+            JSONObject author = new JSONObject()
+                    .put("ID", 1000 + i)
+                    .put("name", "Author " + i)
+                    .put("first_name", "Author")
+                    .put("avatar_URL", "https://example.com/avatar/" + i)
+                    .put("URL", "http://example.com");
+            JSONObject tags = new JSONObject()
+                    .put("photos", new JSONObject().put("name", "photos").put("slug", "photos").put("post_count", 12))
+                    .put("travel", new JSONObject().put("name", "travel").put("slug", "travel").put("post_count", 5));
+            JSONObject attachments = new JSONObject()
+                    .put(Integer.toString(500 + i), new JSONObject()
+                            .put("URL", "https://example.files.wordpress.com/2015/10/photo" + i + ".jpg")
+                            .put("mime_type", "image/jpeg")
+                            .put("width", 1024)
+                            .put("height", 768));
+            JSONObject site = new JSONObject()
+                    .put("ID", 123456)
+                    .put("name", "Example Blog")
+                    .put("URL", "http://example.com")
+                    .put("is_private", false)
+                    .put("jetpack", false);
+
+            jsonPosts.put(new JSONObject()
+                    .put("ID", i)
+                    .put("site_ID", 123456)
+                    .put("pseudo_ID", "pseudo-" + i)
+                    .put("title", "Post &amp; title " + i)
+                    .put("excerpt", "<p>Excerpt of post " + i + "</p>")
+                    .put("content", content.toString())
+                    .put("URL", "http://example.com/post/" + i)
+                    .put("short_URL", "http://wp.me/p" + i)
+                    .put("date", "2015-10-" + (10 + i % 18) + "T10:00:00+00:00")
+                    .put("like_count", i % 7)
+                    .put("i_like", i % 2 == 0)
+                    .put("is_following", true)
+                    .put("discussion", new JSONObject().put("comments_open", true).put("comment_count", i % 5))
+                    .put("author", author)
+                    .put("tags", tags)
+                    .put("attachments", attachments)
+                    .put("featured_image", JSONObject.NULL)
+                    .put("metadata", new JSONArray().put(new JSONObject()
+                            .put("id", "1").put("key", "xpost_origin").put("value", "11326809:" + i)))
+                    .put("meta", new JSONObject().put("data", new JSONObject().put("site", site))));
+        }
+        return new JSONObject()
+                .put("found", numPosts)
+                .put("posts", jsonPosts)
+                .put("date_range", new JSONObject().put("before", "2015-11-01T00:00:00+00:00"))
+                .toString()
+                .getBytes("UTF-8");
+    }
+
+    private static ReaderPostList parseWithJsonObject(byte[] data) throws JSONException, IOException {
+        return ReaderPostList.fromJson(new JSONObject(new String(data, "UTF-8")));
+    }
+
+    public void testStreamMatchesJsonObject() throws JSONException, IOException {
+        byte[] data = makeResponse(10);
+        ReaderPostList expected = parseWithJsonObject(data);
+        ReaderPostList actual = ReaderPostList.fromJsonStream(new ByteArrayInputStream(data));
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ReaderPost expectedPost = expected.get(i);
+            ReaderPost actualPost = actual.get(i);
+            assertTrue(expectedPost.isSamePost(actualPost));
+            assertEquals(expectedPost.getPseudoId(), actualPost.getPseudoId());
+            assertEquals(expectedPost.getTitle(), actualPost.getTitle());
+            assertEquals(expectedPost.getText(), actualPost.getText());
+            assertEquals(expectedPost.getExcerpt(), actualPost.getExcerpt());
+            assertEquals(expectedPost.getAuthorName(), actualPost.getAuthorName());
+            assertEquals(expectedPost.getBlogName(), actualPost.getBlogName());
+            assertEquals(expectedPost.getPrimaryTag(), actualPost.getPrimaryTag());
+            assertEquals(expectedPost.getSecondaryTag(), actualPost.getSecondaryTag());
+            assertEquals(expectedPost.getFeaturedImage(), actualPost.getFeaturedImage());
+            assertEquals(expectedPost.getAttachmentsJson(), actualPost.getAttachmentsJson());
+            assertEquals(expectedPost.timestamp, actualPost.timestamp);
+            assertEquals(expectedPost.xpostPostId, actualPost.xpostPostId);
+        }
+    }
+
+    public void testStreamInvalidResponse() {
+        try {
+            ReaderPostList.fromJsonStream(new ByteArrayInputStream("{\"posts\": [{\"ID\": ".getBytes()));
+            fail("IOException expected");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    public void testStreamWithoutPosts() throws IOException {
+        byte[] data = "{\"found\": 0, \"posts\": []}".getBytes();
+        assertEquals(0, ReaderPostList.fromJsonStream(new ByteArrayInputStream(data)).size());
+    }
+
+    /*
+     * compares time and bytes allocated parsing a response through a JSONObject and from a stream
+     */
+    @SuppressWarnings("deprecation")
+    public void testStreamBenchmark() throws JSONException, IOException {
+        for (int numPosts : BENCHMARK_POST_COUNTS) {
+            byte[] data = makeResponse(numPosts);
+
+            Debug.startAllocCounting();
+            Debug.resetThreadAllocSize();
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                parseWithJsonObject(data);
+            }
+            long jsonObjectMs = (System.nanoTime() - start) / (1000000 * BENCHMARK_ITERATIONS);
+            long jsonObjectKb = Debug.getThreadAllocSize() / (1024 * BENCHMARK_ITERATIONS);
+
+            Debug.resetThreadAllocSize();
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                ReaderPostList.fromJsonStream(new ByteArrayInputStream(data));
+            }
+            long streamMs = (System.nanoTime() - start) / (1000000 * BENCHMARK_ITERATIONS);
+            long streamKb = Debug.getThreadAllocSize() / (1024 * BENCHMARK_ITERATIONS);
+            Debug.stopAllocCounting();
+
+            AppLog.i(T.TESTS, numPosts + " posts (" + data.length / 1024 + " KB): JSONObject " + jsonObjectMs + " ms/"
+                    + jsonObjectKb + " KB allocated, stream " + streamMs + " ms/" + streamKb + " KB allocated");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.wordpress.android.networking;
+
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.xmlrpc.android.ResponsePrefixScanner;
+import org.xmlrpc.android.XMLRPCClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+public class ResponsePrefixScannerTest extends InstrumentationTestCase {
+    private static final String PHP_NOTICE =
+            "<br />\n<b>Notice</b>:  Undefined index: foo in <b>/var/www/wp-content/plugins/bar.php</b> on line <b>42</b><br />\n";
+    private static final String RESPONSE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<methodResponse><params><param><value><struct>"
+            + "<member><name>blog_title</name><value><string>Test</string></value></member>"
+            + "</struct></value></param></params></methodResponse>";
+    private static final int BENCHMARK_ITERATIONS = 200;
+
+    private static String junk(int size) {
+        StringBuilder sb = new StringBuilder(size + PHP_NOTICE.length());
+        while (sb.length() < size) {
+            sb.append(PHP_NOTICE);
+        }
+        return sb.substring(0, size);
+    }
+
+    private static String readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+
+    public void testSkipsJunk() throws IOException {
+        for (int size : new int[] {0, 5 * 1024, 50 * 1024}) {
+            InputStream is = new ByteArrayInputStream((junk(size) + RESPONSE).getBytes("UTF-8"));
+            assertEquals(RESPONSE, readAll(ResponsePrefixScanner.skipLeadingJunk(is)));
+        }
+    }
+
+    public void testFindsMethodResponseWithoutProlog() throws IOException {
+        String response = RESPONSE.substring(RESPONSE.indexOf("<methodResponse"));
+        InputStream is = new ByteArrayInputStream((junk(300) + response).getBytes("UTF-8"));
+        assertEquals(response, readAll(ResponsePrefixScanner.skipLeadingJunk(is)));
+    }
+
+    public void testScanLimitLeavesStreamUntouched() throws IOException {
+        String document = junk(2048) + RESPONSE;
+        InputStream is = new ByteArrayInputStream(document.getBytes("UTF-8"));
+        assertEquals(document, readAll(ResponsePrefixScanner.skipLeadingJunk(is, 1024)));
+    }
+
+    public void testParseWithJunkBenchmark() throws Exception {
+        for (int size : new int[] {0, 5 * 1024, 50 * 1024}) {
+            byte[] payload = (junk(size) + RESPONSE).getBytes("UTF-8");
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                Map<?, ?> result = (Map<?, ?>) XMLRPCClient.parseXMLRPCResponse(new ByteArrayInputStream(payload),
+                        null);
+                assertEquals("Test", result.get("blog_title"));
+            }
+            long elapsedUs = (System.nanoTime() - start) / 1000 / BENCHMARK_ITERATIONS;
+            AppLog.i(T.TESTS, "parseXMLRPCResponse with " + size + " bytes of junk: " + elapsedUs + " us");
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.wordpress.android.networking;
+
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.util.CoreEvents;
+import org.xmlrpc.android.XMLRPCClient;
+import org.xmlrpc.android.XMLRPCException;
+import org.xmlrpc.android.XMLRPCFault;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.greenrobot.event.EventBus;
+
+public class XMLRPCBatchTest extends InstrumentationTestCase {
+    private static final String[] METHODS = {"test.ok", "test.broken", "test.fault", "test.ok"};
+    private static final Object[][] PARAMS = new Object[METHODS.length][];
+
+    private static final String MULTICALL_WITH_FAILURES = "<array><data>"
+            + "<value><array><data><value><string>ok</string></value></data></array></value>"
+            + "<value><string>not a result</string></value>"
+            + "<value><struct>"
+            + "<member><name>faultCode</name><value><int>404</int></value></member>"
+            + "<member><name>faultString</name><value><string>not found</string></value></member>"
+            + "</struct></value>"
+            + "<value><array><data><value><string>ok</string></value></data></array></value>"
+            + "</data></array>";
+
+    // makes the server answer system.multicall with a 403 fault, as when a security plugin disables it
+    private static final String MULTICALL_FAULT = "fault";
+
+    private TestXMLRPCServer mServer;
+    private boolean mInvalidCredentialsDetected;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        EventBus.getDefault().register(this);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        EventBus.getDefault().unregister(this);
+        if (mServer != null) {
+            mServer.stop();
+        }
+        super.tearDown();
+    }
+
+    private void assertBatchResults(Object[] results) {
+        assertEquals(METHODS.length, results.length);
+        assertEquals("ok", results[0]);
+        assertTrue(results[1] instanceof XMLRPCException);
+        assertFalse(results[1] instanceof XMLRPCFault);
+        assertTrue(results[2] instanceof XMLRPCFault);
+        assertEquals(404, ((XMLRPCFault) results[2]).getFaultCode());
+        assertEquals("ok", results[3]);
+    }
+
+    /*
+     * a call which fails with something other than a fault only fails its own slot when the calls are sent
+     * one by one
+     */
+    public void testFailingCallWithoutMulticall() throws Exception {
+        mServer = new TestXMLRPCServer(false, null);
+        XMLRPCClient client = new XMLRPCClient(mServer.getUrl(), "", "");
+        assertBatchResults(client.callBatch(METHODS, PARAMS));
+    }
+
+    public void testFailingCallInMulticall() throws Exception {
+        mServer = new TestXMLRPCServer(true, MULTICALL_WITH_FAILURES);
+        XMLRPCClient client = new XMLRPCClient(mServer.getUrl(), "", "");
+        assertBatchResults(client.callBatch(METHODS, PARAMS));
+        // the failures didn't make the client resend any of the calls
+        assertEquals(Arrays.asList("system.listMethods", "system.multicall"), mServer.getRequestedMethods());
+    }
+
+    /*
+     * a multicall response which can't be read makes the client send the calls one by one
+     */
+    public void testBrokenMulticallFallsBack() throws Exception {
+        mServer = new TestXMLRPCServer(true, "<array><data></data></array>");
+        XMLRPCClient client = new XMLRPCClient(mServer.getUrl(), "", "");
+        assertBatchResults(client.callBatch(METHODS, PARAMS));
+
+        // the next batch isn't sent as a multicall
+        mServer.getRequestedMethods().clear();
+        assertBatchResults(client.callBatch(METHODS, PARAMS));
+        assertFalse(mServer.getRequestedMethods().contains("system.multicall"));
+    }
+
+    /*
+     * a fault on system.multicall itself makes the client send the calls one by one, without logging the user out
+     */
+    public void testMulticallFaultFallsBack() throws Exception {
+        mServer = new TestXMLRPCServer(true, MULTICALL_FAULT);
+        XMLRPCClient client = new XMLRPCClient(mServer.getUrl(), "", "");
+        assertBatchResults(client.callBatch(METHODS, PARAMS));
+        assertFalse(mInvalidCredentialsDetected);
+
+        mServer.getRequestedMethods().clear();
+        assertBatchResults(client.callBatch(METHODS, PARAMS));
+        assertFalse(mServer.getRequestedMethods().contains("system.multicall"));
+    }
+
+    @SuppressWarnings("unused")
+    public void onEvent(CoreEvents.InvalidCredentialsDetected event) {
+        mInvalidCredentialsDetected = true;
+    }
+
+    /*
+     * minimal XML-RPC server on localhost - test.ok returns "ok", test.fault a fault, and test.broken a response
+     * which isn't XML-RPC
+     */
+    private static class TestXMLRPCServer implements Runnable {
+        private static final Pattern METHOD_NAME_PATTERN = Pattern.compile("<methodName>(.*?)</methodName>");
+
+        private final ServerSocket mServerSocket;
+        private final Thread mThread;
+        private final boolean mSupportsMulticall;
+        private final String mMulticallResponse;
+        private final List<String> mRequestedMethods = new ArrayList<>();
+
+        TestXMLRPCServer(boolean supportsMulticall, String multicallResponse) throws IOException {
+            mSupportsMulticall = supportsMulticall;
+            mMulticallResponse = multicallResponse;
+            mServerSocket = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+            mThread = new Thread(this, "TestXMLRPCServer");
+            mThread.start();
+        }
+
+        String getUrl() {
+            return "http://127.0.0.1:" + mServerSocket.getLocalPort() + "/xmlrpc.php";
+        }
+
+        synchronized List<String> getRequestedMethods() {
+            return mRequestedMethods;
+        }
+
+        void stop() throws IOException, InterruptedException {
+            mServerSocket.close();
+            mThread.join();
+        }
+
+        @Override
+        public void run() {
+            while (!mServerSocket.isClosed()) {
+                try {
+                    Socket socket = mServerSocket.accept();
+                    try {
+                        handleRequest(socket);
+                    } finally {
+                        socket.close();
+                    }
+                } catch (IOException e) {
+                    // server stopped or the client went away
+                }
+            }
+        }
+
+        private synchronized void handleRequest(Socket socket) throws IOException {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+
+            readLine(in);
+            int contentLength = 0;
+            String line;
+            while (!(line = readLine(in)).isEmpty()) {
+                if (line.toLowerCase().startsWith("content-length:")) {
+                    contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+                }
+            }
+            byte[] body = new byte[contentLength];
+            int read = 0;
+            while (read < contentLength) {
+                int count = in.read(body, read, contentLength - read);
+                if (count == -1) {
+                    throw new IOException("connection closed");
+                }
+                read += count;
+            }
+
+            Matcher matcher = METHOD_NAME_PATTERN.matcher(new String(body, "UTF-8"));
+            String method = matcher.find() ? matcher.group(1) : "";
+            mRequestedMethods.add(method);
+
+            if (method.equals("system.listMethods")) {
+                respond(out, "<array><data><value><string>system.listMethods</string></value>"
+                        + (mSupportsMulticall ? "<value><string>system.multicall</string></value>" : "")
+                        + "</data></array>");
+            } else if (method.equals("system.multicall") && MULTICALL_FAULT.equals(mMulticallResponse)) {
+                respondRaw(out, "<?xml version=\"1.0\"?><methodResponse><fault><value><struct>"
+                        + "<member><name>faultCode</name><value><int>403</int></value></member>"
+                        + "<member><name>faultString</name><value><string>forbidden</string></value></member>"
+                        + "</struct></value></fault></methodResponse>");
+            } else if (method.equals("system.multicall")) {
+                respond(out, mMulticallResponse);
+            } else if (method.equals("test.ok")) {
+                respond(out, "<string>ok</string>");
+            } else if (method.equals("test.fault")) {
+                respondRaw(out, "<?xml version=\"1.0\"?><methodResponse><fault><value><struct>"
+                        + "<member><name>faultCode</name><value><int>404</int></value></member>"
+                        + "<member><name>faultString</name><value><string>not found</string></value></member>"
+                        + "</struct></value></fault></methodResponse>");
+            } else {
+                respondRaw(out, "<?xml version=\"1.0\"?><methodResponse><unexpected/></methodResponse>");
+            }
+        }
+
+        private static void respond(OutputStream out, String value) throws IOException {
+            respondRaw(out, "<?xml version=\"1.0\"?><methodResponse><params><param><value>" + value
+                    + "</value></param></params></methodResponse>");
+        }
+
+        private static void respondRaw(OutputStream out, String body) throws IOException {
+            byte[] bodyBytes = body.getBytes("UTF-8");
+            String headers = "HTTP/1.1 200 OK\r\n"
+                    + "Content-Type: text/xml\r\n"
+                    + "Content-Length: " + bodyBytes.length + "\r\n"
+                    + "Connection: close\r\n\r\n";
+            out.write(headers.getBytes("UTF-8"));
+            out.write(bodyBytes);
+            out.flush();
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1 && c != '\n') {
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+    }
+}
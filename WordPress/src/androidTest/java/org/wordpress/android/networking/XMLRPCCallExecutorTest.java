@@ -0,0 +1,99 @@
+package org.wordpress.android.networking;
+
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.xmlrpc.android.XMLRPCCallExecutor;
+import org.xmlrpc.android.XMLRPCCallExecutor.Priority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class XMLRPCCallExecutorTest extends InstrumentationTestCase {
+    private static final int POOL_SIZE = 4;
+    private static final int TIMEOUT_SECONDS = 10;
+
+    private final List<CountDownLatch> mReleases = new ArrayList<>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        final CountDownLatch started = new CountDownLatch(POOL_SIZE);
+        // keep every pool thread busy so the next calls stay queued
+        for (int i = 0; i < POOL_SIZE; i++) {
+            final CountDownLatch release = new CountDownLatch(1);
+            mReleases.add(release);
+            XMLRPCCallExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, Priority.BACKGROUND);
+        }
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        releaseAll();
+        super.tearDown();
+    }
+
+    private void releaseAll() {
+        for (CountDownLatch release : mReleases) {
+            release.countDown();
+        }
+    }
+
+    public void testUserInitiatedCallsRunFirst() throws InterruptedException {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch done = new CountDownLatch(4);
+        String[] names = {"background 1", "user 1", "background 2", "user 2"};
+        Priority[] priorities = {Priority.BACKGROUND, Priority.USER_INITIATED, Priority.BACKGROUND,
+                Priority.USER_INITIATED};
+        for (int i = 0; i < names.length; i++) {
+            final String name = names[i];
+            XMLRPCCallExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    order.add(name);
+                    done.countDown();
+                }
+            }, priorities[i]);
+        }
+        assertTrue(XMLRPCCallExecutor.getStats().queueDepth >= names.length);
+
+        // free a single thread so the queued calls run one after the other
+        mReleases.get(0).countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList("user 1", "user 2", "background 1", "background 2"), order);
+        AppLog.i(T.TESTS, "XML-RPC call executor: " + XMLRPCCallExecutor.getStats());
+    }
+
+    public void testCancelQueuedCall() throws InterruptedException {
+        final CountDownLatch ran = new CountDownLatch(1);
+        XMLRPCCallExecutor.Call call = XMLRPCCallExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, Priority.USER_INITIATED);
+
+        assertTrue(XMLRPCCallExecutor.cancel(call));
+        assertFalse(XMLRPCCallExecutor.cancel(call));
+
+        releaseAll();
+        assertFalse(ran.await(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,138 @@
+package org.wordpress.android.networking;
+
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.xmlrpc.android.XMLRPCClient;
+import org.xmlrpc.android.XMLRPCDateTimeCodec;
+
+import java.io.ByteArrayInputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SimpleTimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class XMLRPCDateTimeCodecTest extends InstrumentationTestCase {
+    private static final int THREAD_COUNT = 8;
+    private static final int ITERATIONS_PER_THREAD = 500;
+    private static final int BENCHMARK_ITERATIONS = 20000;
+    // 1990 to 2050, in seconds
+    private static final long MIN_SECONDS = 631152000L;
+    private static final long RANGE_SECONDS = 1893456000L;
+
+    private static SimpleDateFormat newReferenceFormat() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss", Locale.US);
+        dateFormat.setTimeZone(new SimpleTimeZone(0, "GMT"));
+        return dateFormat;
+    }
+
+    private static Date randomDate(Random random) {
+        return new Date((MIN_SECONDS + (long) (random.nextDouble() * RANGE_SECONDS)) * 1000);
+    }
+
+    public void testMatchesSimpleDateFormat() throws ParseException {
+        SimpleDateFormat reference = newReferenceFormat();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            Date date = randomDate(random);
+            String formatted = reference.format(date);
+            assertEquals(formatted, XMLRPCDateTimeCodec.format(date));
+            assertEquals(date, XMLRPCDateTimeCodec.parse(formatted));
+        }
+    }
+
+    public void testLenientValues() throws ParseException {
+        SimpleDateFormat reference = newReferenceFormat();
+        String[] values = {"20150105T21:40:15Z", "20150105T21:40:15+02:00", "00000000T00:00:00Z",
+                "20150230T10:00:00", "15000101T00:00:00"};
+        for (String value : values) {
+            assertEquals(value, reference.parse(value), XMLRPCDateTimeCodec.parse(value));
+        }
+    }
+
+    public void testInvalidValue() {
+        try {
+            XMLRPCDateTimeCodec.parse("not a date");
+            fail("ParseException expected");
+        } catch (ParseException e) {
+            // expected
+        }
+    }
+
+    /*
+     * many threads deserializing different dates at the same time, each must get back its own date
+     */
+    public void testParallelDeserialization() throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREAD_COUNT);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            final Random random = new Random(t);
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        SimpleDateFormat reference = newReferenceFormat();
+                        start.await();
+                        for (int i = 0; i < ITERATIONS_PER_THREAD && failure.get() == null; i++) {
+                            Date expected = randomDate(random);
+                            String response = "<?xml version=\"1.0\"?><methodResponse><params><param><value>"
+                                    + "<dateTime.iso8601>" + reference.format(expected) + "</dateTime.iso8601>"
+                                    + "</value></param></params></methodResponse>";
+                            Object result = XMLRPCClient.parseXMLRPCResponse(
+                                    new ByteArrayInputStream(response.getBytes("UTF-8")), null);
+                            if (!expected.equals(result)) {
+                                throw new AssertionError("Expected " + expected + " but was " + result);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        assertNull(String.valueOf(failure.get()), failure.get());
+    }
+
+    public void testBenchmark() throws ParseException {
+        Random random = new Random(7);
+        String[] values = new String[BENCHMARK_ITERATIONS];
+        SimpleDateFormat reference = newReferenceFormat();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            values[i] = reference.format(randomDate(random));
+        }
+
+        long start = System.nanoTime();
+        for (String value : values) {
+            // a new format per call is what a thread-safe SimpleDateFormat based version would cost
+            newReferenceFormat().parse(value);
+        }
+        long simpleDateFormatNs = (System.nanoTime() - start) / BENCHMARK_ITERATIONS;
+
+        start = System.nanoTime();
+        for (String value : values) {
+            XMLRPCDateTimeCodec.parse(value);
+        }
+        long codecParseNs = (System.nanoTime() - start) / BENCHMARK_ITERATIONS;
+
+        Date date = new Date();
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            XMLRPCDateTimeCodec.format(date);
+        }
+        long codecFormatNs = (System.nanoTime() - start) / BENCHMARK_ITERATIONS;
+
+        AppLog.i(T.TESTS, "dateTime.iso8601 parse: SimpleDateFormat " + simpleDateFormatNs + " ns, codec "
+                + codecParseNs + " ns, codec format " + codecFormatNs + " ns");
+    }
+}
@@ -0,0 +1,110 @@
+package org.wordpress.android.networking;
+
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.xmlrpc.android.XMLRPCClient;
+import org.xmlrpc.android.XMLRPCStreamingCallback;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class XMLRPCStreamingTest extends InstrumentationTestCase {
+    private static final String RECENT_POSTS_FILE = "default-metaWeblog.getRecentPosts.xml";
+    private static final int BENCHMARK_ITERATIONS = 10;
+
+    private InputStream openAsset(String filename) throws IOException {
+        return getInstrumentation().getContext().getAssets().open(filename);
+    }
+
+    public void testStreamingMatchesTreeBuilder() throws Exception {
+        Object[] tree = (Object[]) XMLRPCClient.parseXMLRPCResponse(openAsset(RECENT_POSTS_FILE), null);
+
+        final List<Object> items = new ArrayList<>();
+        int count = XMLRPCClient.parseXMLRPCResponseStreaming(openAsset(RECENT_POSTS_FILE), null,
+                new XMLRPCStreamingCallback() {
+                    @Override
+                    public void onItem(int index, Object item) {
+                        assertEquals(items.size(), index);
+                        items.add(item);
+                    }
+                });
+
+        assertEquals(tree.length, count);
+        assertEquals(tree.length, items.size());
+        for (int i = 0; i < tree.length; i++) {
+            Map<?, ?> expected = (Map<?, ?>) tree[i];
+            Map<?, ?> actual = (Map<?, ?>) items.get(i);
+            assertEquals(expected.keySet(), actual.keySet());
+            assertEquals(expected.get("postid"), actual.get("postid"));
+            assertEquals(expected.get("description"), actual.get("description"));
+        }
+    }
+
+    public void testStreamingNonArrayResponse() throws Exception {
+        final List<Object> items = new ArrayList<>();
+        int count = XMLRPCClient.parseXMLRPCResponseStreaming(openAsset("default-wp.getOptions.xml"), null,
+                new XMLRPCStreamingCallback() {
+                    @Override
+                    public void onItem(int index, Object item) {
+                        items.add(item);
+                    }
+                });
+        assertEquals(1, count);
+        assertTrue(items.get(0) instanceof Map);
+    }
+
+    /*
+     * compares the allocations made by the tree builder and the streaming parser on the same response, along with
+     * the heap still reachable once parsing is over (the whole tree vs. nothing)
+     */
+    @SuppressWarnings("deprecation")
+    public void testAllocationBenchmark() throws Exception {
+        long treeAllocated = 0;
+        long streamingAllocated = 0;
+        long treeRetained = 0;
+        long streamingRetained = 0;
+
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            long before = usedHeapAfterGc();
+            Debug.resetThreadAllocSize();
+            Debug.startAllocCounting();
+            Object tree = XMLRPCClient.parseXMLRPCResponse(openAsset(RECENT_POSTS_FILE), null);
+            Debug.stopAllocCounting();
+            treeAllocated += Debug.getThreadAllocSize();
+            treeRetained += usedHeapAfterGc() - before;
+            assertNotNull(tree);
+            tree = null;
+
+            before = usedHeapAfterGc();
+            Debug.resetThreadAllocSize();
+            Debug.startAllocCounting();
+            XMLRPCClient.parseXMLRPCResponseStreaming(openAsset(RECENT_POSTS_FILE), null,
+                    new XMLRPCStreamingCallback() {
+                        @Override
+                        public void onItem(int index, Object item) {
+                            // item is dropped, as it would be once persisted
+                        }
+                    });
+            Debug.stopAllocCounting();
+            streamingAllocated += Debug.getThreadAllocSize();
+            streamingRetained += usedHeapAfterGc() - before;
+        }
+
+        AppLog.i(T.TESTS, "XML-RPC tree builder: allocated " + (treeAllocated / BENCHMARK_ITERATIONS)
+                + " bytes, retained " + (treeRetained / BENCHMARK_ITERATIONS) + " bytes per response");
+        AppLog.i(T.TESTS, "XML-RPC streaming: allocated " + (streamingAllocated / BENCHMARK_ITERATIONS)
+                + " bytes, retained " + (streamingRetained / BENCHMARK_ITERATIONS) + " bytes per response");
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,260 @@
+package org.wordpress.android.networking;
+
+import android.os.AsyncTask;
+import android.test.InstrumentationTestCase;
+import android.util.Base64;
+
+import org.wordpress.android.FactoryUtils;
+import org.wordpress.android.models.Blog;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.helpers.MediaFile;
+import org.xmlrpc.android.ApiHelper;
+import org.xmlrpc.android.ApiHelper.ErrorType;
+import org.xmlrpc.android.ApiHelper.Method;
+import org.xmlrpc.android.XMLRPCClient;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class XMLRPCUploadTest extends InstrumentationTestCase {
+    // around the 3600 byte chunks the file is encoded in, and a few lines of base64
+    private static final int[] FILE_SIZES = {1, 2, 3, 56, 57, 58, 3599, 3600, 3601, 100003};
+
+    private TestUploadServer mServer;
+    private File mFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        // upload tasks talk to the test server rather than a mock client
+        FactoryUtils.clearFactories();
+        mServer = new TestUploadServer();
+        mFile = File.createTempFile("upload-test", ".jpg", getInstrumentation().getTargetContext().getCacheDir());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mServer.stop();
+        mFile.delete();
+        super.tearDown();
+    }
+
+    /*
+     * uploads are sent with a Content-Length rather than chunked, which must match the body exactly
+     */
+    public void testUploadContentLength() throws Exception {
+        XMLRPCClient client = new XMLRPCClient(mServer.getUrl(), "", "");
+        Random random = new Random(42);
+        for (int fileSize : FILE_SIZES) {
+            byte[] fileBytes = new byte[fileSize];
+            random.nextBytes(fileBytes);
+            writeFile(fileBytes);
+
+            MediaFile mediaFile = new MediaFile();
+            mediaFile.setFilePath(mFile.getPath());
+            Map<String, Object> data = new HashMap<>();
+            data.put("name", "image & name.jpg");
+            data.put("type", "image/jpeg");
+            data.put("bits", mediaFile);
+            data.put("overwrite", true);
+
+            Object result = client.call(Method.UPLOAD_FILE, new Object[]{1, "user", "password", data});
+
+            assertEquals("ok", result);
+            assertFalse("file of " + fileSize + " bytes was sent chunked", mServer.mIsChunked);
+            assertTrue(Arrays.equals(fileBytes, mServer.mReceivedFile));
+        }
+    }
+
+    /*
+     * a file whose connection drops during its upload is sent again, rather than its upload failing
+     */
+    public void testUploadRetriedAfterDroppedConnection() throws Exception {
+        byte[] fileBytes = new byte[100003];
+        new Random(42).nextBytes(fileBytes);
+        writeFile(fileBytes);
+        mServer.mConnectionsToDrop = 1;
+        mServer.mResponse = "<struct><member><name>id</name><value><string>42</string></value></member>"
+                + "<member><name>url</name><value><string>http://example.com/image.jpg</string></value></member>"
+                + "</struct>";
+
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setFilePath(mFile.getPath());
+        mediaFile.setFileName("image.jpg");
+        mediaFile.setMimeType("image/jpeg");
+        final String[] remoteId = new String[1];
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        List<Object> apiArgs = new ArrayList<>();
+        apiArgs.add(new Blog(mServer.getUrl(), "user", "password"));
+        new ApiHelper.UploadMediaTask(getInstrumentation().getTargetContext(), mediaFile,
+                new ApiHelper.UploadMediaTask.Callback() {
+            @Override
+            public void onSuccess(String id, String remoteUrl, String secondaryId) {
+                remoteId[0] = id;
+                countDownLatch.countDown();
+            }
+
+            @Override
+            public void onFailure(ErrorType errorType, String errorMessage, Throwable throwable) {
+                countDownLatch.countDown();
+            }
+
+            @Override
+            public void onProgressUpdate(float progress) {
+            }
+        }).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, apiArgs);
+
+        assertTrue(countDownLatch.await(30, TimeUnit.SECONDS));
+        assertEquals("42", remoteId[0]);
+        assertEquals(0, mServer.mConnectionsToDrop);
+        assertTrue(Arrays.equals(fileBytes, mServer.mReceivedFile));
+        AppLog.i(T.TESTS, "bytes received before the connection dropped, and sent again: " + mServer.mDroppedBytes);
+    }
+
+    private void writeFile(byte[] fileBytes) throws IOException {
+        FileOutputStream out = new FileOutputStream(mFile);
+        out.write(fileBytes);
+        out.close();
+    }
+
+    /*
+     * minimal XML-RPC server on localhost which reads a request body of the announced Content-Length, and keeps
+     * the decoded content of its <base64> value - or drops the connection halfway through the body, for the
+     * given number of requests
+     */
+    private static class TestUploadServer implements Runnable {
+        private final ServerSocket mServerSocket;
+        private final Thread mThread;
+        private volatile boolean mIsChunked;
+        private volatile byte[] mReceivedFile;
+        private volatile String mResponse = "<string>ok</string>";
+        private volatile int mConnectionsToDrop;
+        private volatile long mDroppedBytes;
+
+        TestUploadServer() throws IOException {
+            mServerSocket = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+            mThread = new Thread(this, "TestUploadServer");
+            mThread.start();
+        }
+
+        String getUrl() {
+            return "http://127.0.0.1:" + mServerSocket.getLocalPort() + "/xmlrpc.php";
+        }
+
+        void stop() throws IOException, InterruptedException {
+            mServerSocket.close();
+            mThread.join();
+        }
+
+        @Override
+        public void run() {
+            while (!mServerSocket.isClosed()) {
+                try {
+                    Socket socket = mServerSocket.accept();
+                    try {
+                        handleRequest(socket);
+                    } finally {
+                        socket.close();
+                    }
+                } catch (IOException e) {
+                    // server stopped or the client went away
+                }
+            }
+        }
+
+        private void handleRequest(Socket socket) throws IOException {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+
+            readLine(in);
+            int contentLength = -1;
+            boolean isChunked = false;
+            String line;
+            while (!(line = readLine(in)).isEmpty()) {
+                String header = line.toLowerCase();
+                if (header.startsWith("content-length:")) {
+                    contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+                } else if (header.startsWith("transfer-encoding:") && header.contains("chunked")) {
+                    isChunked = true;
+                }
+            }
+            mIsChunked = isChunked || contentLength < 0;
+            if (mIsChunked) {
+                mReceivedFile = null;
+                respond(out, "<string>chunked</string>");
+                return;
+            }
+
+            byte[] body = new byte[contentLength];
+            int bytesToRead = contentLength;
+            if (mConnectionsToDrop > 0) {
+                bytesToRead = contentLength / 2;
+            }
+            int read = 0;
+            while (read < bytesToRead) {
+                int count = in.read(body, read, bytesToRead - read);
+                if (count == -1) {
+                    throw new IOException("connection closed");
+                }
+                read += count;
+            }
+            if (read < contentLength) {
+                // closed by the caller
+                mConnectionsToDrop--;
+                mDroppedBytes += read;
+                return;
+            }
+
+            String request = new String(body, "UTF-8");
+            if (!request.endsWith("</methodCall>")) {
+                // the announced length doesn't match the body
+                mReceivedFile = null;
+                respond(out, "<string>truncated</string>");
+                return;
+            }
+            int start = request.indexOf("<base64>") + "<base64>".length();
+            int end = request.indexOf("</base64>");
+            mReceivedFile = Base64.decode(request.substring(start, end), Base64.DEFAULT);
+            respond(out, mResponse);
+        }
+
+        private static void respond(OutputStream out, String value) throws IOException {
+            byte[] bodyBytes = ("<?xml version=\"1.0\"?><methodResponse><params><param><value>" + value
+                    + "</value></param></params></methodResponse>").getBytes("UTF-8");
+            String headers = "HTTP/1.1 200 OK\r\n"
+                    + "Content-Type: text/xml\r\n"
+                    + "Content-Length: " + bodyBytes.length + "\r\n"
+                    + "Connection: close\r\n\r\n";
+            out.write(headers.getBytes("UTF-8"));
+            out.write(bodyBytes);
+            out.flush();
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1 && c != '\n') {
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.wordpress.android.ui.media.services;
+
+import junit.framework.TestCase;
+
+import org.wordpress.android.util.helpers.MediaFile;
+
+public class MediaUploadQueueTest extends TestCase {
+    private static MediaFile createMediaFile(String blogId, String mediaId) {
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setBlogId(blogId);
+        mediaFile.setMediaId(mediaId);
+        return mediaFile;
+    }
+
+    public void testPriorityOrder() {
+        MediaUploadQueue queue = new MediaUploadQueue(1);
+        queue.enqueue(createMediaFile("1", "video"), MediaUploadQueue.PRIORITY_LOW);
+        queue.enqueue(createMediaFile("1", "image1"), MediaUploadQueue.PRIORITY_NORMAL);
+        queue.enqueue(createMediaFile("1", "image2"), MediaUploadQueue.PRIORITY_NORMAL);
+        queue.enqueue(createMediaFile("1", "retry"), MediaUploadQueue.PRIORITY_HIGH);
+
+        String[] expected = {"retry", "image1", "image2", "video"};
+        for (String mediaId : expected) {
+            MediaUploadQueue.Item item = queue.startNext();
+            assertEquals(mediaId, item.getMediaId());
+            queue.complete(item);
+        }
+        assertNull(queue.startNext());
+        assertTrue(queue.isEmpty());
+        assertEquals(expected.length, queue.getCompletedCount());
+    }
+
+    public void testConcurrencyPerBlog() {
+        MediaUploadQueue queue = new MediaUploadQueue(2);
+        for (int i = 0; i < 3; i++) {
+            queue.enqueue(createMediaFile("1", "a" + i), MediaUploadQueue.PRIORITY_NORMAL);
+        }
+        queue.enqueue(createMediaFile("2", "b0"), MediaUploadQueue.PRIORITY_LOW);
+
+        // two uploads for the first blog, then the second blog's lower priority item since the first is full
+        MediaUploadQueue.Item first = queue.startNext();
+        assertEquals("a0", first.getMediaId());
+        assertEquals("a1", queue.startNext().getMediaId());
+        assertEquals("b0", queue.startNext().getMediaId());
+        assertNull(queue.startNext());
+        assertEquals(3, queue.getActiveCount());
+        assertEquals(1, queue.getQueuedCount());
+
+        queue.complete(first);
+        assertEquals("a2", queue.startNext().getMediaId());
+        assertFalse(queue.isEmpty());
+    }
+
+    public void testEnqueueAndRemove() {
+        MediaUploadQueue queue = new MediaUploadQueue(1);
+        assertTrue(queue.enqueue(createMediaFile("1", "a"), MediaUploadQueue.PRIORITY_NORMAL));
+        // files are only queued once, however often the queue is reloaded
+        assertFalse(queue.enqueue(createMediaFile("1", "a"), MediaUploadQueue.PRIORITY_NORMAL));
+        assertTrue(queue.enqueue(createMediaFile("1", "b"), MediaUploadQueue.PRIORITY_NORMAL));
+        assertTrue(queue.contains("1", "a"));
+
+        MediaUploadQueue.Item item = queue.startNext();
+        assertEquals("a", item.getMediaId());
+        assertTrue(queue.remove("1", "a"));
+        assertFalse(queue.remove("1", "b"));
+        assertFalse(queue.contains("1", "b"));
+        assertTrue(queue.isEmpty());
+
+        // a removed upload which finishes anyway isn't counted
+        queue.complete(item);
+        assertEquals(0, queue.getCompletedCount());
+    }
+
+    public void testTimings() throws InterruptedException {
+        MediaUploadQueue queue = new MediaUploadQueue(1);
+        queue.enqueue(createMediaFile("1", "a"), MediaUploadQueue.PRIORITY_NORMAL);
+        Thread.sleep(20);
+        MediaUploadQueue.Item item = queue.startNext();
+        Thread.sleep(20);
+        queue.complete(item);
+
+        assertTrue(queue.getAverageWaitMs() >= 20);
+        assertTrue(queue.getAverageTransferMs() >= 20);
+    }
+}
@@ -0,0 +1,95 @@
+package org.wordpress.android.ui.posts.services;
+
+import junit.framework.TestCase;
+
+import org.wordpress.android.ui.prefs.AppPrefs;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class PostUploadServiceTest extends TestCase {
+    private static final int MEDIA_COUNT = 50;
+    private static final int BENCHMARK_ITERATIONS = 20;
+
+    private static String getMediaTag(int index) {
+        return "<img src=\"file:///sdcard/image" + index + ".jpg\" android-uri=\"content://media/external/images/media/"
+                + index + "\" class=\"wp-image\" />";
+    }
+
+    private static String getUploadedHtml(int index) {
+        return "<a href=\"https://example.com/image" + index + ".jpg\"><img src=\"https://example.com/image" + index
+                + "-300x200.jpg\" alt=\"$" + index + "\" /></a>";
+    }
+
+    private static String createContent(Map<String, String> uploadedMedia) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < MEDIA_COUNT; i++) {
+            content.append("<p>Paragraph ").append(i).append(" with some text before the image</p>");
+            content.append(getMediaTag(i));
+            uploadedMedia.put(getMediaTag(i), getUploadedHtml(i));
+        }
+        return content.toString();
+    }
+
+    public void testReplaceMediaTags() {
+        Map<String, String> uploadedMedia = new HashMap<>();
+        uploadedMedia.put(getMediaTag(1), getUploadedHtml(1));
+        String content = "before " + getMediaTag(1) + " middle " + getMediaTag(2) + " end " + getMediaTag(1);
+
+        // replacement HTML is inserted as is and tags without a replacement are left alone
+        String expected = "before " + getUploadedHtml(1) + " middle " + getMediaTag(2) + " end " + getUploadedHtml(1);
+        assertEquals(expected, PostUploadService.replaceMediaTags(content, uploadedMedia));
+
+        assertEquals("no media", PostUploadService.replaceMediaTags("no media", uploadedMedia));
+        assertEquals("", PostUploadService.replaceMediaTags("", uploadedMedia));
+    }
+
+    /*
+     * queueing a post keeps the pending uploads stored by an earlier session, which may not have been restored yet
+     */
+    public void testPendingUploadsAreMerged() {
+        String pendingUploads = AppPrefs.getPendingPostUploads();
+        try {
+            AppPrefs.setPendingPostUploads("7,8");
+            PostUploadService.addPendingUpload(9);
+            PostUploadService.addPendingUpload(8);
+            assertEquals("7,8,9", AppPrefs.getPendingPostUploads());
+
+            PostUploadService.removePendingUpload(8);
+            assertEquals("7,9", AppPrefs.getPendingPostUploads());
+        } finally {
+            AppPrefs.setPendingPostUploads(pendingUploads);
+        }
+    }
+
+    /*
+     * compares replacing each uploaded tag with String.replace(), as the upload used to, with a single pass
+     */
+    public void testReplaceMediaTagsBenchmark() {
+        Map<String, String> uploadedMedia = new HashMap<>();
+        String content = createContent(uploadedMedia);
+
+        long start = System.nanoTime();
+        String replaced = null;
+        for (int iteration = 0; iteration < BENCHMARK_ITERATIONS; iteration++) {
+            replaced = content;
+            for (Map.Entry<String, String> entry : uploadedMedia.entrySet()) {
+                replaced = replaced.replace(entry.getKey(), entry.getValue());
+            }
+        }
+        long replaceUs = (System.nanoTime() - start) / (1000 * BENCHMARK_ITERATIONS);
+
+        start = System.nanoTime();
+        String singlePass = null;
+        for (int iteration = 0; iteration < BENCHMARK_ITERATIONS; iteration++) {
+            singlePass = PostUploadService.replaceMediaTags(content, uploadedMedia);
+        }
+        long singlePassUs = (System.nanoTime() - start) / (1000 * BENCHMARK_ITERATIONS);
+
+        assertEquals(replaced, singlePass);
+        AppLog.i(T.TESTS, "replacing " + MEDIA_COUNT + " media tags: String.replace " + replaceUs
+                + " us, single pass " + singlePassUs + " us");
+    }
+}
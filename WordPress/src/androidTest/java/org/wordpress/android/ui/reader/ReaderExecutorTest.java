@@ -0,0 +1,81 @@
+package org.wordpress.android.ui.reader;
+
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.ui.reader.utils.ReaderExecutor;
+import org.wordpress.android.ui.reader.utils.ReaderExecutor.Lane;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReaderExecutorTest extends InstrumentationTestCase {
+    private static final int TASK_COUNT = 50;
+
+    /*
+     * db writes must run one at a time in the order they were submitted
+     */
+    public void testDbWritesAreSerial() throws InterruptedException {
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(TASK_COUNT);
+        long executedBefore = ReaderExecutor.getStats(Lane.DB_WRITE).executed;
+
+        for (int i = 0; i < TASK_COUNT; i++) {
+            final int index = i;
+            ReaderExecutor.execute(Lane.DB_WRITE, new Runnable() {
+                @Override
+                public void run() {
+                    int numRunning = running.incrementAndGet();
+                    maxRunning.set(Math.max(maxRunning.get(), numRunning));
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    order.add(index);
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+        for (int i = 0; i < TASK_COUNT; i++) {
+            assertEquals(Integer.valueOf(i), order.get(i));
+        }
+
+        ReaderExecutor.Stats stats = ReaderExecutor.getStats(Lane.DB_WRITE);
+        assertEquals(executedBefore + TASK_COUNT, stats.executed);
+        assertTrue(stats.maxQueueDepth > 0);
+    }
+
+    /*
+     * parsing isn't serialized, so two tasks can wait on each other
+     */
+    public void testParseRunsInParallel() throws InterruptedException {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final CountDownLatch done = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            ReaderExecutor.execute(Lane.PARSE, new Runnable() {
+                @Override
+                public void run() {
+                    bothStarted.countDown();
+                    try {
+                        if (bothStarted.await(10, TimeUnit.SECONDS)) {
+                            done.countDown();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        assertTrue(done.await(15, TimeUnit.SECONDS));
+    }
+}
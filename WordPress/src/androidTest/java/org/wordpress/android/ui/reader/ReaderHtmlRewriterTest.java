@@ -0,0 +1,136 @@
+package org.wordpress.android.ui.reader;
+
+import android.os.Debug;
+import android.test.AndroidTestCase;
+
+import org.wordpress.android.ui.reader.utils.ReaderHtmlRewriter;
+import org.wordpress.android.ui.reader.utils.ReaderHtmlUtils;
+import org.wordpress.android.ui.reader.utils.ReaderIframeScanner;
+import org.wordpress.android.ui.reader.utils.ReaderImageScanner;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+public class ReaderHtmlRewriterTest extends AndroidTestCase {
+    private static final int[] GALLERY_SIZES = {10, 100, 300};
+    private static final int BENCHMARK_ITERATIONS = 10;
+
+    private static final ReaderHtmlRewriter.TagRewriter TEST_REWRITER = new ReaderHtmlRewriter.TagRewriter() {
+        @Override
+        public String rewriteImageTag(String imageTag, String imageUrl) {
+            return "<img class='size-full' src='" + imageUrl + "?w=600' width='300' />";
+        }
+        @Override
+        public String rewriteIframeTag(String iframeTag, String src) {
+            return "<iframe src='" + src + "' width='300' height='169' />";
+        }
+    };
+
+    /*
+     * tiled gallery markup as returned by the post endpoints for a gallery with the passed number of images
+     */
+    private static String makeGalleryPost(int numImages) {
+        StringBuilder sb = new StringBuilder("<p>Photos from the trip</p><div class=\"tiled-gallery type-rectangular\">");
+        for (int i = 0; i < numImages; i++) {
+            if (i % 3 == 0) {
+                sb.append("<div class=\"gallery-row\" style=\"width: 640px; height: 213px;\">");
+            }
+            sb.append("<div class=\"gallery-group images-1\" style=\"width: 213px; height: 213px;\">")
+              .append("<div class=\"tiled-gallery-item tiled-gallery-item-small\">")
+              .append("<a href=\"https://example.files.wordpress.com/2015/10/img_").append(i).append(".jpg\">")
+              .append("<img data-attachment-id=\"").append(1000 + i).append("\"")
+              .append(" data-orig-size=\"3264,2448\" data-image-title=\"img_").append(i).append("\"")
+              .append(" src=\"https://example.files.wordpress.com/2015/10/img_").append(i)
+              .append(".jpg?w=209&#038;h=157&#038;crop=1\" width=\"209\" height=\"157\"")
+              .append(" data-original-width=\"209\" alt=\"It's photo ").append(i).append("\" />")
+              .append("</a></div></div>");
+            if (i % 3 == 2) {
+                sb.append("</div>");
+            }
+        }
+        sb.append("</div><p>And a video</p>")
+          .append("<iframe class='youtube-player' type='text/html' width='640' height='390'")
+          .append(" src='http://www.youtube.com/embed/abc123?version=3' frameborder='0'></iframe>");
+        return sb.toString();
+    }
+
+    /*
+     * what ReaderPostRenderer did before the rewriter - regex scans with each tag found in and replaced
+     * from the start of the full content
+     */
+    private static String rewriteWithScanners(final String content) {
+        final StringBuilder builder = new StringBuilder(content);
+        new ReaderImageScanner(builder.toString(), false).beginScan(new ReaderHtmlUtils.HtmlScannerListener() {
+            @Override
+            public void onTagFound(String tag, String src, int start, int end) {
+                int index = builder.indexOf(tag);
+                builder.replace(index, index + tag.length(), TEST_REWRITER.rewriteImageTag(tag, src));
+            }
+            @Override
+            public void onScanCompleted() {
+            }
+        });
+        new ReaderIframeScanner(builder.toString()).beginScan(new ReaderHtmlUtils.HtmlScannerListener() {
+            @Override
+            public void onTagFound(String tag, String src, int start, int end) {
+                int index = builder.indexOf(tag);
+                builder.replace(index, index + tag.length(), TEST_REWRITER.rewriteIframeTag(tag, src));
+            }
+            @Override
+            public void onScanCompleted() {
+            }
+        });
+        return builder.toString();
+    }
+
+    public void testRewrite() {
+        String content = "<p>a</p><IMG SRC='one.jpg' width='10'><img\nsrc=\"two.jpg\" alt=\"1 > 0\" />"
+                + "<imgx src='no.jpg'><img alt='no src'><iframe width='1' src='vid'></iframe>";
+        String expected = "<p>a</p>" + TEST_REWRITER.rewriteImageTag(null, "one.jpg")
+                + TEST_REWRITER.rewriteImageTag(null, "two.jpg")
+                + "<imgx src='no.jpg'><img alt='no src'>" + TEST_REWRITER.rewriteIframeTag(null, "vid") + "</iframe>";
+        assertEquals(expected, ReaderHtmlRewriter.rewrite(content, TEST_REWRITER));
+    }
+
+    public void testRewriteUnchanged() {
+        String content = "<p>no images here</p><img src='unclosed.jpg'";
+        assertSame(content, ReaderHtmlRewriter.rewrite(content, TEST_REWRITER));
+        assertNull(ReaderHtmlRewriter.rewrite(null, TEST_REWRITER));
+    }
+
+    public void testGalleryMatchesScanners() {
+        String content = makeGalleryPost(GALLERY_SIZES[0]);
+        assertEquals(rewriteWithScanners(content), ReaderHtmlRewriter.rewrite(content, TEST_REWRITER));
+    }
+
+    /*
+     * compares time and bytes allocated preparing gallery posts for rendering
+     */
+    @SuppressWarnings("deprecation")
+    public void testGalleryBenchmark() {
+        for (int numImages : GALLERY_SIZES) {
+            String content = makeGalleryPost(numImages);
+
+            Debug.startAllocCounting();
+            Debug.resetThreadAllocSize();
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                rewriteWithScanners(content);
+            }
+            long scannersUs = (System.nanoTime() - start) / (1000 * BENCHMARK_ITERATIONS);
+            long scannersBytes = Debug.getThreadAllocSize() / BENCHMARK_ITERATIONS;
+
+            Debug.resetThreadAllocSize();
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                ReaderHtmlRewriter.rewrite(content, TEST_REWRITER);
+            }
+            long rewriterUs = (System.nanoTime() - start) / (1000 * BENCHMARK_ITERATIONS);
+            long rewriterBytes = Debug.getThreadAllocSize() / BENCHMARK_ITERATIONS;
+            Debug.stopAllocCounting();
+
+            AppLog.i(T.TESTS, "gallery with " + numImages + " images (" + content.length() + " chars): scanners "
+                    + scannersUs + " us/" + scannersBytes + " bytes, rewriter " + rewriterUs + " us/"
+                    + rewriterBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.wordpress.android.ui.reader;
+
+import android.test.AndroidTestCase;
+
+public class ReaderRenderCacheTest extends AndroidTestCase {
+    @Override
+    protected void tearDown() throws Exception {
+        ReaderRenderCache.evictAll();
+        super.tearDown();
+    }
+
+    public void testTemplateHead() {
+        ReaderRenderCache.putTemplateHead("config-a", "<head a>");
+        assertEquals("<head a>", ReaderRenderCache.getTemplateHead("config-a"));
+        assertNull(ReaderRenderCache.getTemplateHead("config-b"));
+
+        // a new configuration replaces the previous template
+        ReaderRenderCache.putTemplateHead("config-b", "<head b>");
+        assertNull(ReaderRenderCache.getTemplateHead("config-a"));
+        assertEquals("<head b>", ReaderRenderCache.getTemplateHead("config-b"));
+    }
+
+    private static final String ATTACHMENTS = "{\"1\":{\"URL\":\"http://example.com/a.jpg\",\"width\":640}}";
+
+    public void testRenderedHtml() {
+        String key = ReaderRenderCache.makeRenderedHtmlKey(1, 2, "<p>content</p>", ATTACHMENTS, false, "config-a");
+        ReaderRenderCache.putRenderedHtml(key, "<html>rendered</html>");
+        assertEquals("<html>rendered</html>", ReaderRenderCache.getRenderedHtml(key));
+
+        // changed content, another post or another configuration must not hit the cached html
+        assertNull(ReaderRenderCache.getRenderedHtml(
+                ReaderRenderCache.makeRenderedHtmlKey(1, 2, "<p>edited content</p>", ATTACHMENTS, false, "config-a")));
+        assertNull(ReaderRenderCache.getRenderedHtml(
+                ReaderRenderCache.makeRenderedHtmlKey(1, 3, "<p>content</p>", ATTACHMENTS, false, "config-a")));
+        assertNull(ReaderRenderCache.getRenderedHtml(
+                ReaderRenderCache.makeRenderedHtmlKey(1, 2, "<p>content</p>", ATTACHMENTS, false, "config-b")));
+        // so must other image sizes or resized image urls
+        assertNull(ReaderRenderCache.getRenderedHtml(
+                ReaderRenderCache.makeRenderedHtmlKey(1, 2, "<p>content</p>", "", false, "config-a")));
+        assertNull(ReaderRenderCache.getRenderedHtml(
+                ReaderRenderCache.makeRenderedHtmlKey(1, 2, "<p>content</p>", ATTACHMENTS, true, "config-a")));
+
+        ReaderRenderCache.evictAll();
+        assertNull(ReaderRenderCache.getRenderedHtml(key));
+    }
+}
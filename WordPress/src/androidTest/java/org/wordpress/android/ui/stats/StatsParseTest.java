@@ -0,0 +1,104 @@
+package org.wordpress.android.ui.stats;
+
+import android.content.Context;
+import android.test.InstrumentationTestCase;
+
+import org.json.JSONObject;
+import org.wordpress.android.ui.stats.models.BaseStatsModel;
+import org.wordpress.android.ui.stats.service.StatsService.StatsEndpointsEnum;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class StatsParseTest extends InstrumentationTestCase {
+    private static final String BLOG_ID = "123456";
+    private static final int BENCHMARK_ITERATIONS = 20;
+    private static final int THREADS = 3;
+
+    private final Map<StatsEndpointsEnum, String> mResponses = new EnumMap<>(StatsEndpointsEnum.class);
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Context testContext = getInstrumentation().getContext();
+        mResponses.put(StatsEndpointsEnum.VISITS, StatsTestUtils.readAsset(testContext, "-visits"));
+        mResponses.put(StatsEndpointsEnum.TOP_POSTS, StatsTestUtils.readAsset(testContext, "-top-posts"));
+        mResponses.put(StatsEndpointsEnum.REFERRERS, StatsTestUtils.readAsset(testContext, "-referrers"));
+        mResponses.put(StatsEndpointsEnum.CLICKS, StatsTestUtils.readAsset(testContext, "-clicks"));
+        mResponses.put(StatsEndpointsEnum.GEO_VIEWS, StatsTestUtils.readAsset(testContext, "-country-views"));
+        mResponses.put(StatsEndpointsEnum.VIDEO_PLAYS, StatsTestUtils.readAsset(testContext, "-video-plays"));
+        mResponses.put(StatsEndpointsEnum.COMMENTS, StatsTestUtils.readAsset(testContext, "-comments"));
+        mResponses.put(StatsEndpointsEnum.FOLLOWERS_WPCOM, StatsTestUtils.readAsset(testContext, "-followers"));
+        mResponses.put(StatsEndpointsEnum.TAGS_AND_CATEGORIES, StatsTestUtils.readAsset(testContext, "-tags"));
+        mResponses.put(StatsEndpointsEnum.INSIGHTS_POPULAR, StatsTestUtils.readAsset(testContext, "-insights"));
+        mResponses.put(StatsEndpointsEnum.INSIGHTS_ALL_TIME, StatsTestUtils.readAsset(testContext, ""));
+        mResponses.put(StatsEndpointsEnum.INSIGHTS_TODAY, StatsTestUtils.readAsset(testContext, "-summary"));
+    }
+
+    private BaseStatsModel parse(StatsEndpointsEnum section) throws Exception {
+        return StatsUtils.parseResponse(section, BLOG_ID, new JSONObject(mResponses.get(section)));
+    }
+
+    /*
+     * parses every section on a pool, as StatsService now does, and checks the models match the ones parsed
+     * one at a time - then compares the time taken for a screen's worth of sections
+     */
+    public void testParseSectionsInParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<BaseStatsModel>> futures = new ArrayList<>();
+            for (final StatsEndpointsEnum section : mResponses.keySet()) {
+                futures.add(executor.submit(new Callable<BaseStatsModel>() {
+                    @Override
+                    public BaseStatsModel call() throws Exception {
+                        return parse(section);
+                    }
+                }));
+            }
+            int i = 0;
+            for (StatsEndpointsEnum section : mResponses.keySet()) {
+                BaseStatsModel model = futures.get(i++).get();
+                assertNotNull(section.name(), model);
+                assertEquals(section.name(), parse(section).getClass(), model.getClass());
+            }
+
+            long start = System.nanoTime();
+            for (int iteration = 0; iteration < BENCHMARK_ITERATIONS; iteration++) {
+                for (StatsEndpointsEnum section : mResponses.keySet()) {
+                    parse(section);
+                }
+            }
+            long sequentialUs = (System.nanoTime() - start) / (1000 * BENCHMARK_ITERATIONS);
+
+            start = System.nanoTime();
+            for (int iteration = 0; iteration < BENCHMARK_ITERATIONS; iteration++) {
+                futures.clear();
+                for (final StatsEndpointsEnum section : mResponses.keySet()) {
+                    futures.add(executor.submit(new Callable<BaseStatsModel>() {
+                        @Override
+                        public BaseStatsModel call() throws Exception {
+                            return parse(section);
+                        }
+                    }));
+                }
+                for (Future<BaseStatsModel> future : futures) {
+                    future.get();
+                }
+            }
+            long parallelUs = (System.nanoTime() - start) / (1000 * BENCHMARK_ITERATIONS);
+
+            AppLog.i(T.TESTS, "parse " + mResponses.size() + " stats sections: sequential " + sequentialUs
+                    + " us, " + THREADS + " threads " + parallelUs + " us");
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
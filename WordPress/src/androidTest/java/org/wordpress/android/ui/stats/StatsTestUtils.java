@@ -0,0 +1,31 @@
+package org.wordpress.android.ui.stats;
+
+import android.content.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Scanner;
+
+/**
+ * reads the stats REST responses stored as test assets
+ */
+class StatsTestUtils {
+    private static final String ASSET_PREFIX = "default-public-api-wordpress-com-rest-v1-1-sites-123456-stats";
+
+    private StatsTestUtils() {
+        throw new AssertionError();
+    }
+
+    /*
+     * returns the response stored for the stats endpoint of blog 123456 with the passed suffix, ex: "-visits"
+     */
+    static String readAsset(Context testContext, String suffix) throws IOException {
+        InputStream in = testContext.getAssets().open(ASSET_PREFIX + suffix + ".json");
+        try {
+            Scanner scanner = new Scanner(in, "UTF-8").useDelimiter("\\A");
+            return scanner.hasNext() ? scanner.next() : "";
+        } finally {
+            in.close();
+        }
+    }
+}
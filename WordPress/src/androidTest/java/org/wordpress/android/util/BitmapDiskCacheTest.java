@@ -0,0 +1,231 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.test.InstrumentationTestCase;
+
+import com.android.volley.Network;
+import com.android.volley.NetworkResponse;
+import com.android.volley.NoConnectionError;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.ImageLoader;
+import com.android.volley.toolbox.NoCache;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BitmapDiskCacheTest extends InstrumentationTestCase {
+    private static final String IMAGE_URL = "https://i0.wp.com/example.com/image.jpg";
+    private static final long MAX_WAIT_MS = 5000;
+
+    private File mDirectory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mDirectory = new File(getInstrumentation().getTargetContext().getCacheDir(), "bitmap-disk-cache-test");
+        deleteDirectory();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        deleteDirectory();
+        super.tearDown();
+    }
+
+    private void deleteDirectory() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+    }
+
+    private static String makeVolleyKey(int maxWidth, String url) {
+        return "#W" + maxWidth + "#H0#S3" + url;
+    }
+
+    private static Bitmap createBitmap(int width) {
+        Bitmap bitmap = Bitmap.createBitmap(width, width / 2, Bitmap.Config.RGB_565);
+        bitmap.eraseColor(Color.BLUE);
+        return bitmap;
+    }
+
+    /*
+     * waits for the passed key to be written by the background thread
+     */
+    private static Bitmap waitForBitmap(BitmapDiskCache cache, String key) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        Bitmap bitmap;
+        while ((bitmap = cache.get(key)) == null && System.currentTimeMillis() - start < MAX_WAIT_MS) {
+            Thread.sleep(20);
+        }
+        return bitmap;
+    }
+
+    public void testDiskKeyBuckets() {
+        BitmapDiskCache.DiskKey key = BitmapDiskCache.makeDiskKey(makeVolleyKey(0, IMAGE_URL + "?strip=all&w=200"));
+        assertEquals(200, key.width);
+        // sizes in the same bucket share an entry, the other params are still part of the key
+        assertEquals(key.name, BitmapDiskCache.makeDiskKey(makeVolleyKey(0, IMAGE_URL + "?strip=all&w=250")).name);
+        assertEquals(key.name, BitmapDiskCache.makeDiskKey(makeVolleyKey(240, IMAGE_URL + "?strip=all")).name);
+        assertFalse(key.name.equals(BitmapDiskCache.makeDiskKey(makeVolleyKey(0, IMAGE_URL + "?strip=all&w=300")).name));
+        assertFalse(key.name.equals(BitmapDiskCache.makeDiskKey(makeVolleyKey(0, IMAGE_URL + "?w=200")).name));
+
+        // keys which aren't Volley image keys are skipped (media files are cached by path)
+        assertNull(BitmapDiskCache.makeDiskKey("/sdcard/DCIM/image.jpg"));
+        assertNull(BitmapDiskCache.makeDiskKey(null));
+    }
+
+    public void testPutAndGet() throws InterruptedException {
+        BitmapDiskCache cache = new BitmapDiskCache(mDirectory, 1024 * 1024);
+        String key = makeVolleyKey(0, IMAGE_URL + "?w=200");
+        cache.put(key, createBitmap(200));
+
+        Bitmap bitmap = waitForBitmap(cache, key);
+        assertNotNull(bitmap);
+        assertEquals(200, bitmap.getWidth());
+        // same bucket but wider than the stored image
+        assertNull(cache.get(makeVolleyKey(0, IMAGE_URL + "?w=250")));
+        // narrower image is served from the wider entry
+        assertNotNull(cache.get(makeVolleyKey(0, IMAGE_URL + "?w=150")));
+
+        // entries written by an earlier session are found by a new instance
+        BitmapDiskCache newCache = new BitmapDiskCache(mDirectory, 1024 * 1024);
+        assertNotNull(waitForBitmap(newCache, key));
+    }
+
+    public void testEvictsOldestEntries() throws InterruptedException {
+        Bitmap bitmap = createBitmap(400);
+        BitmapDiskCache cache = new BitmapDiskCache(mDirectory, Long.MAX_VALUE);
+        String firstKey = makeVolleyKey(0, IMAGE_URL + "?id=0&w=400");
+        cache.put(firstKey, bitmap);
+        assertNotNull(waitForBitmap(cache, firstKey));
+        long entryBytes = cache.getSizeInBytes();
+
+        // room for two entries
+        cache = new BitmapDiskCache(mDirectory, entryBytes * 2 + entryBytes / 2);
+        for (int i = 1; i <= 3; i++) {
+            cache.put(makeVolleyKey(0, IMAGE_URL + "?id=" + i + "&w=400"), bitmap);
+        }
+        String lastKey = makeVolleyKey(0, IMAGE_URL + "?id=3&w=400");
+        assertNotNull(waitForBitmap(cache, lastKey));
+        assertNull(cache.get(firstKey));
+        assertNull(cache.get(makeVolleyKey(0, IMAGE_URL + "?id=1&w=400")));
+        assertTrue(cache.getSizeInBytes() <= entryBytes * 2 + entryBytes / 2);
+    }
+
+    /*
+     * network which counts the requests reaching it and fails them
+     */
+    private static class CountingNetwork implements Network {
+        private final AtomicInteger mRequestCount = new AtomicInteger();
+
+        @Override
+        public NetworkResponse performRequest(Request<?> request) throws VolleyError {
+            mRequestCount.incrementAndGet();
+            throw new NoConnectionError();
+        }
+    }
+
+    /*
+     * requests the image through the passed loader on the main thread, returns null if it failed
+     */
+    private Bitmap loadImage(final ImageLoader loader, final String url, final int maxWidth)
+            throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Bitmap[] result = new Bitmap[1];
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                loader.get(url, new ImageLoader.ImageListener() {
+                    @Override
+                    public void onResponse(ImageLoader.ImageContainer response, boolean isImmediate) {
+                        if (response.getBitmap() != null) {
+                            result[0] = response.getBitmap();
+                            latch.countDown();
+                        }
+                    }
+
+                    @Override
+                    public void onErrorResponse(VolleyError error) {
+                        latch.countDown();
+                    }
+                }, maxWidth, 0);
+            }
+        });
+        assertTrue(latch.await(MAX_WAIT_MS, TimeUnit.MILLISECONDS));
+        return result[0];
+    }
+
+    private static RequestQueue newRequestQueue(BitmapDiskCache diskCache, Network network) {
+        RequestQueue queue = new RequestQueue(new ImageRequestCache(new NoCache(), diskCache), network);
+        queue.start();
+        return queue;
+    }
+
+    /*
+     * an image missing from memory which is on disk is decoded from disk without a network request
+     */
+    public void testDiskHitSkipsNetwork() throws InterruptedException {
+        BitmapDiskCache diskCache = new BitmapDiskCache(mDirectory, 1024 * 1024);
+        CountingNetwork network = new CountingNetwork();
+        RequestQueue queue = newRequestQueue(diskCache, network);
+        try {
+            ImageLoader loader = new DiskCacheImageLoader(queue, new BitmapLruCache(4096, diskCache));
+            String url = IMAGE_URL + "?w=600";
+            diskCache.put(makeVolleyKey(600, url), createBitmap(600));
+            assertNotNull(waitForBitmap(diskCache, makeVolleyKey(600, url)));
+
+            Bitmap bitmap = loadImage(loader, url, 600);
+            assertNotNull(bitmap);
+            assertEquals(600, bitmap.getWidth());
+            assertEquals(0, network.mRequestCount.get());
+
+            // an image which isn't on disk is requested from the network
+            assertNull(loadImage(loader, IMAGE_URL + "?id=1&w=600", 600));
+            assertEquals(1, network.mRequestCount.get());
+        } finally {
+            queue.stop();
+        }
+    }
+
+    /*
+     * time to load an image evicted from memory through the loader, which compares with the download it
+     * replaces, typically hundreds of ms
+     */
+    public void testDiskHitBenchmark() throws InterruptedException {
+        BitmapDiskCache diskCache = new BitmapDiskCache(mDirectory, 1024 * 1024);
+        BitmapLruCache cache = new BitmapLruCache(4096, diskCache);
+        CountingNetwork network = new CountingNetwork();
+        RequestQueue queue = newRequestQueue(diskCache, network);
+        try {
+            ImageLoader loader = new DiskCacheImageLoader(queue, cache);
+            String url = IMAGE_URL + "?w=600";
+            diskCache.put(makeVolleyKey(600, url), createBitmap(600));
+            assertNotNull(waitForBitmap(diskCache, makeVolleyKey(600, url)));
+
+            int iterations = 20;
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < iterations; i++) {
+                cache.evictAll();
+                assertNotNull(loadImage(loader, url, 600));
+            }
+            long avgMs = (System.currentTimeMillis() - start) / iterations;
+            assertEquals(0, network.mRequestCount.get());
+            assertTrue(diskCache.getHitCount() >= iterations);
+            AppLog.i(T.TESTS, "bitmap disk cache: " + avgMs + " ms avg load of 600px image evicted from memory");
+            cache.logStats();
+        } finally {
+            queue.stop();
+        }
+    }
+}
@@ -21,7 +21,6 @@ import android.webkit.WebView;
 import com.android.volley.RequestQueue;
 import com.android.volley.VolleyLog;
 import com.android.volley.toolbox.ImageLoader;
-import com.android.volley.toolbox.Volley;
 import com.crashlytics.android.Crashlytics;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.GooglePlayServicesUtil;
@@ -46,20 +45,24 @@ import org.wordpress.android.networking.RestClientUtils;
 import org.wordpress.android.networking.SelfSignedSSLCertsManager;
 import org.wordpress.android.ui.ActivityId;
 import org.wordpress.android.ui.accounts.helpers.UpdateBlogListTask.GenericUpdateBlogListTask;
+import org.wordpress.android.ui.notifications.utils.NoteSubjectCache;
 import org.wordpress.android.ui.notifications.utils.NotificationsUtils;
 import org.wordpress.android.ui.notifications.utils.SimperiumUtils;
 import org.wordpress.android.ui.prefs.AppPrefs;
+import org.wordpress.android.ui.reader.ReaderRenderCache;
 import org.wordpress.android.ui.stats.StatsWidgetProvider;
 import org.wordpress.android.ui.stats.datasets.StatsDatabaseHelper;
 import org.wordpress.android.ui.stats.datasets.StatsTable;
 import org.wordpress.android.util.AnalyticsUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.BitmapDiskCache;
 import org.wordpress.android.util.BitmapLruCache;
 import org.wordpress.android.util.CoreEvents;
 import org.wordpress.android.util.CoreEvents.UserSignedOutCompletely;
 import org.wordpress.android.util.CoreEvents.UserSignedOutWordPressCom;
 import org.wordpress.android.util.DateTimeUtils;
+import org.wordpress.android.util.DiskCacheImageLoader;
 import org.wordpress.android.util.HelpshiftHelper;
 import org.wordpress.android.util.NetworkUtils;
 import org.wordpress.android.util.PackageUtils;
@@ -104,6 +107,8 @@ public class WordPress extends Application {
 
     private static Context mContext;
     private static BitmapLruCache mBitmapCache;
+    private static final String BITMAP_DISK_CACHE_DIR = "bitmaps";
+    private static final long BITMAP_DISK_CACHE_SIZE = 20 * 1024 * 1024;
 
     /**
      *  Updates Options for the current blog in background.
@@ -156,7 +161,13 @@ public class WordPress extends Application {
             // number of items. See http://developer.android.com/training/displaying-bitmaps/cache-bitmap.html
             int maxMemory = (int) (Runtime.getRuntime().maxMemory() / 1024);
             int cacheSize = maxMemory / 16;  //Use 1/16th of the available memory for this memory cache.
-            mBitmapCache = new BitmapLruCache(cacheSize);
+            // decoded images evicted from memory are kept on disk so they don't have to be downloaded again
+            BitmapDiskCache diskCache = null;
+            if (mContext != null) {
+                diskCache = new BitmapDiskCache(new File(mContext.getCacheDir(), BITMAP_DISK_CACHE_DIR),
+                        BITMAP_DISK_CACHE_SIZE);
+            }
+            mBitmapCache = new BitmapLruCache(cacheSize, diskCache);
         }
         return mBitmapCache;
     }
@@ -269,8 +280,9 @@ public class WordPress extends Application {
     }
 
     public static void setupVolleyQueue() {
-        requestQueue = Volley.newRequestQueue(mContext, VolleyUtils.getHTTPClientStack(mContext));
-        imageLoader = new ImageLoader(requestQueue, getBitmapCache());
+        requestQueue = VolleyUtils.newRequestQueue(mContext, VolleyUtils.getHTTPClientStack(mContext),
+                getBitmapCache().getDiskCache());
+        imageLoader = new DiskCacheImageLoader(requestQueue, getBitmapCache());
         VolleyLog.setTag(AppLog.TAG);
         // http://stackoverflow.com/a/17035814
         imageLoader.setBatchedResponseDelay(0);
@@ -727,22 +739,22 @@ public class WordPress extends Application {
                 mIsInBackground = false;
             }
 
-            boolean evictBitmaps = false;
+            if (mBitmapCache != null) {
+                mBitmapCache.trimMemory(level);
+            }
+
             switch (level) {
                 case TRIM_MEMORY_COMPLETE:
                 case TRIM_MEMORY_MODERATE:
                 case TRIM_MEMORY_RUNNING_MODERATE:
                 case TRIM_MEMORY_RUNNING_CRITICAL:
                 case TRIM_MEMORY_RUNNING_LOW:
-                    evictBitmaps = true;
+                    ReaderRenderCache.evictAll();
+                    NoteSubjectCache.evictAll();
                     break;
                 default:
                     break;
             }
-
-            if (evictBitmaps && mBitmapCache != null) {
-                mBitmapCache.evictAll();
-            }
         }
 
         private boolean isPushNotificationPingNeeded() {
@@ -8,6 +8,7 @@ import android.database.Cursor;
 import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
 import android.preference.PreferenceManager;
 import android.text.TextUtils;
 import android.util.Base64;
@@ -15,6 +16,7 @@ import android.util.Base64;
 import org.apache.commons.lang.ArrayUtils;
 import org.json.JSONArray;
 import org.wordpress.android.datasets.AccountTable;
+import org.wordpress.android.datasets.ColumnIndexMap;
 import org.wordpress.android.datasets.CommentTable;
 import org.wordpress.android.datasets.SiteSettingsTable;
 import org.wordpress.android.datasets.SuggestionTable;
@@ -45,6 +47,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -84,7 +87,7 @@ public class WordPressDB {
     public static final String COLUMN_NAME_VIDEO_PRESS_SHORTCODE = "videoPressShortcode";
     public static final String COLUMN_NAME_UPLOAD_STATE          = "uploadState";
 
-    private static final int DATABASE_VERSION = 44;
+    private static final int DATABASE_VERSION = 46;
 
     private static final String CREATE_TABLE_BLOGS = "create table if not exists accounts (id integer primary key autoincrement, "
             + "url text, blogName text, username text, password text, imagePlacement text, centerThumbnail boolean, fullSizeImage boolean, maxImageWidth text, maxImageWidthId integer);";
@@ -193,6 +196,21 @@ public class WordPressDB {
     private static final String ADD_POST_ID_INDEX = "CREATE INDEX idx_posts_post_id ON posts(postid);";
     private static final String ADD_BLOG_ID_INDEX = "CREATE INDEX idx_posts_blog_id ON posts(blogID);";
 
+    // local drafts used to store an empty postid, they need a NULL one to stay out of the unique index
+    private static final String CLEAR_EMPTY_POST_IDS = "UPDATE posts SET postid=NULL WHERE postid='';";
+    // a single row per remote post is kept before adding the unique index, the latest one with local changes if any
+    // so those changes stay attached to the remote post and are uploaded to it. The other copies are deleted, turning
+    // them into local drafts would upload them as new posts
+    private static final String NOT_KEPT_DUPLICATE_POST = "EXISTS (SELECT 1 FROM posts p2 WHERE p2.blogID=posts.blogID"
+            + " AND p2.postid=posts.postid AND p2.isPage=posts.isPage"
+            + " AND (p2.isLocalChange>posts.isLocalChange"
+            + " OR (p2.isLocalChange=posts.isLocalChange AND p2.id>posts.id)))";
+    private static final String COUNT_DUPLICATE_CHANGED_POSTS =
+            "SELECT COUNT(*) FROM posts WHERE isLocalChange=1 AND " + NOT_KEPT_DUPLICATE_POST + ";";
+    private static final String DELETE_DUPLICATE_POSTS = "DELETE FROM posts WHERE " + NOT_KEPT_DUPLICATE_POST + ";";
+    private static final String ADD_POST_UNIQUE_INDEX =
+            "CREATE UNIQUE INDEX idx_posts_blog_id_post_id_is_page ON posts(blogID, postid, isPage);";
+
     //add boolean to track if featured image should be included in the post content
     private static final String ADD_FEATURED_IN_POST = "alter table media add isFeaturedInPost boolean default false;";
 
@@ -215,6 +233,8 @@ public class WordPressDB {
     private static final String ADD_MEDIA_DATE_GMT = "alter table media add date_created_gmt date;";
     private static final String ADD_MEDIA_UPLOAD_STATE = "alter table media add uploadState default '';";
     private static final String ADD_MEDIA_VIDEOPRESS_SHORTCODE = "alter table media add videoPressShortcode text default '';";
+    // HTML returned for media uploaded with a post, so an interrupted post upload doesn't upload it again
+    private static final String ADD_MEDIA_UPLOADED_HTML = "alter table media add uploadedHtml text default '';";
 
     // add hidden flag to blog settings (accounts)
     private static final String ADD_BLOGS_HIDDEN_FLAG = "alter table accounts add isHidden boolean default 0;";
@@ -409,10 +429,35 @@ public class WordPressDB {
             case 43:
                 db.execSQL(ADD_BLOGS_PLAN_PRODUCT_NAME_SHORT);
                 currentVersion++;
+            case 44:
+                // unique remote post index used by savePosts
+                db.execSQL(CLEAR_EMPTY_POST_IDS);
+                resolveDuplicatePosts(db);
+                db.execSQL(ADD_POST_UNIQUE_INDEX);
+                currentVersion++;
+            case 45:
+                db.execSQL(ADD_MEDIA_UPLOADED_HTML);
+                currentVersion++;
         }
         db.setVersion(DATABASE_VERSION);
     }
 
+    private static void resolveDuplicatePosts(SQLiteDatabase db) {
+        SQLiteStatement stmtCount = db.compileStatement(COUNT_DUPLICATE_CHANGED_POSTS);
+        SQLiteStatement stmtDelete = db.compileStatement(DELETE_DUPLICATE_POSTS);
+        try {
+            long numChanged = stmtCount.simpleQueryForLong();
+            int numDeleted = stmtDelete.executeUpdateDelete();
+            if (numDeleted > 0) {
+                AppLog.w(T.DB, "duplicate posts: " + numDeleted + " copies removed, " + numChanged
+                        + " of them with local changes superseded by a later copy");
+            }
+        } finally {
+            SqlUtils.closeStatement(stmtCount);
+            SqlUtils.closeStatement(stmtDelete);
+        }
+    }
+
     private void updateDotcomFlag() {
         // Loop over all .com blogs in the app and check that are really hosted on wpcom
         List<Map<String, Object>> allBlogs = getBlogsBy("dotcomFlag=1", null, 0, false);
@@ -1018,18 +1063,14 @@ public class WordPressDB {
         return (Object[]) array;
     }
 
-    /*
-     * returns true if the post matching the passed local blog ID and remote post ID
-     * has local changes
-     */
-    private boolean postHasLocalChanges(int localBlogId, String remotePostId) {
-        if (TextUtils.isEmpty(remotePostId)) {
-            return false;
-        }
-        String[] args = {String.valueOf(localBlogId), remotePostId};
-        String sql = "SELECT 1 FROM " + POSTS_TABLE + " WHERE blogID=? AND postid=? AND isLocalChange=1";
-        return SqlUtils.boolForQuery(db, sql, args);
-    }
+    // columns written by savePosts for both posts and pages, in binding order
+    private static final String[] SYNCED_POST_COLUMNS = {
+            "title", "dateCreated", "date_created_gmt", "description", "link", "permaLink", "categories",
+            "custom_fields", "mt_excerpt", "mt_text_more", "mt_allow_comments", "mt_allow_pings", "wp_slug",
+            "wp_password", "wp_author_id", "wp_author_display_name", "wp_post_thumbnail", "post_status", "userid",
+            "latitude", "longitude"};
+    private static final String[] SYNCED_POST_ONLY_COLUMNS = {"mt_keywords", "wp_post_format"};
+    private static final String[] SYNCED_PAGE_ONLY_COLUMNS = {"wp_page_parent_id", "wp_page_parent_title"};
 
     /**
      * Saves a list of posts to the db
@@ -1039,119 +1080,181 @@ public class WordPressDB {
      * @param overwriteLocalChanges boolean which determines whether to overwrite posts with local changes
      */
     public void savePosts(List<?> postsList, int localBlogId, boolean isPage, boolean overwriteLocalChanges) {
-        if (postsList != null && postsList.size() != 0) {
-            db.beginTransaction();
-            try {
-                for (Object post : postsList) {
-                    ContentValues values = new ContentValues();
-
-                    // Sanity checks
-                    if (!(post instanceof Map)) {
-                        continue;
-                    }
-                    Map<?, ?> postMap = (Map<?, ?>) post;
-                    String postID = MapUtils.getMapStr(postMap, (isPage) ? "page_id" : "postid");
-                    if (TextUtils.isEmpty(postID)) {
-                        // If we don't have a post or page ID, move on
-                        continue;
-                    }
-
-                    values.put("blogID", localBlogId);
-                    values.put("postid", postID);
-                    values.put("title", MapUtils.getMapStr(postMap, "title"));
-                    Date dateCreated = MapUtils.getMapDate(postMap, "dateCreated");
-                    if (dateCreated != null) {
-                        values.put("dateCreated", dateCreated.getTime());
-                    } else {
-                        Date now = new Date();
-                        values.put("dateCreated", now.getTime());
-                    }
+        if (postsList == null || postsList.size() == 0) {
+            return;
+        }
 
-                    Date dateCreatedGmt = MapUtils.getMapDate(postMap, "date_created_gmt");
-                    if (dateCreatedGmt != null) {
-                        values.put("date_created_gmt", dateCreatedGmt.getTime());
-                    } else {
-                        dateCreatedGmt = new Date((Long) values.get("dateCreated"));
-                        values.put("date_created_gmt", dateCreatedGmt.getTime() + (dateCreatedGmt.getTimezoneOffset() * 60000));
-                    }
+        List<String> columns = new ArrayList<>(Arrays.asList(SYNCED_POST_COLUMNS));
+        columns.addAll(Arrays.asList(isPage ? SYNCED_PAGE_ONLY_COLUMNS : SYNCED_POST_ONLY_COLUMNS));
+        int numColumns = columns.size();
+
+        // the update only matches posts without local changes unless they're overwritten, the insert is ignored
+        // when the unique (blogID, postid, isPage) index already holds the post, ie. when it has local changes
+        StringBuilder updateSql = new StringBuilder("UPDATE " + POSTS_TABLE + " SET ");
+        StringBuilder insertSql = new StringBuilder("INSERT OR IGNORE INTO " + POSTS_TABLE + " (");
+        StringBuilder insertValues = new StringBuilder();
+        for (int i = 0; i < numColumns; i++) {
+            String column = columns.get(i);
+            String param = "?" + (i + 1);
+            if (column.equals("latitude") || column.equals("longitude")) {
+                // only synced when the post has a location
+                updateSql.append(column).append("=COALESCE(").append(param).append(",").append(column).append("),");
+            } else {
+                updateSql.append(column).append("=").append(param).append(",");
+            }
+            insertSql.append(column).append(",");
+            insertValues.append(param).append(",");
+        }
+        updateSql.append("isLocalChange=0 WHERE blogID=?").append(numColumns + 1)
+                 .append(" AND postid=?").append(numColumns + 2)
+                 .append(" AND isPage=?").append(numColumns + 3)
+                 .append(" AND (?").append(numColumns + 4).append("=1 OR NOT isLocalChange=1)");
+        insertSql.append("isLocalChange,blogID,postid,isPage) VALUES (").append(insertValues)
+                 .append("0,?").append(numColumns + 1)
+                 .append(",?").append(numColumns + 2)
+                 .append(",?").append(numColumns + 3).append(")");
+
+        SQLiteStatement stmtUpdate = db.compileStatement(updateSql.toString());
+        SQLiteStatement stmtInsert = db.compileStatement(insertSql.toString());
+        Object[] values = new Object[numColumns];
+
+        db.beginTransaction();
+        try {
+            for (Object post : postsList) {
+                // Sanity checks
+                if (!(post instanceof Map)) {
+                    continue;
+                }
+                Map<?, ?> postMap = (Map<?, ?>) post;
+                String postID = MapUtils.getMapStr(postMap, (isPage) ? "page_id" : "postid");
+                if (TextUtils.isEmpty(postID)) {
+                    // If we don't have a post or page ID, move on
+                    continue;
+                }
 
-                    values.put("description", MapUtils.getMapStr(postMap, "description"));
-                    values.put("link", MapUtils.getMapStr(postMap, "link"));
-                    values.put("permaLink", MapUtils.getMapStr(postMap, "permaLink"));
+                getSyncedPostValues(postMap, isPage, columns, values);
 
-                    Object[] postCategories = (Object[]) postMap.get("categories");
-                    JSONArray jsonCategoriesArray = new JSONArray();
-                    if (postCategories != null) {
-                        for (Object postCategory : postCategories) {
-                            jsonCategoriesArray.put(postCategory.toString());
-                        }
-                    }
-                    values.put("categories", jsonCategoriesArray.toString());
-
-                    Object[] custom_fields = (Object[]) postMap.get("custom_fields");
-                    JSONArray jsonCustomFieldsArray = new JSONArray();
-                    if (custom_fields != null) {
-                        for (Object custom_field : custom_fields) {
-                            jsonCustomFieldsArray.put(custom_field.toString());
-                            // Update geo_long and geo_lat from custom fields
-                            if (!(custom_field instanceof Map))
-                                continue;
-                            Map<?, ?> customField = (Map<?, ?>) custom_field;
-                            if (customField.get("key") != null && customField.get("value") != null) {
-                                if (customField.get("key").equals("geo_longitude"))
-                                    values.put("longitude", customField.get("value").toString());
-                                if (customField.get("key").equals("geo_latitude"))
-                                    values.put("latitude", customField.get("value").toString());
-                            }
-                        }
-                    }
-                    values.put("custom_fields", jsonCustomFieldsArray.toString());
-
-                    values.put("mt_excerpt", MapUtils.getMapStr(postMap, (isPage) ? "excerpt" : "mt_excerpt"));
-                    values.put("mt_text_more", MapUtils.getMapStr(postMap, (isPage) ? "text_more" : "mt_text_more"));
-                    values.put("mt_allow_comments", MapUtils.getMapInt(postMap, "mt_allow_comments", 0));
-                    values.put("mt_allow_pings", MapUtils.getMapInt(postMap, "mt_allow_pings", 0));
-                    values.put("wp_slug", MapUtils.getMapStr(postMap, "wp_slug"));
-                    values.put("wp_password", MapUtils.getMapStr(postMap, "wp_password"));
-                    values.put("wp_author_id", MapUtils.getMapStr(postMap, "wp_author_id"));
-                    values.put("wp_author_display_name", MapUtils.getMapStr(postMap, "wp_author_display_name"));
-                    values.put("wp_post_thumbnail", MapUtils.getMapInt(postMap, "wp_post_thumbnail"));
-                    values.put("post_status", MapUtils.getMapStr(postMap, (isPage) ? "page_status" : "post_status"));
-                    values.put("userid", MapUtils.getMapStr(postMap, "userid"));
-
-                    if (isPage) {
-                        values.put("isPage", true);
-                        values.put("wp_page_parent_id", MapUtils.getMapStr(postMap, "wp_page_parent_id"));
-                        values.put("wp_page_parent_title", MapUtils.getMapStr(postMap, "wp_page_parent_title"));
-                    } else {
-                        values.put("mt_keywords", MapUtils.getMapStr(postMap, "mt_keywords"));
-                        values.put("wp_post_format", MapUtils.getMapStr(postMap, "wp_post_format"));
-                    }
+                bindSyncedPostValues(stmtUpdate, values, localBlogId, postID, isPage);
+                stmtUpdate.bindLong(numColumns + 4, SqlUtils.boolToSql(overwriteLocalChanges));
+                if (stmtUpdate.executeUpdateDelete() == 0) {
+                    bindSyncedPostValues(stmtInsert, values, localBlogId, postID, isPage);
+                    stmtInsert.executeInsert();
+                }
+            }
 
-                    if (overwriteLocalChanges) {
-                        values.put("isLocalChange", false);
-                    }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            SqlUtils.closeStatement(stmtUpdate);
+            SqlUtils.closeStatement(stmtInsert);
+        }
+    }
 
-                    String whereClause = "blogID=? AND postID=? AND isPage=?";
-                    if (!overwriteLocalChanges) {
-                        whereClause += " AND NOT isLocalChange=1";
-                    }
+    /*
+     * fills values with the post fields matching the passed columns, as returned by the XML-RPC API
+     */
+    private static void getSyncedPostValues(Map<?, ?> postMap, boolean isPage, List<String> columns,
+                                            Object[] values) {
+        Date dateCreated = MapUtils.getMapDate(postMap, "dateCreated");
+        long dateCreatedMillis = (dateCreated != null ? dateCreated : new Date()).getTime();
+        Date dateCreatedGmt = MapUtils.getMapDate(postMap, "date_created_gmt");
+        long dateCreatedGmtMillis;
+        if (dateCreatedGmt != null) {
+            dateCreatedGmtMillis = dateCreatedGmt.getTime();
+        } else {
+            dateCreatedGmt = new Date(dateCreatedMillis);
+            dateCreatedGmtMillis = dateCreatedGmt.getTime() + (dateCreatedGmt.getTimezoneOffset() * 60000);
+        }
 
-                    String[] args = {String.valueOf(localBlogId), postID, String.valueOf(SqlUtils.boolToSql(isPage))};
-                    int updateResult = db.update(POSTS_TABLE, values, whereClause, args);
+        Object[] postCategories = (Object[]) postMap.get("categories");
+        JSONArray jsonCategoriesArray = new JSONArray();
+        if (postCategories != null) {
+            for (Object postCategory : postCategories) {
+                jsonCategoriesArray.put(postCategory.toString());
+            }
+        }
 
-                    // only perform insert if update didn't match any rows, and only then if we're
-                    // overwriting local changes or local changes for this post don't exist
-                    if (updateResult == 0 && (overwriteLocalChanges || !postHasLocalChanges(localBlogId, postID))) {
-                        db.insert(POSTS_TABLE, null, values);
-                    }
+        String latitude = null;
+        String longitude = null;
+        Object[] custom_fields = (Object[]) postMap.get("custom_fields");
+        JSONArray jsonCustomFieldsArray = new JSONArray();
+        if (custom_fields != null) {
+            for (Object custom_field : custom_fields) {
+                jsonCustomFieldsArray.put(custom_field.toString());
+                // Update geo_long and geo_lat from custom fields
+                if (!(custom_field instanceof Map))
+                    continue;
+                Map<?, ?> customField = (Map<?, ?>) custom_field;
+                if (customField.get("key") != null && customField.get("value") != null) {
+                    if (customField.get("key").equals("geo_longitude"))
+                        longitude = customField.get("value").toString();
+                    if (customField.get("key").equals("geo_latitude"))
+                        latitude = customField.get("value").toString();
                 }
+            }
+        }
 
-                db.setTransactionSuccessful();
-            } finally {
-                db.endTransaction();
+        for (int i = 0; i < values.length; i++) {
+            String column = columns.get(i);
+            Object value;
+            switch (column) {
+                case "dateCreated":
+                    value = dateCreatedMillis;
+                    break;
+                case "date_created_gmt":
+                    value = dateCreatedGmtMillis;
+                    break;
+                case "categories":
+                    value = jsonCategoriesArray.toString();
+                    break;
+                case "custom_fields":
+                    value = jsonCustomFieldsArray.toString();
+                    break;
+                case "latitude":
+                    value = latitude;
+                    break;
+                case "longitude":
+                    value = longitude;
+                    break;
+                case "mt_excerpt":
+                    value = MapUtils.getMapStr(postMap, (isPage) ? "excerpt" : "mt_excerpt");
+                    break;
+                case "mt_text_more":
+                    value = MapUtils.getMapStr(postMap, (isPage) ? "text_more" : "mt_text_more");
+                    break;
+                case "post_status":
+                    value = MapUtils.getMapStr(postMap, (isPage) ? "page_status" : "post_status");
+                    break;
+                case "mt_allow_comments":
+                case "mt_allow_pings":
+                    value = (long) MapUtils.getMapInt(postMap, column, 0);
+                    break;
+                case "wp_post_thumbnail":
+                    value = (long) MapUtils.getMapInt(postMap, column);
+                    break;
+                default:
+                    value = MapUtils.getMapStr(postMap, column);
+                    break;
+            }
+            values[i] = value;
+        }
+    }
+
+    private static void bindSyncedPostValues(SQLiteStatement stmt, Object[] values, int localBlogId, String postID,
+                                             boolean isPage) {
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                stmt.bindNull(i + 1);
+            } else if (value instanceof Long) {
+                stmt.bindLong(i + 1, (Long) value);
+            } else {
+                stmt.bindString(i + 1, value.toString());
             }
         }
+        stmt.bindString(values.length + 1, String.valueOf(localBlogId));
+        stmt.bindString(values.length + 2, postID);
+        stmt.bindLong(values.length + 3, SqlUtils.boolToSql(isPage));
     }
 
     /*
@@ -1163,8 +1266,9 @@ public class WordPressDB {
         String[] args = {Integer.toString(localBlogId), Integer.toString(loadPages ? 1 : 0)};
         Cursor c = db.query(POSTS_TABLE, null, "blogID=? AND isPage=?", args, null, null, "localDraft DESC, date_created_gmt DESC");
         try {
+            ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
             while (c.moveToNext()) {
-                listPosts.add(new PostsListPost(getPostFromCursor(c)));
+                listPosts.add(new PostsListPost(getPostFromCursor(c, columns)));
             }
             return listPosts;
         } finally {
@@ -1173,45 +1277,49 @@ public class WordPressDB {
     }
 
     private Post getPostFromCursor(Cursor c) {
+        return getPostFromCursor(c, ColumnIndexMap.forCursor(c));
+    }
+
+    private Post getPostFromCursor(Cursor c, ColumnIndexMap columns) {
         Post post = new Post();
 
-        post.setLocalTableBlogId(c.getInt(c.getColumnIndex("blogID")));
-        post.setLocalTablePostId(c.getLong(c.getColumnIndex("id")));
-        post.setRemotePostId(c.getString(c.getColumnIndex("postid")));
-        post.setTitle(StringUtils.unescapeHTML(c.getString(c.getColumnIndex("title"))));
-        post.setDateCreated(c.getLong(c.getColumnIndex("dateCreated")));
-        post.setDate_created_gmt(c.getLong(c.getColumnIndex("date_created_gmt")));
-        post.setCategories(c.getString(c.getColumnIndex("categories")));
-        post.setCustomFields(c.getString(c.getColumnIndex("custom_fields")));
-        post.setDescription(c.getString(c.getColumnIndex("description")));
-        post.setLink(c.getString(c.getColumnIndex("link")));
-        post.setAllowComments(SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("mt_allow_comments"))));
-        post.setAllowPings(SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("mt_allow_pings"))));
-        post.setPostExcerpt(c.getString(c.getColumnIndex("mt_excerpt")));
-        post.setKeywords(c.getString(c.getColumnIndex("mt_keywords")));
-        post.setMoreText(c.getString(c.getColumnIndex("mt_text_more")));
-        post.setPermaLink(c.getString(c.getColumnIndex("permaLink")));
-        post.setPostStatus(c.getString(c.getColumnIndex("post_status")));
-        post.setUserId(c.getString(c.getColumnIndex("userid")));
-        post.setAuthorDisplayName(c.getString(c.getColumnIndex("wp_author_display_name")));
-        post.setAuthorId(c.getString(c.getColumnIndex("wp_author_id")));
-        post.setPassword(c.getString(c.getColumnIndex("wp_password")));
-        post.setPostFormat(c.getString(c.getColumnIndex("wp_post_format")));
-        post.setSlug(c.getString(c.getColumnIndex("wp_slug")));
-        post.setMediaPaths(c.getString(c.getColumnIndex("mediaPaths")));
-        post.setFeaturedImageId(c.getInt(c.getColumnIndex("wp_post_thumbnail")));
-
-        int latColumnIndex = c.getColumnIndex("latitude");
-        int lngColumnIndex = c.getColumnIndex("longitude");
+        post.setLocalTableBlogId(c.getInt(columns.get("blogID")));
+        post.setLocalTablePostId(c.getLong(columns.get("id")));
+        post.setRemotePostId(c.getString(columns.get("postid")));
+        post.setTitle(StringUtils.unescapeHTML(c.getString(columns.get("title"))));
+        post.setDateCreated(c.getLong(columns.get("dateCreated")));
+        post.setDate_created_gmt(c.getLong(columns.get("date_created_gmt")));
+        post.setCategories(c.getString(columns.get("categories")));
+        post.setCustomFields(c.getString(columns.get("custom_fields")));
+        post.setDescription(c.getString(columns.get("description")));
+        post.setLink(c.getString(columns.get("link")));
+        post.setAllowComments(SqlUtils.sqlToBool(c.getInt(columns.get("mt_allow_comments"))));
+        post.setAllowPings(SqlUtils.sqlToBool(c.getInt(columns.get("mt_allow_pings"))));
+        post.setPostExcerpt(c.getString(columns.get("mt_excerpt")));
+        post.setKeywords(c.getString(columns.get("mt_keywords")));
+        post.setMoreText(c.getString(columns.get("mt_text_more")));
+        post.setPermaLink(c.getString(columns.get("permaLink")));
+        post.setPostStatus(c.getString(columns.get("post_status")));
+        post.setUserId(c.getString(columns.get("userid")));
+        post.setAuthorDisplayName(c.getString(columns.get("wp_author_display_name")));
+        post.setAuthorId(c.getString(columns.get("wp_author_id")));
+        post.setPassword(c.getString(columns.get("wp_password")));
+        post.setPostFormat(c.getString(columns.get("wp_post_format")));
+        post.setSlug(c.getString(columns.get("wp_slug")));
+        post.setMediaPaths(c.getString(columns.get("mediaPaths")));
+        post.setFeaturedImageId(c.getInt(columns.get("wp_post_thumbnail")));
+
+        int latColumnIndex = columns.get("latitude");
+        int lngColumnIndex = columns.get("longitude");
         if (!c.isNull(latColumnIndex) && !c.isNull(lngColumnIndex)) {
             post.setLocation(c.getDouble(latColumnIndex), c.getDouble(lngColumnIndex));
         }
 
-        post.setLocalDraft(SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("localDraft"))));
-        post.setIsPage(SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("isPage"))));
-        post.setPageParentId(c.getString(c.getColumnIndex("wp_page_parent_id")));
-        post.setPageParentTitle(c.getString(c.getColumnIndex("wp_page_parent_title")));
-        post.setLocalChange(SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("isLocalChange"))));
+        post.setLocalDraft(SqlUtils.sqlToBool(c.getInt(columns.get("localDraft"))));
+        post.setIsPage(SqlUtils.sqlToBool(c.getInt(columns.get("isPage"))));
+        post.setPageParentId(c.getString(columns.get("wp_page_parent_id")));
+        post.setPageParentTitle(c.getString(columns.get("wp_page_parent_title")));
+        post.setLocalChange(SqlUtils.sqlToBool(c.getInt(columns.get("isLocalChange"))));
 
         return post;
     }
@@ -1255,40 +1363,90 @@ public class WordPressDB {
     public int updatePost(Post post) {
         int result = 0;
         if (post != null) {
-            ContentValues values = new ContentValues();
-            values.put("title", post.getTitle());
-            values.put("date_created_gmt", post.getDate_created_gmt());
-            values.put("description", post.getDescription());
-            values.put("mt_text_more", post.getMoreText());
-            values.put("postid", post.getRemotePostId());
+            ContentValues values = getPostValues(post);
 
-            JSONArray categoriesJsonArray = post.getJSONCategories();
-            if (categoriesJsonArray != null) {
-                values.put("categories", categoriesJsonArray.toString());
+            db.beginTransaction();
+            try {
+                if (!post.getRemotePostId().isEmpty()) {
+                    Post localChanges = resolveRemotePostConflict(post);
+                    if (localChanges != null) {
+                        // the other copy's changes haven't been uploaded yet, they're kept on this row so they're
+                        // uploaded to the same remote post
+                        values = getPostValues(localChanges);
+                        values.put("postid", post.getRemotePostId());
+                        values.put("localDraft", false);
+                        values.put("isLocalChange", true);
+                        post.setLocalChange(true);
+                    }
+                }
+                result = db.update(POSTS_TABLE, values, "blogID=? AND id=? AND isPage=?",
+                        new String[]{
+                                String.valueOf(post.getLocalTableBlogId()),
+                                String.valueOf(post.getLocalTablePostId()),
+                                String.valueOf(SqlUtils.boolToSql(post.isPage()))
+                        });
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
             }
+        }
 
-            values.put("localDraft", post.isLocalDraft());
-            values.put("mediaPaths", post.getMediaPaths());
-            values.put("mt_keywords", post.getKeywords());
-            values.put("wp_password", post.getPassword());
-            values.put("post_status", post.getPostStatus());
-            values.put("isPage", post.isPage());
-            values.put("wp_post_format", post.getPostFormat());
-            values.put("isLocalChange", post.isLocalChange());
-            values.put("mt_excerpt", post.getPostExcerpt());
-            values.put("wp_post_thumbnail", post.getFeaturedImageId());
-
-            putPostLocation(post, values);
+        return (result);
+    }
 
-            result = db.update(POSTS_TABLE, values, "blogID=? AND id=? AND isPage=?",
-                    new String[]{
-                            String.valueOf(post.getLocalTableBlogId()),
-                            String.valueOf(post.getLocalTablePostId()),
-                            String.valueOf(SqlUtils.boolToSql(post.isPage()))
-                    });
+    private ContentValues getPostValues(Post post) {
+        ContentValues values = new ContentValues();
+        values.put("title", post.getTitle());
+        values.put("date_created_gmt", post.getDate_created_gmt());
+        values.put("description", post.getDescription());
+        values.put("mt_text_more", post.getMoreText());
+        // local drafts don't have a remote id, NULL keeps them out of the unique remote post index
+        values.put("postid", post.getRemotePostId().isEmpty() ? null : post.getRemotePostId());
+
+        JSONArray categoriesJsonArray = post.getJSONCategories();
+        if (categoriesJsonArray != null) {
+            values.put("categories", categoriesJsonArray.toString());
         }
 
-        return (result);
+        values.put("localDraft", post.isLocalDraft());
+        values.put("mediaPaths", post.getMediaPaths());
+        values.put("mt_keywords", post.getKeywords());
+        values.put("wp_password", post.getPassword());
+        values.put("post_status", post.getPostStatus());
+        values.put("isPage", post.isPage());
+        values.put("wp_post_format", post.getPostFormat());
+        values.put("isLocalChange", post.isLocalChange());
+        values.put("mt_excerpt", post.getPostExcerpt());
+        values.put("wp_post_thumbnail", post.getFeaturedImageId());
+
+        putPostLocation(post, values);
+        return values;
+    }
+
+    /*
+     * a sync may have already inserted the remote post a local draft has just been uploaded as, the passed post
+     * holds what was uploaded so it takes the place of the other copies in the unique (blogID, postid, isPage)
+     * index and they're deleted. Returns the latest copy with local changes if there's one, so the caller keeps
+     * those changes on the remaining row rather than losing them or uploading them as another post.
+     */
+    private Post resolveRemotePostConflict(Post post) {
+        String where = "blogID=? AND postid=? AND isPage=? AND id<>?";
+        String[] args = {
+                String.valueOf(post.getLocalTableBlogId()),
+                post.getRemotePostId(),
+                String.valueOf(SqlUtils.boolToSql(post.isPage())),
+                String.valueOf(post.getLocalTablePostId())
+        };
+        long localChangesId = SqlUtils.longForQuery(db,
+                "SELECT id FROM " + POSTS_TABLE + " WHERE " + where + " AND isLocalChange=1 ORDER BY id DESC LIMIT 1",
+                args);
+        Post localChanges = localChangesId > 0 ? getPostForLocalTablePostId(localChangesId) : null;
+        int numDeleted = db.delete(POSTS_TABLE, where, args);
+        if (numDeleted > 0) {
+            AppLog.w(T.POSTS, "post " + post.getRemotePostId() + " was already stored: " + numDeleted
+                    + " copies removed, " + (localChanges != null ? "local changes kept" : "none with local changes"));
+        }
+        return localChanges;
     }
 
     private void putPostLocation(Post post, ContentValues values) {
@@ -1744,10 +1902,31 @@ public class WordPressDB {
         }
     }
 
+    /*
+     * returns the HTML which replaced the passed media in the post's content when it was uploaded, or an
+     * empty string if it hasn't been uploaded yet
+     */
+    public String getUploadedMediaHtml(Post post, String src) {
+        return SqlUtils.stringForQuery(db, "SELECT uploadedHtml FROM " + MEDIA_TABLE + " WHERE postID=? AND filePath=?",
+                new String[]{String.valueOf(post.getLocalTablePostId()), src});
+    }
+
+    public void setUploadedMediaHtml(Post post, String src, String html) {
+        ContentValues values = new ContentValues();
+        values.put("uploadedHtml", html);
+        db.update(MEDIA_TABLE, values, "postID=? AND filePath=?",
+                new String[]{String.valueOf(post.getLocalTablePostId()), src});
+    }
+
     public void deleteMediaFilesForPost(Post post) {
         db.delete(MEDIA_TABLE, "blogId='" + post.getLocalTableBlogId() + "' AND postID=" + post.getLocalTablePostId(), null);
     }
 
+    /** Get the queued media files for upload for all blogs, oldest first **/
+    public Cursor getMediaUploadQueue() {
+        return db.rawQuery("SELECT * FROM " + MEDIA_TABLE + " WHERE uploadState=? ORDER BY id", new String[] {"queued"});
+    }
+
     /** Get the queued media files for upload for a given blogId **/
     public Cursor getMediaUploadQueue(String blogId) {
         return db.rawQuery("SELECT * FROM " + MEDIA_TABLE + " WHERE uploadState=? AND blogId=?", new String[] {"queued", blogId});
@@ -1822,6 +2001,17 @@ public class WordPressDB {
         db.update(MEDIA_TABLE, values, "blogId=? AND uploadState=?", new String[]{blogId, "uploading"});
     }
 
+    /**
+     * Queue the files stuck in the "uploading" state again, whatever their blog, so an upload interrupted by the
+     * app being killed is resumed. Files which have been uploaded are marked so as soon as the server returns
+     * their id, so they're not sent again.
+     **/
+    public void requeueInterruptedMediaUploads() {
+        ContentValues values = new ContentValues();
+        values.put("uploadState", MediaUploadState.QUEUED.toString());
+        db.update(MEDIA_TABLE, values, "uploadState=?", new String[]{MediaUploadState.UPLOADING.toString()});
+    }
+
     /** For a given blogId, clear the upload states in the upload queue **/
     public void clearMediaUploaded(String blogId) {
         if (blogId == null || blogId.equals(""))
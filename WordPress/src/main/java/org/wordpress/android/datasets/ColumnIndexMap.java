@@ -0,0 +1,86 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Column name to index lookups for the cursor-to-model mappers. Cursor.getColumnIndex() may search the column
+ * names on every call, this map is built once per column set and shared by every cursor returning the same
+ * columns, so a mapper can get it once per query and use it for every row.
+ */
+public class ColumnIndexMap {
+    private static final int MAX_CACHED_COLUMN_SETS = 64;
+
+    private static final Map<List<String>, ColumnIndexMap> sColumnSets =
+            new LinkedHashMap<List<String>, ColumnIndexMap>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<String>, ColumnIndexMap> eldest) {
+                    return size() > MAX_CACHED_COLUMN_SETS;
+                }
+            };
+
+    private final String[] mColumnNames;
+    // also holds the names resolved by the slow path, including the missing ones (-1)
+    private final Map<String, Integer> mIndexes;
+
+    private ColumnIndexMap(String[] columnNames) {
+        mColumnNames = columnNames;
+        mIndexes = new ConcurrentHashMap<>(columnNames.length * 2);
+        for (int i = 0; i < columnNames.length; i++) {
+            // a join may return the same column name twice, Cursor.getColumnIndex() returns the first one
+            if (!mIndexes.containsKey(columnNames[i])) {
+                mIndexes.put(columnNames[i], i);
+            }
+        }
+    }
+
+    public static ColumnIndexMap forCursor(Cursor c) {
+        if (c == null) {
+            throw new IllegalArgumentException("ColumnIndexMap > null cursor");
+        }
+        String[] columnNames = c.getColumnNames();
+        List<String> key = Arrays.asList(columnNames);
+        synchronized (sColumnSets) {
+            ColumnIndexMap columns = sColumnSets.get(key);
+            if (columns == null) {
+                String[] copy = columnNames.clone();
+                columns = new ColumnIndexMap(copy);
+                sColumnSets.put(Arrays.asList(copy), columns);
+            }
+            return columns;
+        }
+    }
+
+    /**
+     * @return the index of the column, or -1 if it isn't part of the cursor, like Cursor.getColumnIndex()
+     */
+    public int get(String columnName) {
+        Integer index = mIndexes.get(columnName);
+        if (index == null) {
+            index = findColumnIndex(columnName);
+            mIndexes.put(columnName, index);
+        }
+        return index;
+    }
+
+    /*
+     * same matching rules as AbstractCursor.getColumnIndex(): table prefix ignored, case insensitive
+     */
+    private int findColumnIndex(String columnName) {
+        int periodIndex = columnName.lastIndexOf('.');
+        if (periodIndex != -1) {
+            columnName = columnName.substring(periodIndex + 1);
+        }
+        for (int i = 0; i < mColumnNames.length; i++) {
+            if (mColumnNames[i].equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -137,8 +137,9 @@ public class CommentTable {
                 "SELECT * FROM " + COMMENTS_TABLE + " WHERE blog_id=? ORDER BY published DESC", args);
 
         try {
+            ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
             while (c.moveToNext()) {
-                Comment comment = getCommentFromCursor(c);
+                Comment comment = getCommentFromCursor(c, columns);
                 comments.add(comment);
             }
 
@@ -179,8 +180,9 @@ public class CommentTable {
         }
 
         try {
+            ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
             while (c.moveToNext()) {
-                Comment comment = getCommentFromCursor(c);
+                Comment comment = getCommentFromCursor(c, columns);
                 comments.add(comment);
             }
 
@@ -382,17 +384,21 @@ public class CommentTable {
     }
 
     private static Comment getCommentFromCursor(Cursor c) {
-        final String authorName = c.getString(c.getColumnIndex("author_name"));
-        final String content = c.getString(c.getColumnIndex("comment"));
-        final String published = c.getString(c.getColumnIndex("published"));
-        final String status = c.getString(c.getColumnIndex("status"));
-        final String authorUrl = c.getString(c.getColumnIndex("author_url"));
-        final String authorEmail = c.getString(c.getColumnIndex("author_email"));
-        final String postTitle = c.getString(c.getColumnIndex("post_title"));
-        final String profileImageUrl = c.getString(c.getColumnIndex("profile_image_url"));
-
-        int postId = c.getInt(c.getColumnIndex("post_id"));
-        int commentId = c.getInt(c.getColumnIndex("comment_id"));
+        return getCommentFromCursor(c, ColumnIndexMap.forCursor(c));
+    }
+
+    private static Comment getCommentFromCursor(Cursor c, ColumnIndexMap columns) {
+        final String authorName = c.getString(columns.get("author_name"));
+        final String content = c.getString(columns.get("comment"));
+        final String published = c.getString(columns.get("published"));
+        final String status = c.getString(columns.get("status"));
+        final String authorUrl = c.getString(columns.get("author_url"));
+        final String authorEmail = c.getString(columns.get("author_email"));
+        final String postTitle = c.getString(columns.get("post_title"));
+        final String profileImageUrl = c.getString(columns.get("profile_image_url"));
+
+        int postId = c.getInt(columns.get("post_id"));
+        int commentId = c.getInt(columns.get("comment_id"));
 
         return new Comment(
                 postId,
@@ -111,19 +111,26 @@ public class ReaderBlogTable {
         if (c == null) {
             return null;
         }
+        return getBlogInfoFromCursor(c, ColumnIndexMap.forCursor(c));
+    }
+
+    private static ReaderBlog getBlogInfoFromCursor(Cursor c, ColumnIndexMap columns) {
+        if (c == null) {
+            return null;
+        }
 
         ReaderBlog blogInfo = new ReaderBlog();
-        blogInfo.blogId = c.getLong(c.getColumnIndex("blog_id"));
-        blogInfo.feedId = c.getLong(c.getColumnIndex("feed_id"));
-        blogInfo.setUrl(c.getString(c.getColumnIndex("blog_url")));
-        blogInfo.setImageUrl(c.getString(c.getColumnIndex("image_url")));
-        blogInfo.setFeedUrl(c.getString(c.getColumnIndex("feed_url")));
-        blogInfo.setName(c.getString(c.getColumnIndex("name")));
-        blogInfo.setDescription(c.getString(c.getColumnIndex("description")));
-        blogInfo.isPrivate = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_private")));
-        blogInfo.isJetpack = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_jetpack")));
-        blogInfo.isFollowing = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_following")));
-        blogInfo.numSubscribers = c.getInt(c.getColumnIndex("num_followers"));
+        blogInfo.blogId = c.getLong(columns.get("blog_id"));
+        blogInfo.feedId = c.getLong(columns.get("feed_id"));
+        blogInfo.setUrl(c.getString(columns.get("blog_url")));
+        blogInfo.setImageUrl(c.getString(columns.get("image_url")));
+        blogInfo.setFeedUrl(c.getString(columns.get("feed_url")));
+        blogInfo.setName(c.getString(columns.get("name")));
+        blogInfo.setDescription(c.getString(columns.get("description")));
+        blogInfo.isPrivate = SqlUtils.sqlToBool(c.getInt(columns.get("is_private")));
+        blogInfo.isJetpack = SqlUtils.sqlToBool(c.getInt(columns.get("is_jetpack")));
+        blogInfo.isFollowing = SqlUtils.sqlToBool(c.getInt(columns.get("is_following")));
+        blogInfo.numSubscribers = c.getInt(columns.get("num_followers"));
 
         return blogInfo;
     }
@@ -165,8 +172,9 @@ public class ReaderBlogTable {
         try {
             ReaderBlogList blogs = new ReaderBlogList();
             if (c.moveToFirst()) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
                 do {
-                    ReaderBlog blogInfo = getBlogInfoFromCursor(c);
+                    ReaderBlog blogInfo = getBlogInfoFromCursor(c, columns);
                     blogs.add(blogInfo);
                 } while (c.moveToNext());
             }
@@ -278,15 +286,16 @@ public class ReaderBlogTable {
         try {
             ReaderRecommendBlogList blogs = new ReaderRecommendBlogList();
             if (c.moveToFirst()) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
                 do {
                     ReaderRecommendedBlog blog = new ReaderRecommendedBlog();
-                    blog.blogId = c.getLong(c.getColumnIndex("blog_id"));
-                    blog.followRecoId = c.getLong(c.getColumnIndex("follow_reco_id"));
-                    blog.score = c.getInt(c.getColumnIndex("score"));
-                    blog.setTitle(c.getString(c.getColumnIndex("title")));
-                    blog.setBlogUrl(c.getString(c.getColumnIndex("blog_url")));
-                    blog.setImageUrl(c.getString(c.getColumnIndex("image_url")));
-                    blog.setReason(c.getString(c.getColumnIndex("reason")));
+                    blog.blogId = c.getLong(columns.get("blog_id"));
+                    blog.followRecoId = c.getLong(columns.get("follow_reco_id"));
+                    blog.score = c.getInt(columns.get("score"));
+                    blog.setTitle(c.getString(columns.get("title")));
+                    blog.setBlogUrl(c.getString(columns.get("blog_url")));
+                    blog.setImageUrl(c.getString(columns.get("image_url")));
+                    blog.setReason(c.getString(columns.get("reason")));
                     blogs.add(blog);
                 } while (c.moveToNext());
             }
@@ -53,6 +53,8 @@ public class ReaderCommentTable {
                 + " page_number         INTEGER DEFAULT 0,"
                 + " PRIMARY KEY (blog_id, post_id, comment_id))");
         db.execSQL("CREATE INDEX idx_page_number ON tbl_comments(page_number)");
+        // used by ReaderLikeTable.purge() to find comment likes whose comment no longer exists
+        db.execSQL("CREATE INDEX idx_comments_comment_id ON tbl_comments(blog_id, comment_id)");
     }
 
     protected static void dropTables(SQLiteDatabase db) {
@@ -66,10 +68,13 @@ public class ReaderCommentTable {
 
     protected static int purge(SQLiteDatabase db) {
         // purge comments attached to posts that no longer exist
-        int numDeleted = db.delete("tbl_comments", "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null);
+        int numDeleted = ReaderDatabase.deleteInSlices(db, "tbl_comments",
+                "SELECT rowid FROM tbl_comments WHERE NOT EXISTS (SELECT 1 FROM tbl_posts"
+                + " WHERE tbl_posts.post_id = tbl_comments.post_id AND tbl_posts.blog_id = tbl_comments.blog_id)");
 
         // purge all but the first page of comments
-        numDeleted += db.delete("tbl_comments", "page_number != 1", null);
+        numDeleted += ReaderDatabase.deleteInSlices(db, "tbl_comments",
+                "SELECT rowid FROM tbl_comments WHERE page_number != 1");
 
         return numDeleted;
     }
@@ -134,8 +139,9 @@ public class ReaderCommentTable {
         try {
             ReaderCommentList comments = new ReaderCommentList();
             if (c.moveToFirst()) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
                 do {
-                    comments.add(getCommentFromCursor(c));
+                    comments.add(getCommentFromCursor(c, columns));
                 } while (c.moveToNext());
             }
             return comments;
@@ -304,32 +310,36 @@ public class ReaderCommentTable {
     }
 
     private static ReaderComment getCommentFromCursor(Cursor c) {
+        return getCommentFromCursor(c, ColumnIndexMap.forCursor(c));
+    }
+
+    private static ReaderComment getCommentFromCursor(Cursor c, ColumnIndexMap columns) {
         if (c == null) {
             throw new IllegalArgumentException("null comment cursor");
         }
 
         ReaderComment comment = new ReaderComment();
 
-        comment.commentId = c.getLong(c.getColumnIndex("comment_id"));
-        comment.blogId = c.getLong(c.getColumnIndex("blog_id"));
-        comment.postId = c.getLong(c.getColumnIndex("post_id"));
-        comment.parentId = c.getLong(c.getColumnIndex("parent_id"));
+        comment.commentId = c.getLong(columns.get("comment_id"));
+        comment.blogId = c.getLong(columns.get("blog_id"));
+        comment.postId = c.getLong(columns.get("post_id"));
+        comment.parentId = c.getLong(columns.get("parent_id"));
 
-        comment.setPublished(c.getString(c.getColumnIndex("published")));
-        comment.timestamp = c.getLong(c.getColumnIndex("timestamp"));
+        comment.setPublished(c.getString(columns.get("published")));
+        comment.timestamp = c.getLong(columns.get("timestamp"));
 
-        comment.setAuthorAvatar(c.getString(c.getColumnIndex("author_avatar")));
-        comment.setAuthorName(c.getString(c.getColumnIndex("author_name")));
-        comment.setAuthorUrl(c.getString(c.getColumnIndex("author_url")));
-        comment.authorId = c.getLong(c.getColumnIndex("author_id"));
-        comment.authorBlogId = c.getLong(c.getColumnIndex("author_blog_id"));
+        comment.setAuthorAvatar(c.getString(columns.get("author_avatar")));
+        comment.setAuthorName(c.getString(columns.get("author_name")));
+        comment.setAuthorUrl(c.getString(columns.get("author_url")));
+        comment.authorId = c.getLong(columns.get("author_id"));
+        comment.authorBlogId = c.getLong(columns.get("author_blog_id"));
 
-        comment.setStatus(c.getString(c.getColumnIndex("status")));
-        comment.setText(c.getString(c.getColumnIndex("text")));
+        comment.setStatus(c.getString(columns.get("status")));
+        comment.setText(c.getString(columns.get("text")));
 
-        comment.numLikes = c.getInt(c.getColumnIndex("num_likes"));
-        comment.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_liked")));
-        comment.pageNumber = c.getInt(c.getColumnIndex("page_number"));
+        comment.numLikes = c.getInt(columns.get("num_likes"));
+        comment.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(columns.get("is_liked")));
+        comment.pageNumber = c.getInt(columns.get("page_number"));
 
         return comment;
     }
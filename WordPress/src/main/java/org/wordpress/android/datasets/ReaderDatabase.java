@@ -13,13 +13,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * database for all reader information
  */
 public class ReaderDatabase extends SQLiteOpenHelper {
     protected static final String DB_NAME = "wpreader.db";
-    private static final int DB_VERSION = 112;
+    private static final int DB_VERSION = 113;
 
     /*
      * version history
@@ -64,6 +65,7 @@ public class ReaderDatabase extends SQLiteOpenHelper {
      *  110 - added xpost_post_id and xpost_blog_id to tbl_posts
      *  111 - added author_first_name to tbl_posts
      *  112 - no structural change, just reset db
+     *  113 - added indexes used by purge() to tbl_post_tags and tbl_comments
      */
 
     /*
@@ -166,13 +168,19 @@ public class ReaderDatabase extends SQLiteOpenHelper {
     }
 
     /*
-     * purge older/unattached data - use purgeAsync() to do this in the background
+     * purge older/unattached data - use purgeAsync() to do this in the background. rows are
+     * deleted through deleteInSlices() so readers are never locked out for long
      */
+    private static final AtomicBoolean mIsPurging = new AtomicBoolean(false);
     private static void purge() {
-        SQLiteDatabase db = getWritableDb();
-        db.beginTransaction();
+        if (!mIsPurging.compareAndSet(false, true)) {
+            return;
+        }
         try {
+            SQLiteDatabase db = getWritableDb();
+            long startTime = System.currentTimeMillis();
             int numPostsDeleted = ReaderPostTable.purge(db);
+            int numRowsDeleted = numPostsDeleted;
 
             // don't bother purging other data unless posts were purged
             if (numPostsDeleted > 0) {
@@ -195,10 +203,15 @@ public class ReaderDatabase extends SQLiteOpenHelper {
                 if (numThumbsPurged > 0) {
                     AppLog.i(T.READER, String.format("%d thumbnails purged", numThumbsPurged));
                 }
+
+                numRowsDeleted += numCommentsDeleted + numLikesDeleted + numThumbsPurged;
             }
-            db.setTransactionSuccessful();
+
+            long elapsedMs = System.currentTimeMillis() - startTime;
+            AppLog.i(T.READER, String.format("reader db > purged %d rows in %d ms (%.1f rows/ms)",
+                    numRowsDeleted, elapsedMs, numRowsDeleted / (float) Math.max(elapsedMs, 1)));
         } finally {
-            db.endTransaction();
+            mIsPurging.set(false);
         }
     }
 
@@ -211,6 +224,43 @@ public class ReaderDatabase extends SQLiteOpenHelper {
         }.start();
     }
 
+    /*
+     * deletes up to maxRows rows of the passed table whose rowids are returned by the passed
+     * query (which must not have a LIMIT clause), in batches grouped into short transactions
+     * so other threads can use the db between them
+     */
+    private static final int PURGE_BATCH_SIZE = 200;
+    private static final long PURGE_SLICE_MS = 50;
+    protected static int deleteInSlices(SQLiteDatabase db,
+                                        String table,
+                                        String rowIdQuery,
+                                        String[] args,
+                                        int maxRows) {
+        int numDeleted = 0;
+        boolean isDone = false;
+        while (!isDone) {
+            long sliceStart = System.currentTimeMillis();
+            db.beginTransactionNonExclusive();
+            try {
+                do {
+                    int limit = Math.min(PURGE_BATCH_SIZE, maxRows - numDeleted);
+                    int numBatchDeleted = db.delete(table,
+                            "rowid IN (" + rowIdQuery + " LIMIT " + limit + ")", args);
+                    numDeleted += numBatchDeleted;
+                    isDone = numBatchDeleted < limit || numDeleted >= maxRows;
+                } while (!isDone && System.currentTimeMillis() - sliceStart < PURGE_SLICE_MS);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        return numDeleted;
+    }
+
+    protected static int deleteInSlices(SQLiteDatabase db, String table, String rowIdQuery) {
+        return deleteInSlices(db, table, rowIdQuery, null, Integer.MAX_VALUE);
+    }
+
     /*
      * used during development to copy database to external storage so we can access it via DDMS
      */
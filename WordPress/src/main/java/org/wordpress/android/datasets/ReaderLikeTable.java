@@ -43,8 +43,13 @@ public class ReaderLikeTable {
      * purge likes attached to posts/comments that no longer exist
      */
     protected static int purge(SQLiteDatabase db) {
-        int numDeleted = db.delete("tbl_post_likes", "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null);
-        numDeleted += db.delete("tbl_comment_likes", "comment_id NOT IN (SELECT DISTINCT comment_id FROM tbl_comments)", null);
+        int numDeleted = ReaderDatabase.deleteInSlices(db, "tbl_post_likes",
+                "SELECT rowid FROM tbl_post_likes WHERE NOT EXISTS (SELECT 1 FROM tbl_posts"
+                + " WHERE tbl_posts.post_id = tbl_post_likes.post_id AND tbl_posts.blog_id = tbl_post_likes.blog_id)");
+        numDeleted += ReaderDatabase.deleteInSlices(db, "tbl_comment_likes",
+                "SELECT rowid FROM tbl_comment_likes WHERE NOT EXISTS (SELECT 1 FROM tbl_comments"
+                + " WHERE tbl_comments.blog_id = tbl_comment_likes.blog_id"
+                + " AND tbl_comments.comment_id = tbl_comment_likes.comment_id)");
         return numDeleted;
     }
 
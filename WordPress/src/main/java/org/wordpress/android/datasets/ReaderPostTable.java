@@ -10,16 +10,22 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderPostList;
 import org.wordpress.android.models.ReaderTag;
-import org.wordpress.android.models.ReaderTagList;
 import org.wordpress.android.models.ReaderTagType;
 import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.ui.reader.actions.ReaderActions;
 import org.wordpress.android.ui.reader.models.ReaderBlogIdPostId;
 import org.wordpress.android.ui.reader.models.ReaderBlogIdPostIdList;
+import org.wordpress.android.ui.reader.models.ReaderPostDiff;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.CrashlyticsUtils;
 import org.wordpress.android.util.SqlUtils;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * tbl_posts contains all reader posts
  * tbl_post_tags stores the association between posts and tags (posts can exist in more than one tag)
@@ -143,6 +149,7 @@ public class ReaderPostTable {
                 + " PRIMARY KEY (post_id, blog_id)"
                 + ")");
         db.execSQL("CREATE INDEX idx_posts_timestamp ON tbl_posts(timestamp)");
+        db.execSQL("CREATE INDEX idx_posts_pseudo_id ON tbl_posts(pseudo_id)");
 
         db.execSQL("CREATE TABLE tbl_post_tags ("
                 + "   post_id           INTEGER DEFAULT 0,"
@@ -154,6 +161,9 @@ public class ReaderPostTable {
                 + "   has_gap_marker    INTEGER DEFAULT 0,"
                 + "   PRIMARY KEY (post_id, blog_id, tag_name, tag_type)"
                 + ")");
+        // covering indexes for the purge - per-tag counts and posts no longer attached to a tag
+        db.execSQL("CREATE INDEX idx_post_tags_tag ON tbl_post_tags(tag_name, tag_type)");
+        db.execSQL("CREATE INDEX idx_post_tags_pseudo_id ON tbl_post_tags(pseudo_id)");
     }
 
     protected static void dropTables(SQLiteDatabase db) {
@@ -167,46 +177,49 @@ public class ReaderPostTable {
     }
 
     /*
-     * purge table of unattached/older posts - no need to wrap this in a transaction since it's
-     * only called from ReaderDatabase.purge() which already creates a transaction
+     * purge table of unattached/older posts - called from ReaderDatabase.purge(), each step
+     * deletes in short transactions rather than one long one
      */
     protected static int purge(SQLiteDatabase db) {
         // delete posts in tbl_post_tags attached to tags that no longer exist
-        int numDeleted = db.delete("tbl_post_tags", "tag_name NOT IN (SELECT DISTINCT tag_name FROM tbl_tags)", null);
-
-        // delete excess posts on a per-tag basis
-        ReaderTagList tags = ReaderTagTable.getAllTags();
-        for (ReaderTag tag: tags) {
-            numDeleted += purgePostsForTag(db, tag);
+        int numDeleted = ReaderDatabase.deleteInSlices(db, "tbl_post_tags",
+                "SELECT rowid FROM tbl_post_tags WHERE NOT EXISTS"
+                + " (SELECT 1 FROM tbl_tags WHERE tbl_tags.tag_name = tbl_post_tags.tag_name)");
+
+        // delete excess posts in the tags that have too many, counted in a single pass over idx_post_tags_tag
+        // instead of one count query per tag
+        Cursor c = db.rawQuery("SELECT tag_name, tag_type, count(*) FROM tbl_post_tags"
+                + " GROUP BY tag_name, tag_type HAVING count(*) > ?",
+                new String[]{Integer.toString(MAX_POSTS_PER_TAG)});
+        try {
+            while (c.moveToNext()) {
+                ReaderTag tag = new ReaderTag(c.getString(0), ReaderTagType.fromInt(c.getInt(1)));
+                numDeleted += purgePostsForTag(db, tag, c.getInt(2) - MAX_POSTS_PER_TAG);
+            }
+        } finally {
+            SqlUtils.closeCursor(c);
         }
 
         // delete posts in tbl_posts that no longer exist in tbl_post_tags
-        numDeleted += db.delete("tbl_posts", "pseudo_id NOT IN (SELECT DISTINCT pseudo_id FROM tbl_post_tags)", null);
+        numDeleted += ReaderDatabase.deleteInSlices(db, "tbl_posts",
+                "SELECT rowid FROM tbl_posts WHERE NOT EXISTS"
+                + " (SELECT 1 FROM tbl_post_tags WHERE tbl_post_tags.pseudo_id = tbl_posts.pseudo_id)");
 
         return numDeleted;
     }
 
     /*
-     * purge excess posts in the passed tag
+     * purge the oldest posts in the passed tag
      */
     private static final int MAX_POSTS_PER_TAG = ReaderConstants.READER_MAX_POSTS_TO_DISPLAY;
-    private static int purgePostsForTag(SQLiteDatabase db, ReaderTag tag) {
-        int numPosts = getNumPostsWithTag(tag);
-        if (numPosts <= MAX_POSTS_PER_TAG) {
-            return 0;
-        }
-
-        int numToPurge = numPosts - MAX_POSTS_PER_TAG;
-        String[] args = {tag.getTagName(), Integer.toString(tag.tagType.toInt()), Integer.toString(numToPurge)};
-        String where = "pseudo_id IN ("
-                + "  SELECT tbl_posts.pseudo_id FROM tbl_posts, tbl_post_tags"
-                + "  WHERE tbl_posts.pseudo_id = tbl_post_tags.pseudo_id"
-                + "  AND tbl_post_tags.tag_name=?"
-                + "  AND tbl_post_tags.tag_type=?"
-                + "  ORDER BY tbl_posts.timestamp"
-                + "  LIMIT ?"
-                + ")";
-        int numDeleted = db.delete("tbl_post_tags", where, args);
+    private static int purgePostsForTag(SQLiteDatabase db, ReaderTag tag, int numToPurge) {
+        String[] args = {tag.getTagName(), Integer.toString(tag.tagType.toInt())};
+        String rowIdQuery = "SELECT tbl_post_tags.rowid FROM tbl_post_tags, tbl_posts"
+                + " WHERE tbl_posts.pseudo_id = tbl_post_tags.pseudo_id"
+                + " AND tbl_post_tags.tag_name=?"
+                + " AND tbl_post_tags.tag_type=?"
+                + " ORDER BY tbl_posts.timestamp";
+        int numDeleted = ReaderDatabase.deleteInSlices(db, "tbl_post_tags", rowIdQuery, args, numToPurge);
         AppLog.d(AppLog.T.READER, String.format("reader post table > purged %d posts in tag %s", numDeleted, tag.getTagNameForLog()));
         return numDeleted;
     }
@@ -283,33 +296,92 @@ public class ReaderPostTable {
      * returns whether any of the passed posts are new or changed - used after posts are retrieved
      */
     public static ReaderActions.UpdateResult comparePosts(ReaderPostList posts) {
+        return diffPosts(posts).getUpdateResult();
+    }
+
+    /*
+     * returns true if any posts in the passed list exist in this list
+     */
+    public static boolean hasOverlap(ReaderPostList posts) {
+        return diffPosts(posts).hasOverlap();
+    }
+
+    /*
+     * classifies each of the passed posts as new, changed or unchanged - the existing posts are
+     * looked up in a single query (per MAX_DIFF_IDS posts) which only returns the columns
+     * compared by ReaderPost.isSamePost()
+     */
+    private static final int MAX_DIFF_IDS = 500;
+    private static final String COLUMN_NAMES_DIFF =
+            "blog_id, post_id, feed_id, feed_item_id, num_likes, num_replies, is_followed, is_liked, is_comments_open";
+    public static ReaderPostDiff diffPosts(ReaderPostList posts) {
+        ReaderPostDiff diff = new ReaderPostDiff();
         if (posts == null || posts.size() == 0) {
-            return ReaderActions.UpdateResult.UNCHANGED;
+            return diff;
         }
 
-        boolean hasChanges = false;
+        Set<Long> postIds = new HashSet<>();
         for (ReaderPost post: posts) {
-            ReaderPost existingPost = getPost(post.blogId, post.postId, true);
-            if (existingPost == null) {
-                return ReaderActions.UpdateResult.HAS_NEW;
-            } else if (!hasChanges && !post.isSamePost(existingPost)) {
-                hasChanges = true;
-            }
+            postIds.add(post.postId);
         }
 
-        return (hasChanges ? ReaderActions.UpdateResult.CHANGED : ReaderActions.UpdateResult.UNCHANGED);
-    }
+        // the primary key starts with post_id so the IN list is an index lookup, blog_id is matched below
+        Map<String, ReaderPost> existingPosts = new HashMap<>(posts.size());
+        StringBuilder idList = new StringBuilder();
+        int numIds = 0;
+        Iterator<Long> iterator = postIds.iterator();
+        while (iterator.hasNext()) {
+            if (numIds > 0) {
+                idList.append(',');
+            }
+            idList.append(iterator.next());
+            numIds++;
+            if (numIds == MAX_DIFF_IDS || !iterator.hasNext()) {
+                String sql = "SELECT " + COLUMN_NAMES_DIFF + " FROM tbl_posts WHERE post_id IN (" + idList + ")";
+                Cursor c = ReaderDatabase.getReadableDb().rawQuery(sql, null);
+                try {
+                    while (c.moveToNext()) {
+                        ReaderPost existingPost = getDiffPostFromCursor(c);
+                        existingPosts.put(getDiffKey(existingPost.blogId, existingPost.postId), existingPost);
+                    }
+                } finally {
+                    SqlUtils.closeCursor(c);
+                }
+                idList.setLength(0);
+                numIds = 0;
+            }
+        }
 
-    /*
-     * returns true if any posts in the passed list exist in this list
-     */
-    public static boolean hasOverlap(ReaderPostList posts) {
         for (ReaderPost post: posts) {
-            if (postExists(post.blogId, post.postId)) {
-                return true;
+            ReaderPost existingPost = existingPosts.get(getDiffKey(post.blogId, post.postId));
+            if (existingPost == null) {
+                diff.addNewPost(post);
+            } else if (post.isSamePost(existingPost)) {
+                diff.addUnchangedPost(post);
+            } else {
+                diff.addChangedPost(post);
             }
         }
-        return false;
+
+        return diff;
+    }
+
+    private static String getDiffKey(long blogId, long postId) {
+        return blogId + ":" + postId;
+    }
+
+    private static ReaderPost getDiffPostFromCursor(Cursor c) {
+        ReaderPost post = new ReaderPost();
+        post.blogId = c.getLong(0);
+        post.postId = c.getLong(1);
+        post.feedId = c.getLong(2);
+        post.feedItemId = c.getLong(3);
+        post.numLikes = c.getInt(4);
+        post.numReplies = c.getInt(5);
+        post.isFollowedByCurrentUser = SqlUtils.sqlToBool(c.getInt(6));
+        post.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(7));
+        post.isCommentsOpen = SqlUtils.sqlToBool(c.getInt(8));
+        return post;
     }
 
     /*
@@ -807,6 +879,10 @@ public class ReaderPostTable {
     }
 
     private static ReaderPost getPostFromCursor(Cursor c) {
+        return getPostFromCursor(c, ColumnIndexMap.forCursor(c));
+    }
+
+    private static ReaderPost getPostFromCursor(Cursor c, ColumnIndexMap columns) {
         if (c == null) {
             throw new IllegalArgumentException("getPostFromCursor > null cursor");
         }
@@ -814,54 +890,54 @@ public class ReaderPostTable {
         ReaderPost post = new ReaderPost();
 
         // text column is skipped when retrieving multiple rows
-        int idxText = c.getColumnIndex("text");
+        int idxText = columns.get("text");
         if (idxText > -1) {
             post.setText(c.getString(idxText));
         }
 
-        post.postId = c.getLong(c.getColumnIndex("post_id"));
-        post.blogId = c.getLong(c.getColumnIndex("blog_id"));
-        post.feedId = c.getLong(c.getColumnIndex("feed_id"));
-        post.feedItemId = c.getLong(c.getColumnIndex("feed_item_id"));
-        post.authorId = c.getLong(c.getColumnIndex("author_id"));
-        post.setPseudoId(c.getString(c.getColumnIndex("pseudo_id")));
+        post.postId = c.getLong(columns.get("post_id"));
+        post.blogId = c.getLong(columns.get("blog_id"));
+        post.feedId = c.getLong(columns.get("feed_id"));
+        post.feedItemId = c.getLong(columns.get("feed_item_id"));
+        post.authorId = c.getLong(columns.get("author_id"));
+        post.setPseudoId(c.getString(columns.get("pseudo_id")));
 
-        post.setAuthorName(c.getString(c.getColumnIndex("author_name")));
-        post.setAuthorFirstName(c.getString(c.getColumnIndex("author_first_name")));
-        post.setBlogName(c.getString(c.getColumnIndex("blog_name")));
-        post.setBlogUrl(c.getString(c.getColumnIndex("blog_url")));
-        post.setExcerpt(c.getString(c.getColumnIndex("excerpt")));
-        post.setFeaturedImage(c.getString(c.getColumnIndex("featured_image")));
-        post.setFeaturedVideo(c.getString(c.getColumnIndex("featured_video")));
+        post.setAuthorName(c.getString(columns.get("author_name")));
+        post.setAuthorFirstName(c.getString(columns.get("author_first_name")));
+        post.setBlogName(c.getString(columns.get("blog_name")));
+        post.setBlogUrl(c.getString(columns.get("blog_url")));
+        post.setExcerpt(c.getString(columns.get("excerpt")));
+        post.setFeaturedImage(c.getString(columns.get("featured_image")));
+        post.setFeaturedVideo(c.getString(columns.get("featured_video")));
 
-        post.setTitle(c.getString(c.getColumnIndex("title")));
-        post.setUrl(c.getString(c.getColumnIndex("url")));
-        post.setShortUrl(c.getString(c.getColumnIndex("short_url")));
-        post.setPostAvatar(c.getString(c.getColumnIndex("post_avatar")));
+        post.setTitle(c.getString(columns.get("title")));
+        post.setUrl(c.getString(columns.get("url")));
+        post.setShortUrl(c.getString(columns.get("short_url")));
+        post.setPostAvatar(c.getString(columns.get("post_avatar")));
 
-        post.timestamp = c.getLong(c.getColumnIndex("timestamp"));
-        post.setPublished(c.getString(c.getColumnIndex("published")));
+        post.timestamp = c.getLong(columns.get("timestamp"));
+        post.setPublished(c.getString(columns.get("published")));
 
-        post.numReplies = c.getInt(c.getColumnIndex("num_replies"));
-        post.numLikes = c.getInt(c.getColumnIndex("num_likes"));
-        post.wordCount = c.getInt(c.getColumnIndex("word_count"));
+        post.numReplies = c.getInt(columns.get("num_replies"));
+        post.numLikes = c.getInt(columns.get("num_likes"));
+        post.wordCount = c.getInt(columns.get("word_count"));
 
-        post.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_liked")));
-        post.isFollowedByCurrentUser = SqlUtils.sqlToBool(c.getInt( c.getColumnIndex("is_followed")));
-        post.isCommentsOpen = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_comments_open")));
-        post.isExternal = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_external")));
-        post.isPrivate = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_private")));
-        post.isVideoPress = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_videopress")));
-        post.isJetpack = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_jetpack")));
+        post.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(columns.get("is_liked")));
+        post.isFollowedByCurrentUser = SqlUtils.sqlToBool(c.getInt( columns.get("is_followed")));
+        post.isCommentsOpen = SqlUtils.sqlToBool(c.getInt(columns.get("is_comments_open")));
+        post.isExternal = SqlUtils.sqlToBool(c.getInt(columns.get("is_external")));
+        post.isPrivate = SqlUtils.sqlToBool(c.getInt(columns.get("is_private")));
+        post.isVideoPress = SqlUtils.sqlToBool(c.getInt(columns.get("is_videopress")));
+        post.isJetpack = SqlUtils.sqlToBool(c.getInt(columns.get("is_jetpack")));
 
-        post.setPrimaryTag(c.getString(c.getColumnIndex("primary_tag")));
-        post.setSecondaryTag(c.getString(c.getColumnIndex("secondary_tag")));
+        post.setPrimaryTag(c.getString(columns.get("primary_tag")));
+        post.setSecondaryTag(c.getString(columns.get("secondary_tag")));
 
-        post.setAttachmentsJson(c.getString(c.getColumnIndex("attachments_json")));
-        post.setDiscoverJson(c.getString(c.getColumnIndex("discover_json")));
+        post.setAttachmentsJson(c.getString(columns.get("attachments_json")));
+        post.setDiscoverJson(c.getString(columns.get("discover_json")));
 
-        post.xpostPostId = c.getLong(c.getColumnIndex("xpost_post_id"));
-        post.xpostBlogId = c.getLong(c.getColumnIndex("xpost_blog_id"));
+        post.xpostPostId = c.getLong(columns.get("xpost_post_id"));
+        post.xpostBlogId = c.getLong(columns.get("xpost_blog_id"));
 
         return post;
     }
@@ -870,8 +946,9 @@ public class ReaderPostTable {
         ReaderPostList posts = new ReaderPostList();
         try {
             if (cursor != null && cursor.moveToFirst()) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(cursor);
                 do {
-                    posts.add(getPostFromCursor(cursor));
+                    posts.add(getPostFromCursor(cursor, columns));
                 } while (cursor.moveToNext());
             }
         } catch (IllegalStateException e) {
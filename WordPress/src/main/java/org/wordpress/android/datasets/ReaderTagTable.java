@@ -143,13 +143,17 @@ public class ReaderTagTable {
     }
 
     private static ReaderTag getTagFromCursor(Cursor c) {
+        return getTagFromCursor(c, ColumnIndexMap.forCursor(c));
+    }
+
+    private static ReaderTag getTagFromCursor(Cursor c, ColumnIndexMap columns) {
         if (c == null) {
             throw new IllegalArgumentException("null tag cursor");
         }
 
-        String tagName = c.getString(c.getColumnIndex("tag_name"));
-        String endpoint = c.getString(c.getColumnIndex("endpoint"));
-        ReaderTagType tagType = ReaderTagType.fromInt(c.getInt(c.getColumnIndex("tag_type")));
+        String tagName = c.getString(columns.get("tag_name"));
+        String endpoint = c.getString(columns.get("endpoint"));
+        ReaderTagType tagType = ReaderTagType.fromInt(c.getInt(columns.get("tag_type")));
 
         return new ReaderTag(tagName, endpoint, tagType);
     }
@@ -195,8 +199,9 @@ public class ReaderTagTable {
         try {
             ReaderTagList tagList = new ReaderTagList();
             if (c.moveToFirst()) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
                 do {
-                    tagList.add(getTagFromCursor(c));
+                    tagList.add(getTagFromCursor(c, columns));
                 } while (c.moveToNext());
             }
             return tagList;
@@ -210,8 +215,9 @@ public class ReaderTagTable {
         try {
             ReaderTagList tagList = new ReaderTagList();
             if (c.moveToFirst()) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
                 do {
-                    tagList.add(getTagFromCursor(c));
+                    tagList.add(getTagFromCursor(c, columns));
                 } while (c.moveToNext());
             }
             return tagList;
@@ -301,8 +307,9 @@ public class ReaderTagTable {
         try {
             ReaderTagList tagList = new ReaderTagList();
             if (c.moveToFirst()) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
                 do {
-                    tagList.add(getTagFromCursor(c));
+                    tagList.add(getTagFromCursor(c, columns));
                 } while (c.moveToNext());
             }
             return tagList;
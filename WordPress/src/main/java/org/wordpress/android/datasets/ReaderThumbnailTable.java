@@ -25,7 +25,9 @@ public class ReaderThumbnailTable {
      * purge table of thumbnails attached to posts that no longer exist
      */
     protected static int purge(SQLiteDatabase db) {
-        return db.delete("tbl_thumbnails", "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null);
+        return ReaderDatabase.deleteInSlices(db, "tbl_thumbnails",
+                "SELECT rowid FROM tbl_thumbnails WHERE NOT EXISTS"
+                + " (SELECT 1 FROM tbl_posts WHERE tbl_posts.post_id = tbl_thumbnails.post_id)");
     }
 
     public static void addThumbnail(long postId, String fullUrl, String thumbnailUrl) {
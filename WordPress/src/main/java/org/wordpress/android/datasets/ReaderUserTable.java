@@ -161,8 +161,9 @@ public class ReaderUserTable {
         try {
             ReaderUserList users = new ReaderUserList();
             if (c.moveToFirst()) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
                 do {
-                    users.add(getUserFromCursor(c));
+                    users.add(getUserFromCursor(c, columns));
                 } while (c.moveToNext());
             }
             return users;
@@ -185,8 +186,9 @@ public class ReaderUserTable {
         try {
             ReaderUserList users = new ReaderUserList();
             if (c.moveToFirst()) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
                 do {
-                    users.add(getUserFromCursor(c));
+                    users.add(getUserFromCursor(c, columns));
                 } while (c.moveToNext());
             }
             return users;
@@ -196,15 +198,19 @@ public class ReaderUserTable {
     }
 
     private static ReaderUser getUserFromCursor(Cursor c) {
+        return getUserFromCursor(c, ColumnIndexMap.forCursor(c));
+    }
+
+    private static ReaderUser getUserFromCursor(Cursor c, ColumnIndexMap columns) {
         ReaderUser user = new ReaderUser();
 
-        user.userId = c.getLong(c.getColumnIndex("user_id"));
-        user.blogId = c.getLong(c.getColumnIndex("blog_id"));
-        user.setUserName(c.getString(c.getColumnIndex("user_name")));
-        user.setDisplayName(c.getString(c.getColumnIndex("display_name")));
-        user.setUrl(c.getString(c.getColumnIndex("url")));
-        user.setProfileUrl(c.getString(c.getColumnIndex("profile_url")));
-        user.setAvatarUrl(c.getString(c.getColumnIndex("avatar_url")));
+        user.userId = c.getLong(columns.get("user_id"));
+        user.blogId = c.getLong(columns.get("blog_id"));
+        user.setUserName(c.getString(columns.get("user_name")));
+        user.setDisplayName(c.getString(columns.get("display_name")));
+        user.setUrl(c.getString(columns.get("url")));
+        user.setProfileUrl(c.getString(columns.get("profile_url")));
+        user.setAvatarUrl(c.getString(columns.get("avatar_url")));
 
         return user;
     }
@@ -83,8 +83,9 @@ public class SuggestionTable {
 
         try {
             if (c.moveToFirst()) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
                 do {
-                    Suggestion comment = getSuggestionFromCursor(c);
+                    Suggestion comment = getSuggestionFromCursor(c, columns);
                     suggestions.add(comment);
                 } while (c.moveToNext());
             }
@@ -99,13 +100,13 @@ public class SuggestionTable {
         return getWritableDb().delete(SUGGESTIONS_TABLE, "site_id=?", new String[]{Integer.toString(siteId)});
     }
 
-    private static Suggestion getSuggestionFromCursor(Cursor c) {
-        final String userLogin = c.getString(c.getColumnIndex("user_login"));
-        final String displayName = c.getString(c.getColumnIndex("display_name"));
-        final String imageUrl = c.getString(c.getColumnIndex("image_url"));
-        final String taxonomy = c.getString(c.getColumnIndex("taxonomy"));
+    private static Suggestion getSuggestionFromCursor(Cursor c, ColumnIndexMap columns) {
+        final String userLogin = c.getString(columns.get("user_login"));
+        final String displayName = c.getString(columns.get("display_name"));
+        final String imageUrl = c.getString(columns.get("image_url"));
+        final String taxonomy = c.getString(columns.get("taxonomy"));
 
-        int siteId = c.getInt(c.getColumnIndex("site_id"));
+        int siteId = c.getInt(columns.get("site_id"));
 
         return new Suggestion(
                 siteId,
@@ -145,8 +146,9 @@ public class SuggestionTable {
 
         try {
             if (c.moveToFirst()) {
+                ColumnIndexMap columns = ColumnIndexMap.forCursor(c);
                 do {
-                    Tag comment = getTagFromCursor(c);
+                    Tag comment = getTagFromCursor(c, columns);
                     tags.add(comment);
                 } while (c.moveToNext());
             }
@@ -161,10 +163,10 @@ public class SuggestionTable {
         return getWritableDb().delete(TAXONOMY_TABLE, "site_id=?", new String[]{Integer.toString(siteId)});
     }
 
-    private static Tag getTagFromCursor(Cursor c) {
-        final String tag = c.getString(c.getColumnIndex("tag"));
+    private static Tag getTagFromCursor(Cursor c, ColumnIndexMap columns) {
+        final String tag = c.getString(columns.get("tag"));
 
-        int siteId = c.getInt(c.getColumnIndex("site_id"));
+        int siteId = c.getInt(columns.get("site_id"));
 
         return new Tag(
                 siteId,
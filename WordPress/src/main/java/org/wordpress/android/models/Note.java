@@ -47,6 +47,25 @@ public class Note extends Syncable {
     private static final String ACTION_KEY_SPAM = "spam-comment";
     private static final String ACTION_KEY_LIKE = "like-comment";
 
+    // queries run against every note, compiled once rather than parsed on each call
+    private static final JSONUtils.CompiledQuery QUERY_TYPE = JSONUtils.compileQuery("type");
+    private static final JSONUtils.CompiledQuery QUERY_TITLE = JSONUtils.compileQuery("title");
+    private static final JSONUtils.CompiledQuery QUERY_ICON = JSONUtils.compileQuery("icon");
+    private static final JSONUtils.CompiledQuery QUERY_NOTICON = JSONUtils.compileQuery("noticon");
+    private static final JSONUtils.CompiledQuery QUERY_URL = JSONUtils.compileQuery("url");
+    private static final JSONUtils.CompiledQuery QUERY_READ = JSONUtils.compileQuery("read");
+    private static final JSONUtils.CompiledQuery QUERY_TIMESTAMP = JSONUtils.compileQuery("timestamp");
+    private static final JSONUtils.CompiledQuery QUERY_SITE_ID = JSONUtils.compileQuery("meta.ids.site");
+    private static final JSONUtils.CompiledQuery QUERY_POST_ID = JSONUtils.compileQuery("meta.ids.post");
+    private static final JSONUtils.CompiledQuery QUERY_COMMENT_ID = JSONUtils.compileQuery("meta.ids.comment");
+    private static final JSONUtils.CompiledQuery QUERY_PARENT_COMMENT_ID = JSONUtils.compileQuery("meta.ids.parent_comment");
+    private static final JSONUtils.CompiledQuery QUERY_REPLY_COMMENT_ID = JSONUtils.compileQuery("meta.ids.reply_comment");
+    private static final JSONUtils.CompiledQuery QUERY_SUBJECT_RANGES = JSONUtils.compileQuery("subject[0].ranges");
+    private static final JSONUtils.CompiledQuery QUERY_COMMENT_SUBJECT = JSONUtils.compileQuery("subject[1].text");
+    private static final JSONUtils.CompiledQuery QUERY_COMMENT_TEXT = JSONUtils.compileQuery("body[last].text");
+    private static final JSONUtils.CompiledQuery QUERY_LINKS_HOME = JSONUtils.compileQuery("meta.links.home");
+    private static final JSONUtils.CompiledQuery QUERY_ACTIONS = JSONUtils.compileQuery("actions");
+
     private JSONObject mActions;
     private JSONObject mNoteJSON;
     private final String mKey;
@@ -54,6 +73,9 @@ public class Note extends Syncable {
     private final Object mSyncLock = new Object();
     private String mLocalStatus;
 
+    // built from mNoteJSON on first use and dropped whenever the JSON changes
+    private volatile Fields mFields;
+
     public enum EnabledActions {
         ACTION_REPLY,
         ACTION_APPROVE,
@@ -100,8 +122,58 @@ public class Note extends Syncable {
         return mKey;
     }
 
+    /**
+     * Immutable copy of the note's most frequently read fields, so reading them while binding lists
+     * doesn't query the JSON or wait on mSyncLock
+     */
+    private static final class Fields {
+        final String type;
+        final String title;
+        final String iconUrl;
+        final String noticon;
+        final String url;
+        final String timestamp;
+        final boolean isRead;
+        final int siteId;
+        final int postId;
+        final long commentId;
+        final long parentCommentId;
+        final long commentReplyId;
+        final boolean isCommentType;
+
+        Fields(JSONObject noteJSON) {
+            type = QUERY_TYPE.query(noteJSON, NOTE_UNKNOWN_TYPE);
+            title = QUERY_TITLE.query(noteJSON, "");
+            iconUrl = QUERY_ICON.query(noteJSON, "");
+            noticon = QUERY_NOTICON.query(noteJSON, "");
+            url = QUERY_URL.query(noteJSON, "");
+            timestamp = QUERY_TIMESTAMP.query(noteJSON, "");
+            isRead = QUERY_READ.query(noteJSON, 0) == 1;
+            siteId = QUERY_SITE_ID.query(noteJSON, 0);
+            postId = QUERY_POST_ID.query(noteJSON, 0);
+            commentId = QUERY_COMMENT_ID.query(noteJSON, 0);
+            parentCommentId = QUERY_PARENT_COMMENT_ID.query(noteJSON, 0);
+            commentReplyId = QUERY_REPLY_COMMENT_ID.query(noteJSON, 0);
+            isCommentType = (type.equals(NOTE_MATCHER_TYPE) && QUERY_COMMENT_ID.query(noteJSON, -1) != -1)
+                    || type.equals(NOTE_COMMENT_TYPE);
+        }
+    }
+
+    private Fields getFields() {
+        Fields fields = mFields;
+        if (fields == null) {
+            synchronized (mSyncLock) {
+                if (mFields == null) {
+                    mFields = new Fields(mNoteJSON != null ? mNoteJSON : new JSONObject());
+                }
+                fields = mFields;
+            }
+        }
+        return fields;
+    }
+
     public String getType() {
-        return queryJSON("type", NOTE_UNKNOWN_TYPE);
+        return getFields().type;
     }
 
     private Boolean isType(String type) {
@@ -109,10 +181,7 @@ public class Note extends Syncable {
     }
 
     public Boolean isCommentType() {
-        synchronized (mSyncLock) {
-            return (isAutomattcherType() && JSONUtils.queryJSON(mNoteJSON, "meta.ids.comment", -1) != -1) ||
-                    isType(NOTE_COMMENT_TYPE);
-        }
+        return getFields().isCommentType;
     }
 
     public Boolean isAutomattcherType() {
@@ -176,18 +245,18 @@ public class Note extends Syncable {
     }
 
     public String getTitle() {
-        return queryJSON("title", "");
+        return getFields().title;
     }
 
     private String getIconURL() {
-        return queryJSON("icon", "");
+        return getFields().iconUrl;
     }
 
     private String getCommentSubject() {
         synchronized (mSyncLock) {
             JSONArray subjectArray = mNoteJSON.optJSONArray("subject");
             if (subjectArray != null) {
-                String commentSubject = JSONUtils.queryJSON(subjectArray, "subject[1].text", "");
+                String commentSubject = QUERY_COMMENT_SUBJECT.query(subjectArray, "");
 
                 // Trim down the comment preview if the comment text is too large.
                 if (commentSubject != null && commentSubject.length() > MAX_COMMENT_PREVIEW_LENGTH) {
@@ -203,7 +272,7 @@ public class Note extends Syncable {
     }
 
     private String getCommentSubjectNoticon() {
-        JSONArray subjectRanges = queryJSON("subject[0].ranges", new JSONArray());
+        JSONArray subjectRanges = queryJSON(QUERY_SUBJECT_RANGES, new JSONArray());
         if (subjectRanges != null) {
             for (int i=0; i < subjectRanges.length(); i++) {
                 try {
@@ -221,7 +290,7 @@ public class Note extends Syncable {
     }
 
     public long getCommentReplyId() {
-        return queryJSON("meta.ids.reply_comment", 0);
+        return getFields().commentReplyId;
     }
 
     /**
@@ -253,13 +322,14 @@ public class Note extends Syncable {
     }
 
     private Boolean isRead() {
-        return queryJSON("read", 0) == 1;
+        return getFields().isRead;
     }
 
     public void markAsRead() {
         try {
             synchronized (mSyncLock) {
                 mNoteJSON.put("read", 1);
+                mFields = null;
             }
         } catch (JSONException e) {
             Log.e(TAG, "Unable to update note read property", e);
@@ -272,7 +342,7 @@ public class Note extends Syncable {
      * Get the timestamp provided by the API for the note
      */
     public long getTimestamp() {
-        return DateTimeUtils.iso8601ToTimestamp(queryJSON("timestamp", ""));
+        return DateTimeUtils.iso8601ToTimestamp(getFields().timestamp);
     }
 
     public JSONArray getBody() {
@@ -287,7 +357,7 @@ public class Note extends Syncable {
 
     // returns character code for notification font
     private String getNoticonCharacter() {
-        return queryJSON("noticon", "");
+        return getFields().noticon;
     }
 
     private JSONObject getCommentActions() {
@@ -299,8 +369,8 @@ public class Note extends Syncable {
                 try {
                     JSONObject bodyItem = bodyArray.getJSONObject(i);
                     if (bodyItem.has("type") && bodyItem.optString("type").equals("comment")
-                            && commentId == JSONUtils.queryJSON(bodyItem, "meta.ids.comment", 0)) {
-                        mActions = JSONUtils.queryJSON(bodyItem, "actions", new JSONObject());
+                            && commentId == QUERY_COMMENT_ID.query(bodyItem, 0)) {
+                        mActions = QUERY_ACTIONS.query(bodyItem, new JSONObject());
                         break;
                     }
                 } catch (JSONException e) {
@@ -320,6 +390,7 @@ public class Note extends Syncable {
     private void updateJSON(JSONObject json) {
         synchronized (mSyncLock) {
             mNoteJSON = json;
+            mFields = null;
         }
     }
 
@@ -353,28 +424,28 @@ public class Note extends Syncable {
     }
 
     public int getSiteId() {
-        return queryJSON("meta.ids.site", 0);
+        return getFields().siteId;
     }
 
     public int getPostId() {
-        return queryJSON("meta.ids.post", 0);
+        return getFields().postId;
     }
 
     public long getCommentId() {
-        return queryJSON("meta.ids.comment", 0);
+        return getFields().commentId;
     }
 
     public long getParentCommentId() {
-        return queryJSON("meta.ids.parent_comment", 0);
+        return getFields().parentCommentId;
     }
 
     /**
      * Rudimentary system for pulling an item out of a JSON object hierarchy
      */
-    private <U> U queryJSON(String query, U defaultObject) {
+    private <U> U queryJSON(JSONUtils.CompiledQuery query, U defaultObject) {
         synchronized (mSyncLock) {
             if (mNoteJSON == null) return defaultObject;
-            return JSONUtils.queryJSON(mNoteJSON, query, defaultObject);
+            return query.query(mNoteJSON, defaultObject);
         }
     }
 
@@ -414,7 +485,7 @@ public class Note extends Syncable {
     }
 
     private String getCommentText() {
-        return queryJSON("body[last].text", "");
+        return queryJSON(QUERY_COMMENT_TEXT, "");
     }
 
     private String getCommentAuthorUrl() {
@@ -424,7 +495,7 @@ public class Note extends Syncable {
             try {
                 JSONObject bodyItem = bodyArray.getJSONObject(i);
                 if (bodyItem.has("type") && bodyItem.optString("type").equals("user")) {
-                    return JSONUtils.queryJSON(bodyItem, "meta.links.home", "");
+                    return QUERY_LINKS_HOME.query(bodyItem, "");
                 }
             } catch (JSONException e) {
                 return "";
@@ -452,7 +523,7 @@ public class Note extends Syncable {
     }
 
     public String getUrl() {
-        return queryJSON("url", "");
+        return getFields().url;
     }
 
     public JSONArray getHeader() {
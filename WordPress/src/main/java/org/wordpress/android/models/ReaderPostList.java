@@ -1,9 +1,16 @@
 package org.wordpress.android.models;
 
+import android.util.JsonReader;
+import android.util.JsonToken;
+
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.wordpress.android.ui.reader.models.ReaderBlogIdPostId;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
 
 public class ReaderPostList extends ArrayList<ReaderPost> {
@@ -24,6 +31,106 @@ public class ReaderPostList extends ArrayList<ReaderPost> {
         return posts;
     }
 
+    /*
+     * same as fromJson() but reads the response from a stream, so neither the response string nor a
+     * JSONObject for the entire response is created - only the post currently being read exists as
+     * a JSONObject, and it's parsed by ReaderPost.fromJson() like any other post
+     */
+    public static ReaderPostList fromJsonStream(InputStream in) throws IOException {
+        if (in == null) {
+            throw new IllegalArgumentException("null json post stream");
+        }
+
+        ReaderPostList posts = new ReaderPostList();
+        JsonReader reader = new JsonReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("posts") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                            posts.add(ReaderPost.fromJson(readJsonObject(reader)));
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | JSONException e) {
+            // thrown when the response doesn't have the expected structure
+            throw new IOException(e.getMessage());
+        } finally {
+            reader.close();
+        }
+
+        return posts;
+    }
+
+    private static JSONObject readJsonObject(JsonReader reader) throws IOException, JSONException {
+        JSONObject json = new JSONObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            json.put(reader.nextName(), readJsonValue(reader));
+        }
+        reader.endObject();
+        return json;
+    }
+
+    private static JSONArray readJsonArray(JsonReader reader) throws IOException, JSONException {
+        JSONArray json = new JSONArray();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            json.put(readJsonValue(reader));
+        }
+        reader.endArray();
+        return json;
+    }
+
+    /*
+     * returns the next value as the same type JSONTokener would have created for it
+     */
+    private static Object readJsonValue(JsonReader reader) throws IOException, JSONException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                return readJsonObject(reader);
+            case BEGIN_ARRAY:
+                return readJsonArray(reader);
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return JSONObject.NULL;
+            case NUMBER:
+                return readJsonNumber(reader.nextString());
+            default:
+                return reader.nextString();
+        }
+    }
+
+    private static Object readJsonNumber(String number) {
+        if (number.indexOf('.') == -1 && number.indexOf('e') == -1 && number.indexOf('E') == -1) {
+            try {
+                long value = Long.parseLong(number);
+                if (value <= Integer.MAX_VALUE && value >= Integer.MIN_VALUE) {
+                    return (int) value;
+                }
+                return value;
+            } catch (NumberFormatException e) {
+                // too large for a long, fall through to double
+            }
+        }
+        try {
+            return Double.valueOf(number);
+        } catch (NumberFormatException e) {
+            return number;
+        }
+    }
+
     @Override
     public Object clone() {
         return super.clone();
@@ -13,6 +13,7 @@ import org.wordpress.android.ui.ActivityLauncher;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.GenericCallback;
+import org.xmlrpc.android.XMLRPCConnectionPool;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -100,8 +101,9 @@ public class SelfSignedSSLCertsManager {
             mLocalKeyStore.setCertificateEntry(alias, cert);
         }
         saveTrustStore();
-        // reset the Volley queue Otherwise new certs are not used
+        // reset the Volley queue and the XML-RPC connections Otherwise new certs are not used
         WordPress.setupVolleyQueue();
+        XMLRPCConnectionPool.reset();
     }
 
     public void addCertificate(X509Certificate cert) throws IOException, GeneralSecurityException {
@@ -112,6 +114,7 @@ public class SelfSignedSSLCertsManager {
         String alias = hashName(cert.getSubjectX500Principal());
         mLocalKeyStore.setCertificateEntry(alias, cert);
         saveTrustStore();
+        XMLRPCConnectionPool.reset();
     }
 
     public KeyStore getLocalKeyStore() {
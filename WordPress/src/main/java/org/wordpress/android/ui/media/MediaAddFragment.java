@@ -249,7 +249,9 @@ public class MediaAddFragment extends Fragment implements LaunchCameraCallback {
     public void addToQueue(String mediaId) {
         String blogId = String.valueOf(WordPress.getCurrentBlog().getLocalTableBlogId());
         WordPress.wpDB.updateMediaUploadState(blogId, mediaId, MediaUploadState.QUEUED);
-        startMediaUploadService();
+        if (NetworkUtils.isNetworkAvailable(getActivity())) {
+            getActivity().startService(MediaUploadService.getRetryIntent(getActivity(), blogId, mediaId));
+        }
     }
 
     public void uploadList(List<Uri> uriList) {
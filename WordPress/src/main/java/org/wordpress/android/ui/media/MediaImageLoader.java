@@ -4,11 +4,11 @@ import android.content.Context;
 
 import com.android.volley.RequestQueue;
 import com.android.volley.toolbox.ImageLoader;
-import com.android.volley.toolbox.Volley;
 
 import org.wordpress.android.WordPress;
 import org.wordpress.android.models.Blog;
 import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.DiskCacheImageLoader;
 import org.wordpress.android.util.VolleyUtils;
 
 /**
@@ -29,8 +29,9 @@ class MediaImageLoader {
             // use ImageLoader with authenticating request queue for protected blogs
             AppLog.d(AppLog.T.MEDIA, "using custom imageLoader");
             Context context = WordPress.getContext();
-            RequestQueue authRequestQueue = Volley.newRequestQueue(context, VolleyUtils.getHTTPClientStack(context, blog));
-            ImageLoader imageLoader = new ImageLoader(authRequestQueue, WordPress.getBitmapCache());
+            RequestQueue authRequestQueue = VolleyUtils.newRequestQueue(context,
+                    VolleyUtils.getHTTPClientStack(context, blog), WordPress.getBitmapCache().getDiskCache());
+            ImageLoader imageLoader = new DiskCacheImageLoader(authRequestQueue, WordPress.getBitmapCache());
             imageLoader.setBatchedResponseDelay(0);
             return imageLoader;
         } else {
@@ -0,0 +1,214 @@
+package org.wordpress.android.ui.media.services;
+
+import android.os.SystemClock;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.helpers.MediaFile;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory queue of the media waiting to be uploaded by MediaUploadService. The media table's "queued"
+ * rows remain the persisted copy of the queue, this hands them out highest priority first (oldest first
+ * within a priority) with at most maxActivePerBlog uploads running for each blog, and keeps track of how
+ * long items wait in the queue vs. how long their transfers take. It's only used from the main thread, so
+ * isn't thread-safe.
+ */
+public class MediaUploadQueue {
+    public static final int PRIORITY_HIGH = 1;
+    public static final int PRIORITY_NORMAL = 0;
+    public static final int PRIORITY_LOW = -1;
+
+    public static class Item {
+        private final MediaFile mMediaFile;
+        private final int mPriority;
+        private final long mSequence;
+        private final long mEnqueueTime;
+        private long mStartTime;
+
+        private Item(MediaFile mediaFile, int priority, long sequence) {
+            mMediaFile = mediaFile;
+            mPriority = priority;
+            mSequence = sequence;
+            mEnqueueTime = SystemClock.elapsedRealtime();
+        }
+
+        public MediaFile getMediaFile() {
+            return mMediaFile;
+        }
+
+        public String getBlogId() {
+            return mMediaFile.getBlogId();
+        }
+
+        public String getMediaId() {
+            return mMediaFile.getMediaId();
+        }
+
+        public int getPriority() {
+            return mPriority;
+        }
+    }
+
+    private static final Comparator<Item> ITEM_ORDER = new Comparator<Item>() {
+        @Override
+        public int compare(Item lhs, Item rhs) {
+            if (lhs.mPriority != rhs.mPriority) {
+                return lhs.mPriority > rhs.mPriority ? -1 : 1;
+            }
+            return lhs.mSequence < rhs.mSequence ? -1 : (lhs.mSequence == rhs.mSequence ? 0 : 1);
+        }
+    };
+
+    private final int mMaxActivePerBlog;
+    private final PriorityQueue<Item> mQueuedItems = new PriorityQueue<>(11, ITEM_ORDER);
+    // queued and active items, keyed by blog and media id
+    private final Map<String, Item> mItems = new HashMap<>();
+    private final Map<String, Item> mActiveItems = new HashMap<>();
+    private final Map<String, Integer> mActiveCounts = new HashMap<>();
+    private long mNextSequence;
+
+    private int mStartedCount;
+    private int mCompletedCount;
+    private long mTotalWaitMs;
+    private long mTotalTransferMs;
+
+    public MediaUploadQueue(int maxActivePerBlog) {
+        mMaxActivePerBlog = Math.max(1, maxActivePerBlog);
+    }
+
+    private static String getKey(String blogId, String mediaId) {
+        return blogId + ":" + mediaId;
+    }
+
+    private static String getKey(Item item) {
+        return getKey(item.getBlogId(), item.getMediaId());
+    }
+
+    /*
+     * adds the passed media to the queue, returns false if it's already queued or uploading
+     */
+    public boolean enqueue(MediaFile mediaFile, int priority) {
+        String key = getKey(mediaFile.getBlogId(), mediaFile.getMediaId());
+        if (mItems.containsKey(key)) {
+            return false;
+        }
+        Item item = new Item(mediaFile, priority, mNextSequence++);
+        mItems.put(key, item);
+        mQueuedItems.add(item);
+        return true;
+    }
+
+    public boolean contains(String blogId, String mediaId) {
+        return mItems.containsKey(getKey(blogId, mediaId));
+    }
+
+    /*
+     * returns the next item to upload and marks it as active, or null if nothing is queued for a blog
+     * which has fewer than the maximum number of active uploads
+     */
+    public Item startNext() {
+        Item next = null;
+        List<Item> skippedItems = new ArrayList<>();
+        while (!mQueuedItems.isEmpty()) {
+            Item item = mQueuedItems.poll();
+            if (getActiveCount(item.getBlogId()) < mMaxActivePerBlog) {
+                next = item;
+                break;
+            }
+            skippedItems.add(item);
+        }
+        mQueuedItems.addAll(skippedItems);
+
+        if (next != null) {
+            next.mStartTime = SystemClock.elapsedRealtime();
+            mTotalWaitMs += next.mStartTime - next.mEnqueueTime;
+            mStartedCount++;
+            mActiveItems.put(getKey(next), next);
+            mActiveCounts.put(next.getBlogId(), getActiveCount(next.getBlogId()) + 1);
+        }
+        return next;
+    }
+
+    /*
+     * called once an active item's upload has finished, whether or not it succeeded
+     */
+    public void complete(Item item) {
+        if (removeActive(getKey(item)) != null) {
+            mCompletedCount++;
+            mTotalTransferMs += SystemClock.elapsedRealtime() - item.mStartTime;
+        }
+    }
+
+    /*
+     * removes the passed media from the queue, returns true if it was uploading
+     */
+    public boolean remove(String blogId, String mediaId) {
+        String key = getKey(blogId, mediaId);
+        Item item = mItems.get(key);
+        if (item == null) {
+            return false;
+        }
+        if (removeActive(key) != null) {
+            return true;
+        }
+        mItems.remove(key);
+        mQueuedItems.remove(item);
+        return false;
+    }
+
+    private Item removeActive(String key) {
+        Item item = mActiveItems.remove(key);
+        if (item != null) {
+            mItems.remove(key);
+            mActiveCounts.put(item.getBlogId(), getActiveCount(item.getBlogId()) - 1);
+        }
+        return item;
+    }
+
+    private int getActiveCount(String blogId) {
+        Integer count = mActiveCounts.get(blogId);
+        return count != null ? count : 0;
+    }
+
+    public int getActiveCount() {
+        return mActiveItems.size();
+    }
+
+    public int getQueuedCount() {
+        return mQueuedItems.size();
+    }
+
+    /*
+     * true if nothing is queued or uploading
+     */
+    public boolean isEmpty() {
+        return mItems.isEmpty();
+    }
+
+    public int getCompletedCount() {
+        return mCompletedCount;
+    }
+
+    public long getAverageWaitMs() {
+        return mStartedCount > 0 ? mTotalWaitMs / mStartedCount : 0;
+    }
+
+    public long getAverageTransferMs() {
+        return mCompletedCount > 0 ? mTotalTransferMs / mCompletedCount : 0;
+    }
+
+    public void logStats() {
+        if (mCompletedCount == 0) {
+            return;
+        }
+        AppLog.i(T.MEDIA, "media upload queue > " + mCompletedCount + " uploads, average wait "
+                + getAverageWaitMs() + " ms, average transfer " + getAverageTransferMs() + " ms");
+    }
+}
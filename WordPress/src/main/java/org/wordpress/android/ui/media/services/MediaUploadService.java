@@ -4,43 +4,58 @@ import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
 import android.database.Cursor;
-import android.os.Handler;
+import android.os.AsyncTask;
 import android.os.IBinder;
 
 import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.WordPressDB;
+import org.wordpress.android.models.Blog;
 import org.wordpress.android.models.MediaUploadState;
 import org.wordpress.android.ui.media.services.MediaEvents.MediaChanged;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.CrashlyticsUtils;
 import org.wordpress.android.util.CrashlyticsUtils.ExceptionType;
+import org.wordpress.android.util.MediaUtils;
+import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.helpers.MediaFile;
 import org.xmlrpc.android.ApiHelper;
 import org.xmlrpc.android.ApiHelper.ErrorType;
 import org.xmlrpc.android.ApiHelper.GetMediaItemTask;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import de.greenrobot.event.EventBus;
 
 /**
  * A service for uploading media files from the media browser.
- * Only one file is uploaded at a time.
+ * Queued files of every blog are read from the media table each time the service is started or processQueue()
+ * is called, and up to MAX_UPLOADS_PER_BLOG of them are uploaded at once for each blog - retries first, then
+ * images, then videos. The next upload starts as soon as one finishes, and the service stops once nothing is
+ * queued or uploading.
  */
 public class MediaUploadService extends Service {
-    // time to wait before trying to upload the next file
-    private static final int UPLOAD_WAIT_TIME = 1000;
+    // number of files uploaded at once for each blog
+    private static final int MAX_UPLOADS_PER_BLOG = 2;
+
+    // identify a failed upload the user asked to retry, see getRetryIntent()
+    public static final String EXTRA_RETRY_BLOG_ID = "retryBlogId";
+    public static final String EXTRA_RETRY_MEDIA_ID = "retryMediaId";
 
     private static MediaUploadService mInstance;
 
     private Context mContext;
-    private Handler mHandler = new Handler();
 
-    private boolean mUploadInProgress;
-    private ApiHelper.UploadMediaTask mCurrentUploadMediaTask;
-    private String mCurrentUploadMediaId;
+    private final MediaUploadQueue mQueue = new MediaUploadQueue(MAX_UPLOADS_PER_BLOG);
+    // running upload tasks, keyed by blog and media id
+    private final Map<String, ApiHelper.UploadMediaTask> mUploadTasks = new HashMap<>();
+    // retried uploads which haven't been read from the media table yet, keyed by blog and media id
+    private final Set<String> mRetriedUploads = new HashSet<>();
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -54,137 +69,188 @@ public class MediaUploadService extends Service {
         mInstance = this;
 
         mContext = this.getApplicationContext();
-        mUploadInProgress = false;
 
-        cancelOldUploads();
+        requeueInterruptedUploads();
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        mQueue.logStats();
+        if (mInstance == this) {
+            mInstance = null;
+        }
     }
 
     @Override
     public void onStart(Intent intent, int startId) {
-        mHandler.post(mFetchQueueTask);
+        if (intent != null && intent.hasExtra(EXTRA_RETRY_MEDIA_ID)) {
+            mRetriedUploads.add(getUploadKey(intent.getStringExtra(EXTRA_RETRY_BLOG_ID),
+                    intent.getStringExtra(EXTRA_RETRY_MEDIA_ID)));
+        }
+        processQueue();
     }
 
     public static MediaUploadService getInstance() {
         return mInstance;
     }
 
+    /**
+     * Returns an intent which starts the service with a failed upload that's been queued again - the user is
+     * waiting on it, so it's uploaded ahead of the rest of the queue.
+     */
+    public static Intent getRetryIntent(Context context, String blogId, String mediaId) {
+        Intent intent = new Intent(context, MediaUploadService.class);
+        intent.putExtra(EXTRA_RETRY_BLOG_ID, blogId);
+        intent.putExtra(EXTRA_RETRY_MEDIA_ID, mediaId);
+        return intent;
+    }
+
+    private static String getUploadKey(String blogId, String mediaId) {
+        return blogId + ":" + mediaId;
+    }
+
+    /**
+     * Adds newly queued media files to the upload queue and starts uploading them. Called when the service is
+     * started, so should also be called after queueing files while the service is running.
+     */
     public void processQueue() {
-        mHandler.post(mFetchQueueTask);
+        loadQueue();
+        startUploads();
     }
 
     /**
      * Returns whether the service has any media uploads in progress or queued.
      */
     public boolean hasUploads() {
-        if (mUploadInProgress) {
-            return true;
-        } else {
-            Cursor queueCursor = getQueue();
-            return (queueCursor == null || queueCursor.getCount() > 0);
-        }
+        return !mQueue.isEmpty();
     }
 
     /**
      * Cancel the upload with the given id, whether it's currently uploading or queued.
+     * @param blogId the local id of the media item's blog
      * @param mediaId the id of the media item
      * @param delete whether to delete the item from the queue or mark it as failed so it can be retried later
      */
-    public void cancelUpload(String mediaId, boolean delete) {
-        if (mediaId.equals(mCurrentUploadMediaId)) {
+    public void cancelUpload(String blogId, String mediaId, boolean delete) {
+        ApiHelper.UploadMediaTask uploadTask = mUploadTasks.remove(getUploadKey(blogId, mediaId));
+        if (uploadTask != null) {
             // The media item is currently uploading - abort the upload process
-            mCurrentUploadMediaTask.cancel(true);
-            mUploadInProgress = false;
-        } else {
-            // Remove the media item from the upload queue
-            if (WordPress.getCurrentBlog() != null) {
-                String blogId = String.valueOf(WordPress.getCurrentBlog().getLocalTableBlogId());
-                if (delete) {
-                    WordPress.wpDB.deleteMediaFile(blogId, mediaId);
-                } else {
-                    WordPress.wpDB.updateMediaUploadState(blogId, mediaId, MediaUploadState.FAILED);
-                }
+            uploadTask.cancel(true);
+        }
+
+        // Remove the media item from the upload queue
+        if (!mQueue.remove(blogId, mediaId)) {
+            if (delete) {
+                WordPress.wpDB.deleteMediaFile(blogId, mediaId);
+            } else {
+                WordPress.wpDB.updateMediaUploadState(blogId, mediaId, MediaUploadState.FAILED);
             }
         }
+        startUploads();
     }
 
-    private Runnable mFetchQueueTask = new Runnable() {
-        @Override
-        public void run() {
-            Cursor cursor = getQueue();
-            try {
-                if ((cursor == null || cursor.getCount() == 0 || mContext == null) && !mUploadInProgress) {
-                    MediaUploadService.this.stopSelf();
-                    return;
+    /*
+     * adds files queued in the media table which aren't in the upload queue yet
+     */
+    private void loadQueue() {
+        Cursor cursor = WordPress.wpDB.getMediaUploadQueue();
+        try {
+            while (cursor.moveToNext()) {
+                String blogId = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_BLOG_ID));
+                String mediaId = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_MEDIA_ID));
+                if (mQueue.contains(blogId, mediaId)) {
+                    continue;
+                }
+
+                MediaFile mediaFile = new MediaFile();
+                mediaFile.setBlogId(blogId);
+                mediaFile.setMediaId(mediaId);
+                mediaFile.setFileName(cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_FILE_NAME)));
+                mediaFile.setFilePath(cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_FILE_PATH)));
+                mediaFile.setMimeType(cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_MIME_TYPE)));
+                mediaFile.setVideo(MediaUtils.isVideo(mediaFile.getMimeType()));
+
+                // the user is waiting on retries, and images are small and show up in the post sooner, so
+                // they go ahead of videos
+                int priority;
+                if (mRetriedUploads.contains(getUploadKey(blogId, mediaId))) {
+                    priority = MediaUploadQueue.PRIORITY_HIGH;
+                } else if (mediaFile.isVideo()) {
+                    priority = MediaUploadQueue.PRIORITY_LOW;
                 } else {
-                    if (mUploadInProgress) {
-                        mHandler.postDelayed(this, UPLOAD_WAIT_TIME);
-                    } else {
-                        uploadMediaFile(cursor);
-                    }
+                    priority = MediaUploadQueue.PRIORITY_NORMAL;
                 }
-            } finally {
-                if (cursor != null)
-                    cursor.close();
+                mQueue.enqueue(mediaFile, priority);
             }
-
+        } finally {
+            cursor.close();
+            mRetriedUploads.clear();
         }
-    };
-
-    private void cancelOldUploads() {
-        // There should be no media files with an upload state of 'uploading' at the start of this service.
-        // Since we won't be able to receive notifications for these, set them to 'failed'.
+    }
 
-        if (WordPress.getCurrentBlog() != null) {
-            String blogId = String.valueOf(WordPress.getCurrentBlog().getLocalTableBlogId());
-            WordPress.wpDB.setMediaUploadingToFailed(blogId);
+    /*
+     * starts as many queued uploads as the queue allows, and stops the service once there's nothing left to do
+     */
+    private void startUploads() {
+        if (mContext == null) {
+            stopSelf();
+            return;
+        }
+        MediaUploadQueue.Item item;
+        while ((item = mQueue.startNext()) != null) {
+            uploadMediaFile(item);
+        }
+        if (mQueue.isEmpty()) {
+            stopSelf();
         }
     }
 
-    private Cursor getQueue() {
-        if (WordPress.getCurrentBlog() == null)
-            return null;
+    private void onUploadFinished(MediaUploadQueue.Item item) {
+        mUploadTasks.remove(getUploadKey(item.getBlogId(), item.getMediaId()));
+        mQueue.complete(item);
+        startUploads();
+    }
 
-        String blogId = String.valueOf(WordPress.getCurrentBlog().getLocalTableBlogId());
-        return WordPress.wpDB.getMediaUploadQueue(blogId);
+    private void requeueInterruptedUploads() {
+        // There should be no media files with an upload state of 'uploading' at the start of this service, those
+        // were interrupted by the app being killed. The files which reached the server are already marked as
+        // uploaded, so only the interrupted ones are queued again and uploaded with the rest of the queue.
+        WordPress.wpDB.requeueInterruptedMediaUploads();
     }
 
-    private void uploadMediaFile(Cursor cursor) {
-        if (!cursor.moveToFirst())
+    private void uploadMediaFile(final MediaUploadQueue.Item item) {
+        final String blogIdStr = item.getBlogId();
+        final String mediaId = item.getMediaId();
+
+        // upload to the media's own blog, the user may have switched to another one since it was queued
+        final Blog blog = WordPress.getBlog(StringUtils.stringToInt(blogIdStr, -1));
+        if (blog == null) {
+            WordPress.wpDB.updateMediaUploadState(blogIdStr, mediaId, MediaUploadState.FAILED);
+            EventBus.getDefault().post(new MediaEvents.MediaUploadFailed(mediaId, getString(R.string.upload_failed),
+                    true));
+            // called from startUploads(), which moves on to the next item
+            mQueue.complete(item);
             return;
+        }
 
-        mUploadInProgress = true;
-
-        final String blogIdStr = cursor.getString((cursor.getColumnIndex(WordPressDB.COLUMN_NAME_BLOG_ID)));
-        final String mediaId = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_MEDIA_ID));
-        String fileName = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_FILE_NAME));
-        String filePath = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_FILE_PATH));
-        String mimeType = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_MIME_TYPE));
-
-        MediaFile mediaFile = new MediaFile();
-        mediaFile.setBlogId(blogIdStr);
-        mediaFile.setFileName(fileName);
-        mediaFile.setFilePath(filePath);
-        mediaFile.setMimeType(mimeType);
-
-        mCurrentUploadMediaId = mediaId;
-
-        mCurrentUploadMediaTask = new ApiHelper.UploadMediaTask(mContext, mediaFile,
+        ApiHelper.UploadMediaTask uploadTask = new ApiHelper.UploadMediaTask(mContext, item.getMediaFile(),
                 new ApiHelper.UploadMediaTask.Callback() {
             @Override
             public void onSuccess(String remoteId, String remoteUrl, String secondaryId) {
                 // once the file has been uploaded, update the local database entry (swap the id with the remote id)
-                // and download the new one
+                // and mark it as uploaded right away, so it's not sent again if the app is killed while the new
+                // one is downloaded
                 WordPress.wpDB.updateMediaLocalToRemoteId(blogIdStr, mediaId, remoteId);
+                WordPress.wpDB.updateMediaUploadState(blogIdStr, remoteId, MediaUploadState.UPLOADED);
                 EventBus.getDefault().post(new MediaEvents.MediaUploadSucceeded(blogIdStr, mediaId,
                         remoteId, remoteUrl, secondaryId));
-                fetchMediaFile(remoteId);
+                fetchMediaFile(item, blog, remoteId);
             }
 
             @Override
             public void onFailure(ApiHelper.ErrorType errorType, String errorMessage, Throwable throwable) {
                 WordPress.wpDB.updateMediaUploadState(blogIdStr, mediaId, MediaUploadState.FAILED);
-                mUploadInProgress = false;
-                mCurrentUploadMediaId = "";
 
                 MediaEvents.MediaUploadFailed event;
                 if (errorMessage == null) {
@@ -194,7 +260,7 @@ public class MediaUploadService extends Service {
                 }
 
                 EventBus.getDefault().post(event);
-                mHandler.post(mFetchQueueTask);
+                onUploadFinished(item);
 
                 // Only log the error if it's not caused by the network (internal inconsistency)
                 if (errorType != ErrorType.NETWORK_XMLRPC) {
@@ -207,17 +273,18 @@ public class MediaUploadService extends Service {
                 EventBus.getDefault().post(new MediaEvents.MediaUploadProgress(mediaId, progress));
             }
         });
+        mUploadTasks.put(getUploadKey(blogIdStr, mediaId), uploadTask);
 
         WordPress.wpDB.updateMediaUploadState(blogIdStr, mediaId, MediaUploadState.UPLOADING);
         List<Object> apiArgs = new ArrayList<Object>();
-        apiArgs.add(WordPress.getCurrentBlog());
-        mCurrentUploadMediaTask.execute(apiArgs);
-        mHandler.post(mFetchQueueTask);
+        apiArgs.add(blog);
+        // uploads run in parallel, so they can't use the default serial executor
+        uploadTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, apiArgs);
     }
 
-    private void fetchMediaFile(final String id) {
+    private void fetchMediaFile(final MediaUploadQueue.Item item, Blog blog, final String id) {
         List<Object> apiArgs = new ArrayList<Object>();
-        apiArgs.add(WordPress.getCurrentBlog());
+        apiArgs.add(blog);
         GetMediaItemTask task = new GetMediaItemTask(Integer.valueOf(id),
                 new ApiHelper.GetMediaItemTask.Callback() {
             @Override
@@ -225,17 +292,13 @@ public class MediaUploadService extends Service {
                 String blogId = mediaFile.getBlogId();
                 String mediaId = mediaFile.getMediaId();
                 WordPress.wpDB.updateMediaUploadState(blogId, mediaId, MediaUploadState.UPLOADED);
-                mUploadInProgress = false;
-                mCurrentUploadMediaId = "";
-                mHandler.post(mFetchQueueTask);
+                onUploadFinished(item);
                 EventBus.getDefault().post(new MediaChanged(blogId, mediaId));
             }
 
             @Override
             public void onFailure(ApiHelper.ErrorType errorType, String errorMessage, Throwable throwable) {
-                mUploadInProgress = false;
-                mCurrentUploadMediaId = "";
-                mHandler.post(mFetchQueueTask);
+                onUploadFinished(item);
                 // Only log the error if it's not caused by the network (internal inconsistency)
                 if (errorType != ErrorType.NETWORK_XMLRPC) {
                     CrashlyticsUtils.logException(throwable, ExceptionType.SPECIFIC, T.MEDIA, errorMessage);
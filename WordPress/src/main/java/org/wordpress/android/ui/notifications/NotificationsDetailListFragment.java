@@ -286,6 +286,7 @@ public class NotificationsDetailListFragment extends ListFragment implements Not
                 );
 
                 headerNoteBlock.setIsComment(mNote.isCommentType());
+                headerNoteBlock.getNoteText();
                 noteList.add(headerNoteBlock);
             }
 
@@ -353,6 +354,9 @@ public class NotificationsDetailListFragment extends ListFragment implements Not
                             noteBlock.setIsBadge();
                         }
 
+                        // build the block's spans now rather than on the UI thread when it's shown
+                        noteBlock.getNoteText();
+
                         noteList.add(noteBlock);
                     } catch (JSONException e) {
                         AppLog.e(AppLog.T.NOTIFS, "Invalid note data, could not parse.");
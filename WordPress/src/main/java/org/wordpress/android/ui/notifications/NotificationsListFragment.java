@@ -28,8 +28,10 @@ import org.wordpress.android.ui.ActivityLauncher;
 import org.wordpress.android.ui.RequestCodes;
 import org.wordpress.android.ui.main.WPMainActivity;
 import org.wordpress.android.ui.notifications.adapters.NotesAdapter;
+import org.wordpress.android.ui.notifications.utils.NoteSubjectCache;
 import org.wordpress.android.ui.notifications.utils.SimperiumUtils;
 import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.ScrollJankMonitor;
 import org.wordpress.android.util.ToastUtils;
 import org.wordpress.android.util.ToastUtils.Duration;
 
@@ -82,6 +84,7 @@ public class NotificationsListFragment extends Fragment
 
         mLinearLayoutManager = new LinearLayoutManager(getActivity());
         mRecyclerView.setLayoutManager(mLinearLayoutManager);
+        mRecyclerView.addOnScrollListener(new ScrollJankMonitor(AppLog.T.NOTIFS, "notifications list"));
 
         return view;
     }
@@ -126,6 +129,7 @@ public class NotificationsListFragment extends Fragment
         if (mBucket != null) {
             mBucket.removeListener(this);
         }
+        NoteSubjectCache.logStats();
         super.onPause();
     }
 
@@ -3,8 +3,8 @@ package org.wordpress.android.ui.notifications.adapters;
 import android.content.Context;
 import android.database.Cursor;
 import android.support.v7.widget.RecyclerView;
-import android.text.Html;
 import android.text.TextUtils;
+import android.util.Pair;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -18,6 +18,7 @@ import org.wordpress.android.models.CommentStatus;
 import org.wordpress.android.models.Note;
 import org.wordpress.android.ui.comments.CommentUtils;
 import org.wordpress.android.ui.notifications.NotificationsListFragment;
+import org.wordpress.android.ui.notifications.utils.NoteSubjectCache;
 import org.wordpress.android.util.GravatarUtils;
 import org.wordpress.android.util.SqlUtils;
 import org.wordpress.android.util.StringUtils;
@@ -28,6 +29,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class NotesAdapter extends CursorRecyclerViewAdapter<NotesAdapter.NoteViewHolder> {
+    // number of rows past the one being bound whose subjects are built ahead of time
+    private static final int PREFETCH_ROWS = 20;
 
     private final int mAvatarSz;
     private final Bucket<Note> mNotesBucket;
@@ -38,6 +41,8 @@ public class NotesAdapter extends CursorRecyclerViewAdapter<NotesAdapter.NoteVie
     private final List<String> mModeratingNoteIds = new ArrayList<>();
 
     private Query mQuery;
+    // last row whose subject has been queued for prefetching
+    private int mPrefetchedPosition = -1;
 
     private NotificationsListFragment.OnNoteClickListener mOnNoteClickListener;
 
@@ -80,12 +85,14 @@ public class NotesAdapter extends CursorRecyclerViewAdapter<NotesAdapter.NoteVie
 
     public void queryNotes() {
         mQuery = getQueryDefaults();
+        mPrefetchedPosition = -1;
         changeCursor(mQuery.execute());
     }
 
     public void queryNotes(String columnName, Object value) {
         mQuery = getQueryDefaults();
         mQuery.where(columnName, Query.ComparisonType.EQUAL_TO, value);
+        mPrefetchedPosition = -1;
         changeCursor(mQuery.execute());
     }
 
@@ -203,12 +210,9 @@ public class NotesAdapter extends CursorRecyclerViewAdapter<NotesAdapter.NoteVie
             noteViewHolder.progressBar.setVisibility(View.GONE);
         }
 
-        // Subject is stored in db as html to preserve text formatting
+        // Subject is stored in db as html to preserve text formatting, it's usually formatted ahead of time
         String noteSubjectHtml = getStringForColumnName(objectCursor, Note.Schema.SUBJECT_INDEX).trim();
-        CharSequence noteSubjectSpanned = Html.fromHtml(noteSubjectHtml);
-        // Trim the '\n\n' added by Html.fromHtml()
-        noteSubjectSpanned = noteSubjectSpanned.subSequence(0, TextUtils.getTrimmedLength(noteSubjectSpanned));
-        noteViewHolder.txtSubject.setText(noteSubjectSpanned);
+        noteViewHolder.txtSubject.setText(NoteSubjectCache.getSubject(objectCursor.getSimperiumKey(), noteSubjectHtml));
 
         String noteSubjectNoticon = getStringForColumnName(objectCursor, Note.Schema.COMMENT_SUBJECT_NOTICON);
         if (!TextUtils.isEmpty(noteSubjectNoticon)) {
@@ -249,6 +253,35 @@ public class NotesAdapter extends CursorRecyclerViewAdapter<NotesAdapter.NoteVie
         } else {
             noteViewHolder.itemView.setBackgroundColor(mColorRead);
         }
+
+        prefetchSubjects(objectCursor);
+    }
+
+    /*
+     * queues the subjects of the next page of rows to be formatted in the background once the list
+     * gets close to the last prefetched row - the cursor is left at the row being bound
+     */
+    private void prefetchSubjects(Bucket.ObjectCursor<Note> cursor) {
+        int position = cursor.getPosition();
+        if (position + PREFETCH_ROWS / 2 < mPrefetchedPosition) {
+            return;
+        }
+
+        int first = Math.max(position + 1, mPrefetchedPosition + 1);
+        int last = Math.min(position + PREFETCH_ROWS, cursor.getCount() - 1);
+        if (first > last) {
+            return;
+        }
+
+        List<Pair<String, String>> subjects = new ArrayList<>();
+        for (int i = first; i <= last && cursor.moveToPosition(i); i++) {
+            subjects.add(new Pair<>(cursor.getSimperiumKey(),
+                    getStringForColumnName(cursor, Note.Schema.SUBJECT_INDEX).trim()));
+        }
+        cursor.moveToPosition(position);
+
+        mPrefetchedPosition = last;
+        NoteSubjectCache.prefetchSubjects(subjects);
     }
 
     public int getPositionForNote(String noteId) {
@@ -12,6 +12,8 @@ import org.wordpress.android.ui.notifications.utils.NotificationsUtils;
 import org.wordpress.android.util.JSONUtils;
 
 public class FooterNoteBlock extends NoteBlock {
+    private static final JSONUtils.CompiledQuery QUERY_NOTICON = JSONUtils.compileQuery("ranges[first].value");
+
     private NoteBlockClickableSpan mClickableSpan;
 
     public FooterNoteBlock(JSONObject noteObject, OnNoteBlockTextClickListener onNoteBlockTextClickListener) {
@@ -67,11 +69,11 @@ public class FooterNoteBlock extends NoteBlock {
     private String getNoticonGlyph() {
         if (getNoteData() == null) return "";
 
-        return JSONUtils.queryJSON(getNoteData(), "ranges[first].value", "");
+        return QUERY_NOTICON.query(getNoteData(), "");
     }
 
     @Override
-    public Spannable getNoteText() {
+    Spannable buildNoteText() {
         return NotificationsUtils.getSpannableContentForRanges(getNoteData(), null,
                 getOnNoteBlockTextClickListener(), true);
     }
@@ -18,6 +18,12 @@ import org.wordpress.android.widgets.WPNetworkImageView;
 
 // Note header, displayed at top of detail view
 public class HeaderNoteBlock extends NoteBlock {
+    private static final JSONUtils.CompiledQuery QUERY_USER_NAME = JSONUtils.compileQuery("[0].text");
+    private static final JSONUtils.CompiledQuery QUERY_AVATAR_URL = JSONUtils.compileQuery("[0].media[0].url");
+    private static final JSONUtils.CompiledQuery QUERY_USER_URL = JSONUtils.compileQuery("[0].ranges[0].url");
+    private static final JSONUtils.CompiledQuery QUERY_SNIPPET = JSONUtils.compileQuery("[1].text");
+    private static final JSONUtils.CompiledQuery QUERY_SITE_ID = JSONUtils.compileQuery("[0].ranges[0].site_id");
+    private static final JSONUtils.CompiledQuery QUERY_USER_ID = JSONUtils.compileQuery("[0].ranges[0].id");
 
     private final JSONArray mHeaderArray;
 
@@ -50,12 +56,16 @@ public class HeaderNoteBlock extends NoteBlock {
         return R.layout.note_block_header;
     }
 
+    @Override
+    Spannable buildNoteText() {
+        return NotificationsUtils.getSpannableContentForRanges(mHeaderArray.optJSONObject(0));
+    }
+
     @Override
     public View configureView(View view) {
         final NoteHeaderBlockHolder noteBlockHolder = (NoteHeaderBlockHolder)view.getTag();
 
-        Spannable spannable = NotificationsUtils.getSpannableContentForRanges(mHeaderArray.optJSONObject(0));
-        noteBlockHolder.nameTextView.setText(spannable);
+        noteBlockHolder.nameTextView.setText(getNoteText());
 
         noteBlockHolder.avatarImageView.setImageUrl(getAvatarUrl(), mImageType);
         if (!TextUtils.isEmpty(getUserUrl())) {
@@ -86,19 +96,19 @@ public class HeaderNoteBlock extends NoteBlock {
     };
 
     private String getUserName() {
-        return JSONUtils.queryJSON(mHeaderArray, "[0].text", "");
+        return QUERY_USER_NAME.query(mHeaderArray, "");
     }
 
     private String getAvatarUrl() {
-        return GravatarUtils.fixGravatarUrl(JSONUtils.queryJSON(mHeaderArray, "[0].media[0].url", ""), mAvatarSize);
+        return GravatarUtils.fixGravatarUrl(QUERY_AVATAR_URL.query(mHeaderArray, ""), mAvatarSize);
     }
 
     private String getUserUrl() {
-        return JSONUtils.queryJSON(mHeaderArray, "[0].ranges[0].url", "");
+        return QUERY_USER_URL.query(mHeaderArray, "");
     }
 
     private String getSnippet() {
-        return JSONUtils.queryJSON(mHeaderArray, "[1].text", "");
+        return QUERY_SNIPPET.query(mHeaderArray, "");
     }
 
     @Override
@@ -149,8 +159,8 @@ public class HeaderNoteBlock extends NoteBlock {
                 if (event.getActionMasked() == MotionEvent.ACTION_UP && mGravatarClickedListener != null) {
                     // Fire the listener, which will load the site preview for the user's site
                     // In the future we can use this to load a 'profile view' (currently in R&D)
-                    long siteId = Long.valueOf(JSONUtils.queryJSON(mHeaderArray, "[0].ranges[0].site_id", 0));
-                    long userId = Long.valueOf(JSONUtils.queryJSON(mHeaderArray, "[0].ranges[0].id", 0));
+                    long siteId = Long.valueOf(QUERY_SITE_ID.query(mHeaderArray, 0));
+                    long userId = Long.valueOf(QUERY_USER_ID.query(mHeaderArray, 0));
                     String siteUrl = getUserUrl();
                     if (siteId > 0 && userId > 0) {
                         mGravatarClickedListener.onGravatarClicked(siteId, userId, siteUrl);
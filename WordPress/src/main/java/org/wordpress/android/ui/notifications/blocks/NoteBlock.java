@@ -37,9 +37,15 @@ public class NoteBlock {
     private static final String PROPERTY_MEDIA_TYPE = "type";
     private static final String PROPERTY_MEDIA_URL = "url";
 
+    static final JSONUtils.CompiledQuery QUERY_META_HOME_TITLE = JSONUtils.compileQuery("meta.titles.home");
+    static final JSONUtils.CompiledQuery QUERY_META_SITE_ID = JSONUtils.compileQuery("meta.ids.site");
+    static final JSONUtils.CompiledQuery QUERY_META_SITE_URL = JSONUtils.compileQuery("meta.links.home");
+    private static final JSONUtils.CompiledQuery QUERY_MEDIA = JSONUtils.compileQuery("media[0]");
+
     private final JSONObject mNoteData;
     private final OnNoteBlockTextClickListener mOnNoteBlockTextClickListener;
     private JSONObject mMediaItem;
+    private Spannable mNoteText;
     private boolean mIsBadge;
     private boolean mHasAnimatedBadge;
     private int mBackgroundColor;
@@ -67,26 +73,37 @@ public class NoteBlock {
         return mNoteData;
     }
 
+    /*
+     * the block's text is only built once - LoadNoteBlocksTask builds it in the background so showing
+     * the block doesn't need to
+     */
     public Spannable getNoteText() {
+        if (mNoteText == null) {
+            mNoteText = buildNoteText();
+        }
+        return mNoteText;
+    }
+
+    Spannable buildNoteText() {
         return NotificationsUtils.getSpannableContentForRanges(mNoteData, null,
                 mOnNoteBlockTextClickListener, false);
     }
 
     public String getMetaHomeTitle() {
-        return JSONUtils.queryJSON(mNoteData, "meta.titles.home", "");
+        return QUERY_META_HOME_TITLE.query(mNoteData, "");
     }
 
     public long getMetaSiteId() {
-        return JSONUtils.queryJSON(mNoteData, "meta.ids.site", -1);
+        return QUERY_META_SITE_ID.query(mNoteData, -1);
     }
 
     public String getMetaSiteUrl() {
-        return JSONUtils.queryJSON(mNoteData, "meta.links.home", "");
+        return QUERY_META_SITE_URL.query(mNoteData, "");
     }
 
     JSONObject getNoteMediaItem() {
         if (mMediaItem == null) {
-            mMediaItem = JSONUtils.queryJSON(mNoteData, "media[0]", new JSONObject());
+            mMediaItem = QUERY_MEDIA.query(mNoteData, new JSONObject());
         }
 
         return mMediaItem;
@@ -17,6 +17,9 @@ import org.wordpress.android.widgets.WPNetworkImageView;
  * A block that displays information about a User (such as a user that liked a post)
  */
 public class UserNoteBlock extends NoteBlock {
+    private static final JSONUtils.CompiledQuery QUERY_META_TAGLINE = JSONUtils.compileQuery("meta.titles.tagline");
+    private static final JSONUtils.CompiledQuery QUERY_META_USER_ID = JSONUtils.compileQuery("meta.ids.user");
+
     private final OnGravatarClickedListener mGravatarClickedListener;
 
     private int mAvatarSz;
@@ -132,15 +135,15 @@ public class UserNoteBlock extends NoteBlock {
     }
 
     String getUserUrl() {
-        return JSONUtils.queryJSON(getNoteData(), "meta.links.home", "");
+        return QUERY_META_SITE_URL.query(getNoteData(), "");
     }
 
     private String getUserBlogTitle() {
-        return JSONUtils.queryJSON(getNoteData(), "meta.titles.home", "");
+        return QUERY_META_HOME_TITLE.query(getNoteData(), "");
     }
 
     private String getUserBlogTagline() {
-        return JSONUtils.queryJSON(getNoteData(), "meta.titles.tagline", "");
+        return QUERY_META_TAGLINE.query(getNoteData(), "");
     }
 
     private boolean hasUserUrl() {
@@ -188,8 +191,8 @@ public class UserNoteBlock extends NoteBlock {
     };
 
     private void showBlogPreview() {
-        long siteId = Long.valueOf(JSONUtils.queryJSON(getNoteData(), "meta.ids.site", 0));
-        long userId = Long.valueOf(JSONUtils.queryJSON(getNoteData(), "meta.ids.user", 0));
+        long siteId = Long.valueOf(QUERY_META_SITE_ID.query(getNoteData(), 0));
+        long userId = Long.valueOf(QUERY_META_USER_ID.query(getNoteData(), 0));
         String siteUrl = getUserUrl();
         if (mGravatarClickedListener != null) {
             mGravatarClickedListener.onGravatarClicked(siteId, userId, siteUrl);
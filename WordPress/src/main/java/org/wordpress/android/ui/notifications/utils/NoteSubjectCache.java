@@ -0,0 +1,123 @@
+package org.wordpress.android.ui.notifications.utils;
+
+import android.os.Process;
+import android.support.v4.util.LruCache;
+import android.text.Html;
+import android.text.TextUtils;
+import android.util.Pair;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the formatted subjects shown in the notifications list, so binding a row doesn't have to parse
+ * the subject's HTML on the UI thread. Entries are keyed by the note's simperium key and a hash of its
+ * subject HTML so an updated note gets a new entry, and the subjects of rows which are about to be shown
+ * are built ahead of time on a background thread through prefetchSubjects()
+ */
+public class NoteSubjectCache {
+    private static final int MAX_ENTRIES = 200;
+
+    private static final LruCache<String, CharSequence> mSubjects = new LruCache<>(MAX_ENTRIES);
+    // keys queued for prefetching, so rows bound repeatedly aren't queued more than once
+    private static final Set<String> mPendingKeys = new HashSet<>();
+
+    private static final ExecutorService mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "NoteSubjectCache");
+        }
+    });
+
+    private static final AtomicLong mHitCount = new AtomicLong();
+    private static final AtomicLong mMissCount = new AtomicLong();
+    private static final AtomicLong mPrefetchCount = new AtomicLong();
+
+    private NoteSubjectCache() {
+        throw new AssertionError();
+    }
+
+    private static String makeKey(String noteId, String subjectHtml) {
+        return noteId + ":" + subjectHtml.length() + ":" + subjectHtml.hashCode();
+    }
+
+    /*
+     * returns the formatted subject for the passed note, building it here if it hasn't been prefetched
+     */
+    public static CharSequence getSubject(String noteId, String subjectHtml) {
+        String key = makeKey(noteId, subjectHtml);
+        CharSequence subject = mSubjects.get(key);
+        if (subject != null) {
+            mHitCount.incrementAndGet();
+            return subject;
+        }
+        mMissCount.incrementAndGet();
+        subject = buildSubject(subjectHtml);
+        mSubjects.put(key, subject);
+        return subject;
+    }
+
+    /*
+     * builds the subjects of the passed notes (pairs of simperium key and subject HTML) in the background
+     */
+    public static void prefetchSubjects(List<Pair<String, String>> notes) {
+        for (final Pair<String, String> note : notes) {
+            final String key = makeKey(note.first, note.second);
+            if (mSubjects.get(key) != null) {
+                continue;
+            }
+            synchronized (mPendingKeys) {
+                if (!mPendingKeys.add(key)) {
+                    continue;
+                }
+            }
+            mExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (mSubjects.get(key) == null) {
+                            mSubjects.put(key, buildSubject(note.second));
+                            mPrefetchCount.incrementAndGet();
+                        }
+                    } finally {
+                        synchronized (mPendingKeys) {
+                            mPendingKeys.remove(key);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    static CharSequence buildSubject(String subjectHtml) {
+        CharSequence subject = Html.fromHtml(subjectHtml);
+        // Trim the '\n\n' added by Html.fromHtml()
+        return subject.subSequence(0, TextUtils.getTrimmedLength(subject));
+    }
+
+    public static void logStats() {
+        AppLog.d(T.NOTIFS, "note subject cache > " + mSubjects.size() + " subjects, " + mHitCount.get() + " hits, "
+                + mMissCount.get() + " misses, " + mPrefetchCount.get() + " prefetched");
+    }
+
+    /*
+     * called when the system is low on memory
+     */
+    public static void evictAll() {
+        mSubjects.evictAll();
+    }
+}
@@ -1987,12 +1987,9 @@ public class EditPostActivity extends AppCompatActivity implements EditorFragmen
         String blogId = String.valueOf(WordPress.getCurrentBlog().getLocalTableBlogId());
         WordPress.wpDB.updateMediaUploadState(blogId, mediaId, MediaUploadState.QUEUED);
 
-        MediaUploadService mediaUploadService = MediaUploadService.getInstance();
-        if (mediaUploadService == null) {
-            startMediaUploadService();
-        } else {
-            mediaUploadService.processQueue();
-        }
+        // delivered to the running service too, so the retried upload goes ahead of the queue
+        startService(MediaUploadService.getRetryIntent(this, blogId, mediaId));
+        mMediaUploadServiceStarted = true;
         AnalyticsTracker.track(Stat.EDITOR_UPLOAD_MEDIA_RETRIED);
     }
 
@@ -2000,7 +1997,8 @@ public class EditPostActivity extends AppCompatActivity implements EditorFragmen
     public void onMediaUploadCancelClicked(String mediaId, boolean delete) {
         MediaUploadService mediaUploadService = MediaUploadService.getInstance();
         if (mediaUploadService != null) {
-            mediaUploadService.cancelUpload(mediaId, delete);
+            String blogId = String.valueOf(WordPress.getCurrentBlog().getLocalTableBlogId());
+            mediaUploadService.cancelUpload(blogId, mediaId, delete);
         }
     }
 
@@ -3,6 +3,7 @@ package org.wordpress.android.ui.posts.services;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
+import android.database.sqlite.SQLiteDatabase;
 import android.os.IBinder;
 import android.support.annotation.Nullable;
 
@@ -16,10 +17,10 @@ import org.xmlrpc.android.XMLRPCClientInterface;
 import org.xmlrpc.android.XMLRPCException;
 import org.xmlrpc.android.XMLRPCFactory;
 import org.xmlrpc.android.XMLRPCFault;
+import org.xmlrpc.android.XMLRPCStreamingCallback;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 import java.util.Map;
 
 import de.greenrobot.event.EventBus;
@@ -93,15 +94,14 @@ public class PostUpdateService extends Service {
                 blog.getHttpuser(),
                 blog.getHttppassword());
 
-        int numPostsToRequest;
+        int numExisting;
         if (loadMore) {
-            int numExisting = WordPress.wpDB.getUploadedCountInBlog(blogId, isPage);
-            numPostsToRequest = numExisting + NUM_POSTS_TO_REQUEST;
+            numExisting = WordPress.wpDB.getUploadedCountInBlog(blogId, isPage);
         } else {
-            numPostsToRequest = NUM_POSTS_TO_REQUEST;
+            numExisting = 0;
         }
+        int numPostsToRequest = numExisting + NUM_POSTS_TO_REQUEST;
 
-        Object[] result;
         Object[] xmlrpcParams = {
                 blog.getRemoteBlogId(),
                 blog.getUsername(),
@@ -109,36 +109,20 @@ public class PostUpdateService extends Service {
                 numPostsToRequest};
 
         PostEvents.RequestPosts event = new PostEvents.RequestPosts(blogId, isPage);
+        // posts are saved as they're parsed, the transaction is only committed once the whole response has been
+        // read so a dropped connection or malformed response never leaves the list half replaced
+        SQLiteDatabase db = WordPress.wpDB.getDatabase();
+        db.beginTransaction();
         try {
-            boolean canLoadMore;
-
-            result = (Object[]) client.call(isPage ? Method.GET_PAGES : "metaWeblog.getRecentPosts", xmlrpcParams);
-            if (result != null && result.length > 0) {
-                canLoadMore = true;
-
-                // If we're loading more posts, only save the posts at the end of the array.
-                // NOTE: Switching to wp.getPosts wouldn't require janky solutions like this
-                // since it allows for an offset parameter.
-                int startPosition = 0;
-                if (loadMore && result.length > NUM_POSTS_TO_REQUEST) {
-                    startPosition = result.length - NUM_POSTS_TO_REQUEST;
-                }
-
-                List<Map<?, ?>> postsList = new ArrayList<>();
-                for (int ctr = startPosition; ctr < result.length; ctr++) {
-                    Map<?, ?> postMap = (Map<?, ?>) result[ctr];
-                    postsList.add(postMap);
-                }
-
-                if (!loadMore) {
-                    WordPress.wpDB.deleteUploadedPosts(blogId, isPage);
-                }
-                WordPress.wpDB.savePosts(postsList, blogId, isPage, false);
-            } else {
-                canLoadMore = false;
-            }
+            // If we're loading more posts, only save the posts after the ones we already have.
+            // NOTE: Switching to wp.getPosts wouldn't require janky solutions like this
+            // since it allows for an offset parameter.
+            StreamingPostSaver saver = new StreamingPostSaver(blogId, isPage, numExisting, !loadMore);
+            int numResults = client.callStreaming(isPage ? Method.GET_PAGES : "metaWeblog.getRecentPosts",
+                    xmlrpcParams, saver);
+            db.setTransactionSuccessful();
 
-            event.setCanLoadMore(canLoadMore);
+            event.setCanLoadMore(numResults > 0);
 
         } catch (XMLRPCException | IOException | XmlPullParserException e){
             AppLog.e(AppLog.T.POSTS, e);
@@ -154,8 +138,40 @@ public class PostUpdateService extends Service {
             }
 
             event.setErrorType(errorType);
+        } finally {
+            db.endTransaction();
         }
 
         EventBus.getDefault().post(event);
     }
+
+    /*
+     * saves each post as soon as it's parsed - must be used inside a transaction, since existing posts are
+     * deleted when the first post arrives (so an empty response doesn't remove them)
+     */
+    private static class StreamingPostSaver implements XMLRPCStreamingCallback {
+        private final int mBlogId;
+        private final boolean mIsPage;
+        private final int mSkipCount;
+        private boolean mDeleteUploadedPosts;
+
+        StreamingPostSaver(int blogId, boolean isPage, int skipCount, boolean deleteUploadedPosts) {
+            mBlogId = blogId;
+            mIsPage = isPage;
+            mSkipCount = skipCount;
+            mDeleteUploadedPosts = deleteUploadedPosts;
+        }
+
+        @Override
+        public void onItem(int index, Object item) {
+            if (index < mSkipCount || !(item instanceof Map)) {
+                return;
+            }
+            if (mDeleteUploadedPosts) {
+                WordPress.wpDB.deleteUploadedPosts(mBlogId, mIsPage);
+                mDeleteUploadedPosts = false;
+            }
+            WordPress.wpDB.savePosts(Collections.singletonList(item), mBlogId, mIsPage, false);
+        }
+    }
 }
@@ -12,11 +12,13 @@ import android.media.ThumbnailUtils;
 import android.net.Uri;
 import android.os.AsyncTask;
 import android.os.IBinder;
+import android.os.SystemClock;
 import android.provider.MediaStore.Images;
 import android.provider.MediaStore.Video;
 import android.support.v4.app.NotificationCompat;
 import android.support.v4.app.NotificationCompat.Builder;
 import android.text.TextUtils;
+import android.text.format.Formatter;
 import android.webkit.MimeTypeMap;
 
 import org.json.JSONArray;
@@ -33,15 +35,19 @@ import org.wordpress.android.ui.notifications.ShareAndDismissNotificationReceive
 import org.wordpress.android.ui.posts.PostsListActivity;
 import org.wordpress.android.ui.posts.services.PostEvents.PostUploadEnded;
 import org.wordpress.android.ui.posts.services.PostEvents.PostUploadStarted;
+import org.wordpress.android.ui.prefs.AppPrefs;
 import org.wordpress.android.util.AnalyticsUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.CrashlyticsUtils;
 import org.wordpress.android.util.DisplayUtils;
+import org.wordpress.android.util.ImageResizeQueue;
 import org.wordpress.android.util.ImageUtils;
 import org.wordpress.android.util.MediaUtils;
+import org.wordpress.android.util.SqlUtils;
 import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.SystemServiceFactory;
+import org.wordpress.android.util.UploadHostLimiter;
 import org.wordpress.android.util.WPMeShortlinks;
 import org.wordpress.android.util.helpers.MediaFile;
 import org.xmlpull.v1.XmlPullParserException;
@@ -53,30 +59,44 @@ import org.xmlrpc.android.XMLRPCException;
 import org.xmlrpc.android.XMLRPCFactory;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import de.greenrobot.event.EventBus;
 
 public class PostUploadService extends Service {
+    private static final Pattern MEDIA_TAG_PATTERN =
+            Pattern.compile("<img[^>]+android-uri\\s*=\\s*['\"]([^'\"]+)['\"][^>]*>");
+    private static final Pattern MEDIA_URI_PATTERN = Pattern.compile("android-uri=\"([^\"]+)\"");
+
     private static Context mContext;
     private static final ArrayList<Post> mPostsList = new ArrayList<Post>();
     private static Post mCurrentUploadingPost = null;
+    private static boolean mPendingUploadsRestored;
     private static boolean mUseLegacyMode;
+    private static ImageResizeQueue mResizeQueue;
     private UploadPostTask mCurrentTask = null;
 
     public static void addPostToUpload(Post currentPost) {
         synchronized (mPostsList) {
             mPostsList.add(currentPost);
+            addPendingUpload(currentPost.getLocalTablePostId());
         }
     }
 
@@ -95,16 +115,91 @@ public class PostUploadService extends Service {
         // then check the list of posts waiting to be uploaded
         if (mPostsList.size() > 0) {
             synchronized (mPostsList) {
-                for (Post post : mPostsList) {
-                    if (post.getLocalTablePostId() == localPostId) {
-                        return true;
-                    }
-                }
+                return isPostQueued(localPostId);
             }
         }
         return false;
     }
 
+    /*
+     * the ids of the posts waiting to be uploaded, including the one being uploaded, are stored so they can be
+     * uploaded again if the app is killed before they're done. The stored list is updated rather than replaced
+     * since it may still hold posts which haven't been restored yet - must be called while holding mPostsList
+     */
+    static void addPendingUpload(long localPostId) {
+        List<String> localPostIds = getPendingUploads();
+        String id = Long.toString(localPostId);
+        if (!localPostIds.contains(id)) {
+            localPostIds.add(id);
+            AppPrefs.setPendingPostUploads(TextUtils.join(",", localPostIds));
+        }
+    }
+
+    static void removePendingUpload(long localPostId) {
+        List<String> localPostIds = getPendingUploads();
+        if (localPostIds.remove(Long.toString(localPostId))) {
+            AppPrefs.setPendingPostUploads(TextUtils.join(",", localPostIds));
+        }
+    }
+
+    private static List<String> getPendingUploads() {
+        return new ArrayList<>(Arrays.asList(TextUtils.split(AppPrefs.getPendingPostUploads(), ",")));
+    }
+
+    /*
+     * queues the posts which were still waiting to be uploaded when the app was last killed, skipping those
+     * queued again since then - must be called while holding mPostsList
+     */
+    private static void restorePendingUploads() {
+        for (String localPostId : getPendingUploads()) {
+            long id = StringUtils.stringToLong(localPostId);
+            if (isPostQueued(id)) {
+                continue;
+            }
+            Post post = WordPress.wpDB.getPostForLocalTablePostId(id);
+            if (post != null) {
+                AppLog.i(T.POSTS, "resuming upload of post " + localPostId);
+                mPostsList.add(post);
+            } else {
+                removePendingUpload(id);
+            }
+        }
+    }
+
+    private static boolean isPostQueued(long localPostId) {
+        for (Post post : mPostsList) {
+            if (post.getLocalTablePostId() == localPostId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static synchronized ImageResizeQueue getResizeQueue() {
+        if (mResizeQueue == null) {
+            mResizeQueue = ImageResizeQueue.newDefaultQueue();
+        }
+        return mResizeQueue;
+    }
+
+    /*
+     * replaces each media tag in the passed content with its uploaded HTML in a single pass, tags without
+     * a replacement are left as they are
+     */
+    static String replaceMediaTags(String content, Map<String, String> uploadedMedia) {
+        if (TextUtils.isEmpty(content) || uploadedMedia.isEmpty()) {
+            return content;
+        }
+        Matcher matcher = MEDIA_TAG_PATTERN.matcher(content);
+        StringBuffer result = new StringBuffer(content.length());
+        while (matcher.find()) {
+            String html = uploadedMedia.get(matcher.group());
+            matcher.appendReplacement(result, Matcher.quoteReplacement(html != null ? html : matcher.group()));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
     @Override
     public IBinder onBind(Intent intent) {
         return null;
@@ -129,6 +224,11 @@ public class PostUploadService extends Service {
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         synchronized (mPostsList) {
+            if (!mPendingUploadsRestored && mContext != null) {
+                // the app may have been killed while posts were being uploaded
+                restorePendingUploads();
+                mPendingUploadsRestored = true;
+            }
             if (mPostsList.size() == 0 || mContext == null) {
                 stopSelf();
                 return START_NOT_STICKY;
@@ -157,6 +257,10 @@ public class PostUploadService extends Service {
 
     private void postUploaded() {
         synchronized (mPostsList) {
+            // the same post may have been queued again while it was uploading
+            if (mCurrentUploadingPost != null && !isPostQueued(mCurrentUploadingPost.getLocalTablePostId())) {
+                removePendingUpload(mCurrentUploadingPost.getLocalTablePostId());
+            }
             mCurrentTask = null;
             mCurrentUploadingPost = null;
         }
@@ -173,6 +277,12 @@ public class PostUploadService extends Service {
         private int featuredImageID = -1;
         private XMLRPCClientInterface mClient;
 
+        // media which has to be uploaded with the post, and how many of them are done (including those
+        // uploaded before the post's upload was interrupted)
+        private final List<MediaUploadItem> mMediaItems = new ArrayList<>();
+        private final AtomicInteger mCompletedMediaCount = new AtomicInteger();
+        private int mTotalMediaCount;
+
         // True when the post goes from draft or local draft to published status
         boolean mIsFirstPublishing = false;
 
@@ -232,11 +342,12 @@ public class PostUploadService extends Service {
                 mPost.setPostStatus(PostStatus.toString(PostStatus.PUBLISHED));
             }
 
-            String descriptionContent = processPostMedia(mPost.getDescription());
+            Map<String, String> uploadedMedia = uploadPostMedia(mPost.getDescription(), mPost.getMoreText());
+            String descriptionContent = replaceMediaTags(mPost.getDescription(), uploadedMedia);
 
             String moreContent = "";
             if (!TextUtils.isEmpty(mPost.getMoreText())) {
-                moreContent = processPostMedia(mPost.getMoreText());
+                moreContent = replaceMediaTags(mPost.getMoreText(), uploadedMedia);
             }
 
             mPostUploadNotifier.updateNotificationMessage(uploadingPostTitle, uploadingPostMessage);
@@ -381,6 +492,10 @@ public class PostUploadService extends Service {
             try {
                 EventBus.getDefault().post(new PostUploadStarted(mPost.getLocalTableBlogId()));
 
+                // Check if it's the first publishing before changing post status.
+                mIsFirstPublishing = mPost.hasChangedFromDraftToPublished()
+                        || (mPost.isLocalDraft() && mPost.getStatusEnum() == PostStatus.PUBLISHED);
+
                 if (mPost.isLocalDraft()) {
                     Object object = mClient.call("metaWeblog.newPost", params);
                     if (object instanceof String) {
@@ -390,10 +505,8 @@ public class PostUploadService extends Service {
                     mClient.call("metaWeblog.editPost", params);
                 }
 
-                // Check if it's the first publishing before changing post status.
-                mIsFirstPublishing = mPost.hasChangedFromDraftToPublished()
-                        || (mPost.isLocalDraft() && mPost.getStatusEnum() == PostStatus.PUBLISHED);
-
+                // stored before anything else so a resumed upload edits the new post rather than creating
+                // another one if the app is killed before the upload is done
                 mPost.setLocalDraft(false);
                 mPost.setLocalChange(false);
                 WordPress.wpDB.updatePost(mPost);
@@ -403,8 +516,11 @@ public class PostUploadService extends Service {
                     trackUploadAnalytics();
                 }
 
-                // request the new/updated post from the server to ensure local copy matches server
-                ApiHelper.updateSinglePost(mBlog.getLocalTableBlogId(), mPost.getRemotePostId(), mPost.isPage());
+                // request the new/updated post from the server to ensure local copy matches server, unless changes
+                // made to a synced copy of the post were kept on it and are still to be uploaded
+                if (!mPost.isLocalChange()) {
+                    ApiHelper.updateSinglePost(mBlog.getLocalTableBlogId(), mPost.getRemotePostId(), mPost.isPage());
+                }
 
                 return true;
             } catch (final XMLRPCException e) {
@@ -448,118 +564,218 @@ public class PostUploadService extends Service {
         }
 
         /**
-         * Finds media in post content, uploads them, and returns the HTML to insert in the post
+         * Finds the media in the passed texts, uploads it in parallel and returns the HTML to replace each media
+         * tag with. Images are resized ahead of their upload, and media which was uploaded before the post's upload
+         * was interrupted isn't uploaded again. Sets mIsMediaError if any item couldn't be uploaded.
          */
-        private String processPostMedia(String postContent) {
-            String imageTagsPattern = "<img[^>]+android-uri\\s*=\\s*['\"]([^'\"]+)['\"][^>]*>";
-            Pattern pattern = Pattern.compile(imageTagsPattern);
-            Matcher matcher = pattern.matcher(postContent);
-
-            int totalMediaItems = 0;
-            List<String> imageTags = new ArrayList<String>();
-            while (matcher.find()) {
-                imageTags.add(matcher.group());
-                totalMediaItems++;
-            }
-
-            mPostUploadNotifier.setTotalMediaItems(totalMediaItems);
-
-            int mediaItemCount = 0;
-            for (String tag : imageTags) {
-                Pattern p = Pattern.compile("android-uri=\"([^\"]+)\"");
-                Matcher m = p.matcher(tag);
-                if (m.find()) {
-                    String imageUri = m.group(1);
-                    if (!imageUri.equals("")) {
-                        MediaFile mediaFile = WordPress.wpDB.getMediaFile(imageUri, mPost);
-                        if (mediaFile != null) {
-                            // Get image thumbnail for notification icon
-                            Bitmap imageIcon = ImageUtils.getWPImageSpanThumbnailFromFilePath(
-                                    mContext,
-                                    imageUri,
-                                    DisplayUtils.dpToPx(mContext, 128)
-                            );
-
-                            // Crop the thumbnail to be squared in the center
-                            if (imageIcon != null) {
-                                int squaredSize = DisplayUtils.dpToPx(mContext, 64);
-                                imageIcon = ThumbnailUtils.extractThumbnail(imageIcon, squaredSize, squaredSize);
-                                mLatestIcon = imageIcon;
-                            }
-
-                            mediaItemCount++;
-                            mPostUploadNotifier.setCurrentMediaItem(mediaItemCount);
-                            mPostUploadNotifier.updateNotificationIcon(imageIcon);
-
-                            String mediaUploadOutput;
-                            if (mediaFile.isVideo()) {
-                                mHasVideo = true;
-                                mediaUploadOutput = uploadVideo(mediaFile);
-                            } else {
-                                mHasImage = true;
-                                mediaUploadOutput = uploadImage(mediaFile);
-                            }
-
-                            if (mediaUploadOutput != null) {
-                                postContent = postContent.replace(tag, mediaUploadOutput);
-                            } else {
-                                postContent = postContent.replace(tag, "");
-                                mIsMediaError = true;
-                            }
+        private Map<String, String> uploadPostMedia(String... contents) {
+            Map<String, String> uploadedMedia = new HashMap<>();
+            Set<String> tags = new HashSet<>();
+            String iconUri = null;
+
+            for (String content : contents) {
+                if (TextUtils.isEmpty(content)) {
+                    continue;
+                }
+                Matcher matcher = MEDIA_TAG_PATTERN.matcher(content);
+                while (matcher.find()) {
+                    String tag = matcher.group();
+                    if (!tags.add(tag)) {
+                        continue;
+                    }
+                    Matcher m = MEDIA_URI_PATTERN.matcher(tag);
+                    if (!m.find() || m.group(1).equals("")) {
+                        continue;
+                    }
+                    String mediaUri = m.group(1);
+                    MediaFile mediaFile = WordPress.wpDB.getMediaFile(mediaUri, mPost);
+                    if (mediaFile == null) {
+                        continue;
+                    }
+                    if (mediaFile.isVideo()) {
+                        mHasVideo = true;
+                    } else {
+                        mHasImage = true;
+                        if (iconUri == null) {
+                            iconUri = mediaUri;
                         }
                     }
+
+                    // the legacy editor sets the featured image from the upload, so featured images are uploaded
+                    // again to get their id
+                    String uploadedHtml = WordPress.wpDB.getUploadedMediaHtml(mPost, mediaUri);
+                    if (!TextUtils.isEmpty(uploadedHtml) && !(mUseLegacyMode && mediaFile.isFeatured())) {
+                        uploadedMedia.put(tag, uploadedHtml);
+                    } else {
+                        mMediaItems.add(new MediaUploadItem(tag, mediaUri, mediaFile));
+                    }
+                }
+            }
+
+            mTotalMediaCount = uploadedMedia.size() + mMediaItems.size();
+            mCompletedMediaCount.set(uploadedMedia.size());
+            if (mMediaItems.isEmpty()) {
+                return uploadedMedia;
+            }
+            if (!uploadedMedia.isEmpty()) {
+                AppLog.i(T.POSTS, "resuming post upload, " + uploadedMedia.size() + " of " + mTotalMediaCount
+                        + " media items already uploaded");
+            }
+
+            // a single thumbnail is shown in the notification while uploading and once the post is published
+            if (iconUri != null) {
+                Bitmap imageIcon = ImageUtils.getWPImageSpanThumbnailFromFilePath(mContext, iconUri,
+                        DisplayUtils.dpToPx(mContext, 128));
+                if (imageIcon != null) {
+                    // Crop the thumbnail to be squared in the center
+                    int squaredSize = DisplayUtils.dpToPx(mContext, 64);
+                    mLatestIcon = ThumbnailUtils.extractThumbnail(imageIcon, squaredSize, squaredSize);
+                    mPostUploadNotifier.updateNotificationIcon(mLatestIcon);
+                }
+            }
+            mPostUploadNotifier.setTotalMediaItems(mTotalMediaCount);
+            mPostUploadNotifier.updateMediaProgress(mCompletedMediaCount.get(), getMediaProgress());
+
+            // start resizing images before any upload starts, so they're ready by the time their upload does
+            for (MediaUploadItem item : mMediaItems) {
+                if (!item.mediaFile.isVideo()) {
+                    prepareImage(item);
                 }
             }
 
-            return postContent;
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    Math.min(UploadHostLimiter.MAX_UPLOADS_PER_HOST, mMediaItems.size()));
+            List<Future<String>> results = new ArrayList<>();
+            for (final MediaUploadItem item : mMediaItems) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws InterruptedException {
+                        return uploadMediaItem(item);
+                    }
+                }));
+            }
+
+            try {
+                for (int i = 0; i < mMediaItems.size(); i++) {
+                    MediaUploadItem item = mMediaItems.get(i);
+                    String html = results.get(i).get();
+                    if (html != null) {
+                        uploadedMedia.put(item.tag, html);
+                        if (item.featuredImageId != -1) {
+                            featuredImageID = item.featuredImageId;
+                        }
+                    } else {
+                        mIsMediaError = true;
+                        if (TextUtils.isEmpty(mErrorMessage) && item.errorMessage != null) {
+                            mErrorMessage = item.errorMessage;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                // the task was cancelled
+                AppLog.w(T.POSTS, "media upload interrupted");
+                mIsMediaError = true;
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                AppLog.e(T.POSTS, e);
+                mIsMediaError = true;
+                mErrorMessage = mContext.getString(R.string.error_media_upload);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            mPostUploadNotifier.logThroughput();
+            return uploadedMedia;
         }
 
-        private String uploadImage(MediaFile mediaFile) {
-            AppLog.d(T.POSTS, "uploadImage: " + mediaFile.getFilePath());
+        /*
+         * overall progress of the post's media, as a percentage
+         */
+        private float getMediaProgress() {
+            if (mTotalMediaCount == 0) {
+                return 0;
+            }
+            float progress = mTotalMediaCount - mMediaItems.size();
+            for (MediaUploadItem item : mMediaItems) {
+                progress += item.progress;
+            }
+            return (progress * 100f) / mTotalMediaCount;
+        }
+
+        /*
+         * uploads a single media item, called from the media upload threads - each item has its own XML-RPC client
+         * so items can upload in parallel. Returns the HTML for the uploaded item, or null if it failed.
+         */
+        private String uploadMediaItem(MediaUploadItem item) throws InterruptedException {
+            UploadHostLimiter.acquire(mBlog.getUri());
+            String html;
+            try {
+                item.client = XMLRPCFactory.instantiate(mBlog.getUri(), mBlog.getHttpuser(), mBlog.getHttppassword());
+                if (item.mediaFile.isVideo()) {
+                    html = uploadVideo(item);
+                } else {
+                    html = uploadImage(item);
+                }
+            } finally {
+                UploadHostLimiter.release(mBlog.getUri());
+            }
+
+            if (html != null) {
+                // remember the upload so it isn't repeated if the post's upload is interrupted
+                WordPress.wpDB.setUploadedMediaHtml(mPost, item.mediaUri, html);
+                item.progress = 1f;
+                mPostUploadNotifier.updateMediaProgress(mCompletedMediaCount.incrementAndGet(), getMediaProgress());
+            }
+            return html;
+        }
+
+        /*
+         * resolves the image's file and type and, when a resized version of the image has to be uploaded,
+         * queues it to be resized in the background
+         */
+        private void prepareImage(MediaUploadItem item) {
+            MediaFile mediaFile = item.mediaFile;
+            AppLog.d(T.POSTS, "prepareImage: " + mediaFile.getFilePath());
 
             if (mediaFile.getFilePath() == null) {
-                return null;
+                return;
             }
 
-            Uri imageUri = Uri.parse(mediaFile.getFilePath());
-            File imageFile = null;
+            item.imageUri = Uri.parse(mediaFile.getFilePath());
             String mimeType = "", path = "";
 
-            if (imageUri.toString().contains("content:")) {
+            if (item.imageUri.toString().contains("content:")) {
                 String[] projection = new String[]{Images.Media._ID, Images.Media.DATA, Images.Media.MIME_TYPE};
 
-                Cursor cur = mContext.getContentResolver().query(imageUri, projection, null, null, null);
+                Cursor cur = mContext.getContentResolver().query(item.imageUri, projection, null, null, null);
                 if (cur != null && cur.moveToFirst()) {
                     int dataColumn = cur.getColumnIndex(Images.Media.DATA);
                     int mimeTypeColumn = cur.getColumnIndex(Images.Media.MIME_TYPE);
 
                     String thumbData = cur.getString(dataColumn);
                     mimeType = cur.getString(mimeTypeColumn);
-                    imageFile = new File(thumbData);
+                    item.imageFile = new File(thumbData);
                     path = thumbData;
-                    mediaFile.setFilePath(imageFile.getPath());
+                    mediaFile.setFilePath(item.imageFile.getPath());
                 }
+                SqlUtils.closeCursor(cur);
             } else { // file is not in media library
-                path = imageUri.toString().replace("file://", "");
-                imageFile = new File(path);
+                path = item.imageUri.toString().replace("file://", "");
+                item.imageFile = new File(path);
                 mediaFile.setFilePath(path);
             }
 
             // check if the file exists
-            if (imageFile == null) {
-                mErrorMessage = mContext.getString(R.string.file_not_found);
-                return null;
+            if (item.imageFile == null) {
+                return;
             }
 
             if (TextUtils.isEmpty(mimeType)) {
-                mimeType = MediaUtils.getMediaFileMimeType(imageFile);
+                mimeType = MediaUtils.getMediaFileMimeType(item.imageFile);
             }
-            String fileName = MediaUtils.getMediaFileName(imageFile, mimeType);
-            String fileExtension = MimeTypeMap.getFileExtensionFromUrl(fileName).toLowerCase();
-
-            int orientation = ImageUtils.getImageOrientation(mContext, path);
-
-            String resizedPictureURL = null;
+            item.mimeType = mimeType;
+            item.fileName = MediaUtils.getMediaFileName(item.imageFile, mimeType);
+            String fileExtension = MimeTypeMap.getFileExtensionFromUrl(item.fileName).toLowerCase();
 
             // We need to upload a resized version of the picture when the blog settings != original size, or when
             // the user has selected a smaller size for the current picture in the picture settings screen
@@ -572,61 +788,72 @@ public class PostUploadService extends Service {
                 BitmapFactory.Options options = new BitmapFactory.Options();
                 options.inJustDecodeBounds = true;
                 BitmapFactory.decodeFile(path, options);
-                int imageHeight = options.outHeight;
                 int imageWidth = options.outWidth;
-                int[] dimensions = {imageWidth, imageHeight};
-                if (dimensions[0] != 0 && dimensions[0] != pictureSettingWidth) {
+                if (imageWidth != 0 && imageWidth != pictureSettingWidth) {
                     shouldUploadResizedVersion = true;
                 }
             }
 
+            if (shouldUploadResizedVersion) {
+                // Create resized image, written straight to a temp file
+                int orientation = ImageUtils.getImageOrientation(mContext, path);
+                try {
+                    item.resizedImageFile = File.createTempFile("wp-image-", fileExtension);
+                    item.resizeResult = getResizeQueue().resize(mContext, item.imageUri, mediaFile.getWidth(),
+                            fileExtension, orientation, item.resizedImageFile);
+                } catch (IOException e) {
+                    AppLog.w(T.POSTS, "failed to create image temp file");
+                    item.errorMessage = mContext.getString(R.string.error_media_upload);
+                }
+            }
+        }
+
+        private String uploadImage(MediaUploadItem item) throws InterruptedException {
+            MediaFile mediaFile = item.mediaFile;
+            AppLog.d(T.POSTS, "uploadImage: " + mediaFile.getFilePath());
+
+            if (mediaFile.getFilePath() == null || item.errorMessage != null) {
+                return null;
+            }
+
+            // check if the file exists
+            if (item.imageFile == null) {
+                item.errorMessage = mContext.getString(R.string.file_not_found);
+                return null;
+            }
+
+            String resizedPictureURL = null;
+            boolean shouldUploadResizedVersion = item.resizeResult != null;
             boolean shouldAddImageWidthCSS = false;
 
             if (shouldUploadResizedVersion) {
-                MediaFile resizedMediaFile = new MediaFile(mediaFile);
-                // Create resized image
-                byte[] bytes = ImageUtils.createThumbnailFromUri(mContext, imageUri, resizedMediaFile.getWidth(),
-                        fileExtension, orientation);
+                boolean isResized;
+                try {
+                    isResized = item.resizeResult.get();
+                } catch (ExecutionException e) {
+                    AppLog.e(T.POSTS, e);
+                    isResized = false;
+                }
 
-                if (bytes == null) {
+                if (!isResized) {
                     // We weren't able to resize the image, so we will upload the full size image with css to resize it
+                    item.resizedImageFile.delete();
                     shouldUploadResizedVersion = false;
                     shouldAddImageWidthCSS = true;
                 } else {
-                    // Save temp image
-                    String tempFilePath;
-                    File resizedImageFile;
-                    try {
-                        resizedImageFile = File.createTempFile("wp-image-", fileExtension);
-                        FileOutputStream out = new FileOutputStream(resizedImageFile);
-                        out.write(bytes);
-                        out.close();
-                        tempFilePath = resizedImageFile.getPath();
-                    } catch (IOException e) {
-                        AppLog.w(T.POSTS, "failed to create image temp file");
-                        mErrorMessage = mContext.getString(R.string.error_media_upload);
-                        return null;
-                    }
-
                     // upload resized picture
-                    if (!TextUtils.isEmpty(tempFilePath)) {
-                        resizedMediaFile.setFilePath(tempFilePath);
-                        Map<String, Object> parameters = new HashMap<String, Object>();
-
-                        parameters.put("name", fileName);
-                        parameters.put("type", mimeType);
-                        parameters.put("bits", resizedMediaFile);
-                        parameters.put("overwrite", true);
-                        resizedPictureURL = uploadImageFile(parameters, resizedMediaFile, mBlog);
-                        if (resizedPictureURL == null) {
-                            AppLog.w(T.POSTS, "failed to upload resized picture");
-                            return null;
-                        } else if (resizedImageFile.exists()) {
-                            resizedImageFile.delete();
-                        }
-                    } else {
-                        AppLog.w(T.POSTS, "failed to create resized picture");
-                        mErrorMessage = mContext.getString(R.string.out_of_memory);
+                    MediaFile resizedMediaFile = new MediaFile(mediaFile);
+                    resizedMediaFile.setFilePath(item.resizedImageFile.getPath());
+                    Map<String, Object> parameters = new HashMap<String, Object>();
+
+                    parameters.put("name", item.fileName);
+                    parameters.put("type", item.mimeType);
+                    parameters.put("bits", resizedMediaFile);
+                    parameters.put("overwrite", true);
+                    resizedPictureURL = uploadImageFile(item, parameters, resizedMediaFile, mBlog);
+                    item.resizedImageFile.delete();
+                    if (resizedPictureURL == null) {
+                        AppLog.w(T.POSTS, "failed to upload resized picture");
                         return null;
                     }
                 }
@@ -637,14 +864,14 @@ public class PostUploadService extends Service {
             // or if 'link to full size' is checked.
             if (!shouldUploadResizedVersion || mBlog.isFullSizeImage()) {
                 Map<String, Object> parameters = new HashMap<String, Object>();
-                parameters.put("name", fileName);
-                parameters.put("type", mimeType);
+                parameters.put("name", item.fileName);
+                parameters.put("type", item.mimeType);
                 parameters.put("bits", mediaFile);
                 parameters.put("overwrite", true);
 
-                fullSizeUrl = uploadImageFile(parameters, mediaFile, mBlog);
+                fullSizeUrl = uploadImageFile(item, parameters, mediaFile, mBlog);
                 if (fullSizeUrl == null) {
-                    mErrorMessage = mContext.getString(R.string.error_media_upload);
+                    item.errorMessage = mContext.getString(R.string.error_media_upload);
                     return null;
                 }
             }
@@ -652,18 +879,10 @@ public class PostUploadService extends Service {
             return mediaFile.getImageHtmlForUrls(fullSizeUrl, resizedPictureURL, shouldAddImageWidthCSS);
         }
 
-        private String uploadVideo(MediaFile mediaFile) {
-            // create temp file for media upload
-            String tempFileName = "wp-" + System.currentTimeMillis();
-            try {
-                mContext.openFileOutput(tempFileName, Context.MODE_PRIVATE);
-            } catch (FileNotFoundException e) {
-                mErrorMessage = getResources().getString(R.string.file_error_create);
-                return null;
-            }
-
+        private String uploadVideo(MediaUploadItem item) {
+            MediaFile mediaFile = item.mediaFile;
             if (mediaFile.getFilePath() == null) {
-                mErrorMessage = mContext.getString(R.string.error_media_upload);
+                item.errorMessage = mContext.getString(R.string.error_media_upload);
                 return null;
             }
 
@@ -706,6 +925,7 @@ public class PostUploadService extends Service {
                         }
                     }
                 }
+                SqlUtils.closeCursor(cur);
             } else { // file is not in media library
                 String filePath = videoUri.toString().replace("file://", "");
                 mediaFile.setFilePath(filePath);
@@ -713,7 +933,7 @@ public class PostUploadService extends Service {
             }
 
             if (videoFile == null) {
-                mErrorMessage = mContext.getResources().getString(R.string.error_media_upload);
+                item.errorMessage = mContext.getResources().getString(R.string.error_media_upload);
                 return null;
             }
 
@@ -731,16 +951,7 @@ public class PostUploadService extends Service {
 
             Object[] params = {1, mBlog.getUsername(), mBlog.getPassword(), m};
 
-            File tempFile;
-            try {
-                String fileExtension = MimeTypeMap.getFileExtensionFromUrl(videoName);
-                tempFile = createTempUploadFile(fileExtension);
-            } catch (IOException e) {
-                mErrorMessage = getResources().getString(R.string.file_error_create);
-                return null;
-            }
-
-            Object result = uploadFileHelper(params, tempFile);
+            Object result = uploadFileHelper(item, params, mediaFile.getFilePath());
             Map<?, ?> resultMap = (HashMap<?, ?>) result;
             if (resultMap != null && resultMap.containsKey("url")) {
                 String resultURL = resultMap.get("url").toString();
@@ -754,7 +965,9 @@ public class PostUploadService extends Service {
 
                 return resultURL;
             } else {
-                mErrorMessage = mContext.getResources().getString(R.string.error_media_upload);
+                if (item.errorMessage == null) {
+                    item.errorMessage = mContext.getResources().getString(R.string.error_media_upload);
+                }
                 return null;
             }
         }
@@ -768,22 +981,11 @@ public class PostUploadService extends Service {
             AppLog.e(T.EDITOR, mErrorMessage, e);
         }
 
-        private String uploadImageFile(Map<String, Object> pictureParams, MediaFile mf, Blog blog) {
-            // create temporary upload file
-            File tempFile;
-            try {
-                String fileExtension = MimeTypeMap.getFileExtensionFromUrl(mf.getFileName());
-                tempFile = createTempUploadFile(fileExtension);
-            } catch (IOException e) {
-                mIsMediaError = true;
-                mErrorMessage = mContext.getString(R.string.file_not_found);
-                return null;
-            }
-
+        private String uploadImageFile(MediaUploadItem item, Map<String, Object> pictureParams, MediaFile mf,
+                                       Blog blog) {
             Object[] params = {1, blog.getUsername(), blog.getPassword(), pictureParams};
-            Object result = uploadFileHelper(params, tempFile);
+            Object result = uploadFileHelper(item, params, mf.getFilePath());
             if (result == null) {
-                mIsMediaError = true;
                 return null;
             }
 
@@ -793,7 +995,7 @@ public class PostUploadService extends Service {
             if (mf.isFeatured()) {
                 try {
                     if (contentHash.get("id") != null) {
-                        featuredImageID = Integer.parseInt(contentHash.get("id").toString());
+                        item.featuredImageId = Integer.parseInt(contentHash.get("id").toString());
                         if (!mf.isFeaturedInPost())
                             return "";
                     }
@@ -805,61 +1007,97 @@ public class PostUploadService extends Service {
             return pictureURL;
         }
 
-        private Object uploadFileHelper(Object[] params, final File tempFile) {
+        private Object uploadFileHelper(final MediaUploadItem item, Object[] params, String filePath) {
             // Create listener for tracking upload progress in the notification
-            if (mClient instanceof XMLRPCClient) {
-                XMLRPCClient xmlrpcClient = (XMLRPCClient) mClient;
+            if (item.client instanceof XMLRPCClient) {
+                final long estimatedUploadSize =
+                        XMLRPCClient.getEstimatedUploadSize(MediaUtils.getFileSize(mContext, filePath));
+                XMLRPCClient xmlrpcClient = (XMLRPCClient) item.client;
                 xmlrpcClient.setOnBytesUploadedListener(new XMLRPCClient.OnBytesUploadedListener() {
+                    private long mLastUploadedBytes;
+
                     @Override
                     public void onBytesUploaded(long uploadedBytes) {
-                        if (tempFile.length() == 0) {
+                        if (estimatedUploadSize == 0) {
                             return;
                         }
-                        float percentage = (uploadedBytes * 100) / tempFile.length();
-                        mPostUploadNotifier.updateNotificationProgress(percentage);
+                        mPostUploadNotifier.addUploadedBytes(uploadedBytes - mLastUploadedBytes);
+                        mLastUploadedBytes = uploadedBytes;
+                        // an item's progress stops short of done until its upload returns
+                        item.progress = Math.min(0.99f, (float) uploadedBytes / estimatedUploadSize);
+                        mPostUploadNotifier.updateMediaProgress(mCompletedMediaCount.get(), getMediaProgress());
                     }
                 });
             }
 
             try {
-                return mClient.call(Method.UPLOAD_FILE, params, tempFile);
+                return item.client.call(Method.UPLOAD_FILE, params);
             } catch (XMLRPCException e) {
                 // well formed XML-RPC response from the server, but it's an error. Ok to print the error message
                 AppLog.e(T.API, e);
-                mErrorMessage = mContext.getResources().getString(R.string.error_media_upload) + ": " + e.getMessage();
+                item.errorMessage = mContext.getResources().getString(R.string.error_media_upload) + ": " + e.getMessage();
                 return null;
             } catch (IOException e) {
                 // I/O-related error. Show a generic connection error message
                 AppLog.e(T.API, e);
-                mErrorMessage = mContext.getResources().getString(R.string.error_media_upload_connection);
+                item.errorMessage = mContext.getResources().getString(R.string.error_media_upload_connection);
                 return null;
             } catch (XmlPullParserException e) {
                 // XML-RPC response isn't well formed or valid. DO NOT print the real error message
                 AppLog.e(T.API, e);
-                mErrorMessage = mContext.getResources().getString(R.string.error_media_upload);
+                item.errorMessage = mContext.getResources().getString(R.string.error_media_upload);
                 return null;
-            } finally {
-                // remove the temporary upload file now that we're done with it
-                if (tempFile != null && tempFile.exists()) {
-                    tempFile.delete();
-                }
             }
         }
-    }
 
-    private File createTempUploadFile(String fileExtension) throws IOException {
-        return File.createTempFile("wp-", fileExtension, mContext.getCacheDir());
+        /*
+         * a media item found in the post's content, along with the state of its upload - each item is
+         * uploaded on its own thread and XML-RPC client
+         */
+        private class MediaUploadItem {
+            final String tag;
+            final String mediaUri;
+            final MediaFile mediaFile;
+
+            // set by prepareImage()
+            Uri imageUri;
+            File imageFile;
+            String mimeType;
+            String fileName;
+            File resizedImageFile;
+            Future<Boolean> resizeResult;
+
+            XMLRPCClientInterface client;
+            volatile float progress;
+            int featuredImageId = -1;
+            String errorMessage;
+
+            MediaUploadItem(String tag, String mediaUri, MediaFile mediaFile) {
+                this.tag = tag;
+                this.mediaUri = mediaUri;
+                this.mediaFile = mediaFile;
+            }
+        }
     }
 
+    /*
+     * media is uploaded in parallel, so the methods which update the progress notification are synchronized
+     */
     private class PostUploadNotifier {
+        // parallel uploads report progress often, so the progress notification is updated at most this often
+        private static final long PROGRESS_UPDATE_INTERVAL_MS = 500;
+
         private final NotificationManager mNotificationManager;
         private final NotificationCompat.Builder mNotificationBuilder;
 
         private final int mNotificationId;
         private int mNotificationErrorId = 0;
         private int mTotalMediaItems;
-        private int mCurrentMediaItem;
-        private float mItemProgressSize;
+        private long mLastProgressUpdateTime;
+
+        // throughput of all the post's media uploads
+        private long mUploadedBytes;
+        private long mUploadStartTime;
 
         public PostUploadNotifier(Post post) {
             // add the uploader to the notification bar
@@ -873,7 +1111,7 @@ public class PostUploadService extends Service {
         }
 
 
-        public void updateNotificationMessage(String title, String message) {
+        public synchronized void updateNotificationMessage(String title, String message) {
             if (title != null) {
                 mNotificationBuilder.setContentTitle(title);
             }
@@ -885,7 +1123,7 @@ public class PostUploadService extends Service {
             mNotificationManager.notify(mNotificationId, mNotificationBuilder.build());
         }
 
-        public void updateNotificationIcon(Bitmap icon) {
+        public synchronized void updateNotificationIcon(Bitmap icon) {
             if (icon != null) {
                 mNotificationBuilder.setLargeIcon(icon);
             }
@@ -990,20 +1228,31 @@ public class PostUploadService extends Service {
             mNotificationManager.notify(mNotificationErrorId, notificationBuilder.build());
         }
 
-        public void updateNotificationProgress(float progress) {
+        /*
+         * completedItems is the number of media items which are done, and progress is the percentage of all the
+         * post's media which has been uploaded
+         */
+        public synchronized void updateMediaProgress(int completedItems, float progress) {
             if (mTotalMediaItems == 0) {
                 return;
             }
 
-            // Simple way to show progress of entire post upload
-            // Would be better if we could get total bytes for all media items.
-            double currentChunkProgress = (mItemProgressSize * progress) / 100;
-
-            if (mCurrentMediaItem > 1) {
-                currentChunkProgress += mItemProgressSize * (mCurrentMediaItem - 1);
+            long now = SystemClock.elapsedRealtime();
+            if (completedItems < mTotalMediaItems && now - mLastProgressUpdateTime < PROGRESS_UPDATE_INTERVAL_MS) {
+                return;
             }
+            mLastProgressUpdateTime = now;
 
-            mNotificationBuilder.setProgress(100, (int)Math.ceil(currentChunkProgress), false);
+            int currentItem = Math.min(completedItems + 1, mTotalMediaItems);
+            long bytesPerSecond = getBytesPerSecond();
+            if (bytesPerSecond > 0) {
+                mNotificationBuilder.setContentText(String.format(getString(R.string.uploading_total_speed),
+                        currentItem, mTotalMediaItems, Formatter.formatShortFileSize(mContext, bytesPerSecond)));
+            } else {
+                mNotificationBuilder.setContentText(String.format(getString(R.string.uploading_total), currentItem,
+                        mTotalMediaItems));
+            }
+            mNotificationBuilder.setProgress(100, (int) Math.ceil(progress), false);
 
             try {
                 mNotificationManager.notify(mNotificationId, mNotificationBuilder.build());
@@ -1014,20 +1263,36 @@ public class PostUploadService extends Service {
             }
         }
 
-        public void setTotalMediaItems(int totalMediaItems) {
+        public synchronized void setTotalMediaItems(int totalMediaItems) {
             if (totalMediaItems <= 0) {
                 totalMediaItems = 1;
             }
 
             mTotalMediaItems = totalMediaItems;
-            mItemProgressSize = 100.0f / mTotalMediaItems;
         }
 
-        public void setCurrentMediaItem(int currentItem) {
-            mCurrentMediaItem = currentItem;
+        public synchronized void addUploadedBytes(long bytes) {
+            if (mUploadStartTime == 0) {
+                mUploadStartTime = SystemClock.elapsedRealtime();
+            }
+            mUploadedBytes += bytes;
+        }
+
+        private long getBytesPerSecond() {
+            long elapsedMs = SystemClock.elapsedRealtime() - mUploadStartTime;
+            if (mUploadStartTime == 0 || elapsedMs <= 0) {
+                return 0;
+            }
+            return (mUploadedBytes * 1000) / elapsedMs;
+        }
 
-            mNotificationBuilder.setContentText(String.format(getString(R.string.uploading_total), mCurrentMediaItem,
-                    mTotalMediaItems));
+        public synchronized void logThroughput() {
+            if (mUploadStartTime == 0) {
+                return;
+            }
+            AppLog.i(T.POSTS, "uploaded " + (mUploadedBytes / 1024) + " KB of media in "
+                    + (SystemClock.elapsedRealtime() - mUploadStartTime) + " ms, "
+                    + (getBytesPerSecond() / 1024) + " KB/s");
         }
     }
 }
@@ -59,6 +59,9 @@ public class AppPrefs {
 
         // index of the last active status type in Comments activity
         COMMENTS_STATUS_TYPE_INDEX,
+
+        // local ids of the posts waiting to be uploaded, so uploads resume if the app is killed
+        PENDING_POST_UPLOADS,
     }
 
     /**
@@ -285,6 +288,14 @@ public class AppPrefs {
         setString(DeletablePrefKey.STATS_WIDGET_KEYS_BLOGS, widgetData);
     }
 
+    public static String getPendingPostUploads() {
+        return getString(DeletablePrefKey.PENDING_POST_UPLOADS);
+    }
+
+    public static void setPendingPostUploads(String localPostIds) {
+        setString(DeletablePrefKey.PENDING_POST_UPLOADS, localPostIds);
+    }
+
     public static String getStatsWidgetsData() {
         return getString(DeletablePrefKey.STATS_WIDGET_DATA);
     }
@@ -13,6 +13,7 @@ import org.wordpress.android.util.AnalyticsUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.MapUtils;
 import org.xmlrpc.android.ApiHelper.Method;
+import org.xmlrpc.android.XMLRPCCallExecutor;
 import org.xmlrpc.android.XMLRPCCallback;
 import org.xmlrpc.android.XMLRPCClientInterface;
 import org.xmlrpc.android.XMLRPCException;
@@ -125,7 +126,8 @@ class SelfHostedSiteSettings extends SiteSettingsInterface {
 
         XMLRPCClientInterface xmlrpcInterface = instantiateInterface();
         if (xmlrpcInterface == null) return;
-        xmlrpcInterface.callAsync(callback, Method.SET_OPTIONS, callParams);
+        xmlrpcInterface.callAsync(callback, Method.SET_OPTIONS, callParams,
+                XMLRPCCallExecutor.Priority.USER_INITIATED);
     }
 
     /**
@@ -139,9 +141,12 @@ class SelfHostedSiteSettings extends SiteSettingsInterface {
             public void run() {
                 Object[] params = {mBlog.getRemoteBlogId(), mBlog.getUsername(), mBlog.getPassword()};
 
-                // Need two interfaces or the first call gets aborted
-                instantiateInterface().callAsync(mOptionsCallback, Method.GET_OPTIONS, params);
-                instantiateInterface().callAsync(mCategoriesCallback, Method.GET_CATEGORIES, params);
+                // Need two interfaces or the first call gets aborted. The cached settings are already shown, so
+                // these refreshes wait behind calls started by the user
+                instantiateInterface().callAsync(mOptionsCallback, Method.GET_OPTIONS, params,
+                        XMLRPCCallExecutor.Priority.BACKGROUND);
+                instantiateInterface().callAsync(mCategoriesCallback, Method.GET_CATEGORIES, params,
+                        XMLRPCCallExecutor.Priority.BACKGROUND);
             }
         });
         thread.run();
@@ -10,9 +10,9 @@ import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderPostDiscoverData;
 import org.wordpress.android.ui.reader.utils.ImageSizeMap;
 import org.wordpress.android.ui.reader.utils.ImageSizeMap.ImageSize;
+import org.wordpress.android.ui.reader.utils.ReaderExecutor;
+import org.wordpress.android.ui.reader.utils.ReaderHtmlRewriter;
 import org.wordpress.android.ui.reader.utils.ReaderHtmlUtils;
-import org.wordpress.android.ui.reader.utils.ReaderIframeScanner;
-import org.wordpress.android.ui.reader.utils.ReaderImageScanner;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.ui.reader.views.ReaderWebView;
 import org.wordpress.android.util.AppLog;
@@ -39,7 +39,6 @@ class ReaderPostRenderer {
     private final int mMinMidSizeWidthDp;
     private final WeakReference<ReaderWebView> mWeakWebView;
 
-    private StringBuilder mRenderBuilder;
     private String mRenderedHtml;
     private ImageSizeMap mAttachmentSizes;
 
@@ -65,17 +64,24 @@ class ReaderPostRenderer {
     }
 
     void beginRender() {
-        final Handler handler = new Handler();
-        mRenderBuilder = new StringBuilder(getPostContent());
+        final String content = getPostContent();
+        final String templateKey = mResourceVars.cacheKey;
+
+        // skip rewriting the content if this post was recently rendered with the same configuration
+        final String cacheKey = ReaderRenderCache.makeRenderedHtmlKey(
+                mPost.blogId, mPost.postId, content, mPost.getAttachmentsJson(), mPost.isPrivate, templateKey);
+        String cachedHtml = ReaderRenderCache.getRenderedHtml(cacheKey);
+        if (cachedHtml != null) {
+            renderHtmlContent(cachedHtml);
+            return;
+        }
 
-        new Thread() {
+        final Handler handler = new Handler();
+        ReaderExecutor.execute(ReaderExecutor.Lane.RENDER, new Runnable() {
             @Override
             public void run() {
-                resizeImages();
-                resizeIframes();
-
-                final String htmlContent = formatPostContentForWebView(mRenderBuilder.toString());
-                mRenderBuilder = null;
+                final String htmlContent = formatPostContentForWebView(resizeImagesAndIframes(content), templateKey);
+                ReaderRenderCache.putRenderedHtml(cacheKey, htmlContent);
                 handler.post(new Runnable() {
                     @Override
                     public void run() {
@@ -83,43 +89,25 @@ class ReaderPostRenderer {
                     }
                 });
             }
-        }.start();
+        });
     }
 
     /*
-     * scan the content for images and make sure they're correctly sized for the device
+     * rewrite the images and iframes in the content so they're correctly sized for the device,
+     * done in a single pass over the content
      */
-    void resizeImages() {
-        ReaderHtmlUtils.HtmlScannerListener imageListener = new ReaderHtmlUtils.HtmlScannerListener() {
+    private String resizeImagesAndIframes(final String content) {
+        ReaderHtmlRewriter.TagRewriter tagRewriter = new ReaderHtmlRewriter.TagRewriter() {
             @Override
-            public void onTagFound(String imageTag, String imageUrl, int start, int end) {
-                replaceImageTag(imageTag, imageUrl);
+            public String rewriteImageTag(String imageTag, String imageUrl) {
+                return makeResizedImageTag(imageTag, imageUrl);
             }
             @Override
-            public void onScanCompleted() {
-                // nop
+            public String rewriteIframeTag(String iframeTag, String src) {
+                return makeResizedIframeTag(iframeTag, src);
             }
         };
-        ReaderImageScanner scanner = new ReaderImageScanner(mRenderBuilder.toString(), mPost.isPrivate);
-        scanner.beginScan(imageListener);
-    }
-
-    /*
-     * scan the content for iframes and make sure they're correctly sized for the device
-     */
-    void resizeIframes() {
-        ReaderHtmlUtils.HtmlScannerListener iframeListener = new ReaderHtmlUtils.HtmlScannerListener() {
-            @Override
-            public void onTagFound(String tag, String src, int start, int end) {
-                replaceIframeTag(tag, src);
-            }
-            @Override
-            public void onScanCompleted() {
-                // nop
-            }
-        };
-        ReaderIframeScanner scanner = new ReaderIframeScanner(mRenderBuilder.toString());
-        scanner.beginScan(iframeListener);
+        return ReaderHtmlRewriter.rewrite(content, tagRewriter);
     }
 
     /*
@@ -143,11 +131,10 @@ class ReaderPostRenderer {
     }
 
     /*
-     * called when image scanner finds an image, tries to replace the image tag with one that
-     * has height & width attributes set correctly for the current display, if that fails
-     * replaces it with one that has our 'size-none' class
+     * called when the rewriter finds an image, returns an image tag with height & width attributes
+     * set correctly for the current display, if that fails returns one that has our 'size-none' class
      */
-    private void replaceImageTag(final String imageTag, final String imageUrl) {
+    private String makeResizedImageTag(final String imageTag, final String imageUrl) {
         ImageSize origSize = getImageSize(imageTag, imageUrl);
         boolean hasWidth = (origSize != null && origSize.width > 0);
         boolean isFullSize = hasWidth && (origSize.width >= mMinFullSizeWidthDp);
@@ -155,24 +142,15 @@ class ReaderPostRenderer {
                 && (origSize.width >= mMinMidSizeWidthDp)
                 && (origSize.width < mMinFullSizeWidthDp);
 
-        final String newImageTag;
         if (isFullSize) {
-            newImageTag = makeFullSizeImageTag(imageUrl, origSize.width, origSize.height);
+            return makeFullSizeImageTag(imageUrl, origSize.width, origSize.height);
         } else if (isMidSize) {
-            newImageTag = makeImageTag(imageUrl, origSize.width, origSize.height, "size-medium");
+            return makeImageTag(imageUrl, origSize.width, origSize.height, "size-medium");
         } else if (hasWidth) {
-            newImageTag = makeImageTag(imageUrl, origSize.width, origSize.height, "size-none");
+            return makeImageTag(imageUrl, origSize.width, origSize.height, "size-none");
         } else {
-            newImageTag = "<img class='size-none' src='" + imageUrl + "' />";
-        }
-
-        int start = mRenderBuilder.indexOf(imageTag);
-        if (start == -1) {
-            AppLog.w(AppLog.T.READER, "reader renderer > image not found in builder");
-            return;
+            return "<img class='size-none' src='" + imageUrl + "' />";
         }
-
-        mRenderBuilder.replace(start, start + imageTag.length(), newImageTag);
     }
 
     private String makeImageTag(final String imageUrl, int width, int height, final String imageClass) {
@@ -275,9 +253,9 @@ class ReaderPostRenderer {
     }
 
     /*
-     * replace the passed iframe tag with one that's correctly sized for the device
+     * returns an iframe tag to use instead of the passed one that's correctly sized for the device
      */
-    private void replaceIframeTag(final String tag, final String src) {
+    private String makeResizedIframeTag(final String tag, final String src) {
         int width = ReaderHtmlUtils.getWidthAttrValue(tag);
         int height = ReaderHtmlUtils.getHeightAttrValue(tag);
 
@@ -292,25 +270,35 @@ class ReaderPostRenderer {
             newHeight = mResourceVars.videoHeightPx;
         }
 
-        String newTag = new StringBuilder("<iframe src='").append(src).append("'")
+        return new StringBuilder("<iframe src='").append(src).append("'")
                 .append(" frameborder='0' allowfullscreen='true' allowtransparency='true'")
                 .append(" width='").append(pxToDp(newWidth)).append("'")
                 .append(" height='").append(pxToDp(newHeight)).append("' />")
                 .toString();
+    }
 
-        int start = mRenderBuilder.indexOf(tag);
-        if (start == -1) {
-            AppLog.w(AppLog.T.READER, "reader renderer > iframe not found in builder");
-            return;
+    /*
+     * returns the full content, including CSS, that will be shown in the WebView for this post
+     */
+    private String formatPostContentForWebView(final String content, final String templateKey) {
+        String head = ReaderRenderCache.getTemplateHead(templateKey);
+        if (head == null) {
+            head = makeHtmlHead();
+            ReaderRenderCache.putTemplateHead(templateKey, head);
         }
 
-        mRenderBuilder.replace(start, start + tag.length(), newTag);
+        return new StringBuilder(head.length() + content.length() + 32)
+                .append(head)
+                .append(content)
+                .append("</body></html>")
+                .toString();
     }
 
     /*
-     * returns the full content, including CSS, that will be shown in the WebView for this post
+     * returns the HTML which precedes the content - this is the same for every post so
+     * it's cached by ReaderRenderCache
      */
-    private String formatPostContentForWebView(final String content) {
+    private String makeHtmlHead() {
         StringBuilder sbHtml = new StringBuilder("<!DOCTYPE html><html><head><meta charset='UTF-8' />");
 
         // title isn't necessary, but it's invalid html5 without one
@@ -391,9 +379,7 @@ class ReaderPostRenderer {
         .append("     height: ").append(pxToDp(mResourceVars.videoHeightPx)).append("px !important; }")
 
         .append("</style>")
-        .append("</head><body>")
-        .append(content)
-        .append("</body></html>");
+        .append("</head><body>");
 
         return sbHtml.toString();
     }
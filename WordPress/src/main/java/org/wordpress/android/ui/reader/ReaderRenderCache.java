@@ -0,0 +1,66 @@
+package org.wordpress.android.ui.reader;
+
+import android.support.v4.util.LruCache;
+
+/**
+ * caches used by ReaderPostRenderer - the head (CSS, etc.) of the rendered HTML, which only
+ * depends on the resource/display configuration, and the fully rendered HTML of recently
+ * viewed posts so returning to a post doesn't require rewriting its content again
+ */
+public class ReaderRenderCache {
+    // measured in chars, so roughly 2MB
+    private static final int MAX_HTML_CACHE_SIZE = 1024 * 1024;
+
+    private static final LruCache<String, String> mHtmlCache = new LruCache<String, String>(MAX_HTML_CACHE_SIZE) {
+        @Override
+        protected int sizeOf(String key, String html) {
+            return html.length();
+        }
+    };
+
+    // the configuration changes rarely (rotation, etc.) so only the last template is kept
+    private static String mTemplateKey;
+    private static String mTemplateHead;
+
+    private ReaderRenderCache() {
+        throw new AssertionError();
+    }
+
+    static synchronized String getTemplateHead(String templateKey) {
+        return templateKey.equals(mTemplateKey) ? mTemplateHead : null;
+    }
+
+    static synchronized void putTemplateHead(String templateKey, String head) {
+        mTemplateKey = templateKey;
+        mTemplateHead = head;
+    }
+
+    static String getRenderedHtml(String key) {
+        return mHtmlCache.get(key);
+    }
+
+    static void putRenderedHtml(String key, String html) {
+        mHtmlCache.put(key, html);
+    }
+
+    /*
+     * the key covers every input of the rendered html: the content, the attachments the image sizes are read
+     * from, whether image urls are resized for a private post, and the display configuration
+     */
+    static String makeRenderedHtmlKey(long blogId,
+                                      long postId,
+                                      String content,
+                                      String attachmentsJson,
+                                      boolean isPrivate,
+                                      String templateKey) {
+        return blogId + ":" + postId + ":" + content.hashCode() + ":" + attachmentsJson.hashCode() + ":"
+                + (isPrivate ? 1 : 0) + ":" + templateKey;
+    }
+
+    /*
+     * called when the system is low on memory
+     */
+    public static void evictAll() {
+        mHtmlCache.evictAll();
+    }
+}
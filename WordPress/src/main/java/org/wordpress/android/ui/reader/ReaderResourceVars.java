@@ -25,6 +25,9 @@ class ReaderResourceVars {
     final String greyLightStr;
     final String greyExtraLightStr;
 
+    // identifies this set of values, used to cache the rendered HTML which depends on them
+    final String cacheKey;
+
     ReaderResourceVars(Context context) {
         Resources resources = context.getResources();
 
@@ -47,5 +50,19 @@ class ReaderResourceVars {
         // 16:9 ratio (YouTube standard)
         videoWidthPx = fullSizeImageWidthPx - (marginLargePx * 2);
         videoHeightPx = (int) (videoWidthPx * 0.5625f);
+
+        cacheKey = new StringBuilder()
+                .append(fullSizeImageWidthPx).append(',')
+                .append(featuredImageHeightPx).append(',')
+                .append(videoWidthPx).append(',')
+                .append(videoHeightPx).append(',')
+                .append(marginSmallPx).append(',')
+                .append(marginExtraSmallPx).append(',')
+                .append(resources.getDisplayMetrics().density).append(',')
+                .append(linkColorStr).append(',')
+                .append(greyMediumDarkStr).append(',')
+                .append(greyLightStr).append(',')
+                .append(greyExtraLightStr)
+                .toString();
     }
 }
@@ -0,0 +1,56 @@
+package org.wordpress.android.ui.reader.models;
+
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
+
+/*
+ * result of comparing a list of posts (usually just retrieved from the server) with the
+ * posts stored locally - see ReaderPostTable.diffPosts()
+ */
+public class ReaderPostDiff {
+    private final ReaderPostList mNewPosts = new ReaderPostList();
+    private final ReaderPostList mChangedPosts = new ReaderPostList();
+    private final ReaderPostList mUnchangedPosts = new ReaderPostList();
+
+    public void addNewPost(ReaderPost post) {
+        mNewPosts.add(post);
+    }
+
+    public void addChangedPost(ReaderPost post) {
+        mChangedPosts.add(post);
+    }
+
+    public void addUnchangedPost(ReaderPost post) {
+        mUnchangedPosts.add(post);
+    }
+
+    public ReaderPostList getNewPosts() {
+        return mNewPosts;
+    }
+
+    public ReaderPostList getChangedPosts() {
+        return mChangedPosts;
+    }
+
+    public ReaderPostList getUnchangedPosts() {
+        return mUnchangedPosts;
+    }
+
+    /*
+     * returns true if any of the compared posts already exist locally
+     */
+    public boolean hasOverlap() {
+        return mChangedPosts.size() > 0 || mUnchangedPosts.size() > 0;
+    }
+
+    public UpdateResult getUpdateResult() {
+        if (mNewPosts.size() > 0) {
+            return UpdateResult.HAS_NEW;
+        } else if (mChangedPosts.size() > 0) {
+            return UpdateResult.CHANGED;
+        } else {
+            return UpdateResult.UNCHANGED;
+        }
+    }
+}
@@ -23,9 +23,13 @@ import org.wordpress.android.ui.reader.ReaderEvents;
 import org.wordpress.android.ui.reader.actions.ReaderActions;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResultListener;
+import org.wordpress.android.ui.reader.utils.ReaderExecutor;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.JSONUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import de.greenrobot.event.EventBus;
 
 public class ReaderCommentService extends Service {
@@ -160,36 +164,52 @@ public class ReaderCommentService extends Service {
             return;
         }
 
-        new Thread() {
+        ReaderExecutor.execute(ReaderExecutor.Lane.PARSE, new Runnable() {
             @Override
             public void run() {
-                final boolean hasNewComments;
+                ReaderCommentList serverComments = new ReaderCommentList();
+                List<ReaderUserList> likingUsers = new ArrayList<>();
+                JSONArray jsonCommentList = jsonObject.optJSONArray("comments");
+                if (jsonCommentList != null) {
+                    for (int i = 0; i < jsonCommentList.length(); i++) {
+                        JSONObject jsonComment = jsonCommentList.optJSONObject(i);
+
+                        // extract this comment and add it to the list
+                        ReaderComment comment = ReaderComment.fromJson(jsonComment, blogId);
+                        comment.pageNumber = pageNumber;
+                        serverComments.add(comment);
+
+                        // extract likes for this comment
+                        JSONObject jsonLikes = JSONUtils.getJSONChild(jsonComment, "meta/data/likes");
+                        likingUsers.add(jsonLikes != null ? ReaderUserList.fromJsonLikes(jsonLikes) : null);
+                    }
+                }
 
+                saveComments(serverComments, likingUsers, resultListener);
+            }
+        });
+    }
+
+    /*
+     * saves the comments parsed from a response along with the users who liked them, likingUsers
+     * has an entry (which may be null) for each comment
+     */
+    private static void saveComments(final ReaderCommentList serverComments,
+                                     final List<ReaderUserList> likingUsers,
+                                     final ReaderActions.UpdateResultListener resultListener) {
+        ReaderExecutor.execute(ReaderExecutor.Lane.DB_WRITE, new Runnable() {
+            @Override
+            public void run() {
                 ReaderDatabase.getWritableDb().beginTransaction();
                 try {
-                    ReaderCommentList serverComments = new ReaderCommentList();
-                    JSONArray jsonCommentList = jsonObject.optJSONArray("comments");
-                    if (jsonCommentList != null) {
-                        for (int i = 0; i < jsonCommentList.length(); i++) {
-                            JSONObject jsonComment = jsonCommentList.optJSONObject(i);
-
-                            // extract this comment and add it to the list
-                            ReaderComment comment = ReaderComment.fromJson(jsonComment, blogId);
-                            comment.pageNumber = pageNumber;
-                            serverComments.add(comment);
-
-                            // extract and save likes for this comment
-                            JSONObject jsonLikes = JSONUtils.getJSONChild(jsonComment, "meta/data/likes");
-                            if (jsonLikes != null) {
-                                ReaderUserList likingUsers = ReaderUserList.fromJsonLikes(jsonLikes);
-                                ReaderUserTable.addOrUpdateUsers(likingUsers);
-                                ReaderLikeTable.setLikesForComment(comment, likingUsers.getUserIds());
-                            }
+                    for (int i = 0; i < serverComments.size(); i++) {
+                        ReaderUserList users = likingUsers.get(i);
+                        if (users != null) {
+                            ReaderUserTable.addOrUpdateUsers(users);
+                            ReaderLikeTable.setLikesForComment(serverComments.get(i), users.getUserIds());
                         }
                     }
 
-                    hasNewComments = (serverComments.size() > 0);
-
                     // save to db regardless of whether any are new so changes to likes are stored
                     ReaderCommentTable.addOrUpdateComments(serverComments);
                     ReaderDatabase.getWritableDb().setTransactionSuccessful();
@@ -197,10 +217,11 @@ public class ReaderCommentService extends Service {
                     ReaderDatabase.getWritableDb().endTransaction();
                 }
 
+                boolean hasNewComments = (serverComments.size() > 0);
                 ReaderActions.UpdateResult result =
                         (hasNewComments ? ReaderActions.UpdateResult.HAS_NEW : ReaderActions.UpdateResult.UNCHANGED);
                 resultListener.onUpdateResult(result);
             }
-        }.start();
+        });
     }
 }
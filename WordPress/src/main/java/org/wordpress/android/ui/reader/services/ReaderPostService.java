@@ -9,7 +9,6 @@ import android.text.TextUtils;
 import com.android.volley.VolleyError;
 import com.wordpress.rest.RestRequest;
 
-import org.json.JSONObject;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderPostTable;
 import org.wordpress.android.datasets.ReaderTagTable;
@@ -17,15 +16,21 @@ import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderPostList;
 import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.models.ReaderTagType;
+import org.wordpress.android.networking.RawRestRequest;
 import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.ui.reader.ReaderEvents;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResultListener;
+import org.wordpress.android.ui.reader.models.ReaderPostDiff;
+import org.wordpress.android.ui.reader.utils.ReaderExecutor;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.UrlUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
 import de.greenrobot.event.EventBus;
 
 /**
@@ -40,6 +45,9 @@ public class ReaderPostService extends Service {
     private static final String ARG_BLOG_ID = "blog_id";
     private static final String ARG_FEED_ID = "feed_id";
 
+    // # posts saved in each transaction after a response is parsed
+    private static final int SAVE_CHUNK_SIZE = 10;
+
     public enum UpdateAction {
         REQUEST_NEWER,          // request the newest posts for this tag/blog/feed
         REQUEST_OLDER,          // request posts older than the oldest existing one for this tag/blog/feed
@@ -90,6 +98,7 @@ public class ReaderPostService extends Service {
     @Override
     public void onDestroy() {
         AppLog.i(AppLog.T.READER, "reader post service > destroyed");
+        ReaderExecutor.logStats();
         super.onDestroy();
     }
 
@@ -192,16 +201,25 @@ public class ReaderPostService extends Service {
             sb.append("&before=").append(UrlUtils.urlEncode(beforeDate));
         }
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
+        RawRestRequest.Listener listener = new RawRestRequest.Listener() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
+            public void onResponse(byte[] data) {
                 // remember when this tag was updated if newer posts were requested
                 if (updateAction == UpdateAction.REQUEST_NEWER) {
                     ReaderTagTable.setTagLastUpdated(tag);
                 }
-                handleUpdatePostsResponse(tag, jsonObject, updateAction, resultListener);
+                handleUpdatePostsResponse(tag, data, updateAction, resultListener);
             }
         };
+        requestPosts(sb.toString(), listener, resultListener);
+    }
+
+    /*
+     * requests posts as a raw response so it can be parsed from a stream
+     */
+    private static void requestPosts(final String path,
+                                     final RawRestRequest.Listener listener,
+                                     final UpdateResultListener resultListener) {
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
             @Override
             public void onErrorResponse(VolleyError volleyError) {
@@ -210,7 +228,7 @@ public class ReaderPostService extends Service {
             }
         };
 
-        WordPress.getRestClientUtilsV1_2().get(sb.toString(), null, null, listener, errorListener);
+        WordPress.getRestClientUtilsV1_2().getRaw(path, listener, errorListener);
     }
 
     private static void requestPostsForBlog(final long blogId,
@@ -226,21 +244,14 @@ public class ReaderPostService extends Service {
             }
         }
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
+        RawRestRequest.Listener listener = new RawRestRequest.Listener() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleUpdatePostsResponse(null, jsonObject, updateAction, resultListener);
-            }
-        };
-        RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
-            @Override
-            public void onErrorResponse(VolleyError volleyError) {
-                AppLog.e(AppLog.T.READER, volleyError);
-                resultListener.onUpdateResult(UpdateResult.FAILED);
+            public void onResponse(byte[] data) {
+                handleUpdatePostsResponse(null, data, updateAction, resultListener);
             }
         };
         AppLog.d(AppLog.T.READER, "updating posts in blog " + blogId);
-        WordPress.getRestClientUtilsV1_2().get(path, null, null, listener, errorListener);
+        requestPosts(path, listener, resultListener);
     }
 
     private static void requestPostsForFeed(final long feedId,
@@ -254,41 +265,57 @@ public class ReaderPostService extends Service {
             }
         }
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
-            @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleUpdatePostsResponse(null, jsonObject, updateAction, resultListener);
-            }
-        };
-        RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
+        RawRestRequest.Listener listener = new RawRestRequest.Listener() {
             @Override
-            public void onErrorResponse(VolleyError volleyError) {
-                AppLog.e(AppLog.T.READER, volleyError);
-                resultListener.onUpdateResult(UpdateResult.FAILED);
+            public void onResponse(byte[] data) {
+                handleUpdatePostsResponse(null, data, updateAction, resultListener);
             }
         };
-
         AppLog.d(AppLog.T.READER, "updating posts in feed " + feedId);
-        WordPress.getRestClientUtilsV1_2().get(path, null, null, listener, errorListener);
+        requestPosts(path, listener, resultListener);
     }
 
     /*
      * called after requesting posts with a specific tag or in a specific blog/feed
      */
     private static void handleUpdatePostsResponse(final ReaderTag tag,
-                                                  final JSONObject jsonObject,
+                                                  final byte[] data,
                                                   final UpdateAction updateAction,
                                                   final UpdateResultListener resultListener) {
-        if (jsonObject == null) {
+        if (data == null) {
             resultListener.onUpdateResult(UpdateResult.FAILED);
             return;
         }
 
-        new Thread() {
+        ReaderExecutor.execute(ReaderExecutor.Lane.PARSE, new Runnable() {
             @Override
             public void run() {
-                ReaderPostList serverPosts = ReaderPostList.fromJson(jsonObject);
-                UpdateResult updateResult = ReaderPostTable.comparePosts(serverPosts);
+                ReaderPostList serverPosts;
+                try {
+                    serverPosts = ReaderPostList.fromJsonStream(new ByteArrayInputStream(data));
+                } catch (IOException e) {
+                    AppLog.e(AppLog.T.READER, e);
+                    resultListener.onUpdateResult(UpdateResult.FAILED);
+                    return;
+                }
+                savePosts(tag, serverPosts, updateAction, resultListener);
+            }
+        });
+    }
+
+    /*
+     * compares the posts parsed from a response with the local ones and saves them - done in the DB_WRITE
+     * lane so responses received at the same time don't contend for the db
+     */
+    private static void savePosts(final ReaderTag tag,
+                                  final ReaderPostList serverPosts,
+                                  final UpdateAction updateAction,
+                                  final UpdateResultListener resultListener) {
+        ReaderExecutor.execute(ReaderExecutor.Lane.DB_WRITE, new Runnable() {
+            @Override
+            public void run() {
+                ReaderPostDiff diff = ReaderPostTable.diffPosts(serverPosts);
+                UpdateResult updateResult = diff.getUpdateResult();
                 if (updateResult.isNewOrChanged()) {
                     // gap detection - only applies to posts with a specific tag
                     ReaderPost postWithGap = null;
@@ -301,7 +328,7 @@ public class ReaderPostService extends Service {
                                 int numServerPosts = serverPosts.size();
                                 if (numServerPosts >= 2
                                         && ReaderPostTable.getNumPostsWithTag(tag) > 0
-                                        && !ReaderPostTable.hasOverlap(serverPosts)) {
+                                        && !diff.hasOverlap()) {
                                     // treat the second to last server post as having a gap
                                     postWithGap = serverPosts.get(numServerPosts - 2);
                                     // remove the last server post to deal with the edge case of
@@ -320,7 +347,12 @@ public class ReaderPostService extends Service {
                         }
                     }
 
-                    ReaderPostTable.addOrUpdatePosts(tag, serverPosts);
+                    // save in chunks so other db work isn't held up by one long transaction
+                    for (int i = 0; i < serverPosts.size(); i += SAVE_CHUNK_SIZE) {
+                        ReaderPostList chunk = new ReaderPostList();
+                        chunk.addAll(serverPosts.subList(i, Math.min(i + SAVE_CHUNK_SIZE, serverPosts.size())));
+                        ReaderPostTable.addOrUpdatePosts(tag, chunk);
+                    }
 
                     // gap marker must be set after saving server posts
                     if (postWithGap != null) {
@@ -334,7 +366,7 @@ public class ReaderPostService extends Service {
                 AppLog.d(AppLog.T.READER, "requested posts response = " + updateResult.toString());
                 resultListener.onUpdateResult(updateResult);
             }
-        }.start();
+        });
     }
 
     /*
@@ -22,6 +22,7 @@ import org.wordpress.android.models.ReaderTagList;
 import org.wordpress.android.models.ReaderTagType;
 import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.ui.reader.ReaderEvents;
+import org.wordpress.android.ui.reader.utils.ReaderExecutor;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.JSONUtils;
@@ -70,6 +71,7 @@ public class ReaderUpdateService extends Service {
     @Override
     public void onDestroy() {
         AppLog.i(AppLog.T.READER, "reader service > destroyed");
+        ReaderExecutor.logStats();
         super.onDestroy();
     }
 
@@ -135,7 +137,7 @@ public class ReaderUpdateService extends Service {
     }
 
     private void handleUpdateTagsResponse(final JSONObject jsonObject) {
-        new Thread() {
+        ReaderExecutor.execute(ReaderExecutor.Lane.PARSE, new Runnable() {
             @Override
             public void run() {
                 // get server topics, both default & followed - but use "recommended" for logged-out
@@ -148,7 +150,25 @@ public class ReaderUpdateService extends Service {
                     serverTopics.addAll(parseTags(jsonObject, "subscribed", ReaderTagType.FOLLOWED));
                 }
 
-                // parse topics from the response, detect whether they're different from local
+                ReaderTagList serverRecommended = null;
+                if (!ReaderUtils.isLoggedOutReader()) {
+                    serverRecommended = parseTags(jsonObject, "recommended", ReaderTagType.RECOMMENDED);
+                }
+
+                saveTags(serverTopics, serverRecommended);
+            }
+        });
+    }
+
+    /*
+     * saves the topics parsed from the response if they differ from the local ones, serverRecommended
+     * will be null for the logged-out reader
+     */
+    private void saveTags(final ReaderTagList serverTopics, final ReaderTagList serverRecommended) {
+        ReaderExecutor.execute(ReaderExecutor.Lane.DB_WRITE, new Runnable() {
+            @Override
+            public void run() {
+                // detect whether the server topics are different from local
                 ReaderTagList localTopics = new ReaderTagList();
                 localTopics.addAll(ReaderTagTable.getDefaultTags());
                 localTopics.addAll(ReaderTagTable.getFollowedTags());
@@ -165,8 +185,7 @@ public class ReaderUpdateService extends Service {
                 }
 
                 // save changes to recommended topics
-                if (!ReaderUtils.isLoggedOutReader()) {
-                    ReaderTagList serverRecommended = parseTags(jsonObject, "recommended", ReaderTagType.RECOMMENDED);
+                if (serverRecommended != null) {
                     ReaderTagList localRecommended = ReaderTagTable.getRecommendedTags(false);
                     if (!serverRecommended.isSameList(localRecommended)) {
                         AppLog.d(AppLog.T.READER, "reader service > recommended topics changed");
@@ -177,7 +196,7 @@ public class ReaderUpdateService extends Service {
 
                 taskCompleted(UpdateTask.TAGS);
             }
-        }.start();
+        });
     }
 
     /*
@@ -251,21 +270,25 @@ public class ReaderUpdateService extends Service {
         WordPress.getRestClientUtilsV1_1().get("read/following/mine?meta=site%2Cfeed", listener, errorListener);
     }
     private void handleFollowedBlogsResponse(final JSONObject jsonObject) {
-        new Thread() {
+        ReaderExecutor.execute(ReaderExecutor.Lane.PARSE, new Runnable() {
             @Override
             public void run() {
-                ReaderBlogList serverBlogs = ReaderBlogList.fromJson(jsonObject);
-                ReaderBlogList localBlogs = ReaderBlogTable.getFollowedBlogs();
-
-                if (!localBlogs.isSameList(serverBlogs)) {
-                    ReaderBlogTable.setFollowedBlogs(serverBlogs);
-                    AppLog.d(AppLog.T.READER, "reader blogs service > followed blogs changed");
-                    EventBus.getDefault().post(new ReaderEvents.FollowedBlogsChanged());
-                }
-
-                taskCompleted(UpdateTask.FOLLOWED_BLOGS);
+                final ReaderBlogList serverBlogs = ReaderBlogList.fromJson(jsonObject);
+                ReaderExecutor.execute(ReaderExecutor.Lane.DB_WRITE, new Runnable() {
+                    @Override
+                    public void run() {
+                        ReaderBlogList localBlogs = ReaderBlogTable.getFollowedBlogs();
+                        if (!localBlogs.isSameList(serverBlogs)) {
+                            ReaderBlogTable.setFollowedBlogs(serverBlogs);
+                            AppLog.d(AppLog.T.READER, "reader blogs service > followed blogs changed");
+                            EventBus.getDefault().post(new ReaderEvents.FollowedBlogsChanged());
+                        }
+
+                        taskCompleted(UpdateTask.FOLLOWED_BLOGS);
+                    }
+                });
             }
-        }.start();
+        });
     }
 
     /***
@@ -293,19 +316,23 @@ public class ReaderUpdateService extends Service {
         WordPress.getRestClientUtilsV1_1().get(path, listener, errorListener);
     }
     private void handleRecommendedBlogsResponse(final JSONObject jsonObject) {
-        new Thread() {
+        ReaderExecutor.execute(ReaderExecutor.Lane.PARSE, new Runnable() {
             @Override
             public void run() {
-                ReaderRecommendBlogList serverBlogs = ReaderRecommendBlogList.fromJson(jsonObject);
-                ReaderRecommendBlogList localBlogs = ReaderBlogTable.getRecommendedBlogs();
-
-                if (!localBlogs.isSameList(serverBlogs)) {
-                    ReaderBlogTable.setRecommendedBlogs(serverBlogs);
-                    EventBus.getDefault().post(new ReaderEvents.RecommendedBlogsChanged());
-                }
-
-                taskCompleted(UpdateTask.RECOMMENDED_BLOGS);
+                final ReaderRecommendBlogList serverBlogs = ReaderRecommendBlogList.fromJson(jsonObject);
+                ReaderExecutor.execute(ReaderExecutor.Lane.DB_WRITE, new Runnable() {
+                    @Override
+                    public void run() {
+                        ReaderRecommendBlogList localBlogs = ReaderBlogTable.getRecommendedBlogs();
+                        if (!localBlogs.isSameList(serverBlogs)) {
+                            ReaderBlogTable.setRecommendedBlogs(serverBlogs);
+                            EventBus.getDefault().post(new ReaderEvents.RecommendedBlogsChanged());
+                        }
+
+                        taskCompleted(UpdateTask.RECOMMENDED_BLOGS);
+                    }
+                });
             }
-        }.start();
+        });
     }
 }
@@ -0,0 +1,166 @@
+package org.wordpress.android.ui.reader.utils;
+
+import android.os.Process;
+
+import org.wordpress.android.util.AppLog;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded thread pools shared by the reader's background work, one per lane. DB writes run one at a time so
+ * a burst of responses doesn't have several threads waiting on the reader db lock, parsing responses and
+ * rendering posts can run in parallel. A response is typically parsed in the PARSE lane, which then hands
+ * the parsed models to the DB_WRITE lane.
+ */
+public final class ReaderExecutor {
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    public enum Lane {
+        DB_WRITE(1, Process.THREAD_PRIORITY_BACKGROUND),
+        PARSE(2, Process.THREAD_PRIORITY_BACKGROUND),
+        // rendering is waited on by the user so it isn't given a background priority
+        RENDER(2, Process.THREAD_PRIORITY_DEFAULT);
+
+        private final int mMaxThreads;
+        private final int mThreadPriority;
+        private final AtomicLong mExecutedCount = new AtomicLong();
+        private final AtomicLong mTotalWaitMs = new AtomicLong();
+        private final AtomicLong mMaxWaitMs = new AtomicLong();
+        private final AtomicLong mTotalRunMs = new AtomicLong();
+        private final AtomicInteger mMaxQueueDepth = new AtomicInteger();
+        private ThreadPoolExecutor mExecutor;
+
+        Lane(int maxThreads, int threadPriority) {
+            mMaxThreads = maxThreads;
+            mThreadPriority = threadPriority;
+        }
+
+        private synchronized ThreadPoolExecutor getExecutor() {
+            if (mExecutor == null) {
+                mExecutor = new ThreadPoolExecutor(mMaxThreads, mMaxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(), new LaneThreadFactory(this));
+                mExecutor.allowCoreThreadTimeOut(true);
+            }
+            return mExecutor;
+        }
+    }
+
+    private ReaderExecutor() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Counters for a lane since the app started
+     */
+    public static class Stats {
+        public final Lane lane;
+        public final long executed;
+        public final int queueDepth;
+        public final int maxQueueDepth;
+        public final long averageWaitMs;
+        public final long maxWaitMs;
+        public final long averageRunMs;
+
+        Stats(Lane lane, long executed, int queueDepth, int maxQueueDepth, long averageWaitMs, long maxWaitMs,
+              long averageRunMs) {
+            this.lane = lane;
+            this.executed = executed;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.averageWaitMs = averageWaitMs;
+            this.maxWaitMs = maxWaitMs;
+            this.averageRunMs = averageRunMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d tasks executed, %d queued (max %d), wait %d ms avg / %d ms max, run %d ms avg",
+                    lane, executed, queueDepth, maxQueueDepth, averageWaitMs, maxWaitMs, averageRunMs);
+        }
+    }
+
+    public static Stats getStats(Lane lane) {
+        long executed = lane.mExecutedCount.get();
+        long averageWaitMs = executed > 0 ? lane.mTotalWaitMs.get() / executed : 0;
+        long averageRunMs = executed > 0 ? lane.mTotalRunMs.get() / executed : 0;
+        return new Stats(lane, executed, lane.getExecutor().getQueue().size(), lane.mMaxQueueDepth.get(),
+                averageWaitMs, lane.mMaxWaitMs.get(), averageRunMs);
+    }
+
+    public static void logStats() {
+        for (Lane lane : Lane.values()) {
+            AppLog.d(AppLog.T.READER, "reader executor > " + getStats(lane));
+        }
+    }
+
+    public static void execute(Lane lane, Runnable runnable) {
+        if (lane == null || runnable == null) {
+            throw new IllegalArgumentException("ReaderExecutor requires a lane and a runnable");
+        }
+        ThreadPoolExecutor executor = lane.getExecutor();
+        executor.execute(new Task(lane, runnable));
+        int queueDepth = executor.getQueue().size();
+        int maxQueueDepth;
+        while (queueDepth > (maxQueueDepth = lane.mMaxQueueDepth.get())) {
+            if (lane.mMaxQueueDepth.compareAndSet(maxQueueDepth, queueDepth)) {
+                break;
+            }
+        }
+    }
+
+    private static class Task implements Runnable {
+        private final Lane mLane;
+        private final Runnable mRunnable;
+        private final long mSubmitTime;
+
+        Task(Lane lane, Runnable runnable) {
+            mLane = lane;
+            mRunnable = runnable;
+            mSubmitTime = System.currentTimeMillis();
+        }
+
+        @Override
+        public void run() {
+            long startTime = System.currentTimeMillis();
+            long waitMs = startTime - mSubmitTime;
+            mLane.mExecutedCount.incrementAndGet();
+            mLane.mTotalWaitMs.addAndGet(waitMs);
+            long maxWaitMs;
+            while (waitMs > (maxWaitMs = mLane.mMaxWaitMs.get())) {
+                if (mLane.mMaxWaitMs.compareAndSet(maxWaitMs, waitMs)) {
+                    break;
+                }
+            }
+            try {
+                mRunnable.run();
+            } finally {
+                mLane.mTotalRunMs.addAndGet(System.currentTimeMillis() - startTime);
+            }
+        }
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+        private final Lane mLane;
+        private final AtomicInteger mThreadCount = new AtomicInteger();
+
+        LaneThreadFactory(Lane lane) {
+            mLane = lane;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(mLane.mThreadPriority);
+                    runnable.run();
+                }
+            }, "Reader " + mLane + " #" + mThreadCount.incrementAndGet());
+        }
+    }
+}
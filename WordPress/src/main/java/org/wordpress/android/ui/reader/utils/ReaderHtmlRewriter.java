@@ -0,0 +1,119 @@
+package org.wordpress.android.ui.reader.utils;
+
+import android.text.TextUtils;
+
+/**
+ * rewrites the img and iframe tags in post content in a single pass - the content is copied
+ * once into the output buffer with each tag replaced as it's reached, rather than scanning
+ * the content with a regex and then searching for & replacing each tag in the full content
+ */
+public class ReaderHtmlRewriter {
+
+    public interface TagRewriter {
+        /*
+         * return the tag to use instead of the passed one, or null to leave it unchanged
+         */
+        String rewriteImageTag(String imageTag, String imageUrl);
+        String rewriteIframeTag(String iframeTag, String src);
+    }
+
+    private static final String IMG = "img";
+    private static final String IFRAME = "iframe";
+
+    public static String rewrite(final String content, final TagRewriter rewriter) {
+        if (rewriter == null) {
+            throw new IllegalArgumentException("TagRewriter is required");
+        }
+        if (content == null || content.indexOf('<') == -1) {
+            return content;
+        }
+
+        int length = content.length();
+        // rewritten tags are usually a bit longer than the originals
+        StringBuilder output = new StringBuilder(length + (length >> 3));
+        int copyFrom = 0;
+        int pos = content.indexOf('<');
+        while (pos != -1) {
+            int nameLength = getTagNameLength(content, pos + 1);
+            if (nameLength == 0) {
+                pos = content.indexOf('<', pos + 1);
+                continue;
+            }
+
+            int tagEnd = findTagEnd(content, pos + 1 + nameLength);
+            if (tagEnd == -1) {
+                break;
+            }
+
+            String tag = content.substring(pos, tagEnd);
+            String src = ReaderHtmlUtils.getSrcAttrValue(tag);
+            String newTag = null;
+            if (!TextUtils.isEmpty(src)) {
+                if (nameLength == IMG.length()) {
+                    newTag = rewriter.rewriteImageTag(tag, src);
+                } else {
+                    newTag = rewriter.rewriteIframeTag(tag, src);
+                }
+            }
+            if (newTag != null) {
+                output.append(content, copyFrom, pos).append(newTag);
+                copyFrom = tagEnd;
+            }
+
+            pos = content.indexOf('<', tagEnd);
+        }
+
+        if (copyFrom == 0) {
+            return content;
+        }
+        output.append(content, copyFrom, length);
+        return output.toString();
+    }
+
+    /*
+     * returns the length of the tag name starting at the passed position if it's an img or iframe
+     * tag followed by whitespace, otherwise returns zero
+     */
+    private static int getTagNameLength(final String content, int start) {
+        int nameLength;
+        if (content.regionMatches(true, start, IMG, 0, IMG.length())) {
+            nameLength = IMG.length();
+        } else if (content.regionMatches(true, start, IFRAME, 0, IFRAME.length())) {
+            nameLength = IFRAME.length();
+        } else {
+            return 0;
+        }
+
+        int next = start + nameLength;
+        if (next < content.length() && Character.isWhitespace(content.charAt(next))) {
+            return nameLength;
+        }
+        return 0;
+    }
+
+    /*
+     * returns the position after the > which closes the tag, ignoring any inside quoted
+     * attribute values, or -1 if the tag isn't closed
+     */
+    private static int findTagEnd(final String content, int start) {
+        char quote = 0;
+        char prevChar = 0;
+        for (int i = start; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if ((c == '"' || c == '\'') && prevChar == '=') {
+                // only a quote right after the = starts a value, so stray apostrophes are ignored
+                quote = c;
+            } else if (c == '>') {
+                return i + 1;
+            }
+            if (!Character.isWhitespace(c)) {
+                prevChar = c;
+            }
+        }
+        return -1;
+    }
+}
@@ -17,7 +17,7 @@ import java.io.OutputStream;
  */
 public class StatsDatabaseHelper extends SQLiteOpenHelper {
     private static final String DB_NAME = "stats.db";
-    private static final int DB_VERSION = 1;
+    private static final int DB_VERSION = 2; // 2 - stats are stored as serialized models rather than JSON
 
     /*
 	 *  database singleton
@@ -6,15 +6,30 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteStatement;
 
 import org.wordpress.android.ui.stats.StatsTimeframe;
+import org.wordpress.android.ui.stats.models.BaseStatsModel;
 import org.wordpress.android.ui.stats.service.StatsService.StatsEndpointsEnum;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.SqlUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 public class StatsTable {
 
     private static final String TABLE_NAME = "tbl_stats";
     public static final int CACHE_TTL_MINUTES = 10;
     private static final int MAX_RESPONSE_LEN = (int) (1024 * 1024 * 1.8); // 1.8 MB Approx
+    // once a blog's cached stats exceed this size its oldest sections are removed
+    private static final long MAX_BLOG_CACHE_BYTES = 4 * 1024 * 1024;
+
+    /*
+     * version of the serialized models stored in modelData - must be bumped whenever a change to a stats model
+     * changes its serialized form, so rows written by an older version are ignored rather than misread
+     */
+    static final int MODEL_FORMAT_VERSION = 1;
 
     static void createTables(SQLiteDatabase db) {
         db.execSQL("CREATE TABLE " + TABLE_NAME + " ("
@@ -23,7 +38,9 @@ public class StatsTable {
                 + " type            INTEGER DEFAULT 0,"       // The type of the stats. TopPost, followers, etc..
                 + " timeframe       INTEGER DEFAULT 0,"       // This could be days, week, years - It's an enum
                 + " date            TEXT NOT NULL,"
-                + " jsonData        TEXT NOT NULL,"
+                + " modelData       BLOB NOT NULL,"           // The parsed stats model, serialized
+                + " modelVersion    INTEGER NOT NULL,"        // MODEL_FORMAT_VERSION when the row was written
+                + " dataSize        INTEGER DEFAULT 0,"       // Size of modelData in bytes
                 + " maxResult       INTEGER DEFAULT 0,"
                 + " page            INTEGER DEFAULT 0,"
                 + " timestamp       INTEGER NOT NULL,"        // The unix timestamp of the response
@@ -40,8 +57,11 @@ public class StatsTable {
         createTables(db);
     }
 
-
-    public static String getStats(final Context ctx, final int blogId, final StatsTimeframe timeframe, final String date,
+    /*
+     * returns the cached model for the passed section, or null if there isn't a fresh one - the model is
+     * stored already parsed so no JSON is parsed here
+     */
+    public static BaseStatsModel getStats(final Context ctx, final int blogId, final StatsTimeframe timeframe, final String date,
                                   final StatsEndpointsEnum sectionToUpdate, final int maxResultsRequested, final int pageRequested) {
         if (ctx == null) {
             AppLog.e(AppLog.T.STATS, "Cannot insert a null stats since the passed context is null. Context is required " +
@@ -49,7 +69,7 @@ public class StatsTable {
             return null;
         }
 
-        String sql = "SELECT *  FROM " + TABLE_NAME + " WHERE blogID = ? "
+        String sql = "SELECT id, modelData, modelVersion, timestamp FROM " + TABLE_NAME + " WHERE blogID = ? "
                 + " AND type=?"
                 + " AND timeframe=?"
                 + " AND date=?"
@@ -71,7 +91,7 @@ public class StatsTable {
 
         try {
             if (cursor != null && cursor.moveToFirst()) {
-                long timestamp  = cursor.getLong(cursor.getColumnIndex("timestamp"));
+                long timestamp  = cursor.getLong(3);
                 long currentTime = System.currentTimeMillis();
                 long deltaMS = currentTime - timestamp;
                 if (deltaMS < 0) {
@@ -85,7 +105,17 @@ public class StatsTable {
                     return null; // cache is expired
                 }
 
-                return cursor.getString(cursor.getColumnIndex("jsonData"));
+                if (cursor.getInt(2) != MODEL_FORMAT_VERSION) {
+                    return null; // written by a version with different models
+                }
+
+                BaseStatsModel model = deserializeModel(cursor.getBlob(1));
+                if (model == null) {
+                    // unreadable, remove it so it's replaced by the next response
+                    StatsDatabaseHelper.getWritableDb(ctx).delete(TABLE_NAME, "id=?",
+                            new String[]{Long.toString(cursor.getLong(0))});
+                }
+                return model;
             } else {
                 return null;
             }
@@ -100,7 +130,7 @@ public class StatsTable {
 
     public static void insertStats(final Context ctx, final int blogId, final StatsTimeframe timeframe, final String date,
                                    final StatsEndpointsEnum sectionToUpdate, final int maxResultsRequested, final int pageRequested,
-                                   final String jsonResponse, final long responseTimestamp) {
+                                   final BaseStatsModel model, final long responseTimestamp) {
 
         if (ctx == null) {
             AppLog.e(AppLog.T.STATS, "Cannot insert a null stats since the passed context is null. Context is required " +
@@ -108,36 +138,43 @@ public class StatsTable {
             return;
         }
 
+        byte[] modelData = serializeModel(model);
+        if (modelData == null) {
+            return;
+        }
+
         /*
          * Android's CursorWindow has a max size of 2MB per row which can be exceeded
-         * with a very large text column, causing an IllegalStateException when the
-         * row is read - prevent this by limiting the amount of text that's stored in
-         * the text column - note that this situation very rarely occurs
+         * with a very large blob column, causing an IllegalStateException when the
+         * row is read - prevent this by limiting the size of the data that's stored in
+         * the blob column - note that this situation very rarely occurs
          * https://github.com/android/platform_frameworks_base/blob/master/core/res/res/values/config.xml#L1268
          * https://github.com/android/platform_frameworks_base/blob/3bdbf644d61f46b531838558fabbd5b990fc4913/core/java/android/database/CursorWindow.java#L103
          */
-
-        //Check if the response document from the server is less than 1.8MB. getBytes uses UTF-8 on Android.
-        if (jsonResponse.getBytes().length > MAX_RESPONSE_LEN) {
-            AppLog.w(AppLog.T.STATS, "Stats JSON response length > max allowed length of 1.8MB. Current response will not be stored in cache.");
+        if (modelData.length > MAX_RESPONSE_LEN) {
+            AppLog.w(AppLog.T.STATS, "Stats model size > max allowed length of 1.8MB. Current model will not be stored in cache.");
             return;
         }
 
         SQLiteDatabase db = StatsDatabaseHelper.getWritableDb(ctx);
         db.beginTransaction();
         SQLiteStatement stmt = db.compileStatement("INSERT INTO " + TABLE_NAME + " (blogID, type, timeframe, date, " +
-                "jsonData, maxResult, page, timestamp) VALUES (?1,?2,?3,?4,?5,?6,?7,?8)");
+                "modelData, modelVersion, dataSize, maxResult, page, timestamp) VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10)");
         try {
             stmt.bindLong(1, blogId);
             stmt.bindLong(2, sectionToUpdate.ordinal());
             stmt.bindLong(3, timeframe.ordinal());
             stmt.bindString(4, date);
-            stmt.bindString(5, jsonResponse);
-            stmt.bindLong(6, maxResultsRequested);
-            stmt.bindLong(7, pageRequested);
-            stmt.bindLong(8, responseTimestamp);
+            stmt.bindBlob(5, modelData);
+            stmt.bindLong(6, MODEL_FORMAT_VERSION);
+            stmt.bindLong(7, modelData.length);
+            stmt.bindLong(8, maxResultsRequested);
+            stmt.bindLong(9, pageRequested);
+            stmt.bindLong(10, responseTimestamp);
             stmt.execute();
 
+            trimBlogCache(db, blogId);
+
             db.setTransactionSuccessful();
         } finally {
             db.endTransaction();
@@ -145,6 +182,95 @@ public class StatsTable {
         }
     }
 
+    /**
+     * Returns the number of bytes used by the cached stats of the passed blog
+     */
+    public static long getCacheSizeForBlog(final Context ctx, final int blogId) {
+        if (ctx == null) {
+            return 0;
+        }
+        return getCacheSizeForBlog(StatsDatabaseHelper.getReadableDb(ctx), blogId);
+    }
+
+    private static long getCacheSizeForBlog(SQLiteDatabase db, final int blogId) {
+        return SqlUtils.longForQuery(db, "SELECT IFNULL(SUM(dataSize), 0) FROM " + TABLE_NAME + " WHERE blogID=?",
+                new String[]{Integer.toString(blogId)});
+    }
+
+    /*
+     * removes the blog's least recently updated sections until its cache fits in MAX_BLOG_CACHE_BYTES
+     */
+    private static void trimBlogCache(SQLiteDatabase db, final int blogId) {
+        long cacheSize = getCacheSizeForBlog(db, blogId);
+        if (cacheSize <= MAX_BLOG_CACHE_BYTES) {
+            return;
+        }
+
+        String[] args = {Integer.toString(blogId)};
+        Cursor cursor = db.rawQuery("SELECT id, dataSize FROM " + TABLE_NAME + " WHERE blogID=? ORDER BY timestamp",
+                args);
+        int numDeleted = 0;
+        try {
+            // always keep the newest row, which is the one just inserted
+            while (cacheSize > MAX_BLOG_CACHE_BYTES && cursor.moveToNext() && !cursor.isLast()) {
+                db.delete(TABLE_NAME, "id=?", new String[]{Long.toString(cursor.getLong(0))});
+                cacheSize -= cursor.getLong(1);
+                numDeleted++;
+            }
+        } finally {
+            SqlUtils.closeCursor(cursor);
+        }
+        AppLog.d(AppLog.T.STATS, "Stats cache for localBlogID " + blogId + " trimmed to " + cacheSize + " bytes, "
+                + numDeleted + " sections removed");
+    }
+
+    private static byte[] serializeModel(BaseStatsModel model) {
+        if (model == null) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = null;
+        try {
+            out = new ObjectOutputStream(bytes);
+            out.writeObject(model);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            AppLog.e(AppLog.T.STATS, "Unable to serialize stats model", e);
+            return null;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // nop
+                }
+            }
+        }
+    }
+
+    private static BaseStatsModel deserializeModel(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new ByteArrayInputStream(data));
+            return (BaseStatsModel) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            AppLog.e(AppLog.T.STATS, "Unable to read cached stats model", e);
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // nop
+                }
+            }
+        }
+    }
+
     /**
      *  Delete expired Stats data from StatsDB
      */
@@ -43,17 +43,21 @@ import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 
 import java.io.Serializable;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import de.greenrobot.event.EventBus;
 
 /**
  * Background service to retrieve Stats.
- * Parsing of response(s) and submission of new network calls are done by using a ThreadPoolExecutor with a single thread.
+ * Sections are loaded in parallel - cache reads, submission of new network calls and parsing of response(s) are done
+ * on a small pool of threads, and a section which is already being loaded with the same parameters isn't requested
+ * again.
  */
 
 public class StatsService extends Service {
@@ -203,9 +207,53 @@ public class StatsService extends Service {
         }
     }
 
+    private static final int MAX_THREADS = 3;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
     private int mServiceStartId;
-    private final LinkedList<Request<JSONObject>> mStatsNetworkRequests = new LinkedList<>();
-    private final ThreadPoolExecutor singleThreadNetworkHandler = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+    // sections being loaded, keyed by makeRequestKey()
+    private final Map<String, SectionRequest> mSectionRequests = new HashMap<>();
+    private final ThreadPoolExecutor mStatsExecutor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+            KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+    private final Map<StatsEndpointsEnum, SectionTimings> mSectionTimings = new EnumMap<>(StatsEndpointsEnum.class);
+
+    /*
+     * a section load in progress, shared by every request for the same section & parameters
+     */
+    private static class SectionRequest {
+        final String key;
+        final StatsEndpointsEnum section;
+        final long startTime = System.currentTimeMillis();
+        Request<JSONObject> networkRequest;
+
+        SectionRequest(String key, StatsEndpointsEnum section) {
+            this.key = key;
+            this.section = section;
+        }
+    }
+
+    /*
+     * load times of a section since the service was created
+     */
+    private static class SectionTimings {
+        int count;
+        long totalMs;
+        long maxMs;
+        long totalParseMs;
+
+        void add(long elapsedMs, long parseMs) {
+            count++;
+            totalMs += elapsedMs;
+            maxMs = Math.max(maxMs, elapsedMs);
+            totalParseMs += parseMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d loads, %d ms avg, %d ms max, %d ms avg parse", count, totalMs / count, maxMs,
+                    totalParseMs / count);
+        }
+    }
 
     @Override
     public void onCreate() {
@@ -216,6 +264,8 @@ public class StatsService extends Service {
     @Override
     public void onDestroy() {
         stopRefresh();
+        mStatsExecutor.shutdown();
+        logSectionTimings();
         AppLog.i(T.STATS, "service destroyed");
         super.onDestroy();
     }
@@ -270,10 +320,23 @@ public class StatsService extends Service {
         this.mServiceStartId = startId;
         for (int i=0; i < sectionFromIntent.length; i++){
             final StatsEndpointsEnum currentSectionsToUpdate = StatsEndpointsEnum.values()[sectionFromIntent[i]];
-            singleThreadNetworkHandler.submit(new Thread() {
+            final SectionRequest sectionRequest;
+            String key = makeRequestKey(blogId, period, requestedDate, currentSectionsToUpdate, maxResultsRequested,
+                    pageRequested);
+            synchronized (mSectionRequests) {
+                if (mSectionRequests.containsKey(key)) {
+                    // the pending request will post the same update event
+                    AppLog.d(T.STATS, "Stats request is already in progress: " + key);
+                    continue;
+                }
+                sectionRequest = new SectionRequest(key, currentSectionsToUpdate);
+                mSectionRequests.put(key, sectionRequest);
+            }
+            mStatsExecutor.submit(new Runnable() {
                 @Override
                 public void run() {
-                    startTasks(blogId, period, requestedDate, currentSectionsToUpdate, maxResultsRequested, pageRequested);
+                    startTasks(sectionRequest, blogId, period, requestedDate, currentSectionsToUpdate,
+                            maxResultsRequested, pageRequested);
                 }
             });
         }
@@ -282,26 +345,35 @@ public class StatsService extends Service {
     }
 
     private void stopRefresh() {
-        synchronized (mStatsNetworkRequests) {
+        synchronized (mSectionRequests) {
             this.mServiceStartId = 0;
-            for (Request<JSONObject> req : mStatsNetworkRequests) {
+            for (SectionRequest sectionRequest : mSectionRequests.values()) {
+                Request<JSONObject> req = sectionRequest.networkRequest;
                 if (req != null && !req.hasHadResponseDelivered() && !req.isCanceled()) {
                     req.cancel();
                 }
             }
-            mStatsNetworkRequests.clear();
+            mSectionRequests.clear();
         }
     }
 
+    private static String makeRequestKey(final String blogId, final StatsTimeframe timeframe, final String date,
+                                         final StatsEndpointsEnum section, final int maxResultsRequested,
+                                         final int pageRequested) {
+        return blogId + "/" + timeframe.name() + "/" + date + "/" + section.name() + "/" + maxResultsRequested
+                + "/" + pageRequested;
+    }
+
     // A fast way to disable caching during develop or when we want to disable it
     // under some circumstances. Always true for now.
     private boolean isCacheEnabled() {
         return true;
     }
 
-    // Check if we already have Stats
-    private String getCachedStats(final String blogId, final StatsTimeframe timeframe, final String date, final StatsEndpointsEnum sectionToUpdate,
-                                  final int maxResultsRequested, final int pageRequested) {
+    // Check if we already have Stats - they're cached already parsed, so no JSON is parsed here
+    private BaseStatsModel getCachedStats(final String blogId, final StatsTimeframe timeframe, final String date,
+                                          final StatsEndpointsEnum sectionToUpdate,
+                                          final int maxResultsRequested, final int pageRequested) {
         if (!isCacheEnabled()) {
             return null;
         }
@@ -311,29 +383,25 @@ public class StatsService extends Service {
         return StatsTable.getStats(this, localTableBlogId, timeframe, date, sectionToUpdate, maxResultsRequested, pageRequested);
     }
 
-    private void startTasks(final String blogId, final StatsTimeframe timeframe, final String date, final StatsEndpointsEnum sectionToUpdate,
+    private void startTasks(final SectionRequest sectionRequest, final String blogId, final StatsTimeframe timeframe,
+                            final String date, final StatsEndpointsEnum sectionToUpdate,
                             final int maxResultsRequested, final int pageRequested) {
 
         EventBus.getDefault().post(new StatsEvents.UpdateStatusChanged(true));
 
-        String cachedStats = getCachedStats(blogId, timeframe, date, sectionToUpdate, maxResultsRequested, pageRequested);
+        long loadStart = System.currentTimeMillis();
+        BaseStatsModel cachedStats = getCachedStats(blogId, timeframe, date, sectionToUpdate, maxResultsRequested, pageRequested);
         if (cachedStats != null) {
-            BaseStatsModel mResponseObjectModel;
-                try {
-                    JSONObject response = new JSONObject(cachedStats);
-                    mResponseObjectModel = StatsUtils.parseResponse(sectionToUpdate, blogId, response);
+            long loadMs = System.currentTimeMillis() - loadStart;
 
-                    EventBus.getDefault().post(
-                            sectionToUpdate.getEndpointUpdateEvent(blogId, timeframe, date,
-                                    maxResultsRequested, pageRequested, mResponseObjectModel)
-                    );
+            EventBus.getDefault().post(
+                    sectionToUpdate.getEndpointUpdateEvent(blogId, timeframe, date,
+                            maxResultsRequested, pageRequested, cachedStats)
+            );
 
-                    updateWidgetsUI(blogId, sectionToUpdate, timeframe, date, pageRequested, mResponseObjectModel);
-                    checkAllRequestsFinished(null);
-                    return;
-                } catch (JSONException e) {
-                    AppLog.e(AppLog.T.STATS, e);
-                }
+            updateWidgetsUI(blogId, sectionToUpdate, timeframe, date, pageRequested, cachedStats);
+            checkAllRequestsFinished(sectionRequest, "cache", loadMs);
+            return;
         }
 
         final RestClientUtils restClientUtils = WordPress.getRestClientUtilsV1_1();
@@ -344,12 +412,17 @@ public class StatsService extends Service {
 */
 
 
-        RestListener vListener = new RestListener(sectionToUpdate, blogId, timeframe, date, maxResultsRequested, pageRequested);
+        RestListener vListener = new RestListener(sectionRequest, sectionToUpdate, blogId, timeframe, date,
+                maxResultsRequested, pageRequested);
 
         final String periodDateMaxPlaceholder =  "?period=%s&date=%s&max=%s";
 
         String path = String.format("/sites/%s/stats/" + sectionToUpdate.getRestEndpointPath(), blogId);
-        synchronized (mStatsNetworkRequests) {
+        synchronized (mSectionRequests) {
+            if (mSectionRequests.get(sectionRequest.key) != sectionRequest) {
+                // the refresh was stopped while the cache was being read
+                return;
+            }
             switch (sectionToUpdate) {
                 case VISITS:
                     path = String.format(path + "?unit=%s&quantity=15&date=%s", period, date);
@@ -411,48 +484,15 @@ public class StatsService extends Service {
                     break;
                 default:
                     AppLog.i(T.STATS, "Called an update of Stats of unknown section!?? " + sectionToUpdate.name());
+                    mSectionRequests.remove(sectionRequest.key);
                     return;
             }
 
-            // We need to check if we already have the same request in the queue
-            if (checkIfRequestShouldBeEnqueued(restClientUtils, path)) {
-                AppLog.d(AppLog.T.STATS, "Enqueuing the following Stats request " + path);
-                Request<JSONObject> currentRequest = restClientUtils.get(path, vListener, vListener);
-                vListener.currentRequest = currentRequest;
-                currentRequest.setTag("StatsCall");
-                mStatsNetworkRequests.add(currentRequest);
-            } else {
-                AppLog.d(AppLog.T.STATS, "Stats request is already in the queue:" + path);
-            }
-        }
-    }
-
-    /**
-     *  This method checks if we already have the same request in the Queue. No need to re-enqueue a new request
-     *  if one with the same parameters is there.
-     *
-     *  This method is a kind of tricky, since it does the comparison by checking the origin URL of requests.
-     *  To do that we had to get the fullURL of the new request by calling a method of the REST client `getAbsoluteURL`.
-     *  That's good for now, but could lead to errors if the RestClient changes the way the URL is constructed internally,
-     *  by calling `getAbsoluteURL`.
-     *
-     *  - Another approach would involve the get of the requests ErrorListener and the check Listener's parameters.
-     *  - Cleanest approach is for sure to create a new class that extends Request<JSONObject> and stores parameters for later comparison,
-     *  unfortunately we have to change the REST Client and RestClientUtils a lot if we want follow this way...
-     *
-     */
-    private boolean checkIfRequestShouldBeEnqueued(final RestClientUtils restClientUtils, String path) {
-        String absoluteRequestPath = restClientUtils.getRestClient().getAbsoluteURL(path);
-        Iterator<Request<JSONObject>> it = mStatsNetworkRequests.iterator();
-        while (it.hasNext()) {
-            Request<JSONObject> req = it.next();
-            if (!req.hasHadResponseDelivered() && !req.isCanceled() &&
-                    absoluteRequestPath.equals(req.getOriginUrl())) {
-                return false;
-            }
+            AppLog.d(AppLog.T.STATS, "Enqueuing the following Stats request " + path);
+            Request<JSONObject> currentRequest = restClientUtils.get(path, vListener, vListener);
+            currentRequest.setTag("StatsCall");
+            sectionRequest.networkRequest = currentRequest;
         }
-
-        return true;
     }
 
     // Call an updates on the installed widgets if the blog is the primary, the endpoint is Visits
@@ -509,11 +549,13 @@ public class StatsService extends Service {
         private final StatsTimeframe mTimeframe;
         final StatsEndpointsEnum mEndpointName;
         private final String mDate;
-        private Request<JSONObject> currentRequest;
+        private final SectionRequest mSectionRequest;
         private final int mMaxResultsRequested, mPageRequested;
 
-        public RestListener(StatsEndpointsEnum endpointName, String blogId, StatsTimeframe timeframe, String date,
+        public RestListener(SectionRequest sectionRequest, StatsEndpointsEnum endpointName, String blogId,
+                            StatsTimeframe timeframe, String date,
                             final int maxResultsRequested, final int pageRequested) {
+            mSectionRequest = sectionRequest;
             mRequestBlogId = blogId;
             mTimeframe = timeframe;
             mEndpointName = endpointName;
@@ -524,21 +566,24 @@ public class StatsService extends Service {
 
         @Override
         public void onResponse(final JSONObject response) {
-            singleThreadNetworkHandler.submit(new Thread() {
+            mStatsExecutor.submit(new Runnable() {
                 @Override
                 public void run() {
                     // do other stuff here
                     BaseStatsModel mResponseObjectModel = null;
+                    long parseMs = 0;
                     if (response != null) {
                         try {
                             //AppLog.d(T.STATS, response.toString());
+                            long parseStart = System.currentTimeMillis();
                             mResponseObjectModel = StatsUtils.parseResponse(mEndpointName, mRequestBlogId, response);
+                            parseMs = System.currentTimeMillis() - parseStart;
                             if (isCacheEnabled()) {
                                 int parsedBlogID = Integer.parseInt(mRequestBlogId);
                                 int localTableBlogId = WordPress.wpDB.getLocalTableBlogIdForRemoteBlogId(parsedBlogID);
                                 StatsTable.insertStats(StatsService.this, localTableBlogId, mTimeframe, mDate, mEndpointName,
                                         mMaxResultsRequested, mPageRequested,
-                                        response.toString(), System.currentTimeMillis());
+                                        mResponseObjectModel, System.currentTimeMillis());
                             }
                         } catch (JSONException e) {
                             AppLog.e(AppLog.T.STATS, e);
@@ -551,14 +596,14 @@ public class StatsService extends Service {
                     );
 
                     updateWidgetsUI(mRequestBlogId, mEndpointName, mTimeframe, mDate, mPageRequested, mResponseObjectModel);
-                    checkAllRequestsFinished(currentRequest);
+                    checkAllRequestsFinished(mSectionRequest, "network", parseMs);
                 }
             });
         }
 
         @Override
         public void onErrorResponse(final VolleyError volleyError) {
-            singleThreadNetworkHandler.submit(new Thread() {
+            mStatsExecutor.submit(new Runnable() {
                 @Override
                 public void run() {
                     AppLog.e(T.STATS, "Error while loading Stats!");
@@ -585,7 +630,7 @@ public class StatsService extends Service {
                             mMaxResultsRequested, mPageRequested, volleyError));
 
                     updateWidgetsUI(mRequestBlogId, mEndpointName, mTimeframe, mDate, mPageRequested, mResponseObjectModel);
-                    checkAllRequestsFinished(currentRequest);
+                    checkAllRequestsFinished(mSectionRequest, "error", 0);
                 }
             });
         }
@@ -602,13 +647,33 @@ public class StatsService extends Service {
     }
 
 
-    private void checkAllRequestsFinished(Request<JSONObject> req) {
-        synchronized (mStatsNetworkRequests) {
-            if (req != null) {
-                mStatsNetworkRequests.remove(req);
+    private void checkAllRequestsFinished(SectionRequest sectionRequest, String source, long parseMs) {
+        long elapsedMs = System.currentTimeMillis() - sectionRequest.startTime;
+        AppLog.d(T.STATS, "Stats section " + sectionRequest.section.name() + " loaded from " + source + " in "
+                + elapsedMs + " ms (" + parseMs + " ms parsing or reading cache)");
+        synchronized (mSectionTimings) {
+            SectionTimings timings = mSectionTimings.get(sectionRequest.section);
+            if (timings == null) {
+                timings = new SectionTimings();
+                mSectionTimings.put(sectionRequest.section, timings);
+            }
+            timings.add(elapsedMs, parseMs);
+        }
+
+        synchronized (mSectionRequests) {
+            if (mSectionRequests.get(sectionRequest.key) == sectionRequest) {
+                mSectionRequests.remove(sectionRequest.key);
             }
-            boolean isStillWorking = mStatsNetworkRequests.size() > 0 || singleThreadNetworkHandler.getQueue().size() > 0;
+            boolean isStillWorking = mSectionRequests.size() > 0;
             EventBus.getDefault().post(new StatsEvents.UpdateStatusChanged(isStillWorking));
         }
     }
-}
\ No newline at end of file
+
+    private void logSectionTimings() {
+        synchronized (mSectionTimings) {
+            for (Map.Entry<StatsEndpointsEnum, SectionTimings> entry : mSectionTimings.entrySet()) {
+                AppLog.d(T.STATS, "Stats section " + entry.getKey().name() + ": " + entry.getValue());
+            }
+        }
+    }
+}
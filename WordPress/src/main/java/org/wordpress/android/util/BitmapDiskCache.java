@@ -0,0 +1,403 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Process;
+import android.text.TextUtils;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Second tier of the bitmap cache - stores the compressed bytes of the bitmaps Volley decoded at display size,
+ * so an image evicted from memory (or lost when the process dies) can be decoded again from disk rather than
+ * downloaded again. Entries are evicted least recently used first once the directory exceeds its size in bytes.
+ *
+ * Entries are keyed by the image url with its size params removed plus the requested width rounded up to a
+ * bucket, so the slightly different sizes the same avatar or featured image is requested at share one file.
+ * An entry is only used if it's at least as wide as the requested image.
+ *
+ * Volley looks up its image cache on the main thread, so image requests are served from this cache on Volley's
+ * cache thread instead, before they reach the network - see {@link ImageRequestCache}. {@link #getData} and
+ * {@link #get} read the file on the calling thread.
+ */
+public class BitmapDiskCache {
+    private static final int WIDTH_BUCKET = 128;
+    private static final int JPEG_QUALITY = 90;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Volley's ImageLoader keys are "#W<maxWidth>#H<maxHeight>#S<scaleType><url>"
+    private static final String VOLLEY_WIDTH_PREFIX = "#W";
+    private static final String VOLLEY_HEIGHT_PREFIX = "#H";
+
+    private final File mDirectory;
+    private final long mMaxBytes;
+    private final ExecutorService mWriteExecutor;
+
+    // file name without the width > entry, in access order, guarded by "this"
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(64, 0.75f, true);
+    private long mTotalBytes;
+    private volatile boolean mIsIndexLoaded;
+
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+    private final AtomicLong mDecodeCount = new AtomicLong();
+    private final AtomicLong mTotalDecodeMs = new AtomicLong();
+
+    private static class Entry {
+        final int width;
+        final long bytes;
+
+        Entry(int width, long bytes) {
+            this.width = width;
+            this.bytes = bytes;
+        }
+    }
+
+    /*
+     * the disk key for a Volley cache key along with the width the bitmap was requested at
+     */
+    static class DiskKey {
+        final String name;
+        final int width;
+
+        DiskKey(String name, int width) {
+            this.name = name;
+            this.width = width;
+        }
+    }
+
+    public BitmapDiskCache(File directory, long maxBytes) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+        mWriteExecutor = newExecutor("BitmapDiskCache write");
+        mWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                loadIndex();
+            }
+        });
+    }
+
+    private static ExecutorService newExecutor(final String threadName) {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, threadName);
+            }
+        });
+    }
+
+    /*
+     * returns the compressed bytes stored for the passed Volley cache key, or null if there isn't an entry wide
+     * enough - this reads the file on the calling thread
+     */
+    public byte[] getData(String cacheKey) {
+        DiskKey diskKey = makeDiskKey(cacheKey);
+        Entry entry = findEntry(diskKey);
+        if (entry == null) {
+            mMissCount.incrementAndGet();
+            return null;
+        }
+
+        byte[] data = readFile(getFile(diskKey.name, entry.width));
+        if (data == null) {
+            // removed since it was looked up
+            remove(diskKey.name);
+            mMissCount.incrementAndGet();
+            return null;
+        }
+        mHitCount.incrementAndGet();
+        return data;
+    }
+
+    private static byte[] readFile(File file) {
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            byte[] data = new byte[(int) file.length()];
+            int read = 0;
+            while (read < data.length) {
+                int count = in.read(data, read, data.length - read);
+                if (count == -1) {
+                    return null;
+                }
+                read += count;
+            }
+            return data;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // nop
+                }
+            }
+        }
+    }
+
+    /*
+     * returns the bitmap stored for the passed Volley cache key, or null if there isn't one wide enough - this
+     * reads and decodes the file on the calling thread
+     */
+    public Bitmap get(String cacheKey) {
+        DiskKey diskKey = makeDiskKey(cacheKey);
+        if (findEntry(diskKey) == null) {
+            mMissCount.incrementAndGet();
+            return null;
+        }
+        return decode(diskKey);
+    }
+
+    private Entry findEntry(DiskKey diskKey) {
+        if (diskKey == null || !mIsIndexLoaded) {
+            return null;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = mEntries.get(diskKey.name);
+        }
+        if (entry == null || entry.width < diskKey.width) {
+            return null;
+        }
+        return entry;
+    }
+
+    private Bitmap decode(DiskKey diskKey) {
+        Entry entry = findEntry(diskKey);
+        if (entry == null) {
+            // removed since it was looked up
+            mMissCount.incrementAndGet();
+            return null;
+        }
+
+        long start = System.currentTimeMillis();
+        Bitmap bitmap = BitmapFactory.decodeFile(getFile(diskKey.name, entry.width).getPath());
+        if (bitmap == null) {
+            // the file was deleted or is corrupt
+            remove(diskKey.name);
+            mMissCount.incrementAndGet();
+            return null;
+        }
+        mDecodeCount.incrementAndGet();
+        mTotalDecodeMs.addAndGet(System.currentTimeMillis() - start);
+        mHitCount.incrementAndGet();
+        return bitmap;
+    }
+
+    /*
+     * stores the passed bitmap in the background - entries narrower than the one already stored are skipped
+     */
+    public void put(String cacheKey, final Bitmap bitmap) {
+        final DiskKey diskKey = makeDiskKey(cacheKey);
+        if (diskKey == null || bitmap == null) {
+            return;
+        }
+        mWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(diskKey.name, bitmap);
+            }
+        });
+    }
+
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    public long getAverageDecodeMs() {
+        long count = mDecodeCount.get();
+        return count > 0 ? mTotalDecodeMs.get() / count : 0;
+    }
+
+    public synchronized long getSizeInBytes() {
+        return mTotalBytes;
+    }
+
+    private void write(String name, Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        Entry existing;
+        synchronized (this) {
+            existing = mEntries.get(name);
+        }
+        if (existing != null && existing.width >= width) {
+            return;
+        }
+
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            AppLog.w(T.UTILS, "bitmap disk cache > unable to create " + mDirectory);
+            return;
+        }
+
+        // write to a temp file first so a partly written image is never read
+        File tempFile = new File(mDirectory, name + TEMP_SUFFIX);
+        FileOutputStream out = null;
+        boolean compressed;
+        try {
+            out = new FileOutputStream(tempFile);
+            if (bitmap.hasAlpha()) {
+                compressed = bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            } else {
+                compressed = bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            }
+        } catch (IOException e) {
+            AppLog.e(T.UTILS, e);
+            compressed = false;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    compressed = false;
+                }
+            }
+        }
+
+        File file = getFile(name, width);
+        if (!compressed || !tempFile.renameTo(file)) {
+            tempFile.delete();
+            return;
+        }
+
+        if (existing != null) {
+            remove(name);
+        }
+        synchronized (this) {
+            mEntries.put(name, new Entry(width, file.length()));
+            mTotalBytes += file.length();
+        }
+        trimToSize(mMaxBytes);
+    }
+
+    private void trimToSize(long maxBytes) {
+        int numRemoved = 0;
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+            while (mTotalBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                getFile(eldest.getKey(), eldest.getValue().width).delete();
+                mTotalBytes -= eldest.getValue().bytes;
+                iterator.remove();
+                numRemoved++;
+            }
+        }
+        if (numRemoved > 0) {
+            AppLog.d(T.UTILS, "bitmap disk cache > removed " + numRemoved + " entries, " + mTotalBytes + " bytes left");
+        }
+    }
+
+    private void remove(String name) {
+        synchronized (this) {
+            Entry entry = mEntries.remove(name);
+            if (entry != null) {
+                getFile(name, entry.width).delete();
+                mTotalBytes -= entry.bytes;
+            }
+        }
+    }
+
+    /*
+     * builds the index from the files left by previous sessions, oldest first so they're evicted first
+     */
+    private void loadIndex() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            Arrays.sort(files, new Comparator<File>() {
+                @Override
+                public int compare(File lhs, File rhs) {
+                    long diff = lhs.lastModified() - rhs.lastModified();
+                    return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+                }
+            });
+            synchronized (this) {
+                for (File file : files) {
+                    String fileName = file.getName();
+                    int dot = fileName.lastIndexOf('.');
+                    int width = dot > 0 ? StringUtils.stringToInt(fileName.substring(dot + 1)) : 0;
+                    if (width <= 0) {
+                        // leftover temp file or something we didn't write
+                        file.delete();
+                        continue;
+                    }
+                    String name = fileName.substring(0, dot);
+                    Entry existing = mEntries.put(name, new Entry(width, file.length()));
+                    if (existing != null) {
+                        getFile(name, existing.width).delete();
+                        mTotalBytes -= existing.bytes;
+                    }
+                    mTotalBytes += file.length();
+                }
+            }
+        }
+        mIsIndexLoaded = true;
+        trimToSize(mMaxBytes);
+    }
+
+    private File getFile(String name, int width) {
+        return new File(mDirectory, name + "." + width);
+    }
+
+    /*
+     * returns the disk key for the passed Volley cache key, or null if it's not a key for a remote image - the
+     * "h" param is kept in the key since without a width the stored image can't be checked against it
+     */
+    static DiskKey makeDiskKey(String cacheKey) {
+        if (cacheKey == null || !cacheKey.startsWith(VOLLEY_WIDTH_PREFIX)) {
+            return null;
+        }
+        int heightPos = cacheKey.indexOf(VOLLEY_HEIGHT_PREFIX);
+        int urlPos = cacheKey.indexOf("http", heightPos);
+        if (heightPos == -1 || urlPos == -1) {
+            return null;
+        }
+
+        int width = StringUtils.stringToInt(cacheKey.substring(VOLLEY_WIDTH_PREFIX.length(), heightPos));
+        String url = cacheKey.substring(urlPos);
+
+        // strip the params which only scale the image, keeping the largest requested width
+        StringBuilder sizelessUrl = new StringBuilder(url.length());
+        int queryPos = url.indexOf('?');
+        if (queryPos == -1) {
+            sizelessUrl.append(url);
+        } else {
+            sizelessUrl.append(url, 0, queryPos);
+            char separator = '?';
+            for (String param : TextUtils.split(url.substring(queryPos + 1), "&")) {
+                if (param.startsWith("w=") || param.startsWith("s=")) {
+                    width = Math.max(width, StringUtils.stringToInt(param.substring(2)));
+                } else {
+                    sizelessUrl.append(separator).append(param);
+                    separator = '&';
+                }
+            }
+        }
+
+        int bucket = ((Math.max(width, 1) + WIDTH_BUCKET - 1) / WIDTH_BUCKET) * WIDTH_BUCKET;
+        return new DiskKey(StringUtils.getMd5Hash(bucket + ":" + sizelessUrl), width);
+    }
+}
@@ -1,13 +1,31 @@
 package org.wordpress.android.util;
 
+import android.content.ComponentCallbacks2;
 import android.graphics.Bitmap;
 import android.support.v4.util.LruCache;
 
 import com.android.volley.toolbox.ImageLoader.ImageCache;
 
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.concurrent.atomic.AtomicLong;
+
 public class BitmapLruCache extends LruCache<String, Bitmap> implements ImageCache {
+    private final BitmapDiskCache mDiskCache;
+    private final AtomicLong mMemoryHitCount = new AtomicLong();
+    private final AtomicLong mMemoryMissCount = new AtomicLong();
+
     public BitmapLruCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /*
+     * bitmaps put in this cache are also stored in the passed disk cache (if any), which a DiskCacheImageLoader
+     * reads them back from on Volley's cache thread rather than downloading them again
+     */
+    public BitmapLruCache(int maxSize, BitmapDiskCache diskCache) {
         super(maxSize);
+        mDiskCache = diskCache;
     }
 
     @Override
@@ -20,11 +38,74 @@ public class BitmapLruCache extends LruCache<String, Bitmap> implements ImageCac
 
     @Override
     public Bitmap getBitmap(String key) {
-        return this.get(key);
+        Bitmap bitmap = this.get(key);
+        if (bitmap != null) {
+            mMemoryHitCount.incrementAndGet();
+            return bitmap;
+        }
+        mMemoryMissCount.incrementAndGet();
+        return null;
     }
 
     @Override
     public void putBitmap(String key, Bitmap bitmap) {
         this.put(key, bitmap);
+        if (mDiskCache != null) {
+            mDiskCache.put(key, bitmap);
+        }
+    }
+
+    /*
+     * evicts part of the memory cache depending on how short the system is of memory, rather than all of
+     * it - the evicted bitmaps can still be decoded from the disk cache, which isn't affected
+     */
+    public void trimMemory(int level) {
+        switch (level) {
+            case ComponentCallbacks2.TRIM_MEMORY_COMPLETE:
+                evictAll();
+                BitmapPool.evictAll();
+                break;
+            case ComponentCallbacks2.TRIM_MEMORY_MODERATE:
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL:
+                trimToSize(maxSize() / 4);
+                BitmapPool.evictAll();
+                break;
+            case ComponentCallbacks2.TRIM_MEMORY_BACKGROUND:
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW:
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE:
+                trimToSize(maxSize() / 2);
+                break;
+            default:
+                return;
+        }
+        logStats();
+    }
+
+    public long getMemoryHitCount() {
+        return mMemoryHitCount.get();
+    }
+
+    public long getMemoryMissCount() {
+        return mMemoryMissCount.get();
+    }
+
+    public BitmapDiskCache getDiskCache() {
+        return mDiskCache;
+    }
+
+    public void logStats() {
+        long hits = mMemoryHitCount.get();
+        long lookups = hits + mMemoryMissCount.get();
+        String stats = String.format("bitmap cache > memory %d/%d KB, %d%% hits of %d lookups",
+                size(), maxSize(), lookups > 0 ? hits * 100 / lookups : 0, lookups);
+        if (mDiskCache != null) {
+            long diskHits = mDiskCache.getHitCount();
+            long diskLookups = diskHits + mDiskCache.getMissCount();
+            stats += String.format(", disk %d KB, %d%% hits of %d lookups, %d ms avg decode",
+                    mDiskCache.getSizeInBytes() / 1024, diskLookups > 0 ? diskHits * 100 / diskLookups : 0,
+                    diskLookups, mDiskCache.getAverageDecodeMs());
+        }
+        AppLog.d(T.UTILS, stats);
+        BitmapPool.logStats();
     }
-}
\ No newline at end of file
+}
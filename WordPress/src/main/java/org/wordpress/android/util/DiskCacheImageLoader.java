@@ -0,0 +1,43 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.widget.ImageView.ScaleType;
+
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.ImageLoader;
+import com.android.volley.toolbox.ImageRequest;
+
+/**
+ * ImageLoader whose image requests are keyed by the ImageLoader cache key (which includes the requested
+ * size) rather than the url, so a queue built with an ImageRequestCache serves images missing from the
+ * memory cache from the bitmap disk cache before requesting them from the network
+ */
+public class DiskCacheImageLoader extends ImageLoader {
+    public DiskCacheImageLoader(RequestQueue queue, ImageCache imageCache) {
+        super(queue, imageCache);
+    }
+
+    @Override
+    protected Request<Bitmap> makeImageRequest(String requestUrl, int maxWidth, int maxHeight,
+                                               ScaleType scaleType, final String cacheKey) {
+        return new ImageRequest(requestUrl, new Response.Listener<Bitmap>() {
+            @Override
+            public void onResponse(Bitmap response) {
+                onGetImageSuccess(cacheKey, response);
+            }
+        }, maxWidth, maxHeight, scaleType, Bitmap.Config.RGB_565, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                onGetImageError(cacheKey, error);
+            }
+        }) {
+            @Override
+            public String getCacheKey() {
+                return cacheKey;
+            }
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package org.wordpress.android.util;
+
+import com.android.volley.Cache;
+
+import java.util.Collections;
+
+/**
+ * Volley request cache which serves the image requests made by DiskCacheImageLoader from the bitmap disk
+ * cache - those requests are keyed by their ImageLoader cache key, so they're looked up here on Volley's
+ * cache thread and an image stored on disk is decoded from it rather than downloaded again. Everything
+ * else is passed to the wrapped cache.
+ */
+public class ImageRequestCache implements Cache {
+    private final Cache mCache;
+    private final BitmapDiskCache mDiskCache;
+
+    public ImageRequestCache(Cache cache, BitmapDiskCache diskCache) {
+        mCache = cache;
+        mDiskCache = diskCache;
+    }
+
+    @Override
+    public Entry get(String key) {
+        if (mDiskCache != null && BitmapDiskCache.makeDiskKey(key) != null) {
+            byte[] data = mDiskCache.getData(key);
+            if (data != null) {
+                Entry entry = new Entry();
+                entry.data = data;
+                // the stored image doesn't expire, it's evicted by the disk cache
+                entry.ttl = Long.MAX_VALUE;
+                entry.softTtl = Long.MAX_VALUE;
+                entry.responseHeaders = Collections.emptyMap();
+                return entry;
+            }
+        }
+        return mCache.get(key);
+    }
+
+    @Override
+    public void put(String key, Entry entry) {
+        mCache.put(key, entry);
+    }
+
+    @Override
+    public void initialize() {
+        mCache.initialize();
+    }
+
+    @Override
+    public void invalidate(String key, boolean fullExpire) {
+        mCache.invalidate(key, fullExpire);
+    }
+
+    @Override
+    public void remove(String key) {
+        mCache.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        mCache.clear();
+    }
+}
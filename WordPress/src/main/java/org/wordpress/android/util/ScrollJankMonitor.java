@@ -0,0 +1,107 @@
+package org.wordpress.android.util;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.v7.widget.RecyclerView;
+import android.view.Choreographer;
+
+import org.wordpress.android.util.AppLog.T;
+
+/**
+ * Times the frames drawn while a RecyclerView is scrolling and logs how many of them took longer
+ * than a frame (so were dropped) once the list settles. Frames are timed with Choreographer, so
+ * this does nothing before Jelly Bean.
+ */
+public class ScrollJankMonitor extends RecyclerView.OnScrollListener {
+    private static final long FRAME_INTERVAL_NS = 1000000000L / 60;
+
+    private final T mTag;
+    private final String mName;
+    private FrameTimer mFrameTimer;
+
+    // current scroll
+    private long mFrameCount;
+    private long mJankyFrameCount;
+    private long mDroppedFrameCount;
+    private long mMaxFrameNs;
+
+    // all scrolls since the monitor was created
+    private long mTotalFrameCount;
+    private long mTotalJankyFrameCount;
+
+    public ScrollJankMonitor(T tag, String name) {
+        mTag = tag;
+        mName = name;
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return;
+        }
+        if (newState != RecyclerView.SCROLL_STATE_IDLE) {
+            if (mFrameTimer == null) {
+                mFrameTimer = new FrameTimer();
+                mFrameTimer.start();
+            }
+        } else if (mFrameTimer != null) {
+            mFrameTimer.stop();
+            mFrameTimer = null;
+            logScroll();
+        }
+    }
+
+    private void onFrame(long frameNs) {
+        mFrameCount++;
+        mMaxFrameNs = Math.max(mMaxFrameNs, frameNs);
+        // allow for vsync jitter before counting a frame as janky
+        if (frameNs > FRAME_INTERVAL_NS * 3 / 2) {
+            mJankyFrameCount++;
+            mDroppedFrameCount += (frameNs / FRAME_INTERVAL_NS) - 1;
+        }
+    }
+
+    private void logScroll() {
+        if (mFrameCount == 0) {
+            return;
+        }
+        mTotalFrameCount += mFrameCount;
+        mTotalJankyFrameCount += mJankyFrameCount;
+        AppLog.d(mTag, String.format("%s scroll > %d frames, %d janky (%d dropped), worst %.1f ms - "
+                        + "%.1f%% janky overall", mName, mFrameCount, mJankyFrameCount, mDroppedFrameCount,
+                mMaxFrameNs / 1000000f, 100f * mTotalJankyFrameCount / mTotalFrameCount));
+        mFrameCount = 0;
+        mJankyFrameCount = 0;
+        mDroppedFrameCount = 0;
+        mMaxFrameNs = 0;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private class FrameTimer implements Choreographer.FrameCallback {
+        private long mLastFrameTimeNs;
+        private boolean mIsRunning;
+
+        void start() {
+            mIsRunning = true;
+            mLastFrameTimeNs = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void stop() {
+            mIsRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!mIsRunning) {
+                return;
+            }
+            if (mLastFrameTimeNs != 0) {
+                onFrame(frameTimeNanos - mLastFrameTimeNs);
+            }
+            mLastFrameTimeNs = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.wordpress.android.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits how many uploads run at once to the same host, so media uploaded in parallel doesn't flood a
+ * self-hosted site (or a slow connection) with requests. Callers must release every permit they acquire.
+ */
+public class UploadHostLimiter {
+    public static final int MAX_UPLOADS_PER_HOST = 3;
+
+    private static final Map<String, Semaphore> mHostPermits = new HashMap<>();
+
+    private UploadHostLimiter() {
+        throw new AssertionError();
+    }
+
+    private static Semaphore getPermits(String url) {
+        String host = UrlUtils.getHost(url);
+        synchronized (mHostPermits) {
+            Semaphore permits = mHostPermits.get(host);
+            if (permits == null) {
+                permits = new Semaphore(MAX_UPLOADS_PER_HOST, true);
+                mHostPermits.put(host, permits);
+            }
+            return permits;
+        }
+    }
+
+    /*
+     * blocks until an upload to the host of the passed url is allowed
+     */
+    public static void acquire(String url) throws InterruptedException {
+        getPermits(url).acquire();
+    }
+
+    public static void release(String url) {
+        getPermits(url).release();
+    }
+}
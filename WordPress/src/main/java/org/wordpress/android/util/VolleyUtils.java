@@ -2,9 +2,12 @@ package org.wordpress.android.util;
 
 import android.content.Context;
 
+import com.android.volley.Cache;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
 import com.android.volley.VolleyError;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.DiskBasedCache;
 import com.android.volley.toolbox.HttpStack;
 import com.android.volley.toolbox.ImageRequest;
 
@@ -13,9 +16,13 @@ import org.json.JSONObject;
 import org.wordpress.android.models.Blog;
 import org.wordpress.android.networking.WPDelayedHurlStack;
 
+import java.io.File;
 import java.io.UnsupportedEncodingException;
 
 public class VolleyUtils {
+    // same directory as Volley.newRequestQueue()
+    private static final String VOLLEY_CACHE_DIR = "volley";
+
     /*
      * returns REST API error string from the response in the passed VolleyError
      * for example, returns "already_subscribed" from this response:
@@ -113,4 +120,16 @@ public class VolleyUtils {
     public static HttpStack getHTTPClientStack(final Context ctx, final Blog currentBlog) {
         return new WPDelayedHurlStack(ctx, currentBlog);
     }
+
+    /*
+     * same as Volley.newRequestQueue() except that image requests made by a DiskCacheImageLoader are
+     * served from the passed bitmap disk cache (if any) before going to the network
+     */
+    public static RequestQueue newRequestQueue(Context context, HttpStack stack, BitmapDiskCache diskCache) {
+        File cacheDir = new File(context.getCacheDir(), VOLLEY_CACHE_DIR);
+        Cache cache = new ImageRequestCache(new DiskBasedCache(cacheDir), diskCache);
+        RequestQueue queue = new RequestQueue(cache, new BasicNetwork(stack));
+        queue.start();
+        return queue;
+    }
 }
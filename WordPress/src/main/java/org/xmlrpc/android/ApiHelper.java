@@ -1,6 +1,7 @@
 package org.xmlrpc.android;
 
 import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.os.AsyncTask;
 import android.support.annotation.NonNull;
@@ -35,11 +36,10 @@ import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.CoreEvents;
 import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.MapUtils;
+import org.wordpress.android.util.MediaUtils;
 import org.wordpress.android.util.helpers.MediaFile;
 import org.xmlpull.v1.XmlPullParserException;
 
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -169,15 +169,19 @@ public class ApiHelper {
         }
 
         protected void onPostExecute(Object result) {
-            if (result != null && result instanceof HashMap) {
-                Map<?, ?> postFormats = (HashMap<?, ?>) result;
-                if (postFormats.size() > 0) {
-                    Gson gson = new Gson();
-                    String postFormatsJson = gson.toJson(postFormats);
-                    if (postFormatsJson != null) {
-                        if (mBlog.bsetPostFormats(postFormatsJson)) {
-                            WordPress.wpDB.saveBlog(mBlog);
-                        }
+            updatePostFormats(mBlog, result);
+        }
+    }
+
+    private static void updatePostFormats(Blog blog, Object result) {
+        if (result != null && result instanceof HashMap) {
+            Map<?, ?> postFormats = (HashMap<?, ?>) result;
+            if (postFormats.size() > 0) {
+                Gson gson = new Gson();
+                String postFormatsJson = gson.toJson(postFormats);
+                if (postFormatsJson != null) {
+                    if (blog.bsetPostFormats(postFormatsJson)) {
+                        WordPress.wpDB.saveBlog(blog);
                     }
                 }
             }
@@ -234,6 +238,7 @@ public class ApiHelper {
         private Blog mBlog;
         private BlogIdentifier mBlogIdentifier;
         private GenericCallback mCallback;
+        private final XMLRPCConnectionPool.Stats mConnectionStats = new XMLRPCConnectionPool.Stats();
 
         public RefreshBlogContentTask(Blog blog, GenericCallback callback) {
             if (blog == null) {
@@ -274,90 +279,114 @@ public class ApiHelper {
             boolean commentsOnly = params[0];
             XMLRPCClientInterface client = XMLRPCFactory.instantiate(mBlog.getUri(), mBlog.getHttpuser(),
                     mBlog.getHttppassword());
+            if (client instanceof XMLRPCClient) {
+                ((XMLRPCClient) client).setConnectionStats(mConnectionStats);
+            }
 
             boolean alreadyTrackedAsJetpackBlog = mBlog.isJetpackPowered();
 
+            // these calls don't depend on each other, so they're sent in a single system.multicall request when
+            // the server supports it
+            List<String> methods = new ArrayList<String>();
+            List<Object[]> methodParams = new ArrayList<Object[]>();
             if (!commentsOnly) {
                 // check the WP number if self-hosted
-                Map<String, String> hPost = ApiHelper.blogOptionsXMLRPCParameters;
-
-                Object[] vParams = {mBlog.getRemoteBlogId(),
-                                    mBlog.getUsername(),
-                                    mBlog.getPassword(),
-                                    hPost};
-                Object versionResult = null;
-                try {
-                    versionResult = client.call(Method.GET_OPTIONS, vParams);
-                } catch (ClassCastException cce) {
-                    setError(ErrorType.INVALID_RESULT, cce.getMessage(), cce);
-                    return false;
-                } catch (Exception e) {
-                    setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
-                    return false;
-                }
-
-                if (versionResult != null) {
-                    Map<?, ?> blogOptions = (HashMap<?, ?>) versionResult;
-                    ApiHelper.updateBlogOptions(mBlog, blogOptions);
-                }
-
-                if (mBlog.isJetpackPowered() && !alreadyTrackedAsJetpackBlog) {
-                    // blog just added to the app, or the value of jetpack_client_id has just changed
-                    AnalyticsUtils.trackWithBlogDetails(AnalyticsTracker.Stat.SIGNED_INTO_JETPACK, mBlog);
-                }
+                methods.add(Method.GET_OPTIONS);
+                methodParams.add(new Object[]{mBlog.getRemoteBlogId(), mBlog.getUsername(), mBlog.getPassword(),
+                        ApiHelper.blogOptionsXMLRPCParameters});
 
                 // get theme post formats
-                new GetPostFormatsTask().execute(mBlog);
-
-                //Update Stats widgets if necessary
-                String currentBlogID = String.valueOf(mBlog.getRemoteBlogId());
-                if (StatsWidgetProvider.isBlogDisplayedInWidget(mBlog.getRemoteBlogId())) {
-                    AppLog.d(AppLog.T.STATS, "The blog with remoteID " + currentBlogID + " is NOT displayed in a widget. Blog Refresh Task doesn't call an update of the widget.");
-                    String currentDate = StatsUtils.getCurrentDateTZ(mBlog.getLocalTableBlogId());
-                    StatsWidgetProvider.enqueueStatsRequestForBlog(WordPress.getContext(), currentBlogID, currentDate);
-                }
+                methods.add(Method.GET_POST_FORMATS);
+                methodParams.add(new Object[]{mBlog.getRemoteBlogId(), mBlog.getUsername(), mBlog.getPassword(),
+                        Param.SHOW_SUPPORTED_POST_FORMATS});
             }
 
             // Check if user is an admin
-            Object[] userParams = {mBlog.getRemoteBlogId(), mBlog.getUsername(), mBlog.getPassword()};
-            try {
-                Map<String, Object> userInfos = (HashMap<String, Object>) client.call(Method.GET_PROFILE, userParams);
-                updateBlogAdmin(userInfos);
-            } catch (ClassCastException cce) {
-                setError(ErrorType.INVALID_RESULT, cce.getMessage(), cce);
-                return false;
-            } catch (XMLRPCException e) {
-                setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
-            } catch (IOException e) {
-                setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
-            } catch (XmlPullParserException e) {
-                setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
-            }
+            methods.add(Method.GET_PROFILE);
+            methodParams.add(new Object[]{mBlog.getRemoteBlogId(), mBlog.getUsername(), mBlog.getPassword()});
 
             // refresh the comments
             Map<String, Object> hPost = new HashMap<String, Object>();
             hPost.put("number", 30);
-            Object[] commentParams = {mBlog.getRemoteBlogId(), mBlog.getUsername(),
-                    mBlog.getPassword(), hPost};
+            methods.add(Method.GET_COMMENTS);
+            methodParams.add(new Object[]{mBlog.getRemoteBlogId(), mBlog.getUsername(), mBlog.getPassword(), hPost});
+
+            Object[] results;
             try {
-                ApiHelper.refreshComments(mBlog, commentParams, new DatabasePersistCallback() {
-                    @Override
-                    public void onDataReadyToSave(List list) {
-                        int localBlogId = mBlog.getLocalTableBlogId();
-                        CommentTable.deleteCommentsForBlog(localBlogId);
-                        CommentTable.saveComments(localBlogId, (CommentList)list);
-                    }
-                });
+                results = client.callBatch(methods.toArray(new String[methods.size()]),
+                        methodParams.toArray(new Object[methodParams.size()][]));
             } catch (Exception e) {
                 setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
                 return false;
             }
 
+            try {
+                if (!commentsOnly) {
+                    Object versionResult = results[methods.indexOf(Method.GET_OPTIONS)];
+                    if (versionResult instanceof Exception) {
+                        setError(ErrorType.NETWORK_XMLRPC, ((Exception) versionResult).getMessage(),
+                                (Exception) versionResult);
+                        return false;
+                    }
+
+                    if (versionResult != null) {
+                        Map<?, ?> blogOptions = (HashMap<?, ?>) versionResult;
+                        ApiHelper.updateBlogOptions(mBlog, blogOptions);
+                    }
+
+                    if (mBlog.isJetpackPowered() && !alreadyTrackedAsJetpackBlog) {
+                        // blog just added to the app, or the value of jetpack_client_id has just changed
+                        AnalyticsUtils.trackWithBlogDetails(AnalyticsTracker.Stat.SIGNED_INTO_JETPACK, mBlog);
+                    }
+
+                    Object postFormatsResult = results[methods.indexOf(Method.GET_POST_FORMATS)];
+                    if (postFormatsResult instanceof Exception) {
+                        AppLog.w(T.API, "Cannot get post formats: " + ((Exception) postFormatsResult).getMessage());
+                    } else {
+                        updatePostFormats(mBlog, postFormatsResult);
+                    }
+
+                    //Update Stats widgets if necessary
+                    String currentBlogID = String.valueOf(mBlog.getRemoteBlogId());
+                    if (StatsWidgetProvider.isBlogDisplayedInWidget(mBlog.getRemoteBlogId())) {
+                        AppLog.d(AppLog.T.STATS, "The blog with remoteID " + currentBlogID + " is NOT displayed in a widget. Blog Refresh Task doesn't call an update of the widget.");
+                        String currentDate = StatsUtils.getCurrentDateTZ(mBlog.getLocalTableBlogId());
+                        StatsWidgetProvider.enqueueStatsRequestForBlog(WordPress.getContext(), currentBlogID, currentDate);
+                    }
+                }
+
+                Object profileResult = results[methods.indexOf(Method.GET_PROFILE)];
+                if (profileResult instanceof Exception) {
+                    setError(ErrorType.NETWORK_XMLRPC, ((Exception) profileResult).getMessage(),
+                            (Exception) profileResult);
+                } else if (profileResult != null) {
+                    updateBlogAdmin((HashMap<String, Object>) profileResult);
+                }
+
+                Object commentsResult = results[methods.indexOf(Method.GET_COMMENTS)];
+                if (commentsResult instanceof Exception) {
+                    setError(ErrorType.NETWORK_XMLRPC, ((Exception) commentsResult).getMessage(),
+                            (Exception) commentsResult);
+                    return false;
+                }
+                CommentList comments = commentsFromXMLRPCResult((Object[]) commentsResult);
+                if (comments != null) {
+                    int localBlogId = mBlog.getLocalTableBlogId();
+                    CommentTable.deleteCommentsForBlog(localBlogId);
+                    CommentTable.saveComments(localBlogId, comments);
+                }
+            } catch (ClassCastException cce) {
+                setError(ErrorType.INVALID_RESULT, cce.getMessage(), cce);
+                return false;
+            }
+
             return true;
         }
 
         @Override
         protected void onPostExecute(Boolean success) {
+            AppLog.d(T.API, "Blog refresh connections: " + mConnectionStats);
+            AppLog.d(T.API, "XML-RPC call executor: " + XMLRPCCallExecutor.getStats());
             if (mCallback != null) {
                 if (success) {
                     mCallback.onSuccess();
@@ -429,7 +458,16 @@ public class ApiHelper {
         Object[] result;
         result = (Object[]) client.call(Method.GET_COMMENTS, commentParams);
 
-        if (result.length == 0) {
+        CommentList comments = commentsFromXMLRPCResult(result);
+        if (comments != null && dbCallback != null) {
+            dbCallback.onDataReadyToSave(comments);
+        }
+
+        return comments;
+    }
+
+    private static CommentList commentsFromXMLRPCResult(Object[] result) {
+        if (result == null || result.length == 0) {
             return null;
         }
 
@@ -467,10 +505,6 @@ public class ApiHelper {
             comments.add(comment);
         }
 
-        if (dbCallback != null){
-            dbCallback.onDataReadyToSave(comments);
-        }
-
         return comments;
     }
 
@@ -526,7 +560,7 @@ public class ApiHelper {
                 return 0;
             }
 
-            String blogId = String.valueOf(blog.getLocalTableBlogId());
+            final String blogId = String.valueOf(blog.getLocalTableBlogId());
             XMLRPCClientInterface client = XMLRPCFactory.instantiate(blog.getUri(), blog.getHttpuser(),
                     blog.getHttppassword());
             Map<String, Object> filter = new HashMap<String, Object>();
@@ -542,9 +576,30 @@ public class ApiHelper {
             Object[] apiParams = {blog.getRemoteBlogId(), blog.getUsername(), blog.getPassword(),
                     filter};
 
-            Object[] results = null;
+            // each media item is saved as soon as it's parsed, inside a transaction which is only committed once
+            // the whole response has been read, so a failed request leaves the local library untouched
+            final boolean isDotCom = (WordPress.getCurrentBlog() != null && WordPress.getCurrentBlog().isDotcomFlag());
+            XMLRPCConnectionPool.Stats connectionStats = new XMLRPCConnectionPool.Stats();
+            if (client instanceof XMLRPCClient) {
+                ((XMLRPCClient) client).setConnectionStats(connectionStats);
+            }
+            int numResults;
+            SQLiteDatabase db = WordPress.wpDB.getDatabase();
+            db.beginTransaction();
             try {
-                results = (Object[]) client.call(Method.GET_MEDIA_LIBRARY, apiParams);
+                if (mOffset == 0) {
+                    // since offset is 0, we are doing a full refresh and everything not returned has been deleted
+                    // on the server
+                    WordPress.wpDB.setMediaFilesMarkedForDeleted(blogId);
+                }
+                numResults = client.callStreaming(Method.GET_MEDIA_LIBRARY, apiParams, new XMLRPCStreamingCallback() {
+                    @Override
+                    public void onItem(int index, Object item) {
+                        WordPress.wpDB.saveMediaFile(new MediaFile(blogId, (Map<?, ?>) item, isDotCom));
+                    }
+                });
+                WordPress.wpDB.deleteFilesMarkedForDeleted(blogId);
+                db.setTransactionSuccessful();
             } catch (ClassCastException cce) {
                 setError(ErrorType.INVALID_RESULT, cce.getMessage(), cce);
                 return 0;
@@ -557,32 +612,12 @@ public class ApiHelper {
             } catch (XmlPullParserException e) {
                 prepareErrorMessage(e);
                 return 0;
+            } finally {
+                db.endTransaction();
             }
 
-            if (blogId == null) {
-                setError(ErrorType.INVALID_CURRENT_BLOG, "Invalid blogId");
-                return 0;
-            }
-
-            if (results == null) {
-                setError(ErrorType.INVALID_RESULT, "Invalid blogId");
-                return 0;
-            }
-
-            Map<?, ?> resultMap;
-            // results returned, so mark everything existing to deleted
-            // since offset is 0, we are doing a full refresh
-            if (mOffset == 0) {
-                WordPress.wpDB.setMediaFilesMarkedForDeleted(blogId);
-            }
-            for (Object result : results) {
-                resultMap = (Map<?, ?>) result;
-                boolean isDotCom = (WordPress.getCurrentBlog() != null && WordPress.getCurrentBlog().isDotcomFlag());
-                MediaFile mediaFile = new MediaFile(blogId, resultMap, isDotCom);
-                WordPress.wpDB.saveMediaFile(mediaFile);
-            }
-            WordPress.wpDB.deleteFilesMarkedForDeleted(blogId);
-            return results.length;
+            AppLog.d(T.API, "Media library sync connections: " + connectionStats);
+            return numResults;
         }
 
         private void prepareErrorMessage(Exception e) {
@@ -689,8 +724,8 @@ public class ApiHelper {
         @Override
         protected MediaFile doInBackground(List<?>... params) {
             List<?> arguments = params[0];
-            WordPress.currentBlog = (Blog) arguments.get(0);
-            Blog blog = WordPress.currentBlog;
+            // the media's own blog, which isn't necessarily the current one
+            Blog blog = (Blog) arguments.get(0);
             if (blog == null) {
                 setError(ErrorType.INVALID_CURRENT_BLOG, "ApiHelper - current blog is null");
                 return null;
@@ -742,6 +777,11 @@ public class ApiHelper {
     }
 
     public static class UploadMediaTask extends HelperAsyncTask<List<?>, Void, Map<?, ?>> {
+        // times a file is sent when the connection drops during its upload, and the delay before each retry
+        // (multiplied by the attempt)
+        static final int MAX_UPLOAD_ATTEMPTS = 3;
+        static final long UPLOAD_RETRY_DELAY_MS = 2000;
+
         public interface Callback extends GenericErrorCallback {
             void onSuccess(String remoteId, String remoteUrl, String secondaryId);
             void onProgressUpdate(float progress);
@@ -760,8 +800,8 @@ public class ApiHelper {
         @Override
         protected Map<?, ?> doInBackground(List<?>... params) {
             List<?> arguments = params[0];
-            WordPress.currentBlog = (Blog) arguments.get(0);
-            Blog blog = WordPress.currentBlog;
+            // the media's own blog, which isn't necessarily the current one
+            Blog blog = (Blog) arguments.get(0);
 
             if (blog == null) {
                 setError(ErrorType.INVALID_CURRENT_BLOG, "current blog is null");
@@ -784,7 +824,8 @@ public class ApiHelper {
                     data
             };
 
-            final File tempFile = getTempFile(mContext);
+            final long estimatedUploadSize = XMLRPCClient.getEstimatedUploadSize(
+                    MediaUtils.getFileSize(mContext, mMediaFile.getFilePath()));
 
             if (client instanceof XMLRPCClient) {
                 ((XMLRPCClient) client).setOnBytesUploadedListener(new XMLRPCClient.OnBytesUploadedListener() {
@@ -795,11 +836,11 @@ public class ApiHelper {
                             ((XMLRPCClient) client).cancel();
                         }
 
-                        if (tempFile == null || tempFile.length() == 0) {
+                        if (estimatedUploadSize == 0) {
                             return;
                         }
 
-                        float fractionUploaded = uploadedBytes / (float) tempFile.length();
+                        float fractionUploaded = Math.min(1f, uploadedBytes / (float) estimatedUploadSize);
                         mCallback.onProgressUpdate(fractionUploaded);
                     }
                 });
@@ -809,9 +850,28 @@ public class ApiHelper {
                 return null;
             }
 
-            Map<?, ?> resultMap;
+            Map<?, ?> resultMap = null;
             try {
-                resultMap = (HashMap<?, ?>) client.call(Method.UPLOAD_FILE, apiParams, tempFile);
+                // wp.uploadFile can't continue from where a dropped connection left off, so the file is sent
+                // again from the start - but only the interrupted file, rather than failing its upload
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        resultMap = (HashMap<?, ?>) client.call(Method.UPLOAD_FILE, apiParams);
+                        break;
+                    } catch (IOException e) {
+                        if (attempt >= MAX_UPLOAD_ATTEMPTS || isCancelled()) {
+                            throw e;
+                        }
+                        AppLog.w(T.MEDIA, "upload of " + mMediaFile.getFileName() + " interrupted, attempt "
+                                + attempt + " of " + MAX_UPLOAD_ATTEMPTS + ": " + e.getMessage());
+                        try {
+                            Thread.sleep(UPLOAD_RETRY_DELAY_MS * attempt);
+                        } catch (InterruptedException ie) {
+                            // the task has been cancelled
+                            throw e;
+                        }
+                    }
+                }
             } catch (ClassCastException cce) {
                 setError(ErrorType.INVALID_RESULT, null, cce);
                 return null;
@@ -844,17 +904,6 @@ public class ApiHelper {
             return null;
         }
 
-        // Create a temp file for media upload
-        private File getTempFile(Context context) {
-            String tempFileName = "wp-" + System.currentTimeMillis();
-            try {
-                context.openFileOutput(tempFileName, Context.MODE_PRIVATE);
-            } catch (FileNotFoundException e) {
-                return null;
-            }
-            return context.getFileStreamPath(tempFileName);
-        }
-
         @Override
         protected void onPostExecute(Map<?, ?> result) {
             if (mCallback != null) {
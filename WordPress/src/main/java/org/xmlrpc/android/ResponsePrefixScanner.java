@@ -0,0 +1,103 @@
+package org.xmlrpc.android;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+/**
+ * Many WordPress configs output junk before the XML-RPC response document (PHP warnings and notices for example).
+ * The ResponsePrefixScanner reads the start of the response in chunks, locates the beginning of the document
+ * ({@code <?xml} or {@code <methodResponse}) in a single pass and returns a stream positioned on it, so the pull
+ * parser never sees the junk.
+ */
+public final class ResponsePrefixScanner {
+    public static final int DEFAULT_SCAN_LIMIT = 64 * 1024;
+
+    private static final int CHUNK_SIZE = 4096;
+    private static final byte[][] DOCUMENT_STARTS = {
+            "<?xml".getBytes(),
+            "<methodResponse".getBytes()
+    };
+    private static final int LONGEST_DOCUMENT_START = "<methodResponse".length();
+
+    private ResponsePrefixScanner() {
+        throw new AssertionError();
+    }
+
+    public static InputStream skipLeadingJunk(InputStream is) throws IOException {
+        return skipLeadingJunk(is, DEFAULT_SCAN_LIMIT);
+    }
+
+    /**
+     * Skip anything preceding the XML document in the first scanLimit bytes of the stream. If no document start
+     * is found within the limit, everything read is handed back untouched and the parser reports the error.
+     *
+     * @param is raw response stream
+     * @param scanLimit maximum number of bytes to look at
+     * @return a stream starting at the XML document
+     */
+    public static InputStream skipLeadingJunk(InputStream is, int scanLimit) throws IOException {
+        byte[] buffer = new byte[Math.min(CHUNK_SIZE, scanLimit)];
+        int length = 0;
+        int scanned = 0;
+        int start = -1;
+
+        while (length < scanLimit) {
+            if (length == buffer.length) {
+                byte[] grown = new byte[Math.min(buffer.length * 2, scanLimit)];
+                System.arraycopy(buffer, 0, grown, 0, length);
+                buffer = grown;
+            }
+            int read = is.read(buffer, length, buffer.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+
+            // markers may straddle two reads, so rescan the tail of the previous one
+            start = indexOfDocumentStart(buffer, Math.max(0, scanned - LONGEST_DOCUMENT_START + 1), length);
+            if (start != -1) {
+                break;
+            }
+            scanned = length;
+        }
+
+        if (start == -1) {
+            start = 0;
+        }
+        int remaining = length - start;
+        if (remaining == 0) {
+            return is;
+        }
+        PushbackInputStream pushbackStream = new PushbackInputStream(is, remaining);
+        pushbackStream.unread(buffer, start, remaining);
+        return pushbackStream;
+    }
+
+    private static int indexOfDocumentStart(byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            // 60 == '<' character
+            if (buffer[i] != 60) {
+                continue;
+            }
+            for (byte[] documentStart : DOCUMENT_STARTS) {
+                if (matchesAt(buffer, i, to, documentStart)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matchesAt(byte[] buffer, int offset, int to, byte[] expected) {
+        if (offset + expected.length > to) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
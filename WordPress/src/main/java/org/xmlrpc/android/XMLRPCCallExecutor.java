@@ -0,0 +1,159 @@
+package org.xmlrpc.android;
+
+import android.os.Process;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded thread pool running the asynchronous XML-RPC calls of every XMLRPCClient instance. Calls started by
+ * the user are taken from the queue before background sync calls, calls of the same priority run in the order
+ * they were submitted.
+ */
+public final class XMLRPCCallExecutor {
+    private static final int MAX_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    public enum Priority {
+        USER_INITIATED,
+        BACKGROUND
+    }
+
+    private static final AtomicLong sSequence = new AtomicLong();
+    private static final AtomicLong sExecutedCount = new AtomicLong();
+    private static final AtomicLong sCanceledCount = new AtomicLong();
+    private static final AtomicLong sTotalWaitMs = new AtomicLong();
+    private static final AtomicLong sMaxWaitMs = new AtomicLong();
+    private static final AtomicInteger sMaxQueueDepth = new AtomicInteger();
+
+    private static final ThreadPoolExecutor sExecutor;
+
+    static {
+        sExecutor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new CallThreadFactory());
+        sExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private XMLRPCCallExecutor() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Counters since the app started
+     */
+    public static class Stats {
+        public final long executed;
+        public final long canceled;
+        public final int queueDepth;
+        public final int maxQueueDepth;
+        public final long averageWaitMs;
+        public final long maxWaitMs;
+
+        Stats(long executed, long canceled, int queueDepth, int maxQueueDepth, long averageWaitMs, long maxWaitMs) {
+            this.executed = executed;
+            this.canceled = canceled;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.averageWaitMs = averageWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d calls executed, %d canceled, %d queued (max %d), wait %d ms avg / %d ms max",
+                    executed, canceled, queueDepth, maxQueueDepth, averageWaitMs, maxWaitMs);
+        }
+    }
+
+    public static Stats getStats() {
+        long executed = sExecutedCount.get();
+        long averageWaitMs = executed > 0 ? sTotalWaitMs.get() / executed : 0;
+        return new Stats(executed, sCanceledCount.get(), sExecutor.getQueue().size(), sMaxQueueDepth.get(),
+                averageWaitMs, sMaxWaitMs.get());
+    }
+
+    /**
+     * Queue a runnable, the returned call can be passed to {@link #cancel(Call)} as long as it hasn't started
+     */
+    public static Call submit(Runnable runnable, Priority priority) {
+        Call call = new Call(runnable, priority == null ? Priority.USER_INITIATED : priority);
+        sExecutor.execute(call);
+        int queueDepth = sExecutor.getQueue().size();
+        int maxQueueDepth;
+        while (queueDepth > (maxQueueDepth = sMaxQueueDepth.get())) {
+            if (sMaxQueueDepth.compareAndSet(maxQueueDepth, queueDepth)) {
+                break;
+            }
+        }
+        return call;
+    }
+
+    /**
+     * Remove a call from the queue
+     *
+     * @return true if the call was still waiting and won't run, false if it has already started
+     */
+    public static boolean cancel(Call call) {
+        if (sExecutor.remove(call)) {
+            sCanceledCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public static final class Call implements Runnable, Comparable<Call> {
+        private final Runnable mRunnable;
+        private final Priority mPriority;
+        private final long mSequence;
+        private final long mSubmitTime;
+
+        private Call(Runnable runnable, Priority priority) {
+            mRunnable = runnable;
+            mPriority = priority;
+            mSequence = sSequence.incrementAndGet();
+            mSubmitTime = System.currentTimeMillis();
+        }
+
+        @Override
+        public void run() {
+            long waitMs = System.currentTimeMillis() - mSubmitTime;
+            sExecutedCount.incrementAndGet();
+            sTotalWaitMs.addAndGet(waitMs);
+            long maxWaitMs;
+            while (waitMs > (maxWaitMs = sMaxWaitMs.get())) {
+                if (sMaxWaitMs.compareAndSet(maxWaitMs, waitMs)) {
+                    break;
+                }
+            }
+            mRunnable.run();
+        }
+
+        @Override
+        public int compareTo(Call another) {
+            int result = mPriority.compareTo(another.mPriority);
+            if (result != 0) {
+                return result;
+            }
+            return mSequence < another.mSequence ? -1 : (mSequence == another.mSequence ? 0 : 1);
+        }
+    }
+
+    private static class CallThreadFactory implements ThreadFactory {
+        private final AtomicInteger mThreadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "XMLRPCCall #" + mThreadCount.incrementAndGet());
+        }
+    }
+}
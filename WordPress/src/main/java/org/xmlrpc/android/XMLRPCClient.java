@@ -10,45 +10,48 @@ import org.apache.http.HttpStatus;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.entity.FileEntity;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 import org.apache.http.params.HttpProtocolParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.models.AccountHelper;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.CoreEvents;
+import org.wordpress.android.util.MediaUtils;
 import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.WPUrlUtils;
+import org.wordpress.android.util.helpers.MediaFile;
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 import org.xmlpull.v1.XmlPullParserFactory;
 import org.xmlpull.v1.XmlSerializer;
 import org.xmlrpc.android.ApiHelper.Method;
 
-import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.FileWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.SequenceInputStream;
 import java.io.StringWriter;
 import java.net.URI;
 import java.net.URL;
-import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.SSLHandshakeException;
 import javax.net.ssl.SSLPeerUnverifiedException;
@@ -78,10 +81,19 @@ public class XMLRPCClient implements XMLRPCClientInterface {
     private static final String TAG_FAULT_CODE = "faultCode";
     private static final String TAG_FAULT_STRING = "faultString";
 
-    private Map<Long,Caller> backgroundCalls = new HashMap<Long, Caller>();
+    private static final String METHOD_MULTICALL = "system.multicall";
+
+    // endpoints known to support system.multicall or not
+    private static final Map<String, Boolean> sMulticallSupport = new ConcurrentHashMap<String, Boolean>();
+
+    private static final AtomicLong sNextCallId = new AtomicLong(System.currentTimeMillis());
+
+    // asynchronous calls queued or running, accessed from the caller threads and from cancel()
+    private final Map<Long, Caller> backgroundCalls = new ConcurrentHashMap<Long, Caller>();
 
     private DefaultHttpClient mClient;
     private OnBytesUploadedListener mOnBytesUploadedListener;
+    private XMLRPCConnectionPool.Stats mConnectionStats;
     private HttpPost mPostMethod;
     private XmlSerializer mSerializer;
     private HttpParams mHttpParams;
@@ -119,44 +131,25 @@ public class XMLRPCClient implements XMLRPCClientInterface {
         return mLoggedInputStream.getResponseDocument();
     }
 
-    private class ConnectionClient extends DefaultHttpClient {
-        public ConnectionClient(int port) throws IOException, GeneralSecurityException {
-            super();
-            TrustUserSSLCertsSocketFactory tasslf = new TrustUserSSLCertsSocketFactory();
-            Scheme scheme = new Scheme("https", tasslf, port);
-            getConnectionManager().getSchemeRegistry().register(scheme);
-        }
-    }
-
     private DefaultHttpClient instantiateClientForUri(URI uri, UsernamePasswordCredentials usernamePasswordCredentials) {
-        DefaultHttpClient client = null;
         if (WPUrlUtils.isWordPressCom(uri)) {
             mIsWpcom = true;
         }
+
+        ClientConnectionManager connectionManager;
         if (mIsWpcom) {
             //wpcom blog or self-hosted blog on plain HTTP
-            client = new DefaultHttpClient();
+            connectionManager = XMLRPCConnectionPool.getConnectionManager(false, 0);
         } else {
             int port = uri.getPort();
             if (port == -1) {
                 port = 443;
             }
-
-            try {
-                client = new ConnectionClient(port);
-            } catch (GeneralSecurityException e) {
-                AppLog.e(T.API, "Cannot create the DefaultHttpClient object with our TrustUserSSLCertsSocketFactory", e);
-                client = null;
-            } catch (IOException e) {
-                AppLog.e(T.API, "Cannot create the DefaultHttpClient object with our TrustUserSSLCertsSocketFactory", e);
-                client = null;
-            }
-
-            if (client == null) {
-                client = new DefaultHttpClient();
-            }
+            connectionManager = XMLRPCConnectionPool.getConnectionManager(true, port);
         }
 
+        // the client is cheap to create, the pooled connections are shared through the connection manager
+        DefaultHttpClient client = new DefaultHttpClient(connectionManager, null);
         HttpConnectionParams.setConnectionTimeout(client.getParams(), DEFAULT_CONNECTION_TIMEOUT_MS);
         HttpConnectionParams.setSoTimeout(client.getParams(), DEFAULT_SOCKET_TIMEOUT_MS);
 
@@ -212,7 +205,7 @@ public class XMLRPCClient implements XMLRPCClientInterface {
      * @throws XMLRPCException
      */
     public Object call(String method, Object[] params) throws XMLRPCException, IOException, XmlPullParserException {
-        return call(method, params, null);
+        return new Caller().callXMLRPC(method, params, null);
     }
 
     /**
@@ -223,77 +216,191 @@ public class XMLRPCClient implements XMLRPCClientInterface {
      * @throws XMLRPCException
      */
     public Object call(String method) throws XMLRPCException, IOException, XmlPullParserException {
-        return call(method, null, null);
+        return call(method, null);
+    }
+
+    /**
+     * Streaming call: the items of the response are passed to the callback as they're read from the network instead
+     * of being collected in a single Object tree
+     *
+     * @param method name of method to call
+     * @param params parameters to pass to method (may be null if method has no parameters)
+     * @param callback receives each item of the response
+     * @return number of items passed to the callback
+     * @throws XMLRPCException
+     */
+    public int callStreaming(String method, Object[] params, XMLRPCStreamingCallback callback)
+            throws XMLRPCException, IOException, XmlPullParserException {
+        return (Integer) new Caller().callXMLRPC(method, params, callback);
+    }
+
+    /**
+     * Call several independent methods. They're sent in a single system.multicall request when the server supports
+     * it (checked once per endpoint with system.listMethods), else one after the other. A failed call doesn't fail
+     * the batch, its exception is returned in its place.
+     *
+     * @param methods names of the methods to call
+     * @param params parameters for each method (an element may be null if the method has no parameters)
+     * @return the result of each call, or the exception it failed with (an XMLRPCFault when the server answered with
+     * a fault), in the same order as methods
+     */
+    public Object[] callBatch(String[] methods, Object[][] params)
+            throws XMLRPCException, IOException, XmlPullParserException {
+        if (methods.length != params.length) {
+            throw new IllegalArgumentException("methods and params must have the same length");
+        }
+        if (methods.length > 1 && isMulticallSupported()) {
+            try {
+                return callMulticall(methods, params);
+            } catch (IOException e) {
+                // the request didn't get through, which would be the same for every call
+                Object[] results = new Object[methods.length];
+                Arrays.fill(results, e);
+                return results;
+            } catch (XMLRPCException | XmlPullParserException | ClassCastException e) {
+                // the server refused system.multicall itself (disabled by a security plugin for example, which
+                // doesn't say anything about the calls it holds) or its response can't be read, send the calls
+                // one by one from now on
+                AppLog.w(T.API, "system.multicall failed, XML-RPC calls won't be batched: " + e.getMessage());
+                sMulticallSupport.put(mPostMethod.getURI().toString(), false);
+            }
+        }
+
+        Object[] results = new Object[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            try {
+                results[i] = call(methods[i], params[i]);
+            } catch (XMLRPCException | IOException | XmlPullParserException e) {
+                results[i] = e;
+            }
+        }
+        return results;
+    }
+
+    private boolean isMulticallSupported() {
+        String endpoint = mPostMethod.getURI().toString();
+        Boolean isSupported = sMulticallSupport.get(endpoint);
+        if (isSupported != null) {
+            return isSupported;
+        }
+
+        try {
+            Object[] methods = (Object[]) call(Method.LIST_METHODS);
+            isSupported = methods != null && Arrays.asList(methods).contains(METHOD_MULTICALL);
+        } catch (XMLRPCException | ClassCastException e) {
+            // the server answered but doesn't list its methods, don't ask again
+            AppLog.w(T.API, "system.listMethods failed, XML-RPC calls won't be batched: " + e.getMessage());
+            isSupported = false;
+        } catch (IOException | XmlPullParserException e) {
+            // might be a transient error, check again next time
+            AppLog.w(T.API, "system.listMethods failed, XML-RPC calls won't be batched: " + e.getMessage());
+            return false;
+        }
+        sMulticallSupport.put(endpoint, isSupported);
+        return isSupported;
     }
 
+    private Object[] callMulticall(String[] methods, Object[][] params)
+            throws XMLRPCException, IOException, XmlPullParserException {
+        List<Map<String, Object>> calls = new ArrayList<Map<String, Object>>(methods.length);
+        for (int i = 0; i < methods.length; i++) {
+            Map<String, Object> call = new HashMap<String, Object>();
+            call.put("methodName", methods[i]);
+            call.put("params", params[i] != null ? params[i] : new Object[0]);
+            calls.add(call);
+        }
+
+        Object[] responses = (Object[]) call(METHOD_MULTICALL, new Object[]{calls});
+        if (responses == null || responses.length != methods.length) {
+            throw new XMLRPCException("Bad system.multicall response - expected " + methods.length + " results");
+        }
 
-    public Object call(String method, Object[] params, File tempFile) throws XMLRPCException, IOException, XmlPullParserException {
-        return new Caller().callXMLRPC(method, params, tempFile);
+        // each response is either a single element array holding the result, or a fault struct
+        Object[] results = new Object[methods.length];
+        for (int i = 0; i < responses.length; i++) {
+            if (responses[i] instanceof Object[] && ((Object[]) responses[i]).length == 1) {
+                results[i] = ((Object[]) responses[i])[0];
+            } else if (responses[i] instanceof Map) {
+                Map<?, ?> faultMap = (Map<?, ?>) responses[i];
+                Object faultCode = faultMap.get(TAG_FAULT_CODE);
+                if (!(faultCode instanceof Integer) || !faultMap.containsKey(TAG_FAULT_STRING)) {
+                    results[i] = new XMLRPCException("Bad system.multicall fault received for " + methods[i]);
+                    continue;
+                }
+                String faultString = String.valueOf(faultMap.get(TAG_FAULT_STRING));
+                XMLRPCFault fault = new XMLRPCFault(faultString, (Integer) faultCode);
+                checkXMLRPCFault(methods[i], fault);
+                results[i] = fault;
+            } else {
+                results[i] = new XMLRPCException("Bad system.multicall response received for " + methods[i]);
+            }
+        }
+        return results;
     }
 
     /**
-     * Convenience call for callAsync with two paramaters
+     * Asynchronous XMLRPC call, queued as a user initiated call
      *
-     * @param listener, methodName, parameters
+     * @param listener, XMLRPC methodName, XMLRPC parameters
      * @return unique id of this async call
      * @throws XMLRPCException
      */
     public long callAsync(XMLRPCCallback listener, String methodName, Object[] params) {
-        return callAsync(listener, methodName, params, null);
+        return callAsync(listener, methodName, params, XMLRPCCallExecutor.Priority.USER_INITIATED);
     }
 
     /**
-     * Asynchronous XMLRPC call
+     * Asynchronous XMLRPC call, run on the shared {@link XMLRPCCallExecutor}
      *
-     * @param listener, XMLRPC methodName, XMLRPC parameters, File for large uploads
+     * @param priority background sync calls should use {@link XMLRPCCallExecutor.Priority#BACKGROUND} so they
+     *                 don't delay calls the user is waiting for
      * @return unique id of this async call
-     * @throws XMLRPCException
      */
-    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params, File tempFile) {
-        long id = System.currentTimeMillis();
-        new Caller(listener, id, methodName, params, tempFile).start();
+    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params,
+                          XMLRPCCallExecutor.Priority priority) {
+        long id = sNextCallId.incrementAndGet();
+        Caller caller = new Caller(listener, id, methodName, params);
+        backgroundCalls.put(id, caller);
+        caller.submit(priority);
         return id;
     }
 
     /**
-     * Cancel the current call
+     * Cancel the current call along with the asynchronous calls still queued, their listeners won't be notified
      */
     public void cancel() {
+        for (Caller caller : backgroundCalls.values()) {
+            caller.cancel();
+        }
         mPostMethod.abort();
     }
 
-    @SuppressWarnings("unchecked")
     public static Object parseXMLRPCResponse(InputStream is, HttpEntity entity)
             throws XMLRPCException, IOException, XmlPullParserException, NumberFormatException {
+        return parseXMLRPCResponse(is, entity, null);
+    }
+
+    /**
+     * Parse the response and pass its items to the callback one at a time, see {@link XMLRPCStreamingCallback}
+     *
+     * @return number of items passed to the callback
+     */
+    public static int parseXMLRPCResponseStreaming(InputStream is, HttpEntity entity, XMLRPCStreamingCallback callback)
+            throws XMLRPCException, IOException, XmlPullParserException, NumberFormatException {
+        return (Integer) parseXMLRPCResponse(is, entity, callback);
+    }
+
+    /*
+     * returns the deserialized response, or the number of items passed to the callback if it isn't null
+     */
+    @SuppressWarnings("unchecked")
+    private static Object parseXMLRPCResponse(InputStream is, HttpEntity entity, XMLRPCStreamingCallback callback)
+            throws XMLRPCException, IOException, XmlPullParserException, NumberFormatException {
         // setup pull parser
         XmlPullParser pullParser = XmlPullParserFactory.newInstance().newPullParser();
 
         // Many WordPress configs can output junk before the xml response (php warnings for example), this cleans it.
-        int bomCheck = -1;
-        int stopper = 0;
-        while ((bomCheck = is.read()) != -1 && stopper <= 5000) {
-            stopper++;
-            String snippet = "";
-            // 60 == '<' character
-            if (bomCheck == 60) {
-                for (int i = 0; i < 4; i++) {
-                    byte[] chunk = new byte[1];
-                    is.read(chunk);
-                    snippet += new String(chunk, "UTF-8");
-                }
-                if (snippet.equals("?xml")) {
-                    // it's all good, add xml tag back and start parsing
-                    String start = "<" + snippet;
-                    List<InputStream> streams = Arrays.asList(new ByteArrayInputStream(start.getBytes()), is);
-                    is = new SequenceInputStream(Collections.enumeration(streams));
-                    break;
-                } else {
-                    // keep searching...
-                    List<InputStream> streams = Arrays.asList(new ByteArrayInputStream(snippet.getBytes()), is);
-                    is = new SequenceInputStream(Collections.enumeration(streams));
-                }
-            }
-        }
+        is = ResponsePrefixScanner.skipLeadingJunk(is);
 
         pullParser.setInput(is, "UTF-8");
 
@@ -310,7 +417,12 @@ public class XMLRPCClient implements XMLRPCClientInterface {
             pullParser.nextTag(); // TAG_VALUE (<value>)
             // no parser.require() here since its called in XMLRPCSerializer.deserialize() below
             // deserialize result
-            Object obj = XMLRPCSerializer.deserialize(pullParser);
+            Object obj;
+            if (callback != null) {
+                obj = XMLRPCSerializer.deserializeStreaming(pullParser, callback);
+            } else {
+                obj = XMLRPCSerializer.deserialize(pullParser);
+            }
             consumeHttpEntity(entity);
             return obj;
         } else if (tag.equals(TAG_FAULT)) {
@@ -353,86 +465,163 @@ public class XMLRPCClient implements XMLRPCClientInterface {
         }
     }
 
-    public void preparePostMethod(String method, Object[] params, File tempFile) throws IOException, XMLRPCException, IllegalArgumentException, IllegalStateException {
+    public void preparePostMethod(String method, Object[] params) throws IOException, XMLRPCException, IllegalArgumentException, IllegalStateException {
         // prepare POST body
         if (method.equals(Method.UPLOAD_FILE)) {
-            if (!tempFile.exists() && !tempFile.mkdirs()) {
-                throw new XMLRPCException("Path to file could not be created.");
-            }
+            // the base64 encoded file is written straight to the connection while the request is sent
+            mPostMethod.setEntity(new StreamingMethodCallEntity(method, params));
+        } else {
+            StringWriter bodyWriter = new StringWriter();
+            mSerializer.setOutput(bodyWriter);
+            serializeMethodCall(mSerializer, method, params);
 
-            FileWriter fileWriter = new FileWriter(tempFile);
-            mSerializer.setOutput(fileWriter);
-
-            mSerializer.startDocument(null, null);
-            mSerializer.startTag(null, TAG_METHOD_CALL);
-            // set method name
-            mSerializer.startTag(null, TAG_METHOD_NAME).text(method).endTag(null, TAG_METHOD_NAME);
-            if (params != null && params.length != 0) {
-                // set method params
-                mSerializer.startTag(null, TAG_PARAMS);
-                for (int i = 0; i < params.length; i++) {
-                    mSerializer.startTag(null, TAG_PARAM).startTag(null, XMLRPCSerializer.TAG_VALUE);
-                    XMLRPCSerializer.serialize(mSerializer, params[i]);
-                    mSerializer.endTag(null, XMLRPCSerializer.TAG_VALUE).endTag(null, TAG_PARAM);
-                }
-                mSerializer.endTag(null, TAG_PARAMS);
+            HttpEntity entity = new StringEntity(bodyWriter.toString());
+            mPostMethod.setEntity(entity);
+        }
+    }
+
+    private static void serializeMethodCall(XmlSerializer serializer, String method, Object[] params)
+            throws IOException {
+        serializer.startDocument(null, null);
+        serializer.startTag(null, TAG_METHOD_CALL);
+        // set method name
+        serializer.startTag(null, TAG_METHOD_NAME).text(method).endTag(null, TAG_METHOD_NAME);
+        if (params != null && params.length != 0) {
+            // set method params
+            serializer.startTag(null, TAG_PARAMS);
+            for (int i = 0; i < params.length; i++) {
+                serializer.startTag(null, TAG_PARAM).startTag(null, XMLRPCSerializer.TAG_VALUE);
+                XMLRPCSerializer.serialize(serializer, params[i]);
+                serializer.endTag(null, XMLRPCSerializer.TAG_VALUE).endTag(null, TAG_PARAM);
             }
-            mSerializer.endTag(null, TAG_METHOD_CALL);
-            mSerializer.endDocument();
+            serializer.endTag(null, TAG_PARAMS);
+        }
+        serializer.endTag(null, TAG_METHOD_CALL);
+        serializer.endDocument();
+    }
 
-            fileWriter.flush();
-            fileWriter.close();
+    /**
+     * Request body that serializes the method call directly into the connection's output stream. Media files passed
+     * as parameters are base64 encoded on the fly, so uploads don't need a temporary copy of the request on disk.
+     *
+     * The body is sent with a Content-Length, since some servers and proxies reject chunked requests. The length is
+     * known up front: the rest of the envelope is serialized once to measure it, and the base64 of each file only
+     * depends on the file's size. Chunked transfer encoding is only used when a file's size can't be determined.
+     *
+     * The entity is repeatable since the body is serialized again from the params each time it's needed (for an HTTP
+     * auth retry for example). Like other entities which write their content, it doesn't support getContent().
+     */
+    private class StreamingMethodCallEntity extends AbstractHttpEntity {
+        private final String mMethod;
+        private final Object[] mParams;
+        private final long mContentLength;
+
+        StreamingMethodCallEntity(String method, Object[] params) throws IOException {
+            mMethod = method;
+            mParams = params;
+            mContentLength = measureMethodCall(method, params);
+            setContentType("text/xml");
+            setChunked(mContentLength < 0);
+        }
 
-            FileEntity fEntity = new FileEntity(tempFile, "text/xml; charset=\"UTF-8\"") {
-                // Hook in a CountingOutputStream to keep track of bytes uploaded
-                @Override
-                public void writeTo(final OutputStream outstream) throws IOException {
-                    super.writeTo(new CountingOutputStream(outstream));
-                }
-            };
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
 
-            fEntity.setContentType("text/xml");
-            mPostMethod.setEntity(fEntity);
-        } else {
-            StringWriter bodyWriter = new StringWriter();
-            mSerializer.setOutput(bodyWriter);
+        @Override
+        public long getContentLength() {
+            return mContentLength;
+        }
 
-            mSerializer.startDocument(null, null);
-            mSerializer.startTag(null, TAG_METHOD_CALL);
-            // set method name
-            mSerializer.startTag(null, TAG_METHOD_NAME).text(method).endTag(null, TAG_METHOD_NAME);
-            if (params != null && params.length != 0) {
-                // set method params
-                mSerializer.startTag(null, TAG_PARAMS);
-                for (int i = 0; i < params.length; i++) {
-                    mSerializer.startTag(null, TAG_PARAM).startTag(null, XMLRPCSerializer.TAG_VALUE);
-                    if (method.equals("metaWeblog.editPost") || method.equals("metaWeblog.newPost")) {
-                        XMLRPCSerializer.serialize(mSerializer, params[i]);
-                    } else {
-                        XMLRPCSerializer.serialize(mSerializer, params[i]);
-                    }
-                    mSerializer.endTag(null, XMLRPCSerializer.TAG_VALUE).endTag(null, TAG_PARAM);
-                }
-                mSerializer.endTag(null, TAG_PARAMS);
+        @Override
+        public InputStream getContent() {
+            throw new UnsupportedOperationException("StreamingMethodCallEntity doesn't implement getContent()");
+        }
+
+        @Override
+        public void writeTo(OutputStream outstream) throws IOException {
+            // Hook in a CountingOutputStream to keep track of bytes uploaded
+            XmlSerializer serializer = Xml.newSerializer();
+            serializer.setOutput(new CountingOutputStream(outstream), "UTF-8");
+            serializeMethodCall(serializer, mMethod, mParams);
+            serializer.flush();
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+
+    /*
+     * returns the size in bytes of the serialized method call, or -1 if the size of a media file in the params
+     * can't be determined
+     */
+    private static long measureMethodCall(String method, Object[] params) throws IOException {
+        List<MediaFile> mediaFiles = new ArrayList<>();
+        Object[] envelopeParams = (Object[]) withoutMediaFiles(params, mediaFiles);
+
+        long length = 0;
+        for (MediaFile mediaFile : mediaFiles) {
+            long fileLength = MediaUtils.getFileSize(WordPress.getContext(), mediaFile.getFilePath());
+            if (fileLength <= 0) {
+                return -1;
             }
-            mSerializer.endTag(null, TAG_METHOD_CALL);
-            mSerializer.endDocument();
+            length += XMLRPCSerializer.getBase64Length(fileLength);
+        }
 
-            HttpEntity entity = new StringEntity(bodyWriter.toString());
-            mPostMethod.setEntity(entity);
+        ByteArrayOutputStream envelope = new ByteArrayOutputStream();
+        XmlSerializer serializer = Xml.newSerializer();
+        serializer.setOutput(envelope, "UTF-8");
+        serializeMethodCall(serializer, method, envelopeParams);
+        serializer.flush();
+        return length + envelope.size();
+    }
+
+    /*
+     * returns a copy of the passed param with each media file replaced by empty base64 content, and adds the
+     * media files to the passed list
+     */
+    private static Object withoutMediaFiles(Object param, List<MediaFile> mediaFiles) {
+        if (param instanceof MediaFile) {
+            mediaFiles.add((MediaFile) param);
+            return new byte[0];
+        } else if (param instanceof Object[]) {
+            Object[] array = (Object[]) param;
+            Object[] copy = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                copy[i] = withoutMediaFiles(array[i], mediaFiles);
+            }
+            return copy;
+        } else if (param instanceof List<?>) {
+            List<Object> copy = new ArrayList<>();
+            for (Object item : (List<?>) param) {
+                copy.add(withoutMediaFiles(item, mediaFiles));
+            }
+            return copy;
+        } else if (param instanceof Map<?, ?>) {
+            // keeps the iteration order, so the envelope is serialized exactly as the real body
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) param).entrySet()) {
+                copy.put(entry.getKey(), withoutMediaFiles(entry.getValue(), mediaFiles));
+            }
+            return copy;
         }
+        return param;
     }
 
     /**
      * The Caller class is used to make asynchronous calls to the server.
-     * For synchronous calls the Thread function of this class isn't used.
+     * For synchronous calls the Runnable function of this class isn't used.
      */
-    private class Caller extends Thread {
+    private class Caller implements Runnable {
         private XMLRPCCallback listener;
         private long threadId;
         private String methodName;
         private Object[] params;
-        private File tempFile;
+        private volatile XMLRPCCallExecutor.Call mCall;
+        private volatile boolean mIsCanceled;
 
         /**
          * Create a new Caller for asynchronous use.
@@ -442,44 +631,63 @@ public class XMLRPCClient implements XMLRPCClientInterface {
          * @param methodName The method name to call.
          * @param params The parameters of the call or null.
          */
-        public Caller(XMLRPCCallback listener, long threadId, String methodName, Object[] params, File tempFile) {
+        public Caller(XMLRPCCallback listener, long threadId, String methodName, Object[] params) {
             this.listener = listener;
             this.threadId = threadId;
             this.methodName = methodName;
             this.params = params;
-            this.tempFile = tempFile;
         }
 
         /**
          * Create a new Caller for synchronous use.
-         * If the caller has been created with this constructor you cannot use the
-         * start method to start it as a thread. But you can call the call method
-         * on it for synchronous use.
+         * If the caller has been created with this constructor you cannot submit
+         * it to the executor. But you can call the call method on it for
+         * synchronous use.
          */
         public Caller() { }
 
+        private void submit(XMLRPCCallExecutor.Priority priority) {
+            mCall = XMLRPCCallExecutor.submit(this, priority);
+        }
+
+        private void cancel() {
+            mIsCanceled = true;
+            XMLRPCCallExecutor.Call call = mCall;
+            if (call != null && XMLRPCCallExecutor.cancel(call)) {
+                // never started, run() won't get a chance to unregister it
+                backgroundCalls.remove(threadId);
+            }
+        }
+
         /**
-         * The run method is invoked when the thread gets started.
+         * The run method is invoked when the executor picks up the call.
          * This will only work, if the Caller has been created with parameters.
          * It execute the call method and notify the listener about the result.
          */
         @Override
         public void run() {
-            if(listener == null)
+            if (listener == null) {
                 return;
+            }
 
             try {
-                backgroundCalls.put(threadId, this);
-                Object o = this.callXMLRPC(methodName, params, tempFile);
-                listener.onSuccess(threadId, o);
+                if (mIsCanceled) {
+                    return;
+                }
+                Object o = this.callXMLRPC(methodName, params, null);
+                if (!mIsCanceled) {
+                    listener.onSuccess(threadId, o);
+                }
             } catch(CancelException ex) {
                 // Don't notify the listener, if the call has been canceled.
             } catch (Exception ex) {
-                listener.onFailure(threadId, ex);
+                // the request aborted by cancel() fails with an IOException, that's not worth reporting
+                if (!mIsCanceled) {
+                    listener.onFailure(threadId, ex);
+                }
             } finally {
                 backgroundCalls.remove(threadId);
             }
-
         }
 
         /**
@@ -487,17 +695,22 @@ public class XMLRPCClient implements XMLRPCClientInterface {
          *
          * @param method name of method to call
          * @param params parameters to pass to method (may be null if method has no parameters)
-         * @return deserialized method return value
+         * @param callback if not null, receives the response items as they're parsed
+         * @return deserialized method return value, or the number of items passed to the callback
          * @throws XMLRPCException
          */
-        private Object callXMLRPC(String method, Object[] params, File tempFile)
+        private Object callXMLRPC(String method, Object[] params, XMLRPCStreamingCallback callback)
                 throws XMLRPCException, IOException, XmlPullParserException {
             mLoggedInputStream = null;
             try {
-                preparePostMethod(method, params, tempFile);
+                preparePostMethod(method, params);
 
                 // execute HTTP POST request
-                HttpResponse response = mClient.execute(mPostMethod);
+                XMLRPCConnectionPool.closeIdleConnections();
+                HttpContext httpContext = new BasicHttpContext();
+                long requestStartTime = System.currentTimeMillis();
+                HttpResponse response = mClient.execute(mPostMethod, httpContext);
+                XMLRPCConnectionPool.onRequestExecuted(httpContext, requestStartTime, mConnectionStats);
 
                 if (response.getStatusLine() == null) // StatusLine is null. We can't read the response code.
                     throw new XMLRPCException( "HTTP Status code is missing!" );
@@ -512,7 +725,7 @@ public class XMLRPCClient implements XMLRPCClientInterface {
 
                 if (statusCode == HttpStatus.SC_OK) {
                     mLoggedInputStream = new LoggedInputStream(entity.getContent());
-                    return XMLRPCClient.parseXMLRPCResponse(mLoggedInputStream, entity);
+                    return XMLRPCClient.parseXMLRPCResponse(mLoggedInputStream, entity, callback);
                 }
 
                 String statusLineReasonPhrase = StringUtils.notNullStr(response.getStatusLine().getReasonPhrase());
@@ -549,24 +762,7 @@ public class XMLRPCClient implements XMLRPCClientInterface {
                 if (mLoggedInputStream!=null) {
                     AppLog.w(T.API, "Response document received from the server: " + mLoggedInputStream.getResponseDocument());
                 }
-                // Detect login issues and broadcast a message if the error is known
-                switch (e.getFaultCode()) {
-                    case 403:
-                        // Ignore 403 error from certain methods known for replying with incorrect error code on
-                        // lacking permissions
-                        if ("wp.getPostFormats".equals(method) || "wp.getCommentStatusList".equals(method)
-                            || "wp.getPostStatusList".equals(method) || "wp.getPageStatusList".equals(method)) {
-                            break;
-                        }
-                        EventBus.getDefault().post(new CoreEvents.InvalidCredentialsDetected());
-                        break;
-                    case 425:
-                        EventBus.getDefault().post(new CoreEvents.TwoFactorAuthenticationDetected());
-                        break;
-                    //TODO: Check the login limit here
-                    default:
-                        break;
-                }
+                checkXMLRPCFault(method, e);
                 throw e;
             } catch (XmlPullParserException e) {
                 AppLog.e(T.API, "Error while parsing the XML-RPC response document received from the server.", e);
@@ -608,7 +804,6 @@ public class XMLRPCClient implements XMLRPCClientInterface {
             } catch (IOException e) {
                 throw e;
             } finally {
-                deleteTempFile(method, tempFile);
                 try {
                     if (mLoggedInputStream != null) {
                         mLoggedInputStream.close();
@@ -619,6 +814,34 @@ public class XMLRPCClient implements XMLRPCClientInterface {
         }
     }
 
+    /**
+     * Detect login issues from a fault and broadcast a message if the error is known
+     */
+    private void checkXMLRPCFault(String method, XMLRPCFault fault) {
+        if (METHOD_MULTICALL.equals(method)) {
+            // a fault on the multicall itself is handled by callBatch, the faults of the calls it holds are
+            // checked separately
+            return;
+        }
+        switch (fault.getFaultCode()) {
+            case 403:
+                // Ignore 403 error from certain methods known for replying with incorrect error code on
+                // lacking permissions
+                if ("wp.getPostFormats".equals(method) || "wp.getCommentStatusList".equals(method)
+                    || "wp.getPostStatusList".equals(method) || "wp.getPageStatusList".equals(method)) {
+                    break;
+                }
+                EventBus.getDefault().post(new CoreEvents.InvalidCredentialsDetected());
+                break;
+            case 425:
+                EventBus.getDefault().post(new CoreEvents.TwoFactorAuthenticationDetected());
+                break;
+            //TODO: Check the login limit here
+            default:
+                break;
+        }
+    }
+
     /**
      * Detect login issues and broadcast a message if the error is known, App Activities should listen to these
      * broadcasted events and present user action to take
@@ -635,14 +858,6 @@ public class XMLRPCClient implements XMLRPCClientInterface {
         return false;
     }
 
-    private void deleteTempFile(String method, File tempFile) {
-        if (tempFile != null) {
-            if ((method.equals(Method.UPLOAD_FILE))){ //get rid of the temp file
-                tempFile.delete();
-            }
-        }
-    }
-
     private void addWPComAuthorizationHeaderIfNeeded() {
         Context ctx = WordPress.getContext();
         if (ctx == null) return;
@@ -707,7 +922,24 @@ public class XMLRPCClient implements XMLRPCClientInterface {
         }
     }
 
+    /**
+     * Approximate size of the request body when uploading a file of the given length. Uploads are streamed, so
+     * this is what upload progress should be measured against.
+     */
+    public static long getEstimatedUploadSize(long fileLength) {
+        // base64 turns 3 bytes into 4 characters, plus a line break every 76 characters
+        long base64Length = ((fileLength + 2) / 3) * 4;
+        return base64Length + base64Length / 76;
+    }
+
     public void setOnBytesUploadedListener(OnBytesUploadedListener listener) {
         mOnBytesUploadedListener = listener;
     }
+
+    /**
+     * Count the connections opened by this client's requests in the passed stats
+     */
+    public void setConnectionStats(XMLRPCConnectionPool.Stats connectionStats) {
+        mConnectionStats = connectionStats;
+    }
 }
@@ -2,7 +2,6 @@ package org.xmlrpc.android;
 
 import org.xmlpull.v1.XmlPullParserException;
 
-import java.io.File;
 import java.io.IOException;
 
 public interface XMLRPCClientInterface {
@@ -10,8 +9,9 @@ public interface XMLRPCClientInterface {
     public void setAuthorizationHeader(String authToken);
     public Object call(String method, Object[] params) throws XMLRPCException, IOException, XmlPullParserException;
     public Object call(String method) throws XMLRPCException, IOException, XmlPullParserException;
-    public Object call(String method, Object[] params, File tempFile) throws XMLRPCException, IOException, XmlPullParserException;
+    public int callStreaming(String method, Object[] params, XMLRPCStreamingCallback callback) throws XMLRPCException, IOException, XmlPullParserException;
+    public Object[] callBatch(String[] methods, Object[][] params) throws XMLRPCException, IOException, XmlPullParserException;
     public long callAsync(XMLRPCCallback listener, String methodName, Object[] params);
-    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params, File tempFile);
+    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params, XMLRPCCallExecutor.Priority priority);
     public String getResponse();
 }
@@ -0,0 +1,249 @@
+package org.xmlrpc.android;
+
+import android.content.Context;
+import android.net.SSLSessionCache;
+
+import org.apache.http.HttpConnection;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.scheme.SocketFactory;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+import org.wordpress.android.WordPress;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * Keep-alive HTTP connections shared by all XMLRPCClient instances, so consecutive XML-RPC calls to the same site
+ * reuse an open connection instead of paying a new TCP and TLS handshake each time.
+ *
+ * Self-hosted sites get a connection manager per HTTPS port using a single TrustUserSSLCertsSocketFactory, which
+ * keeps user trusted certificates working and lets TLS sessions be resumed. Call {@link #reset()} when the trusted
+ * certificates change, it only affects the clients created after it.
+ */
+public final class XMLRPCConnectionPool {
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 4;
+    private static final int MAX_TOTAL_CONNECTIONS = 16;
+    private static final long IDLE_CONNECTION_TIMEOUT_MS = 30000;
+    private static final long IDLE_CHECK_INTERVAL_MS = 10000;
+
+    private static final String KEY_DEFAULT = "default";
+
+    private static final Map<String, ClientConnectionManager> sConnectionManagers =
+            new HashMap<String, ClientConnectionManager>();
+    // managers replaced by reset(), still used by the clients created before it - they can't be shut down, so their
+    // connections are closed as soon as they're idle
+    private static final List<ClientConnectionManager> sRetiredConnectionManagers =
+            new ArrayList<ClientConnectionManager>();
+    private static TrustUserSSLCertsSocketFactory sTrustUserSocketFactory;
+    private static long sLastIdleCheck;
+
+    // ids of the TLS sessions negotiated so far, a new connection using one of them resumed its session
+    private static final int MAX_SEEN_SESSIONS = 64;
+    private static final Map<String, Boolean> sSeenSessionIds = new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_SEEN_SESSIONS;
+        }
+    };
+
+    private XMLRPCConnectionPool() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Connection counters for a single sync, pass an instance to {@link XMLRPCClient#setConnectionStats(Stats)} on
+     * each client used by the sync and log it once the sync is done
+     */
+    public static class Stats {
+        private final AtomicLong mRequests = new AtomicLong();
+        private final AtomicLong mNewConnections = new AtomicLong();
+        private final AtomicLong mFullHandshakes = new AtomicLong();
+        private final AtomicLong mResumedHandshakes = new AtomicLong();
+
+        public long getRequests() {
+            return mRequests.get();
+        }
+
+        public long getNewConnections() {
+            return mNewConnections.get();
+        }
+
+        public long getFullHandshakes() {
+            return mFullHandshakes.get();
+        }
+
+        public long getResumedHandshakes() {
+            return mResumedHandshakes.get();
+        }
+
+        /**
+         * @return fraction of requests sent on an already open connection
+         */
+        public float getReuseRatio() {
+            long requests = getRequests();
+            if (requests == 0) {
+                return 0f;
+            }
+            return (requests - getNewConnections()) / (float) requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, %d new connections, %d full TLS handshakes, %d resumed TLS sessions, "
+                    + "%.0f%% reuse", getRequests(), getNewConnections(), getFullHandshakes(), getResumedHandshakes(),
+                    getReuseRatio() * 100);
+        }
+    }
+
+    /**
+     * @param trustUserCerts true to accept the certificates trusted by the user on HTTPS connections
+     * @param httpsPort HTTPS port of the site, only used when trustUserCerts is true
+     */
+    static synchronized ClientConnectionManager getConnectionManager(boolean trustUserCerts, int httpsPort) {
+        String key = trustUserCerts ? "https:" + httpsPort : KEY_DEFAULT;
+        ClientConnectionManager connectionManager = sConnectionManagers.get(key);
+        if (connectionManager == null) {
+            SocketFactory sslSocketFactory = trustUserCerts ? getTrustUserSocketFactory() : null;
+            if (sslSocketFactory == null) {
+                sslSocketFactory = SSLSocketFactory.getSocketFactory();
+                httpsPort = 443;
+            }
+            SchemeRegistry schemeRegistry = new SchemeRegistry();
+            schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
+            schemeRegistry.register(new Scheme("https", sslSocketFactory, httpsPort));
+
+            HttpParams params = new BasicHttpParams();
+            ConnManagerParams.setMaxTotalConnections(params, MAX_TOTAL_CONNECTIONS);
+            ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(MAX_CONNECTIONS_PER_ROUTE));
+            // don't wait forever on a pool exhausted by a stuck request
+            ConnManagerParams.setTimeout(params, XMLRPCClient.DEFAULT_CONNECTION_TIMEOUT_MS);
+
+            connectionManager = new ThreadSafeClientConnManager(params, schemeRegistry);
+            sConnectionManagers.put(key, connectionManager);
+        }
+        return connectionManager;
+    }
+
+    private static TrustUserSSLCertsSocketFactory getTrustUserSocketFactory() {
+        if (sTrustUserSocketFactory == null) {
+            Context context = WordPress.getContext();
+            SSLSessionCache sessionCache = context != null ? new SSLSessionCache(context) : null;
+            try {
+                sTrustUserSocketFactory = new TrustUserSSLCertsSocketFactory(sessionCache);
+            } catch (GeneralSecurityException e) {
+                AppLog.e(T.API, "Cannot create the TrustUserSSLCertsSocketFactory", e);
+            } catch (IOException e) {
+                AppLog.e(T.API, "Cannot create the TrustUserSSLCertsSocketFactory", e);
+            }
+        }
+        return sTrustUserSocketFactory;
+    }
+
+    /**
+     * Drop the pooled connections and the socket factories, needed after the user trusted a new certificate. New
+     * clients get new connection managers, the current ones aren't shut down since clients may still be using them:
+     * their idle connections are closed now, and the others once the requests using them are done.
+     */
+    public static synchronized void reset() {
+        sRetiredConnectionManagers.addAll(sConnectionManagers.values());
+        sConnectionManagers.clear();
+        sTrustUserSocketFactory = null;
+        closeRetiredConnections();
+    }
+
+    private static void closeRetiredConnections() {
+        for (ClientConnectionManager connectionManager : sRetiredConnectionManagers) {
+            connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Close connections that have been idle for too long, the server has most likely dropped them already
+     */
+    static synchronized void closeIdleConnections() {
+        long now = System.currentTimeMillis();
+        if (now - sLastIdleCheck < IDLE_CHECK_INTERVAL_MS) {
+            return;
+        }
+        sLastIdleCheck = now;
+        for (ClientConnectionManager connectionManager : sConnectionManagers.values()) {
+            connectionManager.closeIdleConnections(IDLE_CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        closeRetiredConnections();
+    }
+
+    /**
+     * Record whether the request that has just been executed with this context opened a new connection, and for a
+     * new HTTPS connection whether its TLS session was resumed or needed a full handshake
+     *
+     * @param requestStartTime time the request was started at, in milliseconds since the epoch
+     */
+    static void onRequestExecuted(HttpContext context, long requestStartTime, Stats stats) {
+        if (stats == null) {
+            return;
+        }
+        stats.mRequests.incrementAndGet();
+        Object connection = context.getAttribute(ExecutionContext.HTTP_CONNECTION);
+        if (!(connection instanceof HttpConnection)) {
+            return;
+        }
+        try {
+            // a new connection has only carried the current request
+            if (((HttpConnection) connection).getMetrics().getRequestCount() > 1) {
+                return;
+            }
+            stats.mNewConnections.incrementAndGet();
+            SSLSession session = connection instanceof ManagedClientConnection
+                    ? ((ManagedClientConnection) connection).getSSLSession() : null;
+            if (session != null) {
+                if (isResumedSession(session, requestStartTime)) {
+                    stats.mResumedHandshakes.incrementAndGet();
+                } else {
+                    stats.mFullHandshakes.incrementAndGet();
+                }
+            }
+        } catch (IllegalStateException e) {
+            // connection already released back to the pool, can't tell
+        }
+    }
+
+    /*
+     * a session negotiated before this request started, or one another connection already used, has been resumed
+     * rather than established with a full handshake
+     */
+    private static boolean isResumedSession(SSLSession session, long requestStartTime) {
+        boolean isResumed = session.getCreationTime() < requestStartTime;
+        byte[] id = session.getId();
+        if (id != null && id.length > 0) {
+            String sessionId = Arrays.toString(id);
+            synchronized (sSeenSessionIds) {
+                isResumed |= sSeenSessionIds.containsKey(sessionId);
+                sSeenSessionIds.put(sessionId, true);
+            }
+        }
+        return isResumed;
+    }
+}
@@ -0,0 +1,161 @@
+package org.xmlrpc.android;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.SimpleTimeZone;
+
+/**
+ * Thread-safe codec for the XML-RPC dateTime.iso8601 values, always in GMT. The fixed yyyyMMdd'T'HH:mm:ss shape
+ * sent by WordPress is handled by hand without allocating a formatter, anything else (dates before the Gregorian
+ * calendar, out of range fields, other layouts) goes through a SimpleDateFormat so lenient parsing keeps working.
+ */
+public final class XMLRPCDateTimeCodec {
+    static final String PATTERN = "yyyyMMdd'T'HH:mm:ss";
+
+    private static final int FORMATTED_LENGTH = 17;
+    // SimpleDateFormat switches to the Julian calendar before the 1582 cutover
+    private static final int MIN_GREGORIAN_YEAR = 1583;
+    private static final int MAX_YEAR = 9999;
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long SECONDS_PER_DAY = 86400L;
+    // days from 0000-03-01 to 1970-01-01
+    private static final long DAYS_0000_TO_1970 = 719468L;
+    private static final long DAYS_PER_400_YEARS = 146097L;
+
+    private XMLRPCDateTimeCodec() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @return the parsed date, extra characters after the seconds (such as a trailing Z) are ignored
+     * @throws ParseException if the value isn't a date
+     */
+    public static Date parse(String value) throws ParseException {
+        long millis = parseFixed(value);
+        if (millis != Long.MIN_VALUE) {
+            return new Date(millis);
+        }
+        return newDateFormat().parse(value);
+    }
+
+    public static String format(Date date) {
+        long millis = date.getTime();
+        long days = floorDiv(millis, MILLIS_PER_SECOND * SECONDS_PER_DAY);
+        int secondOfDay = (int) (floorMod(millis, MILLIS_PER_SECOND * SECONDS_PER_DAY) / MILLIS_PER_SECOND);
+
+        // civil date from a day count, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + DAYS_0000_TO_1970;
+        long era = floorDiv(z, DAYS_PER_400_YEARS);
+        long dayOfEra = z - era * DAYS_PER_400_YEARS;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < MIN_GREGORIAN_YEAR || year > MAX_YEAR) {
+            return newDateFormat().format(date);
+        }
+
+        char[] chars = new char[FORMATTED_LENGTH];
+        putDigits(chars, 0, (int) year, 4);
+        putDigits(chars, 4, month, 2);
+        putDigits(chars, 6, day, 2);
+        chars[8] = 'T';
+        putDigits(chars, 9, secondOfDay / 3600, 2);
+        chars[11] = ':';
+        putDigits(chars, 12, (secondOfDay / 60) % 60, 2);
+        chars[14] = ':';
+        putDigits(chars, 15, secondOfDay % 60, 2);
+        return new String(chars);
+    }
+
+    /*
+     * returns Long.MIN_VALUE when the value doesn't have the exact expected shape or a field is out of range
+     */
+    private static long parseFixed(String value) {
+        if (value == null || value.length() < FORMATTED_LENGTH || value.charAt(8) != 'T'
+                || value.charAt(11) != ':' || value.charAt(14) != ':') {
+            return Long.MIN_VALUE;
+        }
+        int year = parseDigits(value, 0, 4);
+        int month = parseDigits(value, 4, 2);
+        int day = parseDigits(value, 6, 2);
+        int hour = parseDigits(value, 9, 2);
+        int minute = parseDigits(value, 12, 2);
+        int second = parseDigits(value, 15, 2);
+        if (year < MIN_GREGORIAN_YEAR || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+
+        // day count from a civil date, see http://howardhinnant.github.io/date_algorithms.html
+        long y = month <= 2 ? year - 1 : year;
+        long era = y / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long days = era * DAYS_PER_400_YEARS + dayOfEra - DAYS_0000_TO_1970;
+
+        return ((days * SECONDS_PER_DAY) + hour * 3600 + minute * 60 + second) * MILLIS_PER_SECOND;
+    }
+
+    /*
+     * returns -1 if one of the characters isn't a digit
+     */
+    private static int parseDigits(String value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static void putDigits(char[] chars, int start, int value, int count) {
+        for (int i = start + count - 1; i >= start; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean isLeapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return isLeapYear ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static long floorDiv(long x, long y) {
+        long result = x / y;
+        if ((x % y != 0) && ((x < 0) != (y < 0))) {
+            result--;
+        }
+        return result;
+    }
+
+    private static long floorMod(long x, long y) {
+        return x - floorDiv(x, y) * y;
+    }
+
+    private static SimpleDateFormat newDateFormat() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat(PATTERN, Locale.US);
+        dateFormat.setTimeZone(new SimpleTimeZone(0, "GMT"));
+        return dateFormat;
+    }
+}
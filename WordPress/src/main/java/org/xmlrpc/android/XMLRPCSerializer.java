@@ -1,9 +1,11 @@
 package org.xmlrpc.android;
 
+import android.net.Uri;
 import android.text.TextUtils;
 import android.util.Base64;
 import android.util.Xml;
 
+import org.wordpress.android.WordPress;
 import org.wordpress.android.util.helpers.MediaFile;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
@@ -19,7 +21,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -28,7 +29,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.SimpleTimeZone;
 
 class XMLRPCSerializer {
     static final String TAG_NAME = "name";
@@ -47,8 +47,10 @@ class XMLRPCSerializer {
     static final String TYPE_ARRAY = "array";
     static final String TYPE_STRUCT = "struct";
 
-    static SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss");
-    static Calendar cal = Calendar.getInstance(new SimpleTimeZone(0, "GMT"));
+    // bytes of a media file encoded at a time - must be a multiple of 3 so only the last chunk is padded
+    private static final int BASE64_CHUNK_SIZE = 3600;
+    // Base64.DEFAULT ends each line of 76 characters (19 groups of 3 bytes) with a line break
+    private static final int BASE64_BYTES_PER_LINE = 57;
 
     private static final XmlSerializer serializeTester;
 
@@ -89,10 +91,8 @@ class XMLRPCSerializer {
             serializer.startTag(null, TYPE_STRING).text(makeValidInputString((String) object)).endTag(null, TYPE_STRING);
         } else
         if (object instanceof Date || object instanceof Calendar) {
-            Date date = (Date) object;
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss");
-            dateFormat.setCalendar(cal);
-            String sDate = dateFormat.format(date);
+            Date date = object instanceof Calendar ? ((Calendar) object).getTime() : (Date) object;
+            String sDate = XMLRPCDateTimeCodec.format(date);
             serializer.startTag(null, TYPE_DATE_TIME_ISO8601).text(sDate).endTag(null, TYPE_DATE_TIME_ISO8601);
         } else
         if (object instanceof byte[] ){
@@ -108,11 +108,20 @@ class XMLRPCSerializer {
             //convert media file binary to base64
             serializer.startTag( null, "base64" );
             MediaFile mediaFile = (MediaFile) object;
-            InputStream inStream = new DataInputStream(new FileInputStream(mediaFile.getFilePath()));
-            byte[] buffer = new byte[3600];//you must use a 24bit multiple
+            String filePath = mediaFile.getFilePath();
+            InputStream inStream;
+            if (filePath != null && filePath.startsWith("content://")) {
+                inStream = WordPress.getContext().getContentResolver().openInputStream(Uri.parse(filePath));
+                if (inStream == null) {
+                    throw new IOException("Can't open " + filePath);
+                }
+            } else {
+                inStream = new DataInputStream(new FileInputStream(filePath));
+            }
+            byte[] buffer = new byte[BASE64_CHUNK_SIZE];
             int length = -1;
             String chunk = null;
-            while ((length = inStream.read(buffer)) > 0) {
+            while ((length = readChunk(inStream, buffer)) > 0) {
                 chunk = Base64.encodeToString(buffer, 0, length, Base64.DEFAULT);
                 serializer.text(chunk);
             }
@@ -164,6 +173,37 @@ class XMLRPCSerializer {
         }
     }
 
+    /*
+     * reads until the buffer is full or the stream ends, so every chunk but the last is encoded without padding
+     * and the length of the encoded file only depends on its size
+     */
+    private static int readChunk(InputStream inStream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int count = inStream.read(buffer, total, buffer.length - total);
+            if (count < 0) {
+                break;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    /*
+     * returns the number of characters a media file of the passed size is serialized to inside its <base64> tag
+     */
+    static long getBase64Length(long fileLength) {
+        long fullChunks = fileLength / BASE64_CHUNK_SIZE;
+        return fullChunks * getEncodedChunkLength(BASE64_CHUNK_SIZE)
+                + getEncodedChunkLength(fileLength % BASE64_CHUNK_SIZE);
+    }
+
+    private static long getEncodedChunkLength(long byteCount) {
+        long groups = (byteCount + 2) / 3;
+        long lineBreaks = (byteCount + BASE64_BYTES_PER_LINE - 1) / BASE64_BYTES_PER_LINE;
+        return groups * 4 + lineBreaks;
+    }
+
     private static final String makeValidInputString(final String input) throws IOException {
         if (TextUtils.isEmpty(input))
             return "";
@@ -200,6 +240,51 @@ class XMLRPCSerializer {
         parser.require(XmlPullParser.START_TAG, null, TAG_VALUE);
 
         parser.nextTag();
+        Object obj = deserializeTypedValue(parser);
+        parser.nextTag(); // TAG_VALUE (</value>)
+        parser.require(XmlPullParser.END_TAG, null, TAG_VALUE);
+        return obj;
+    }
+
+    /**
+     * Streaming counterpart of deserialize(): when the value is an array, each element is deserialized and passed
+     * to the callback as soon as it has been read, so only one element is held in memory at a time. Any other value
+     * type is passed to the callback as a single item.
+     *
+     * @return number of items passed to the callback
+     */
+    static int deserializeStreaming(XmlPullParser parser, XMLRPCStreamingCallback callback)
+            throws XmlPullParserException, IOException, NumberFormatException {
+        parser.require(XmlPullParser.START_TAG, null, TAG_VALUE);
+
+        parser.nextTag();
+        int count = 0;
+        if (parser.getName().equals(TYPE_ARRAY)) {
+            parser.nextTag(); // TAG_DATA (<data>)
+            parser.require(XmlPullParser.START_TAG, null, TAG_DATA);
+
+            parser.nextTag();
+            while (parser.getName().equals(TAG_VALUE)) {
+                callback.onItem(count++, deserialize(parser));
+                parser.nextTag();
+            }
+            parser.require(XmlPullParser.END_TAG, null, TAG_DATA);
+            parser.nextTag(); // TAG_ARRAY (</array>)
+            parser.require(XmlPullParser.END_TAG, null, TYPE_ARRAY);
+        } else {
+            callback.onItem(count++, deserializeTypedValue(parser));
+        }
+        parser.nextTag(); // TAG_VALUE (</value>)
+        parser.require(XmlPullParser.END_TAG, null, TAG_VALUE);
+        return count;
+    }
+
+    /*
+     * deserializes the value whose type tag (<string>, <struct>, ...) the parser is positioned on, leaving the
+     * parser on the matching end tag
+     */
+    private static Object deserializeTypedValue(XmlPullParser parser)
+            throws XmlPullParserException, IOException, NumberFormatException {
         String typeNodeName = parser.getName();
 
         Object obj;
@@ -228,10 +313,9 @@ class XMLRPCSerializer {
             obj = parser.nextText();
         } else
         if (typeNodeName.equals(TYPE_DATE_TIME_ISO8601)) {
-            dateFormat.setCalendar(cal);
             String value = parser.nextText();
             try {
-                obj = dateFormat.parseObject(value);
+                obj = XMLRPCDateTimeCodec.parse(value);
             } catch (ParseException e) {
                 AppLog.e(T.API, e);
                 obj = value;
@@ -291,8 +375,6 @@ class XMLRPCSerializer {
         } else {
             throw new IOException("Cannot deserialize " + parser.getName());
         }
-        parser.nextTag(); // TAG_VALUE (</value>)
-        parser.require(XmlPullParser.END_TAG, null, TAG_VALUE);
         return obj;
     }
 }
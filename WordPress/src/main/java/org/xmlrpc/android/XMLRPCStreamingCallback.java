@@ -0,0 +1,16 @@
+package org.xmlrpc.android;
+
+/**
+ * Receives the items of an XML-RPC response one at a time while the response is still being read, so callers
+ * can persist large results (media library, post lists) without holding the whole object tree in memory.
+ *
+ * If the response value is an array, onItem is called once for each of its elements in document order.
+ * Any other response value is passed to onItem as a single item with index 0.
+ */
+public interface XMLRPCStreamingCallback {
+    /**
+     * @param index position of the item in the response array
+     * @param item the deserialized item (a Map for struct elements)
+     */
+    void onItem(int index, Object item);
+}
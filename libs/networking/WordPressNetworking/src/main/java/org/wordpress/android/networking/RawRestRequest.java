@@ -0,0 +1,68 @@
+package org.wordpress.android.networking;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.wordpress.rest.RestRequest;
+
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * REST request which passes the raw response body to its listener instead of parsing it into a
+ * JSONObject, so large responses can be read from a stream. It wraps the request made by the
+ * RestClient, which holds the User-Agent and access token headers and handles errors (including
+ * auth failures), so it's sent the same way as any other REST request - see RestClientUtils.getRaw()
+ */
+public class RawRestRequest extends RestRequest {
+    public interface Listener {
+        void onResponse(byte[] data);
+    }
+
+    private final RestRequest mRequest;
+    private final Listener mListener;
+    private byte[] mData;
+
+    RawRestRequest(RestRequest request, Listener listener, ErrorListener errorListener) {
+        super(request.getMethod(), request.getUrl(), null, (RestRequest.Listener) null, errorListener);
+        mRequest = request;
+        mListener = listener;
+    }
+
+    @Override
+    public void setAccessToken(String token) {
+        mRequest.setAccessToken(token);
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        // typed as a Volley Request, which declares AuthFailureError
+        Request<?> request = mRequest;
+        try {
+            return request.getHeaders();
+        } catch (AuthFailureError e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    @Override
+    protected Response<JSONObject> parseNetworkResponse(NetworkResponse response) {
+        mData = response.data;
+        return Response.success(null, HttpHeaderParser.parseCacheHeaders(response));
+    }
+
+    @Override
+    protected void deliverResponse(JSONObject response) {
+        mListener.onResponse(mData);
+    }
+
+    @Override
+    public void deliverError(VolleyError error) {
+        mRequest.deliverError(error);
+    }
+}
@@ -17,6 +17,7 @@ import com.wordpress.rest.RestRequest.Listener;
 
 import org.json.JSONObject;
 
+import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
@@ -302,6 +303,35 @@ public class RestClientUtils {
         return request;
     }
 
+    /**
+     * Make GET request whose response body is passed as is to the listener rather than parsed into a
+     * JSONObject, for responses which are read from a stream. The request is made by the RestClient
+     * like any other, a RestClient which responds when making the request (such as a mock) responds
+     * with the body of the JSONObject it returns.
+     */
+    public Request<JSONObject> getRaw(String path, final RawRestRequest.Listener listener,
+                                      ErrorListener errorListener) {
+        Listener jsonListener = new Listener() {
+            @Override
+            public void onResponse(JSONObject response) {
+                try {
+                    listener.onResponse(response.toString().getBytes("UTF-8"));
+                } catch (UnsupportedEncodingException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+        Map<String, String> params = null;
+        RestRequest request = mRestClient.makeRequest(Method.GET, mRestClient.getAbsoluteURL(path, params), null,
+                                                      jsonListener, errorListener);
+        RawRestRequest rawRequest = new RawRestRequest(request, listener, errorListener);
+        rawRequest.setRetryPolicy(new DefaultRetryPolicy(REST_TIMEOUT_MS, REST_MAX_RETRIES_GET, REST_BACKOFF_MULT));
+        AuthenticatorRequest authCheck = new AuthenticatorRequest(rawRequest, errorListener, mRestClient,
+                                                                  mAuthenticator);
+        authCheck.send();
+        return rawRequest;
+    }
+
     /**
      * Make Synchronous GET request
      *
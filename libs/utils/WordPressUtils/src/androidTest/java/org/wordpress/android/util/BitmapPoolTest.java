@@ -0,0 +1,135 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+public class BitmapPoolTest extends InstrumentationTestCase {
+    private static final int THUMBNAIL_COUNT = 30;
+    private static final int VISIBLE_THUMBNAILS = 9;
+    private static final int THUMBNAIL_SIZE = 240;
+
+    private final List<File> mFiles = new ArrayList<>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        BitmapPool.evictAll();
+        BitmapPool.resetCounters();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (File file : mFiles) {
+            file.delete();
+        }
+        BitmapPool.evictAll();
+        super.tearDown();
+    }
+
+    private File createImageFile(int index, int width, int height) throws IOException {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.rgb(index * 8, 0, 255 - index * 8));
+        File file = new File(getInstrumentation().getTargetContext().getCacheDir(), "bitmap-pool-test-" + index + ".jpg");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+        } finally {
+            out.close();
+        }
+        bitmap.recycle();
+        mFiles.add(file);
+        return file;
+    }
+
+    public void testPutAndGet() {
+        if (!BitmapPool.isSupported()) {
+            return;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(100, 50, Bitmap.Config.ARGB_8888);
+        assertTrue(BitmapPool.put(bitmap));
+        assertNull(BitmapPool.get(200, 100, Bitmap.Config.ARGB_8888));
+        assertSame(bitmap, BitmapPool.get(100, 50, Bitmap.Config.ARGB_8888));
+        // it's no longer in the pool once it's been handed out
+        assertNull(BitmapPool.get(100, 50, Bitmap.Config.ARGB_8888));
+
+        // immutable bitmaps can't be reused
+        Bitmap immutable = Bitmap.createBitmap(new int[100 * 50], 100, 50, Bitmap.Config.ARGB_8888);
+        assertFalse(BitmapPool.put(immutable));
+    }
+
+    public void testCreateBitmapIsCleared() {
+        Bitmap bitmap = Bitmap.createBitmap(64, 64, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.RED);
+        BitmapPool.put(bitmap);
+
+        Bitmap reused = BitmapPool.createBitmap(64, 64, Bitmap.Config.ARGB_8888);
+        assertEquals(64, reused.getWidth());
+        assertEquals(Color.TRANSPARENT, reused.getPixel(10, 10));
+    }
+
+    public void testDecodeFileReusesPooledBitmap() throws IOException {
+        File file = createImageFile(0, THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+        Bitmap first = BitmapPool.decodeFile(file.getPath(), null);
+        assertNotNull(first);
+        assertTrue(first.isMutable());
+        assertEquals(1, BitmapPool.getAllocatedCount());
+
+        BitmapPool.put(first);
+        Bitmap second = BitmapPool.decodeFile(file.getPath(), null);
+        assertNotNull(second);
+        assertEquals(THUMBNAIL_SIZE, second.getWidth());
+        if (BitmapPool.isSupported()) {
+            assertSame(first, second);
+            assertEquals(1, BitmapPool.getReusedCount());
+        }
+    }
+
+    /*
+     * simulates scrolling a grid of thumbnails - each thumbnail scrolled off screen is released and the next
+     * one is decoded - with and without the pool
+     */
+    public void testScrollBenchmark() throws IOException {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < THUMBNAIL_COUNT; i++) {
+            files.add(createImageFile(i, THUMBNAIL_SIZE, THUMBNAIL_SIZE));
+        }
+
+        long allocatedBytes = 0;
+        long start = System.nanoTime();
+        for (File file : files) {
+            Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+            allocatedBytes += bitmap.getRowBytes() * bitmap.getHeight();
+        }
+        long plainMs = (System.nanoTime() - start) / 1000000;
+
+        LinkedList<Bitmap> visible = new LinkedList<>();
+        start = System.nanoTime();
+        for (File file : files) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            visible.add(BitmapPool.decodeFile(file.getPath(), options));
+            if (visible.size() > VISIBLE_THUMBNAILS) {
+                BitmapPool.put(visible.removeFirst());
+            }
+        }
+        long pooledMs = (System.nanoTime() - start) / 1000000;
+
+        if (BitmapPool.isSupported()) {
+            assertEquals(THUMBNAIL_COUNT - VISIBLE_THUMBNAILS, BitmapPool.getReusedCount());
+        }
+        AppLog.i(T.TESTS, String.format("scroll %d thumbnails: plain %d ms, %d KB allocated; "
+                        + "pooled %d ms, %d KB allocated, %d KB reused", THUMBNAIL_COUNT, plainMs,
+                allocatedBytes / 1024, pooledMs, BitmapPool.getAllocatedBytes() / 1024,
+                BitmapPool.getReusedBytes() / 1024));
+    }
+}
@@ -0,0 +1,160 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+public class ImageResizeTest extends InstrumentationTestCase {
+    private static final int MAX_WIDTH = 1024;
+    private static final int QUEUE_IMAGE_COUNT = 4;
+    // 12, 24 and 48 megapixels
+    private static final int[][] BENCHMARK_SIZES = {{4000, 3000}, {6000, 4000}, {8000, 6000}};
+
+    private final List<File> mFiles = new ArrayList<>();
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (File file : mFiles) {
+            file.delete();
+        }
+        super.tearDown();
+    }
+
+    private File newFile(String name) {
+        File file = new File(getInstrumentation().getTargetContext().getCacheDir(), "image-resize-test-" + name);
+        mFiles.add(file);
+        return file;
+    }
+
+    private File createImageFile(String name, int width, int height) throws IOException {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+        bitmap.eraseColor(Color.GRAY);
+        File file = newFile(name + ".jpg");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+        } finally {
+            out.close();
+        }
+        bitmap.recycle();
+        return file;
+    }
+
+    private static int[] getSize(File file) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        return new int[]{options.outWidth, options.outHeight};
+    }
+
+    public void testResizeImageToFile() throws IOException {
+        File source = createImageFile("source", 3000, 2000);
+        File dest = newFile("resized.jpg");
+
+        assertTrue(ImageUtils.resizeImageToFile(getInstrumentation().getTargetContext(), Uri.fromFile(source),
+                MAX_WIDTH, "jpg", 0, dest));
+        int[] size = getSize(dest);
+        assertTrue(Math.abs(size[0] - MAX_WIDTH) <= 1);
+        assertTrue(Math.abs(size[1] - 683) <= 1);
+
+        // rotated images are resized to the max width once rotated
+        assertTrue(ImageUtils.resizeImageToFile(getInstrumentation().getTargetContext(), Uri.fromFile(source),
+                MAX_WIDTH, "jpg", 90, dest));
+        size = getSize(dest);
+        assertTrue(Math.abs(size[0] - MAX_WIDTH) <= 1);
+        assertTrue(Math.abs(size[1] - 1536) <= 1);
+    }
+
+    /*
+     * the resize pipeline this replaced - power of two decode, a second scaled/rotated bitmap, then compressed
+     * into a byte array which was copied and written to the file
+     */
+    private static void legacyResize(File source, int maxWidth, File dest) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        // the bounds were decoded once by getImageSize() and again by createThumbnailFromUri()
+        BitmapFactory.decodeFile(source.getPath(), bounds);
+        BitmapFactory.decodeFile(source.getPath(), bounds);
+
+        int scale = (int) Math.pow(2, (int) Math.round(Math.log(maxWidth / (double) bounds.outWidth) / Math.log(0.5)));
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = scale;
+        Bitmap sampled = BitmapFactory.decodeFile(source.getPath(), options);
+
+        float scaleBy = (float) maxWidth / sampled.getWidth();
+        Matrix matrix = new Matrix();
+        matrix.postScale(scaleBy, scaleBy);
+        Bitmap scaled = Bitmap.createBitmap(sampled, 0, 0, sampled.getWidth(), sampled.getHeight(), matrix, true);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        scaled.compress(Bitmap.CompressFormat.JPEG, 100, stream);
+        sampled.recycle();
+        scaled.recycle();
+
+        FileOutputStream out = new FileOutputStream(dest);
+        out.write(stream.toByteArray());
+        out.close();
+    }
+
+    public void testResizeBenchmark() throws IOException, InterruptedException, ExecutionException {
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        for (int[] dimensions : BENCHMARK_SIZES) {
+            int megapixels = dimensions[0] * dimensions[1] / 1000000;
+            // the test needs the full source image in memory to create it
+            if ((long) dimensions[0] * dimensions[1] * 2 > maxMemory / 3) {
+                AppLog.i(T.TESTS, "resize " + megapixels + " MP: skipped, heap too small");
+                continue;
+            }
+
+            File source = createImageFile(megapixels + "mp", dimensions[0], dimensions[1]);
+            File dest = newFile(megapixels + "mp-resized.jpg");
+
+            long start = System.nanoTime();
+            legacyResize(source, MAX_WIDTH, dest);
+            long legacyMs = (System.nanoTime() - start) / 1000000;
+
+            start = System.nanoTime();
+            assertTrue(ImageUtils.resizeImageToFile(getInstrumentation().getTargetContext(), Uri.fromFile(source),
+                    MAX_WIDTH, "jpg", 0, dest));
+            long resizeMs = (System.nanoTime() - start) / 1000000;
+
+            // several images one after another, then through the queue
+            start = System.nanoTime();
+            for (int i = 0; i < QUEUE_IMAGE_COUNT; i++) {
+                ImageUtils.resizeImageToFile(getInstrumentation().getTargetContext(), Uri.fromFile(source),
+                        MAX_WIDTH, "jpg", 90, newFile(megapixels + "mp-sequential-" + i + ".jpg"));
+            }
+            long sequentialMs = (System.nanoTime() - start) / 1000000;
+
+            ImageResizeQueue queue = ImageResizeQueue.newDefaultQueue();
+            List<Future<Boolean>> results = new ArrayList<>();
+            start = System.nanoTime();
+            for (int i = 0; i < QUEUE_IMAGE_COUNT; i++) {
+                results.add(queue.resize(getInstrumentation().getTargetContext(), Uri.fromFile(source), MAX_WIDTH,
+                        "jpg", 90, newFile(megapixels + "mp-queued-" + i + ".jpg")));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+            long queuedMs = (System.nanoTime() - start) / 1000000;
+            queue.shutdown();
+
+            AppLog.i(T.TESTS, "resize " + megapixels + " MP: legacy " + legacyMs + " ms, single pass " + resizeMs
+                    + " ms; " + QUEUE_IMAGE_COUNT + " rotated images: sequential " + sequentialMs + " ms, queued "
+                    + queuedMs + " ms");
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.wordpress.android.util;
 import android.test.InstrumentationTestCase;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 public class JSONUtilsTest extends InstrumentationTestCase {
@@ -29,4 +30,39 @@ public class JSONUtilsTest extends InstrumentationTestCase {
     public void testQueryJSONNullReturnValue2() {
         JSONUtils.queryJSON(new JSONArray(), "", null);
     }
+
+    public void testCompiledQueryMatchesQueryJSON() throws JSONException {
+        JSONObject json = new JSONObject("{\"type\":\"comment\",\"meta\":{\"ids\":{\"comment\":12,\"site\":34}},"
+                + "\"body\":[{\"text\":\"first\"},{\"text\":\"last\",\"ranges\":[[1,2],[3,4]]}]}");
+        String[] queries = {"type", "meta.ids.comment", "meta.ids.missing", "missing.ids", "body[0].text",
+                "body[last].text", "body[first].text", "body[-2].text", "body[5].text", "body[1].ranges[1][0]",
+                "type.text", "body.text", ""};
+        for (String query : queries) {
+            assertEquals(query, JSONUtils.queryJSON(json, query, "default"),
+                    JSONUtils.compileQuery(query).query(json, "default"));
+            assertEquals(query, JSONUtils.queryJSON(json, query, -1),
+                    JSONUtils.compileQuery(query).query(json, -1));
+        }
+
+        JSONArray array = json.getJSONArray("body");
+        String[] arrayQueries = {"[0].text", "[last].text", "body[1].text", "[1].ranges[0][1]", "[3]", "text"};
+        for (String query : arrayQueries) {
+            assertEquals(query, JSONUtils.queryJSON(array, query, "default"),
+                    JSONUtils.compileQuery(query).query(array, "default"));
+            assertEquals(query, JSONUtils.queryJSON(array, query, -1),
+                    JSONUtils.compileQuery(query).query(array, -1));
+        }
+    }
+
+    public void testCompileInvalidQuery() {
+        String[] invalidQueries = {"body[0", "body[x].text", "body[0]text"};
+        for (String query : invalidQueries) {
+            try {
+                JSONUtils.compileQuery(query);
+                fail("compiled invalid query " + query);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
 }
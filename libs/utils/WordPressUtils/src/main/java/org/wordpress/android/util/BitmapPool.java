@@ -0,0 +1,288 @@
+package org.wordpress.android.util;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.os.Build;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of mutable bitmaps which are no longer used, so decoding and drawing images can reuse their memory
+ * (through BitmapFactory.Options.inBitmap) instead of allocating a new bitmap each time. Bitmaps are held
+ * through soft references so the pool never keeps memory the VM needs, and are kept in buckets by size -
+ * bucket n holds bitmaps of up to 2^n bytes.
+ *
+ * Before KitKat a bitmap can only be reused for an image of exactly the same size, so only bitmaps with
+ * the same dimensions are matched there.
+ */
+public class BitmapPool {
+    private static final int NUM_BUCKETS = 32;
+    // larger bitmaps are only reused for images at least half their size to avoid wasting memory
+    private static final int MAX_REUSE_RATIO = 2;
+
+    @SuppressWarnings("unchecked")
+    private static final LinkedList<PooledBitmap>[] mBuckets = new LinkedList[NUM_BUCKETS];
+    private static long mMaxPoolBytes = Runtime.getRuntime().maxMemory() / 32;
+    private static long mPoolBytes;
+
+    private static final AtomicLong mReusedCount = new AtomicLong();
+    private static final AtomicLong mReusedBytes = new AtomicLong();
+    private static final AtomicLong mAllocatedCount = new AtomicLong();
+    private static final AtomicLong mAllocatedBytes = new AtomicLong();
+
+    private BitmapPool() {
+        throw new AssertionError();
+    }
+
+    private static class PooledBitmap {
+        final SoftReference<Bitmap> bitmapRef;
+        // kept here since the bitmap may be collected while it's in the pool
+        final int bytes;
+
+        PooledBitmap(Bitmap bitmap, int bytes) {
+            this.bitmapRef = new SoftReference<>(bitmap);
+            this.bytes = bytes;
+        }
+    }
+
+    public static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+    }
+
+    public static synchronized void setMaxSize(long maxBytes) {
+        mMaxPoolBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    /*
+     * adds a bitmap which is no longer used by anything to the pool, returns false if it can't be pooled
+     * (immutable bitmaps can't be reused) so the caller can recycle it instead - only pass intermediate bitmaps
+     * the caller owns, never one which may still be displayed or cached since it will be drawn over
+     */
+    public static boolean put(Bitmap bitmap) {
+        if (!isSupported() || bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return false;
+        }
+        int bytes = getByteCount(bitmap);
+        synchronized (BitmapPool.class) {
+            if (bytes > mMaxPoolBytes) {
+                return false;
+            }
+            int bucket = getBucket(bytes);
+            if (mBuckets[bucket] == null) {
+                mBuckets[bucket] = new LinkedList<>();
+            }
+            for (PooledBitmap pooled : mBuckets[bucket]) {
+                if (pooled.bitmapRef.get() == bitmap) {
+                    return true;
+                }
+            }
+            mBuckets[bucket].addFirst(new PooledBitmap(bitmap, bytes));
+            mPoolBytes += bytes;
+            trimToSize(mMaxPoolBytes);
+            return true;
+        }
+    }
+
+    /*
+     * returns a pooled bitmap which can hold an image with the passed dimensions, or null if there isn't one
+     */
+    static synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        if (!isSupported() || width <= 0 || height <= 0) {
+            return null;
+        }
+        int requiredBytes = width * height * getBytesPerPixel(config);
+        boolean canResize = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+        int lastBucket = canResize ? getBucket(requiredBytes * MAX_REUSE_RATIO) : getBucket(requiredBytes);
+        for (int bucket = getBucket(requiredBytes); bucket <= lastBucket && bucket < NUM_BUCKETS; bucket++) {
+            if (mBuckets[bucket] == null) {
+                continue;
+            }
+            Iterator<PooledBitmap> iterator = mBuckets[bucket].iterator();
+            while (iterator.hasNext()) {
+                PooledBitmap pooled = iterator.next();
+                Bitmap bitmap = pooled.bitmapRef.get();
+                if (bitmap == null || bitmap.isRecycled()) {
+                    // collected by the VM
+                    iterator.remove();
+                    mPoolBytes -= pooled.bytes;
+                    continue;
+                }
+                int bytes = pooled.bytes;
+                boolean fits = canResize
+                        ? bytes >= requiredBytes && bytes <= requiredBytes * MAX_REUSE_RATIO
+                        : bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config;
+                if (fits) {
+                    iterator.remove();
+                    mPoolBytes -= bytes;
+                    return bitmap;
+                }
+            }
+        }
+        return null;
+    }
+
+    /*
+     * decodes the passed file reusing a pooled bitmap when possible - the passed options are used as they
+     * are other than inBitmap and inMutable, and the returned bitmap is always mutable so it can be pooled
+     */
+    public static Bitmap decodeFile(String path, BitmapFactory.Options options) {
+        if (options == null) {
+            options = new BitmapFactory.Options();
+        }
+        if (!isSupported()) {
+            return countAllocation(BitmapFactory.decodeFile(path, options));
+        }
+
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(path, options);
+            options.inJustDecodeBounds = false;
+        }
+
+        options.inMutable = true;
+        Bitmap pooled = getForDecode(options);
+        if (pooled != null) {
+            options.inBitmap = pooled;
+            try {
+                Bitmap bitmap = BitmapFactory.decodeFile(path, options);
+                if (bitmap != null) {
+                    countReuse(bitmap);
+                    return bitmap;
+                }
+            } catch (IllegalArgumentException e) {
+                // the decoder can't reuse this bitmap (format we can't predict), fall back to allocating
+                AppLog.d(T.UTILS, "bitmap pool > unable to reuse bitmap: " + e.getMessage());
+            } finally {
+                options.inBitmap = null;
+            }
+            put(pooled);
+        }
+        return countAllocation(BitmapFactory.decodeFile(path, options));
+    }
+
+    /*
+     * returns a cleared bitmap with the passed dimensions, reusing a pooled one when possible
+     */
+    public static Bitmap createBitmap(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = get(width, height, config);
+        if (bitmap != null) {
+            if (bitmap.getWidth() != width || bitmap.getHeight() != height || bitmap.getConfig() != config) {
+                reconfigure(bitmap, width, height, config);
+            }
+            bitmap.eraseColor(Color.TRANSPARENT);
+            countReuse(bitmap);
+            return bitmap;
+        }
+        return countAllocation(Bitmap.createBitmap(width, height, config));
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static void reconfigure(Bitmap bitmap, int width, int height, Bitmap.Config config) {
+        bitmap.reconfigure(width, height, config);
+    }
+
+    /*
+     * returns a pooled bitmap the decoder can decode the image described by the passed options into
+     */
+    private static Bitmap getForDecode(BitmapFactory.Options options) {
+        // the decoder rounds the sample size down to a power of two
+        int sampleSize = Integer.highestOneBit(Math.max(1, options.inSampleSize));
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT && sampleSize > 1) {
+            // the decoded size isn't known exactly, and older versions require an exact match
+            return null;
+        }
+        int width = (int) Math.ceil(options.outWidth / (double) sampleSize);
+        int height = (int) Math.ceil(options.outHeight / (double) sampleSize);
+        Bitmap.Config config = options.inPreferredConfig != null ? options.inPreferredConfig : Bitmap.Config.ARGB_8888;
+        return get(width, height, config);
+    }
+
+    private static void trimToSize(long maxBytes) {
+        // drop the largest bitmaps first since they're the least likely to be reused
+        for (int bucket = NUM_BUCKETS - 1; bucket >= 0 && mPoolBytes > maxBytes; bucket--) {
+            LinkedList<PooledBitmap> list = mBuckets[bucket];
+            while (list != null && !list.isEmpty() && mPoolBytes > maxBytes) {
+                mPoolBytes -= list.removeLast().bytes;
+            }
+        }
+    }
+
+    public static synchronized void evictAll() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            mBuckets[i] = null;
+        }
+        mPoolBytes = 0;
+    }
+
+    private static Bitmap countAllocation(Bitmap bitmap) {
+        if (bitmap != null) {
+            mAllocatedCount.incrementAndGet();
+            mAllocatedBytes.addAndGet(getByteCount(bitmap));
+        }
+        return bitmap;
+    }
+
+    private static void countReuse(Bitmap bitmap) {
+        mReusedCount.incrementAndGet();
+        mReusedBytes.addAndGet(getByteCount(bitmap));
+    }
+
+    public static long getReusedBytes() {
+        return mReusedBytes.get();
+    }
+
+    public static long getAllocatedBytes() {
+        return mAllocatedBytes.get();
+    }
+
+    public static long getReusedCount() {
+        return mReusedCount.get();
+    }
+
+    public static long getAllocatedCount() {
+        return mAllocatedCount.get();
+    }
+
+    public static void resetCounters() {
+        mReusedCount.set(0);
+        mReusedBytes.set(0);
+        mAllocatedCount.set(0);
+        mAllocatedBytes.set(0);
+    }
+
+    public static synchronized void logStats() {
+        AppLog.d(T.UTILS, String.format("bitmap pool > %d KB pooled, reused %d bitmaps (%d KB), allocated %d (%d KB)",
+                mPoolBytes / 1024, mReusedCount.get(), mReusedBytes.get() / 1024, mAllocatedCount.get(),
+                mAllocatedBytes.get() / 1024));
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static int getByteCount(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        } else if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        }
+        return 4;
+    }
+
+    private static int getBucket(int bytes) {
+        // smallest n where bytes <= 2^n
+        return bytes <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(bytes - 1);
+    }
+}
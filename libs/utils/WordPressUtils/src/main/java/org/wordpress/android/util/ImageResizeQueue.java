@@ -0,0 +1,120 @@
+package org.wordpress.android.util;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Process;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resizes queued images in parallel through ImageUtils.resizeImageToFile() while bounding the memory used
+ * by the bitmaps being resized - each image reserves its estimated size (its subsampled and resized bitmaps,
+ * plus a second resized one when it has to be rotated) before it's decoded, and waits while the images in
+ * progress use up the budget.
+ */
+public class ImageResizeQueue {
+    private static final long KEEP_ALIVE_SECONDS = 10;
+    private static final int BYTES_PER_PIXEL = 4;
+    // semaphore permits are in KB so large budgets fit in an int
+    private static final int PERMIT_BYTES = 1024;
+
+    private final ExecutorService mExecutor;
+    private final Semaphore mMemoryPermits;
+    private final int mMaxPermits;
+
+    /*
+     * creates a queue which resizes up to maxThreads images at once using at most maxBytes for their bitmaps
+     */
+    public ImageResizeQueue(int maxThreads, long maxBytes) {
+        mMaxPermits = (int) Math.max(1, maxBytes / PERMIT_BYTES);
+        mMemoryPermits = new Semaphore(mMaxPermits, true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger mThreadCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        return new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                runnable.run();
+                            }
+                        }, "ImageResizeQueue #" + mThreadCount.incrementAndGet());
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        mExecutor = executor;
+    }
+
+    /*
+     * default queue for the device - one thread per core up to four, and a quarter of the heap
+     */
+    public static ImageResizeQueue newDefaultQueue() {
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        return new ImageResizeQueue(threads, Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    /*
+     * queues the passed image to be resized into destFile, the returned future is true if it was written
+     */
+    public Future<Boolean> resize(final Context context, final Uri imageUri, final int maxWidth,
+                                  final String fileExtension, final int rotation, final File destFile) {
+        return mExecutor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws InterruptedException {
+                int permits = getPermitsForImage(context, imageUri, maxWidth, rotation);
+                mMemoryPermits.acquire(permits);
+                try {
+                    return ImageUtils.resizeImageToFile(context, imageUri, maxWidth, fileExtension, rotation,
+                            destFile);
+                } finally {
+                    mMemoryPermits.release(permits);
+                }
+            }
+        });
+    }
+
+    public void shutdown() {
+        mExecutor.shutdown();
+    }
+
+    /*
+     * estimated memory needed to resize the passed image, never more than the whole budget so a single large
+     * image can still be resized on its own
+     */
+    private int getPermitsForImage(Context context, Uri imageUri, int maxWidth, int rotation) {
+        int[] size = ImageUtils.getImageSize(imageUri, context);
+        int width = size[0];
+        int height = size[1];
+        if (width <= 0 || height <= 0) {
+            return 1;
+        }
+        boolean isSideways = rotation == 90 || rotation == 270;
+        float scale = Math.min(1f, maxWidth / (float) (isSideways ? height : width));
+        long bytes = (long) (width * scale) * (long) (height * scale) * BYTES_PER_PIXEL;
+        if (rotation % 360 != 0) {
+            bytes *= 2;
+        }
+        // the decoder scales down from the subsampled image, which is at most twice as wide and high
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= width * scale) {
+            sampleSize *= 2;
+        }
+        bytes += (long) (width / sampleSize) * (height / sampleSize) * BYTES_PER_PIXEL;
+        int permits = (int) Math.min(mMaxPermits, Math.max(1, bytes / PERMIT_BYTES));
+        AppLog.d(T.UTILS, "image resize queue > " + imageUri + " needs " + permits + " KB");
+        return permits;
+    }
+}
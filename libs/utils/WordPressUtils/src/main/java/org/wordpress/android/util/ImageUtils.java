@@ -29,42 +29,24 @@ import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.DefaultHttpClient;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.ref.WeakReference;
 
 public class ImageUtils {
+    private static final int RESIZE_QUALITY = 100;
+
     public static int[] getImageSize(Uri uri, Context context){
-        String path = null;
+        String path = getImageFilePath(context, uri);
         BitmapFactory.Options options = new BitmapFactory.Options();
         options.inJustDecodeBounds = true;
 
-        if (uri.toString().contains("content:")) {
-            String[] projection = new String[] { MediaStore.Images.Media._ID, MediaStore.Images.Media.DATA };
-            Cursor cur = null;
-            try {
-                cur = context.getContentResolver().query(uri, projection, null, null, null);
-                if (cur != null && cur.moveToFirst()) {
-                    int dataColumn = cur.getColumnIndex(MediaStore.Images.Media.DATA);
-                    path = cur.getString(dataColumn);
-                }
-            } catch (IllegalStateException stateException) {
-                Log.d(ImageUtils.class.getName(), "IllegalStateException querying content:" + uri);
-            } finally {
-                SqlUtils.closeCursor(cur);
-            }
-        }
-
-        if (TextUtils.isEmpty(path)) {
-            //The file isn't ContentResolver, or it can't be access by ContentResolver. Try to access the file directly.
-            path = uri.toString().replace("content://media", "");
-            path = path.replace("file://", "");
-        }
-
         BitmapFactory.decodeFile(path, options);
         int imageHeight = options.outHeight;
         int imageWidth = options.outWidth;
@@ -187,6 +169,37 @@ public class ImageUtils {
     }
 
 
+    /*
+     * returns the passed bitmap rotated by a multiple of 90 degrees, drawn into a pooled bitmap when one is
+     * available - the passed bitmap is returned to the pool since it's no longer needed
+     */
+    private static Bitmap rotateBitmap(Bitmap bitmap, int angle) {
+        if (angle % 360 == 0) {
+            return bitmap;
+        }
+
+        boolean isSideways = angle == 90 || angle == 270;
+        int width = isSideways ? bitmap.getHeight() : bitmap.getWidth();
+        int height = isSideways ? bitmap.getWidth() : bitmap.getHeight();
+        Bitmap.Config config = bitmap.getConfig() != null ? bitmap.getConfig() : Bitmap.Config.ARGB_8888;
+        Bitmap rotated = BitmapPool.createBitmap(width, height, config);
+
+        // rotate around the origin then move the result back into the visible area
+        Matrix matrix = new Matrix();
+        matrix.postRotate(angle);
+        if (angle == 90) {
+            matrix.postTranslate(width, 0);
+        } else if (angle == 180) {
+            matrix.postTranslate(width, height);
+        } else if (angle == 270) {
+            matrix.postTranslate(0, height);
+        }
+        new Canvas(rotated).drawBitmap(bitmap, matrix, new Paint(Paint.FILTER_BITMAP_FLAG));
+
+        releaseBitmap(bitmap);
+        return rotated;
+    }
+
     public interface BitmapWorkerCallback {
         public void onBitmapReady(String filePath, ImageView imageView, Bitmap bitmap);
     }
@@ -219,15 +232,13 @@ public class ImageUtils {
             bfo.inJustDecodeBounds = false;
 
             // get proper rotation
-            int bitmapWidth = 0;
-            int bitmapHeight = 0;
             try {
                 File f = new File(path);
                 ExifInterface exif = new ExifInterface(f.getPath());
                 int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
                 int angle = 0;
                 if (orientation == ExifInterface.ORIENTATION_NORMAL) { // no need to rotate
-                    return BitmapFactory.decodeFile(path, bfo);
+                    return BitmapPool.decodeFile(path, bfo);
                 } else if (orientation == ExifInterface.ORIENTATION_ROTATE_90) {
                     angle = 90;
                 } else if (orientation == ExifInterface.ORIENTATION_ROTATE_180) {
@@ -236,18 +247,13 @@ public class ImageUtils {
                     angle = 270;
                 }
 
-                Matrix mat = new Matrix();
-                mat.postRotate(angle);
-
                 try {
-                    Bitmap bmp = BitmapFactory.decodeStream(new FileInputStream(f), null, bfo);
+                    Bitmap bmp = BitmapPool.decodeFile(f.getPath(), bfo);
                     if (bmp == null) {
                         AppLog.e(AppLog.T.UTILS, "can't decode bitmap: " + f.getPath());
                         return null;
                     }
-                    bitmapWidth = bmp.getWidth();
-                    bitmapHeight = bmp.getHeight();
-                    return Bitmap.createBitmap(bmp, 0, 0, bmp.getWidth(), bmp.getHeight(), mat, true);
+                    return rotateBitmap(bmp, angle);
                 } catch (OutOfMemoryError oom) {
                     AppLog.e(AppLog.T.UTILS, "OutOfMemoryError Error in setting image: " + oom);
                 }
@@ -419,37 +425,85 @@ public class ImageUtils {
         String fileName = MediaUtils.getMediaFileName(file, mimeType);
         String fileExtension = MimeTypeMap.getFileExtensionFromUrl(fileName).toLowerCase();
 
-        int[] dimensions = getImageSize(Uri.fromFile(file), context);
+        String filePath = getImageFilePath(context, Uri.fromFile(file));
+        BitmapFactory.Options bounds = decodeBounds(filePath);
+        if (bounds == null) {
+            return path;
+        }
         int orientation = getImageOrientation(context, path);
 
-        if (dimensions[0] <= maxWidth) {
+        if (getRotatedWidth(bounds, orientation) <= maxWidth) {
             // Image width is within limits; don't resize
             return path;
         }
 
         // Create resized image
-        byte[] bytes = ImageUtils.createThumbnailFromUri(context, Uri.parse(path), maxWidth, fileExtension, orientation);
+        try {
+            File resizedImageFile = File.createTempFile("wp-image-", fileExtension);
+            if (resizeImageToFile(filePath, bounds, maxWidth, fileExtension, orientation, resizedImageFile)) {
+                return resizedImageFile.getPath();
+            }
+            AppLog.e(AppLog.T.POSTS, "Failed to create resized image");
+            resizedImageFile.delete();
+        } catch (IOException e) {
+            AppLog.e(AppLog.T.POSTS, "Failed to create image temp file");
+        }
 
-        if (bytes != null) {
-            try {
-                File resizedImageFile = File.createTempFile("wp-image-", fileExtension);
-                FileOutputStream out = new FileOutputStream(resizedImageFile);
-                out.write(bytes);
-                out.close();
+        return path;
+    }
 
-                String tempFilePath = resizedImageFile.getPath();
+    /**
+     * Resizes the passed image to the passed width (after rotation) and writes it to the passed file. The image is
+     * decoded once, already scaled to its final size, and compressed straight to the file, so the only full bitmap
+     * in memory is the resized one (two of them when the image has to be rotated).
+     *
+     * @return true if the resized image was written
+     */
+    public static boolean resizeImageToFile(Context context,
+                                            Uri imageUri,
+                                            int maxWidth,
+                                            String fileExtension,
+                                            int rotation,
+                                            File destFile) {
+        if (context == null || imageUri == null || maxWidth <= 0 || destFile == null) {
+            return false;
+        }
+        String filePath = getImageFilePath(context, imageUri);
+        BitmapFactory.Options bounds = decodeBounds(filePath);
+        if (bounds == null) {
+            return false;
+        }
+        return resizeImageToFile(filePath, bounds, maxWidth, fileExtension, rotation, destFile);
+    }
+
+    private static boolean resizeImageToFile(String filePath,
+                                             BitmapFactory.Options bounds,
+                                             int maxWidth,
+                                             String fileExtension,
+                                             int rotation,
+                                             File destFile) {
+        Bitmap bitmap = decodeResizedBitmap(filePath, bounds, maxWidth, rotation);
+        if (bitmap == null) {
+            return false;
+        }
 
-                if (!TextUtils.isEmpty(tempFilePath)) {
-                    return tempFilePath;
-                } else {
-                    AppLog.e(AppLog.T.POSTS, "Failed to create resized image");
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(destFile));
+            return bitmap.compress(getCompressFormat(fileExtension), RESIZE_QUALITY, out);
+        } catch (IOException e) {
+            AppLog.e(AppLog.T.UTILS, "Failed to write resized image", e);
+            return false;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    AppLog.e(AppLog.T.UTILS, e);
                 }
-            } catch (IOException e) {
-                AppLog.e(AppLog.T.POSTS, "Failed to create image temp file");
             }
+            releaseBitmap(bitmap);
         }
-
-        return path;
     }
 
     /**
@@ -464,6 +518,27 @@ public class ImageUtils {
         if (context == null || imageUri == null || maxWidth <= 0)
             return null;
 
+        String filePath = getImageFilePath(context, imageUri);
+        BitmapFactory.Options bounds = decodeBounds(filePath);
+        if (bounds == null) {
+            return null;
+        }
+
+        Bitmap bitmap = decodeResizedBitmap(filePath, bounds, maxWidth, rotation);
+        if (bitmap == null) {
+            return null;
+        }
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        bitmap.compress(getCompressFormat(fileExtension), RESIZE_QUALITY, stream);
+        releaseBitmap(bitmap);
+        return stream.toByteArray();
+    }
+
+    /*
+     * returns the path of the image file the passed uri points to
+     */
+    private static String getImageFilePath(Context context, Uri imageUri) {
         String filePath = null;
         if (imageUri.toString().contains("content:")) {
             String[] projection = new String[] { MediaStore.Images.Media.DATA };
@@ -486,94 +561,80 @@ public class ImageUtils {
             filePath = imageUri.toString().replace("content://media", "");
             filePath = filePath.replace("file://", "");
         }
+        return filePath;
+    }
 
-        // get just the image bounds
-        BitmapFactory.Options optBounds = new BitmapFactory.Options();
-        optBounds.inJustDecodeBounds = true;
-
-        try {
-            BitmapFactory.decodeFile(filePath, optBounds);
-        } catch (OutOfMemoryError e) {
-            AppLog.e(AppLog.T.UTILS, "OutOfMemoryError Error in setting image: " + e);
-            return null;
-        }
-
-        // determine correct scale value (should be power of 2)
-        // http://stackoverflow.com/questions/477572/android-strange-out-of-memory-issue/3549021#3549021
-        int scale = 1;
-        if (maxWidth > 0 && optBounds.outWidth > maxWidth) {
-            double d = Math.pow(2, (int) Math.round(Math.log(maxWidth / (double) optBounds.outWidth) / Math.log(0.5)));
-            scale = (int) d;
-        }
-
-        BitmapFactory.Options optActual = new BitmapFactory.Options();
-        optActual.inSampleSize = scale;
-
-        // Get the roughly resized bitmap
-        final Bitmap bmpResized;
+    /*
+     * returns the options holding the dimensions of the passed image, or null if it can't be decoded
+     */
+    private static BitmapFactory.Options decodeBounds(String filePath) {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
         try {
-            bmpResized = BitmapFactory.decodeFile(filePath, optActual);
+            BitmapFactory.decodeFile(filePath, bounds);
         } catch (OutOfMemoryError e) {
             AppLog.e(AppLog.T.UTILS, "OutOfMemoryError Error in setting image: " + e);
             return null;
         }
-
-        if (bmpResized == null) {
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
             return null;
         }
+        return bounds;
+    }
 
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-
-        // Now calculate exact scale in order to resize accurately
-        float percentage = (float) maxWidth / bmpResized.getWidth();
-        float proportionateHeight = bmpResized.getHeight() * percentage;
-        int finalHeight = (int) Math.rint(proportionateHeight);
-
-        float scaleWidth = ((float) maxWidth) / bmpResized.getWidth();
-        float scaleHeight = ((float) finalHeight) / bmpResized.getHeight();
-
-        float scaleBy = Math.min(scaleWidth, scaleHeight);
+    private static int getRotatedWidth(BitmapFactory.Options bounds, int rotation) {
+        return (rotation == 90 || rotation == 270) ? bounds.outHeight : bounds.outWidth;
+    }
 
-        // Resize the bitmap to exact size
-        Matrix matrix = new Matrix();
-        matrix.postScale(scaleBy, scaleBy);
+    /*
+     * decodes the passed image scaled so it's no wider than maxWidth once it's rotated - the decoder
+     * subsamples by the largest power of two which keeps the image at least as large as needed and scales
+     * the rest of the way through inDensity/inTargetDensity, so no intermediate full-size bitmap is made
+     */
+    private static Bitmap decodeResizedBitmap(String filePath, BitmapFactory.Options bounds, int maxWidth,
+                                              int rotation) {
+        float scale = Math.min(1f, maxWidth / (float) getRotatedWidth(bounds, rotation));
+        int targetWidth = Math.max(1, Math.round(bounds.outWidth * scale));
 
-        // apply rotation
-        if (rotation != 0) {
-            matrix.setRotate(rotation);
+        int sampleSize = 1;
+        while (bounds.outWidth / (sampleSize * 2) >= targetWidth) {
+            sampleSize *= 2;
         }
 
-        Bitmap.CompressFormat fmt;
-        if (fileExtension != null && fileExtension.equalsIgnoreCase("png")) {
-            fmt = Bitmap.CompressFormat.PNG;
-        } else {
-            fmt = Bitmap.CompressFormat.JPEG;
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.outWidth = bounds.outWidth;
+        options.outHeight = bounds.outHeight;
+        options.inSampleSize = sampleSize;
+        if (targetWidth < bounds.outWidth / sampleSize) {
+            options.inScaled = true;
+            options.inDensity = bounds.outWidth;
+            options.inTargetDensity = targetWidth * sampleSize;
         }
 
-        final Bitmap bmpRotated;
+        Bitmap bitmap;
         try {
-            bmpRotated = Bitmap.createBitmap(bmpResized, 0, 0, bmpResized.getWidth(), bmpResized.getHeight(), matrix,
-                    true);
+            bitmap = BitmapPool.decodeFile(filePath, options);
+            if (bitmap != null) {
+                bitmap = rotateBitmap(bitmap, rotation);
+            }
         } catch (OutOfMemoryError e) {
             AppLog.e(AppLog.T.UTILS, "OutOfMemoryError Error in setting image: " + e);
             return null;
-        } catch (NullPointerException e) {
-            // See: https://github.com/wordpress-mobile/WordPress-Android/issues/1844
-            AppLog.e(AppLog.T.UTILS, "Bitmap.createBitmap has thrown a NPE internally. This should never happen: " + e);
-            return null;
         }
+        return bitmap;
+    }
 
-        if (bmpRotated == null) {
-            // Fix an issue where bmpRotated is null even if the documentation doesn't say Bitmap.createBitmap can return null.
-            // See: https://github.com/wordpress-mobile/WordPress-Android/issues/1848
-            return null;
+    private static Bitmap.CompressFormat getCompressFormat(String fileExtension) {
+        if (fileExtension != null && fileExtension.equalsIgnoreCase("png")) {
+            return Bitmap.CompressFormat.PNG;
         }
+        return Bitmap.CompressFormat.JPEG;
+    }
 
-        bmpRotated.compress(fmt, 100, stream);
-        bmpResized.recycle();
-        bmpRotated.recycle();
-
-        return stream.toByteArray();
+    private static void releaseBitmap(Bitmap bitmap) {
+        if (!BitmapPool.put(bitmap)) {
+            bitmap.recycle();
+        }
     }
 
     public static Bitmap getCircularBitmap(final Bitmap bitmap) {
@@ -8,6 +8,7 @@ import org.json.JSONObject;
 import org.wordpress.android.util.AppLog.T;
 
 import java.util.ArrayList;
+import java.util.List;
 
 public class JSONUtils {
     private static String QUERY_SEPERATOR = ".";
@@ -151,6 +152,144 @@ public class JSONUtils {
         }
     }
 
+    /**
+     * Parses a query in the format used by queryJSON() (e.g. meta.ids.comment or body[last].text) once, so
+     * the returned CompiledQuery can be run against any number of objects without re-parsing the query.
+     * Throws IllegalArgumentException if the query isn't valid - queries are expected to be constants.
+     */
+    public static CompiledQuery compileQuery(String query) {
+        if (query == null) {
+            throw new IllegalArgumentException("query is null");
+        }
+        // a query is a key followed by any number of .key and [index] steps
+        List<String> keys = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int length = query.length();
+        int pos = addQueryKey(query, 0, keys, indexes);
+        while (pos < length) {
+            if (query.charAt(pos) == '.') {
+                pos = addQueryKey(query, pos + 1, keys, indexes);
+                continue;
+            }
+            // must be an index
+            int indexEnd = query.indexOf(QUERY_ARRAY_INDEX_END, pos);
+            if (indexEnd == -1) {
+                throw new IllegalArgumentException("Incorrect query " + query);
+            }
+            String indexStr = query.substring(pos + 1, indexEnd);
+            if (indexStr.equals(QUERY_ARRAY_FIRST)) {
+                indexes.add(0);
+            } else if (indexStr.equals(QUERY_ARRAY_LAST)) {
+                indexes.add(-1);
+            } else {
+                indexes.add(Integer.parseInt(indexStr));
+            }
+            keys.add(null);
+            pos = indexEnd + 1;
+            if (pos < length && query.charAt(pos) != '.' && query.charAt(pos) != '[') {
+                throw new IllegalArgumentException("Incorrect query " + query);
+            }
+        }
+
+        String[] keyArray = keys.toArray(new String[keys.size()]);
+        int[] indexArray = new int[indexes.size()];
+        for (int i = 0; i < indexArray.length; i++) {
+            indexArray[i] = indexes.get(i);
+        }
+        return new CompiledQuery(query, keyArray, indexArray);
+    }
+
+    /*
+     * adds the key starting at pos to the compiled query, returns the position after it
+     */
+    private static int addQueryKey(String query, int pos, List<String> keys, List<Integer> indexes) {
+        int end = pos;
+        while (end < query.length() && query.charAt(end) != '.' && query.charAt(end) != '[') {
+            end++;
+        }
+        keys.add(query.substring(pos, end));
+        indexes.add(0);
+        return end;
+    }
+
+    /**
+     * A query parsed by compileQuery() - it's immutable so a single instance can be shared by any thread
+     */
+    public static final class CompiledQuery {
+        private final String mQuery;
+        // each step is either a key (mKeys[i] != null) or an array index (mKeys[i] == null), negative
+        // indexes count from the end of the array
+        private final String[] mKeys;
+        private final int[] mIndexes;
+
+        private CompiledQuery(String query, String[] keys, int[] indexes) {
+            mQuery = query;
+            mKeys = keys;
+            mIndexes = indexes;
+        }
+
+        /**
+         * Same as queryJSON(JSONObject, String, U) for this query
+         */
+        public <U> U query(JSONObject source, U defaultObject) {
+            if (source == null) {
+                AppLog.e(T.UTILS, "Parameter source is null, can't query a null object");
+                return defaultObject;
+            }
+            return query(source, 0, defaultObject);
+        }
+
+        /**
+         * Same as queryJSON(JSONArray, String, U) for this query - as there, anything before the first
+         * index is ignored
+         */
+        public <U> U query(JSONArray source, U defaultObject) {
+            if (source == null) {
+                AppLog.e(T.UTILS, "Parameter source is null, can't query a null object");
+                return defaultObject;
+            }
+            for (int i = 0; i < mKeys.length; i++) {
+                if (mKeys[i] == null) {
+                    return query(source, i, defaultObject);
+                }
+            }
+            return defaultObject;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <U> U query(Object node, int firstStep, U defaultObject) {
+            for (int i = firstStep; i < mKeys.length; i++) {
+                if (mKeys[i] != null) {
+                    if (!(node instanceof JSONObject)) {
+                        return defaultObject;
+                    }
+                    node = ((JSONObject) node).opt(mKeys[i]);
+                } else {
+                    if (!(node instanceof JSONArray)) {
+                        return defaultObject;
+                    }
+                    JSONArray array = (JSONArray) node;
+                    int index = mIndexes[i] < 0 ? array.length() + mIndexes[i] : mIndexes[i];
+                    node = array.opt(index);
+                }
+                if (node == null) {
+                    return defaultObject;
+                }
+            }
+            if (defaultObject == null || node.getClass().isAssignableFrom(defaultObject.getClass())) {
+                return (U) node;
+            }
+            AppLog.w(T.UTILS, String.format("The returned object type %s is not assignable to the type %s. Using default!",
+                    node.getClass(), defaultObject.getClass()));
+            return defaultObject;
+        }
+
+        @Override
+        public String toString() {
+            return mQuery;
+        }
+    }
+
     /**
      * Convert a JSONArray (expected to contain strings) in a string list
      */
@@ -3,6 +3,7 @@ package org.wordpress.android.util;
 import android.app.Activity;
 import android.content.Context;
 import android.content.CursorLoader;
+import android.content.res.AssetFileDescriptor;
 import android.database.Cursor;
 import android.graphics.BitmapFactory;
 import android.net.Uri;
@@ -146,6 +147,35 @@ public class MediaUtils {
         }
     }
 
+    /*
+     * returns the size in bytes of the passed file path or content:// uri, or 0 if it can't be determined
+     */
+    public static long getFileSize(Context context, String path) {
+        if (TextUtils.isEmpty(path)) {
+            return 0;
+        }
+        if (!path.startsWith("content://")) {
+            return new File(path).length();
+        }
+        AssetFileDescriptor fileDescriptor = null;
+        try {
+            fileDescriptor = context.getContentResolver().openAssetFileDescriptor(Uri.parse(path), "r");
+            // the length is UNKNOWN_LENGTH for some providers
+            return fileDescriptor != null ? Math.max(0, fileDescriptor.getLength()) : 0;
+        } catch (FileNotFoundException | SecurityException e) {
+            AppLog.e(T.UTILS, "Can't get the size of " + path, e);
+            return 0;
+        } finally {
+            if (fileDescriptor != null) {
+                try {
+                    fileDescriptor.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
     public static Uri downloadExternalMedia(Context context, Uri imageUri) {
         if (context == null || imageUri == null) {
             return null;